@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.benchmark;
+import com.github.chungkwong.classifier.*;
+import com.github.chungkwong.classifier.util.*;
+import com.github.chungkwong.classifier.validator.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+/**
+ * Benchmarks of training and classification for each kind of
+ * BagClassifierFactory on a synthetic corpus
+ * @author Chan Chung Kwong
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations=3,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+public class ClassifierBenchmark{
+	@Param({"BAYESIAN","TF_IDF","K_NEAREST","C45","SVM"})
+	public String classifier;
+	@Param({"1000","10000"})
+	public int documentCount;
+	@Param({"100"})
+	public int length;
+	@Param({"20000"})
+	public int vocabularySize;
+	@Param({"10"})
+	public int categoryCount;
+	private BagClassifierFactory factory;
+	private List<Sample<Frequencies<String>>> trainSamples;
+	private List<Sample<Frequencies<String>>> testSamples;
+	private TokenFrequenciesModel<String> model;
+	private Classifier<Frequencies<String>> trained;
+	private int next;
+	@Setup(Level.Trial)
+	public void setup(){
+		switch(classifier){
+			case "BAYESIAN":
+				factory=new BayesianClassifierFactory<String>();
+				break;
+			case "TF_IDF":
+				factory=new TfIdfClassifierFactory<String>();
+				break;
+			case "K_NEAREST":
+				factory=new KNearestClassifierFactory<String>().setMetric(KNearestClassifierFactory.Metric.COSINE);
+				break;
+			case "C45":
+				factory=new C45ClassifierFactory<String>();
+				break;
+			case "SVM":
+				factory=new SvmClassifierFactory<String>();
+				break;
+			default:
+				throw new IllegalArgumentException(classifier);
+		}
+		Corpus corpus=new Corpus(Locale.ENGLISH,vocabularySize,categoryCount,0);
+		trainSamples=corpus.nextSamples(documentCount,length);
+		testSamples=corpus.nextSamples(1000,length);
+		model=trainModel();
+		trained=factory.getClassifier(model);
+	}
+	private TokenFrequenciesModel<String> trainModel(){
+		TokenFrequenciesModel<String> newModel=(TokenFrequenciesModel<String>)factory.createModel();
+		newModel.train(trainSamples.stream());
+		return newModel;
+	}
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public TokenFrequenciesModel<String> train(){
+		return trainModel();
+	}
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Classifier<Frequencies<String>> getClassifier(){
+		return factory.getClassifier(model);
+	}
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public List<ClassificationResult> getCandidates(){
+		next=(next+1)%testSamples.size();
+		return trained.getCandidates(testSamples.get(next).getData(),3);
+	}
+}
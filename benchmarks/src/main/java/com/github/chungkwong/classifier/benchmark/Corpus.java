@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.benchmark;
+import com.github.chungkwong.classifier.*;
+import com.github.chungkwong.classifier.util.*;
+import com.github.chungkwong.classifier.validator.*;
+import java.util.*;
+/**
+ * Generator of synthetic corpora, word frequencies are roughly Zipfian and
+ * each category prefer a region of the vocabulary, so that classifiers have
+ * something to learn
+ * @author Chan Chung Kwong
+ */
+public class Corpus{
+	private static final String[] LATIN_SUFFIXES=new String[]{"","s","es","ed","ing","er","en","ung","ment","tion","ar","ir","os","as","eren","heit"};
+	private final String[] vocabulary;
+	private final String separator;
+	private final int categoryCount;
+	private final Random random;
+	/**
+	 * Create a corpus generator
+	 * @param locale the language of the words
+	 * @param vocabularySize the number of distinct words
+	 * @param categoryCount the number of categories
+	 * @param seed the seed
+	 */
+	public Corpus(Locale locale,int vocabularySize,int categoryCount,long seed){
+		this.random=new Random(seed);
+		this.categoryCount=categoryCount;
+		String language=locale.getISO3Language();
+		this.separator=language.equals("zho")||language.equals("jpn")?"":" ";
+		this.vocabulary=new String[vocabularySize];
+		for(int i=0;i<vocabularySize;i++){
+			vocabulary[i]=generateWord(language);
+		}
+	}
+	private String generateWord(String language){
+		switch(language){
+			case "zho":
+			case "jpn":
+				return new String(Character.toChars(0x4E00+random.nextInt(0x5000)));
+			case "rus":
+				return generateWord("абвгдежзийклмнопрстуфхцчшщыьэюя","");
+			case "ara":
+				return generateWord("ابتثجحخدذرزسشصضطظعغفقكلمنهوي","");
+			case "tam":
+				return generateWord("கஙசஞடணதநபமயரலவழளறன","");
+			default:
+				return generateWord("abcdefghijklmnopqrstuvwxyz",LATIN_SUFFIXES[random.nextInt(LATIN_SUFFIXES.length)]);
+		}
+	}
+	private String generateWord(String letters,String suffix){
+		StringBuilder buf=new StringBuilder();
+		for(int i=random.nextInt(6)+2;i>0;i--){
+			buf.append(letters.charAt(random.nextInt(letters.length())));
+		}
+		return buf.append(suffix).toString();
+	}
+	private int nextWord(int category){
+		//Roughly Zipfian, half of the words are drawn from a category specific region
+		int word=(int)Math.min(vocabulary.length-1,Math.exp(random.nextDouble()*Math.log(vocabulary.length)));
+		if(random.nextBoolean()){
+			word=(word+category*vocabulary.length/categoryCount)%vocabulary.length;
+		}
+		return word;
+	}
+	/**
+	 * Generate a text
+	 * @param category the category of the text
+	 * @param length the number of words
+	 * @return the text
+	 */
+	public String nextText(int category,int length){
+		StringBuilder buf=new StringBuilder();
+		for(int i=0;i<length;i++){
+			if(i>0){
+				buf.append(i%12==0?". ":separator);
+			}
+			buf.append(vocabulary[nextWord(category)]);
+		}
+		return buf.append('.').toString();
+	}
+	/**
+	 * Generate texts
+	 * @param count the number of texts
+	 * @param length the number of words in each text
+	 * @return the texts
+	 */
+	public String[] nextTexts(int count,int length){
+		String[] texts=new String[count];
+		for(int i=0;i<count;i++){
+			texts[i]=nextText(random.nextInt(categoryCount),length);
+		}
+		return texts;
+	}
+	/**
+	 * Generate a token list
+	 * @param count the number of tokens
+	 * @return the tokens
+	 */
+	public List<String> nextTokens(int count){
+		List<String> tokens=new ArrayList<>(count);
+		for(int i=0;i<count;i++){
+			tokens.add(vocabulary[nextWord(random.nextInt(categoryCount))]);
+		}
+		return tokens;
+	}
+	/**
+	 * Generate preprocessed samples
+	 * @param count the number of samples
+	 * @param length the number of words in each sample
+	 * @return the samples
+	 */
+	public List<Sample<Frequencies<String>>> nextSamples(int count,int length){
+		List<Sample<Frequencies<String>>> samples=new ArrayList<>(count);
+		for(int i=0;i<count;i++){
+			int category=random.nextInt(categoryCount);
+			Frequencies<String> frequencies=new Frequencies<>(true);
+			for(int j=0;j<length;j++){
+				frequencies.advanceFrequency(vocabulary[nextWord(category)]);
+			}
+			samples.add(new Sample<>(frequencies,new Category(Integer.toString(category))));
+		}
+		return samples;
+	}
+}
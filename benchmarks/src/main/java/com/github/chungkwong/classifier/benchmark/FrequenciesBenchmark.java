@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.benchmark;
+import com.github.chungkwong.classifier.util.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+/**
+ * Benchmarks of operations on Frequencies with each backend
+ * @author Chan Chung Kwong
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+public class FrequenciesBenchmark{
+	@Param({"TREE_MAP","HASH_MAP","OPEN_ADDRESSING"})
+	public Frequencies.Backend backend;
+	@Param({"1000","100000"})
+	public int vocabularySize;
+	@Param({"1000"})
+	public int length;
+	private List<String>[] documents;
+	private Frequencies<String> table;
+	private Frequencies<String> document;
+	private int next;
+	@Setup(Level.Trial)
+	public void setup(){
+		Corpus corpus=new Corpus(Locale.ENGLISH,vocabularySize,10,0);
+		documents=new List[100];
+		for(int i=0;i<documents.length;i++){
+			documents[i]=corpus.nextTokens(length);
+		}
+		table=new Frequencies<>(backend);
+		corpus.nextTokens(vocabularySize*10).forEach(table::advanceFrequency);
+		document=new Frequencies<>(backend);
+		documents[0].forEach(document::advanceFrequency);
+	}
+	private List<String> nextDocument(){
+		next=(next+1)%documents.length;
+		return documents[next];
+	}
+	@Benchmark
+	public Frequencies<String> advanceFrequency(){
+		Frequencies<String> frequencies=new Frequencies<>(backend);
+		for(String token:nextDocument()){
+			frequencies.advanceFrequency(token);
+		}
+		return frequencies;
+	}
+	@Benchmark
+	public long getFrequency(){
+		long sum=0;
+		for(String token:nextDocument()){
+			sum+=table.getFrequency(token);
+		}
+		return sum;
+	}
+	@Benchmark
+	public Frequencies<String> merge(){
+		Frequencies<String> frequencies=new Frequencies<>(backend);
+		frequencies.merge(document);
+		frequencies.merge(document);
+		return frequencies;
+	}
+	@Benchmark
+	public void forEachFrequency(Blackhole blackhole){
+		table.forEachFrequency((token,count)->blackhole.consume(count));
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.benchmark;
+import com.github.chungkwong.classifier.*;
+import com.github.chungkwong.classifier.util.*;
+import java.text.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.regex.*;
+import java.util.stream.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+/**
+ * Benchmarks of each stage of text preprocessing, each invocation process
+ * a synthetic text
+ * @author Chan Chung Kwong
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3,time=2)
+@Measurement(iterations=5,time=2)
+@Fork(1)
+public class PreprocessorBenchmark{
+	@Param({"en","fr","de","es","it","pt","nl","sv","ru","ar","tr","fi","hu","id","ta","zh"})
+	public String language;
+	@Param({"200"})
+	public int length;
+	@Param({"20000"})
+	public int vocabularySize;
+	private String[] texts;
+	private List<String>[] tokens;
+	private int next;
+	private Function<String,Stream<String>> javaTokenizer;
+	private Function<String,Stream<String>> icuTokenizer;
+	private Function<String,Stream<String>> wordTokenizer;
+	private Function<String,String> javaNormalizer;
+	private Function<String,String> icuTransformer;
+	private Function<Stream<String>,Stream<String>> foldcaser;
+	private Function<Stream<String>,Stream<String>> stemmer;
+	private Function<Stream<String>,Stream<String>> cachedStemmer;
+	private Function<Stream<String>,Stream<String>> lovinsStemmer;
+	private Function<Stream<String>,Stream<String>> bigramGenerator;
+	private Function<String,Frequencies<String>> defaultPreprocessor;
+	private Function<String,Frequencies<String>> stemmingPreprocessor;
+	private Function<String,Frequencies<String>> streamPreprocessor;
+	@Setup(Level.Trial)
+	public void setup(){
+		Locale locale=Locale.forLanguageTag(language);
+		Corpus corpus=new Corpus(locale,vocabularySize,10,0);
+		texts=corpus.nextTexts(1000,length);
+		tokens=new List[texts.length];
+		for(int i=0;i<texts.length;i++){
+			tokens[i]=corpus.nextTokens(length);
+		}
+		javaTokenizer=TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(locale));
+		icuTokenizer=TextPreprocessors.getIcuTokenizer(com.ibm.icu.text.BreakIterator.getWordInstance(locale));
+		wordTokenizer=TextPreprocessors.getWordTokenizer(Pattern.compile("\\p{L}+"),false);
+		javaNormalizer=TextPreprocessors.getJavaNormalizier(Normalizer.Form.NFKC);
+		icuTransformer=TextPreprocessors.getIcuTransformer("Traditional-Simplified");
+		foldcaser=TextPreprocessors.getFoldcaser();
+		stemmer=TextPreprocessors.getStemmer(locale);
+		cachedStemmer=TextPreprocessors.getCachedStemmer(locale,10000);
+		lovinsStemmer=TextPreprocessors.getLovinsStemmer();
+		bigramGenerator=TextPreprocessors.getNgramGenerator(2);
+		defaultPreprocessor=Starter.getDefaultPreprocessor(locale,false);
+		stemmingPreprocessor=Starter.getDefaultPreprocessor(locale,true);
+		streamPreprocessor=getStreamPreprocessor(locale);
+	}
+	/**
+	 * The stream-based counterpart of Starter.getDefaultPreprocessor(locale,false)
+	 */
+	private static Function<String,Frequencies<String>> getStreamPreprocessor(Locale locale){
+		Function<String,String> preTokenize=TextPreprocessors.getJavaNormalizier(Normalizer.Form.NFKC);
+		Function<String,Stream<String>> tokenizer;
+		Function<Stream<String>,Stream<String>> postTokenize=TextPreprocessors.getWhitespaceFilter().andThen(TextPreprocessors.getFoldcaser());
+		if(Locale.CHINESE.getISO3Language().equals(locale.getISO3Language())){
+			tokenizer=TextPreprocessors.getJavaTokenizer(BreakIterator.getCharacterInstance(locale));
+			postTokenize=postTokenize.andThen(TextPreprocessors.getNgramGenerator(2));
+			preTokenize=preTokenize.andThen(TextPreprocessors.getIcuTransformer("Traditional-Simplified"));
+		}else{
+			tokenizer=TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(locale));
+		}
+		return TextPreprocessors.of(preTokenize,tokenizer,postTokenize);
+	}
+	private String nextText(){
+		next=(next+1)%texts.length;
+		return texts[next];
+	}
+	private Stream<String> nextTokens(){
+		next=(next+1)%tokens.length;
+		return tokens[next].stream();
+	}
+	@Benchmark
+	public void javaTokenizer(Blackhole blackhole){
+		javaTokenizer.apply(nextText()).forEach(blackhole::consume);
+	}
+	@Benchmark
+	public void icuTokenizer(Blackhole blackhole){
+		icuTokenizer.apply(nextText()).forEach(blackhole::consume);
+	}
+	@Benchmark
+	public void wordTokenizer(Blackhole blackhole){
+		wordTokenizer.apply(nextText()).forEach(blackhole::consume);
+	}
+	@Benchmark
+	public String javaNormalizer(){
+		return javaNormalizer.apply(nextText());
+	}
+	@Benchmark
+	public String icuTransformer(){
+		return icuTransformer.apply(nextText());
+	}
+	@Benchmark
+	public void foldcaser(Blackhole blackhole){
+		foldcaser.apply(nextTokens()).forEach(blackhole::consume);
+	}
+	@Benchmark
+	public void stemmer(Blackhole blackhole){
+		stemmer.apply(nextTokens()).forEach(blackhole::consume);
+	}
+	@Benchmark
+	public void lovinsStemmer(Blackhole blackhole){
+		lovinsStemmer.apply(nextTokens()).forEach(blackhole::consume);
+	}
+	@Benchmark
+	public void cachedStemmer(Blackhole blackhole){
+		cachedStemmer.apply(nextTokens()).forEach(blackhole::consume);
+	}
+	@Benchmark
+	public void bigramGenerator(Blackhole blackhole){
+		bigramGenerator.apply(nextTokens()).forEach(blackhole::consume);
+	}
+	@Benchmark
+	public Frequencies<String> defaultPreprocessor(){
+		return defaultPreprocessor.apply(nextText());
+	}
+	@Benchmark
+	public Frequencies<String> stemmingPreprocessor(){
+		return stemmingPreprocessor.apply(nextText());
+	}
+	@Benchmark
+	public Frequencies<String> streamPreprocessor(){
+		return streamPreprocessor.apply(nextText());
+	}
+}
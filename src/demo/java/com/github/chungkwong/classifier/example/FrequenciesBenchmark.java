@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.example;
+import com.github.chungkwong.classifier.util.*;
+import java.util.*;
+/**
+ * Compare memory usage and update throughput of the backends of Frequencies
+ * @author Chan Chung Kwong
+ */
+public class FrequenciesBenchmark{
+	private static final int TOKEN_COUNT=1000000;
+	private static final int UPDATE_COUNT=10000000;
+	public static void main(String[] args){
+		String[] tokens=new String[TOKEN_COUNT];
+		for(int i=0;i<TOKEN_COUNT;i++){
+			tokens[i]="token"+i;
+		}
+		int[] updates=new int[UPDATE_COUNT];
+		Random random=new Random(0);
+		for(int i=0;i<UPDATE_COUNT;i++){
+			//Roughly Zipfian, as word frequencies in natural language
+			updates[i]=(int)Math.min(TOKEN_COUNT-1,Math.exp(random.nextDouble()*Math.log(TOKEN_COUNT)));
+		}
+		for(int round=0;round<2;round++){
+			for(Frequencies.Backend backend:Frequencies.Backend.values()){
+				benchmark(backend,tokens,updates);
+			}
+		}
+	}
+	private static void benchmark(Frequencies.Backend backend,String[] tokens,int[] updates){
+		long before=getUsedMemory();
+		Frequencies<String> frequencies=new Frequencies<>(backend);
+		for(String token:tokens){
+			frequencies.advanceFrequency(token);
+		}
+		long after=getUsedMemory();
+		long time=System.nanoTime();
+		for(int update:updates){
+			frequencies.advanceFrequency(tokens[update]);
+		}
+		time=System.nanoTime()-time;
+		System.out.println(String.format("%s:\t%.1f bytes per token\t%.2f million updates per second",
+				backend,((double)(after-before))/frequencies.getTokenCount(),updates.length*1000.0/time));
+	}
+	private static long getUsedMemory(){
+		Runtime runtime=Runtime.getRuntime();
+		for(int i=0;i<3;i++){
+			System.gc();
+		}
+		return runtime.totalMemory()-runtime.freeMemory();
+	}
+}
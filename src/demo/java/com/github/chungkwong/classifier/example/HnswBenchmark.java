@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.example;
+import com.github.chungkwong.classifier.util.*;
+import java.util.*;
+/**
+ * Compare recall and latency of approximate nearest neighbor search through
+ * HnswIndex with exact search over the same normalized sparse vectors
+ * @author Chan Chung Kwong
+ */
+public class HnswBenchmark{
+	private static final int DOCUMENT_COUNT=20000;
+	private static final int QUERY_COUNT=1000;
+	private static final int TOKEN_COUNT=20000;
+	private static final int TOPIC_COUNT=50;
+	private static final int DOCUMENT_LENGTH=100;
+	private static final int K=10;
+	public static void main(String[] args){
+		Random random=new Random(0);
+		List<int[]> ids=new ArrayList<>(DOCUMENT_COUNT);
+		List<double[]> weights=new ArrayList<>(DOCUMENT_COUNT);
+		for(int i=0;i<DOCUMENT_COUNT;i++){
+			generate(random,ids,weights);
+		}
+		List<int[]> queryIds=new ArrayList<>(QUERY_COUNT);
+		List<double[]> queryWeights=new ArrayList<>(QUERY_COUNT);
+		for(int i=0;i<QUERY_COUNT;i++){
+			generate(random,queryIds,queryWeights);
+		}
+		long time=System.nanoTime();
+		HnswIndex index=new HnswIndex(16,100,0);
+		for(int i=0;i<DOCUMENT_COUNT;i++){
+			index.add(ids.get(i),weights.get(i));
+		}
+		time=System.nanoTime()-time;
+		System.out.println(String.format("Built index of %d vectors in %.1f s",DOCUMENT_COUNT,time/1e9));
+		int[][] postingDocuments=new int[TOKEN_COUNT][];
+		double[][] postingWeights=new double[TOKEN_COUNT][];
+		buildPostings(ids,weights,postingDocuments,postingWeights);
+		int[][] exact=new int[QUERY_COUNT][];
+		time=System.nanoTime();
+		for(int i=0;i<QUERY_COUNT;i++){
+			exact[i]=searchExactly(queryIds.get(i),queryWeights.get(i),postingDocuments,postingWeights);
+		}
+		time=System.nanoTime()-time;
+		System.out.println(String.format("exact:\trecall 1.000\t%.3f ms per query",time/1e6/QUERY_COUNT));
+		for(int ef:new int[]{10,20,50,100,200,400}){
+			long found=0;
+			time=System.nanoTime();
+			int[][] approximate=new int[QUERY_COUNT][];
+			for(int i=0;i<QUERY_COUNT;i++){
+				approximate[i]=index.search(queryIds.get(i),queryWeights.get(i),K,ef);
+			}
+			time=System.nanoTime()-time;
+			for(int i=0;i<QUERY_COUNT;i++){
+				Set<Integer> expected=new HashSet<>();
+				for(int document:exact[i]){
+					expected.add(document);
+				}
+				for(int document:approximate[i]){
+					if(expected.contains(document)){
+						++found;
+					}
+				}
+			}
+			System.out.println(String.format("ef=%d:\trecall %.3f\t%.3f ms per query",
+					ef,((double)found)/(QUERY_COUNT*K),time/1e6/QUERY_COUNT));
+		}
+	}
+	private static void generate(Random random,List<int[]> ids,List<double[]> weights){
+		int topic=random.nextInt(TOPIC_COUNT);
+		Frequencies<Integer> frequencies=new Frequencies<>(Frequencies.Backend.OPEN_ADDRESSING);
+		for(int j=0;j<DOCUMENT_LENGTH;j++){
+			//Roughly Zipfian, half of the tokens are drawn from a topic specific region
+			int token=(int)Math.min(TOKEN_COUNT-1,Math.exp(random.nextDouble()*Math.log(TOKEN_COUNT)));
+			if(random.nextBoolean()){
+				token=(token+topic*TOKEN_COUNT/TOPIC_COUNT)%TOKEN_COUNT;
+			}
+			frequencies.advanceFrequency(token);
+		}
+		SortedMap<Integer,Counter> sorted=frequencies.toSortedMap();
+		int[] vectorIds=new int[sorted.size()];
+		double[] vectorWeights=new double[sorted.size()];
+		double norm=0;
+		int i=0;
+		for(Map.Entry<Integer,Counter> e:sorted.entrySet()){
+			vectorIds[i]=e.getKey();
+			vectorWeights[i]=1+Math.log(e.getValue().getCount());
+			norm+=vectorWeights[i]*vectorWeights[i];
+			++i;
+		}
+		norm=Math.sqrt(norm);
+		for(i=0;i<vectorWeights.length;i++){
+			vectorWeights[i]/=norm;
+		}
+		ids.add(vectorIds);
+		weights.add(vectorWeights);
+	}
+	private static void buildPostings(List<int[]> ids,List<double[]> weights,int[][] postingDocuments,double[][] postingWeights){
+		int[] lengths=new int[TOKEN_COUNT];
+		for(int[] vector:ids){
+			for(int id:vector){
+				++lengths[id];
+			}
+		}
+		for(int i=0;i<TOKEN_COUNT;i++){
+			postingDocuments[i]=new int[lengths[i]];
+			postingWeights[i]=new double[lengths[i]];
+			lengths[i]=0;
+		}
+		for(int document=0;document<ids.size();document++){
+			int[] vectorIds=ids.get(document);
+			double[] vectorWeights=weights.get(document);
+			for(int i=0;i<vectorIds.length;i++){
+				int id=vectorIds[i];
+				postingDocuments[id][lengths[id]]=document;
+				postingWeights[id][lengths[id]++]=vectorWeights[i];
+			}
+		}
+	}
+	private static int[] searchExactly(int[] ids,double[] weights,int[][] postingDocuments,double[][] postingWeights){
+		double[] similarities=new double[DOCUMENT_COUNT];
+		for(int i=0;i<ids.length;i++){
+			int[] documents=postingDocuments[ids[i]];
+			double[] documentWeights=postingWeights[ids[i]];
+			for(int j=0;j<documents.length;j++){
+				similarities[documents[j]]+=weights[i]*documentWeights[j];
+			}
+		}
+		PriorityQueue<Integer> nearest=new PriorityQueue<>(K+1,(d1,d2)->Double.compare(similarities[d1],similarities[d2]));
+		for(int document=0;document<DOCUMENT_COUNT;document++){
+			nearest.add(document);
+			if(nearest.size()>K){
+				nearest.poll();
+			}
+		}
+		return nearest.stream().mapToInt((document)->document).toArray();
+	}
+}
@@ -17,6 +17,7 @@
 package com.github.chungkwong.classifier;
 import com.github.chungkwong.classifier.util.*;
 import java.util.*;
+import java.util.logging.*;
 /**
  * Classifier factory for stream
  * @author Chan Chung Kwong
@@ -41,15 +42,49 @@ public abstract class BagClassifierFactory<C extends Classifier<Frequencies<T>>,
 		this.featureSelector=featureSelector;
 		return this;
 	}
+	/**
+	 * Get a classifier, if a feature selector is set, the classifier is
+	 * built from a filtered view of the model, so the model is not modified
+	 * and can be shared by factories
+	 *
+	 * @param model the model
+	 * @return the classifier
+	 */
 	@Override
 	public C getClassifier(M model){
 		if(featureSelector!=null){
 			Set<T> selected=featureSelector.select(model,this::createClassifier);
-			model.retainAll(selected);
-			System.out.println(toString()+selected);
+			Logger.getLogger(BagClassifierFactory.class.getName()).log(Level.FINE,"{0} selected {1} features",new Object[]{this,selected.size()});
+			//filter returns a model of the same class as documented
+			@SuppressWarnings("unchecked")
+			M filtered=(M)model.filter(selected);
+			model=filtered;
 		}
 		return createClassifier(model);
 	}
+	/**
+	 * getClassifier does not modify the model, but factories may create
+	 * models with different configurations, so by default a factory only
+	 * shares models with itself. Subclasses creating models that do not depend
+	 * on their settings may return a key describing the models instead.
+	 * @return the key
+	 * @see #getModelKey(Class, Object)
+	 */
+	@Override
+	public Object getModelKey(){
+		return this;
+	}
+	/**
+	 * Get the key of a factory whose models are fully described by a key,
+	 * which is only used if the factory is exactly of the given class, because
+	 * subclasses may override createModel
+	 * @param type the class of the factory
+	 * @param modelKey describe the models created by factories of the class
+	 * @return the key
+	 */
+	protected Object getModelKey(Class<?> type,Object modelKey){
+		return getClass()==type?modelKey:this;
+	}
 	/**
 	 * Create a classifier from a model
 	 * @param model the model
@@ -16,13 +16,17 @@
  */
 package com.github.chungkwong.classifier;
 import com.github.chungkwong.classifier.util.*;
+import java.io.*;
+import java.nio.*;
 import java.util.*;
+import java.util.function.*;
 /**
  * Factory for Bayesian classifier
  * @author Chan Chung Kwong
  * @param <T> the type of the objects to be classified
  */
-public class BayesianClassifierFactory<T> extends BagClassifierFactory<Classifier<Frequencies<T>>,FrequenciesModel<T>,T>{
+public class BayesianClassifierFactory<T> extends BagClassifierFactory<Classifier<Frequencies<T>>,FrequenciesModel<T>,T>
+		implements PersistableClassifierFactory<Classifier<Frequencies<T>>,T>{
 	/**
 	 * Create a Bayesian classifier factory
 	 */
@@ -30,64 +34,173 @@ public class BayesianClassifierFactory<T> extends BagClassifierFactory<Classifie
 	}
 	@Override
 	public Classifier<Frequencies<T>> createClassifier(FrequenciesModel<T> model){
-		return new BayesianClassifier<>(model.getTokenFrequencies(),
-				model.getSampleCounts(),model.getTokenCounts(),model.getTotalTokenFrequencies());
+		return new BayesianClassifier<>(model.getTokenFrequencies(),model.getSampleCounts());
+	}
+	/**
+	 * Create a classifier that work on vectors of token ID directly, so that
+	 * scoring is done by array indexing
+	 *
+	 * @param model the model, the vectors to be classified should use ID from
+	 * its vocabulary
+	 * @return the classifier
+	 */
+	public Classifier<SparseVector> createClassifier(IndexedFrequenciesModel<T> model){
+		Map<Category,IndexedFrequenciesModel.IndexedFrequencyProfile> profiles=model.getProfiles();
+		Category[] categories=profiles.keySet().toArray(new Category[0]);
+		IntFrequencies[] tokenFrequencies=new IntFrequencies[categories.length];
+		long[] documentCounts=new long[categories.length];
+		for(int i=0;i<categories.length;i++){
+			tokenFrequencies[i]=profiles.get(categories[i]).getTokenFrequencies();
+			documentCounts[i]=profiles.get(categories[i]).getDocumentCount();
+		}
+		return new IndexedBayesianClassifier(categories,tokenFrequencies,documentCounts,model.getIdBound());
 	}
 	@Override
 	public FrequenciesModel<T> createModel(){
 		return new FrequenciesModel<>();
 	}
-	private static class BayesianClassifier<T> implements Classifier<Frequencies<T>>{
-		private final Map<Category,Frequencies<T>> profiles;
-		private final Frequencies<Category> documentCounts;
-		private final Frequencies<Category> tokenCounts;
-		private final Frequencies<T> tokenFrequencies;
-		private final long documentCount;
-		private final int tokenCount;
-		public BayesianClassifier(Map<Category,Frequencies<T>> profiles,
-				Frequencies<Category> documentCounts,Frequencies<Category> tokenCounts,
-				Frequencies<T> tokenFrequencies){
-			this.profiles=profiles;
-			this.documentCounts=documentCounts;
-			this.tokenCounts=tokenCounts;
-			this.tokenFrequencies=tokenFrequencies;
-			this.documentCount=documentCounts.toMap().values().stream().mapToLong((i)->i.getCount()).sum();
-			this.tokenCount=tokenFrequencies.getTokenCount();
+	@Override
+	public Object getModelKey(){
+		return getModelKey(BayesianClassifierFactory.class,Arrays.asList(FrequenciesModel.class,Frequencies.Backend.TREE_MAP));
+	}
+	@Override
+	public void saveClassifier(Classifier<Frequencies<T>> classifier,File directory,Function<T,String> encoder) throws IOException{
+		if(!(classifier instanceof BayesianClassifier)){
+			throw new IllegalArgumentException();
+		}
+		BayesianClassifier<T> bayesian=(BayesianClassifier<T>)classifier;
+		try(DataOutputStream out=ClassifierFiles.create(directory,getName())){
+			ClassifierFiles.writeCategories(out,bayesian.table.categories);
+			ClassifierFiles.writeVocabulary(out,bayesian.vocabulary,encoder);
+			ClassifierFiles.writeDoubles(out,bayesian.table.logTokenProbabilities);
+			ClassifierFiles.writeDoubles(out,bayesian.table.logUnseenTokenProbabilities);
+			ClassifierFiles.writeDoubles(out,bayesian.table.logCategoryProbabilities);
+		}
+	}
+	@Override
+	public Classifier<Frequencies<T>> loadClassifier(File directory,Function<String,T> decoder) throws IOException{
+		ByteBuffer in=ClassifierFiles.open(directory,getName());
+		Category[] categories=ClassifierFiles.readCategories(in);
+		Vocabulary<T> vocabulary=ClassifierFiles.readVocabulary(in,decoder);
+		return new BayesianClassifier<>(vocabulary,new IndexedBayesianClassifier(categories,
+				ClassifierFiles.readDoubles(in),ClassifierFiles.readDoubles(in),ClassifierFiles.readDoubles(in)));
+	}
+	/**
+	 * Naive Bayesian classifier backed by a precomputed table of
+	 * log(P(token|category)), so that scoring a document is just summing a
+	 * row of the table for each token
+	 */
+	private static class IndexedBayesianClassifier implements Classifier<SparseVector>{
+		private final Category[] categories;
+		private final double[] logTokenProbabilities;
+		private final double[] logUnseenTokenProbabilities;
+		private final double[] logCategoryProbabilities;
+		IndexedBayesianClassifier(Category[] categories,IntFrequencies[] tokenFrequencies,long[] documentCounts,int idBound){
+			this.categories=categories;
+			int categoryCount=categories.length;
+			long documentCount=Arrays.stream(documentCounts).sum();
+			logCategoryProbabilities=new double[categoryCount];
+			logUnseenTokenProbabilities=new double[categoryCount];
+			logTokenProbabilities=new double[idBound*categoryCount];
+			for(int i=0;i<categoryCount;i++){
+				IntFrequencies profile=tokenFrequencies[i];
+				logCategoryProbabilities[i]=Math.log(((double)documentCounts[i])/documentCount);
+				logUnseenTokenProbabilities[i]=-Math.log(profile.getTokenCount());
+				for(int j=i;j<logTokenProbabilities.length;j+=categoryCount){
+					logTokenProbabilities[j]=logUnseenTokenProbabilities[i];
+				}
+				double logTokenCount=Math.log(profile.getTokenCount());
+				int offset=i;
+				profile.forEachFrequency((id,count)->{
+					logTokenProbabilities[id*categoryCount+offset]=Math.log(count)-logTokenCount;
+				});
+			}
+		}
+		IndexedBayesianClassifier(Category[] categories,double[] logTokenProbabilities,
+				double[] logUnseenTokenProbabilities,double[] logCategoryProbabilities){
+			this.categories=categories;
+			this.logTokenProbabilities=logTokenProbabilities;
+			this.logUnseenTokenProbabilities=logUnseenTokenProbabilities;
+			this.logCategoryProbabilities=logCategoryProbabilities;
 		}
 		@Override
-		public List<ClassificationResult> getCandidates(Frequencies<T> object,int max){
-			Category[] categories=profiles.keySet().toArray(new Category[0]);
+		public List<ClassificationResult> getCandidates(SparseVector object,int max){
 			double[] score=new double[categories.length];
-			Arrays.fill(score,1.0);
-			int[] maxExp=new int[]{0,0};
-			object.toMap().entrySet().forEach((e)->{
-				for(int i=0;i<categories.length;i++){
-					score[i]=Math.scalb(score[i],maxExp[0]);
-					score[i]*=getCategoryProbability(categories[i],e.getKey());
-					maxExp[1]=Math.min(-Math.getExponent(score[i]),maxExp[1]);
+			int unseen=0;
+			for(int i=0;i<object.getTokenCount();i++){
+				if(!addToken(score,object.getId(i))){
+					++unseen;
 				}
-				maxExp[0]=maxExp[1];
-				maxExp[1]=-Double.MIN_EXPONENT;
-			});
-			ArrayList<ClassificationResult> results=new ArrayList<>(categories.length);
-			for(int i=0;i<categories.length;i++){
-				results.add(new ClassificationResult(score[i],categories[i]));
 			}
-			return results;
+			return getResults(score,object.getTokenCount(),unseen);
+		}
+		/**
+		 * Add the row of a token to the scores
+		 *
+		 * @return false if the token is unseen
+		 */
+		boolean addToken(double[] score,int id){
+			int categoryCount=categories.length;
+			int offset=id*categoryCount;
+			if(id<0||offset>=logTokenProbabilities.length){
+				return false;
+			}
+			for(int i=0;i<categoryCount;i++){
+				score[i]+=logTokenProbabilities[offset+i];
+			}
+			return true;
 		}
-		private double getCategoryProbability(Category category,T token){
-			return getCategoryProbability(category)*getTokenProbability(token,category)/getTokenProbability(token);
+		List<ClassificationResult> getResults(double[] score,int tokenCount,int unseen){
+			int categoryCount=categories.length;
+			double maxScore=Double.NEGATIVE_INFINITY;
+			for(int i=0;i<categoryCount;i++){
+				score[i]+=tokenCount*logCategoryProbabilities[i]+unseen*logUnseenTokenProbabilities[i];
+				maxScore=Math.max(maxScore,score[i]);
+			}
+			if(Double.isInfinite(maxScore)){
+				maxScore=0;
+			}
+			ArrayList<ClassificationResult> results=new ArrayList<>(categoryCount);
+			for(int i=0;i<categoryCount;i++){
+				results.add(new ClassificationResult(Math.exp(score[i]-maxScore),categories[i]));
+			}
+			return results;
 		}
-		private double getCategoryProbability(Category category){
-			return ((double)documentCounts.getFrequency(category))/documentCount;
+	}
+	/**
+	 * Naive Bayesian classifier that map tokens to the ID used by a
+	 * IndexedBayesianClassifier
+	 */
+	private static class BayesianClassifier<T> implements Classifier<Frequencies<T>>{
+		private final Vocabulary<T> vocabulary;
+		private final IndexedBayesianClassifier table;
+		public BayesianClassifier(Map<Category,Frequencies<T>> profiles,Frequencies<Category> documentCounts){
+			Category[] categories=profiles.keySet().toArray(new Category[0]);
+			vocabulary=new Vocabulary<>();
+			IntFrequencies[] tokenFrequencies=new IntFrequencies[categories.length];
+			long[] counts=new long[categories.length];
+			for(int i=0;i<categories.length;i++){
+				IntFrequencies frequencies=new IntFrequencies();
+				profiles.get(categories[i]).forEachFrequency((token,count)->frequencies.advanceFrequency(vocabulary.getId(token),count));
+				tokenFrequencies[i]=frequencies;
+				counts[i]=documentCounts.getFrequency(categories[i]);
+			}
+			table=new IndexedBayesianClassifier(categories,tokenFrequencies,counts,vocabulary.size());
 		}
-		private double getTokenProbability(T token,Category category){
-			long frequency=profiles.get(category).getFrequency(token);
-			return frequency!=0?((double)frequency)/tokenCounts.getFrequency(category):1.0/profiles.get(category).getTokenCount();
+		BayesianClassifier(Vocabulary<T> vocabulary,IndexedBayesianClassifier table){
+			this.vocabulary=vocabulary;
+			this.table=table;
 		}
-		private double getTokenProbability(T token){
-			long frequency=tokenFrequencies.getFrequency(token);
-			return frequency!=0?((double)frequency)/tokenCount:1.0/tokenFrequencies.getTokenCount();
+		@Override
+		public List<ClassificationResult> getCandidates(Frequencies<T> object,int max){
+			double[] score=new double[table.categories.length];
+			int[] unseen=new int[]{0};
+			object.forEachFrequency((token,count)->{
+				if(!table.addToken(score,vocabulary.getIdIfPresent(token))){
+					++unseen[0];
+				}
+			});
+			return table.getResults(score,object.getTokenCount(),unseen[0]);
 		}
 	}
 	@Override
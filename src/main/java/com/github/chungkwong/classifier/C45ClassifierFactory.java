@@ -16,14 +16,20 @@
  */
 package com.github.chungkwong.classifier;
 import com.github.chungkwong.classifier.util.*;
+import java.io.*;
+import java.nio.*;
 import java.util.*;
-import java.util.stream.*;
+import java.util.function.*;
 /**
  * Factory for C4.5 classifier.
  * @author Chan Chung Kwong
  * @param <T> Underlying type to be classified
  */
-public class C45ClassifierFactory<T> extends BagClassifierFactory<Classifier<Frequencies<T>>,DocumentVectorsModel<T>,T>{
+public class C45ClassifierFactory<T> extends BagClassifierFactory<Classifier<Frequencies<T>>,DocumentVectorsModel<T>,T>
+		implements PersistableClassifierFactory<Classifier<Frequencies<T>>,T>{
+	private static final byte LEAF=0;
+	private static final byte BRANCH=1;
+	private static final byte EMPTY=2;
 	/**
 	 * Create a C4.5 classifier factory
 	 */
@@ -31,66 +37,240 @@ public class C45ClassifierFactory<T> extends BagClassifierFactory<Classifier<Fre
 	}
 	@Override
 	public Classifier<Frequencies<T>> createClassifier(DocumentVectorsModel<T> model){
-		return new C45Classifier<>(buildTree(model));
+		return new C45Classifier<>(new TreeBuilder<>(model).build());
 	}
-	private DecisionTree<T> buildTree(DocumentVectorsModel<T> model){
-		Map<Category,Frequencies<T>> documentFrequencies=model.getDocumentFrequencies();
-		Frequencies<Category> sampleCounts=model.getSampleCounts();
-		T feature=selectFeature(documentFrequencies,model.getTotalDocumentFrequencies(),
-				sampleCounts,model.getSampleCount());
-		if(feature==null){
-			return new DecisionTree<>(model.getProfiles().entrySet().stream().max((e1,e2)->
-					Long.compare(e1.getValue().getDocumentVectors().size(),e2.getValue().getDocumentVectors().size())).
-					map((e)->e.getKey()).orElse(null));
-		}else{
-			DocumentVectorsModel<T> subModel=new DocumentVectorsModel<>();
-			model.getProfiles().entrySet().forEach((e)->subModel.getProfiles().put(e.getKey(),new DocumentVectorsModel.VectorsProfile<>(
-					e.getValue().getDocumentVectors().stream().filter((v)->v.getFrequency(feature)==0).collect(Collectors.toList()))));
-			model.getProfiles().keySet().stream().filter((cat)->subModel.getProfiles().get(cat).getDocumentVectors().isEmpty()).
-					forEach((cat)->subModel.getProfiles().remove(cat));
-			DecisionTree<T> lower=buildTree(subModel);
-			subModel.getProfiles().clear();
-			model.getProfiles().entrySet().forEach((e)->subModel.getProfiles().put(e.getKey(),new DocumentVectorsModel.VectorsProfile<>(
-					e.getValue().getDocumentVectors().stream().filter((v)->v.getFrequency(feature)>0).collect(Collectors.toList()))));
-			model.getProfiles().keySet().stream().filter((cat)->subModel.getProfiles().get(cat).getDocumentVectors().isEmpty()).
-					forEach((cat)->subModel.getProfiles().remove(cat));
-			DecisionTree<T> higher=buildTree(subModel);
-			return new DecisionTree<>(lower,higher,0,feature);
+	/**
+	 * Build decision tree by reading the sparse matrices in the model
+	 * directly. Each node works on a range of a array of documents, which is
+	 * partitioned in place between the children while keeping the documents
+	 * grouped by category.
+	 */
+	private static class TreeBuilder<T>{
+		private final Vocabulary<T> vocabulary;
+		private final Category[] categories;
+		private final List<DocumentVectorsModel.VectorsProfile<T>> profiles;
+		private final int[] documentCategories;
+		private final int[] documentRows;
+		private final int[] buffer;
+		private final int[] documentFrequencies;
+		private final int[] categoryDocumentFrequencies;
+		private final int[] categoryPresence;
+		private final double[] splitEntropies;
+		private final int[] touched;
+		private final int[] categoryTouched;
+		TreeBuilder(DocumentVectorsModel<T> model){
+			categories=model.getProfiles().keySet().toArray(new Category[0]);
+			vocabulary=model.getVocabulary();
+			profiles=new ArrayList<>(categories.length);
+			int documentCount=(int)model.getSampleCount();
+			documentCategories=new int[documentCount];
+			documentRows=new int[documentCount];
+			int document=0;
+			for(int i=0;i<categories.length;i++){
+				profiles.add(model.getProfiles().get(categories[i]));
+				for(int j=0;j<profiles.get(i).getDocumentCount();j++){
+					documentCategories[document]=i;
+					documentRows[document++]=j;
+				}
+			}
+			buffer=new int[documentCount];
+			int tokenCount=vocabulary.size();
+			documentFrequencies=new int[tokenCount];
+			categoryDocumentFrequencies=new int[tokenCount];
+			categoryPresence=new int[tokenCount];
+			splitEntropies=new double[tokenCount];
+			touched=new int[tokenCount];
+			categoryTouched=new int[tokenCount];
 		}
-	}
-	private static final double threhold=10e-6;
-	private T selectFeature(Map<Category,Frequencies<T>> model,Frequencies<T> docFreq,Frequencies<Category> sampleCounts,long sampleCount){
-		T bestFeature=null;
-		double maxGain=Double.NEGATIVE_INFINITY;
-		for(T feature:docFreq.toMap().keySet()){
-			double gain=getInformationGain(feature,model,docFreq,sampleCounts,sampleCount);
-			if(gain>maxGain){
-				maxGain=gain;
-				bestFeature=feature;
+		DecisionTree<T> build(){
+			int[] documents=new int[documentCategories.length];
+			for(int i=0;i<documents.length;i++){
+				documents[i]=i;
 			}
+			return build(documents,0,documents.length);
+		}
+		private DecisionTree<T> build(int[] documents,int from,int to){
+			int feature=selectFeature(documents,from,to);
+			if(feature==-1){
+				long[] counts=new long[categories.length];
+				for(int i=from;i<to;i++){
+					++counts[documentCategories[documents[i]]];
+				}
+				int best=-1;
+				for(int i=0;i<counts.length;i++){
+					if(counts[i]>0&&(best==-1||counts[i]>counts[best])){
+						best=i;
+					}
+				}
+				return new DecisionTree<>(best==-1?null:categories[best]);
+			}else{
+				int middle=from;
+				int higher=0;
+				for(int i=from;i<to;i++){
+					if(contains(documents[i],feature)){
+						buffer[higher++]=documents[i];
+					}else{
+						documents[middle++]=documents[i];
+					}
+				}
+				System.arraycopy(buffer,0,documents,middle,higher);
+				return new DecisionTree<>(build(documents,from,middle),build(documents,middle,to),0,vocabulary.getToken(feature));
+			}
+		}
+		private boolean contains(int document,int feature){
+			DocumentVectorsModel.VectorsProfile<T> profile=profiles.get(documentCategories[document]);
+			int row=documentRows[document];
+			int low=profile.getStart(row),high=profile.getEnd(row)-1;
+			while(low<=high){
+				int mid=(low+high)>>>1;
+				int id=profile.getId(mid);
+				if(id<feature){
+					low=mid+1;
+				}else if(id>feature){
+					high=mid-1;
+				}else{
+					return true;
+				}
+			}
+			return false;
+		}
+		private int selectFeature(int[] documents,int from,int to){
+			int touchedCount=0;
+			int nonEmptyCategories=0;
+			for(int start=from;start<to;){
+				int category=documentCategories[documents[start]];
+				int end=start;
+				while(end<to&&documentCategories[documents[end]]==category){
+					++end;
+				}
+				int categoryTouchedCount=0;
+				DocumentVectorsModel.VectorsProfile<T> profile=profiles.get(category);
+				for(int i=start;i<end;i++){
+					int row=documentRows[documents[i]];
+					for(int j=profile.getStart(row);j<profile.getEnd(row);j++){
+						int id=profile.getId(j);
+						if(!profile.isSelected(id)){
+							continue;
+						}
+						if(documentFrequencies[id]++==0){
+							touched[touchedCount++]=id;
+						}
+						if(categoryDocumentFrequencies[id]++==0){
+							categoryTouched[categoryTouchedCount++]=id;
+						}
+					}
+				}
+				for(int i=0;i<categoryTouchedCount;i++){
+					int id=categoryTouched[i];
+					splitEntropies[id]+=getEntropy(categoryDocumentFrequencies[id],end-start)*(end-start);
+					++categoryPresence[id];
+					categoryDocumentFrequencies[id]=0;
+				}
+				++nonEmptyCategories;
+				start=end;
+			}
+			int bestFeature=-1;
+			double maxGain=Double.NEGATIVE_INFINITY;
+			for(int i=0;i<touchedCount;i++){
+				int id=touched[i];
+				//getEntropy is undefined for a token absent from a category
+				if(categoryPresence[id]==nonEmptyCategories){
+					double gain=getEntropy(documentFrequencies[id],to-from)-splitEntropies[id]/(to-from);
+					if(gain>maxGain||(gain==maxGain&&id<bestFeature)){
+						maxGain=gain;
+						bestFeature=id;
+					}
+				}
+				documentFrequencies[id]=0;
+				categoryPresence[id]=0;
+				splitEntropies[id]=0;
+			}
+			return maxGain>threhold?bestFeature:-1;
 		}
-		return maxGain>threhold?bestFeature:null;
-	}
-	private double getInformationGain(T feature,Map<Category,Frequencies<T>> model,Frequencies<T> docFreq,Frequencies<Category> sampleCounts,long sampleCount){
-		return getEntropy(feature,docFreq,sampleCount)-getSplitEntropy(feature,model,sampleCounts,sampleCount);
 	}
-	private double getEntropy(T feature,Frequencies<T> docFreq,long sampleCount){
-		double freq=((double)docFreq.getFrequency(feature))/sampleCount;
+	private static final double threhold=10e-6;
+	private static double getEntropy(long documentFrequency,long sampleCount){
+		double freq=((double)documentFrequency)/sampleCount;
 		double nfreq=1-freq;
 		return -freq*Math.log(freq)-nfreq*Math.log(nfreq);
 	}
-	private double getSplitEntropy(T feature,Map<Category,Frequencies<T>> model,Frequencies<Category> sampleCounts,long sampleCount){
-		double entropy=0;
-		for(Map.Entry<Category,Frequencies<T>> entry:model.entrySet()){
-			long documentCount=sampleCounts.getFrequency(entry.getKey());
-			entropy+=getEntropy(feature,entry.getValue(),documentCount)*documentCount;
-		}
-		return entropy/sampleCount;
-	}
 	@Override
 	public DocumentVectorsModel<T> createModel(){
 		return new DocumentVectorsModel<>();
 	}
+	@Override
+	public Object getModelKey(){
+		return getModelKey(C45ClassifierFactory.class,DocumentVectorsModel.class);
+	}
+	/*
+	 * The tree is saved in preorder, each leaf as its tag and the index of its
+	 * category, each branch as its tag, the index of its feature and the cut.
+	 */
+	@Override
+	public void saveClassifier(Classifier<Frequencies<T>> classifier,File directory,Function<T,String> encoder) throws IOException{
+		if(!(classifier instanceof C45Classifier)){
+			throw new IllegalArgumentException();
+		}
+		DecisionTree<T> tree=((C45Classifier<T>)classifier).tree;
+		Map<Category,Integer> categories=new LinkedHashMap<>();
+		Vocabulary<T> features=new Vocabulary<>();
+		collect(tree,categories,features);
+		try(DataOutputStream out=ClassifierFiles.create(directory,getName())){
+			ClassifierFiles.writeCategories(out,categories.keySet().toArray(new Category[0]));
+			ClassifierFiles.writeVocabulary(out,features,encoder);
+			write(tree,out,categories,features);
+		}
+	}
+	private static <T> void collect(DecisionTree<T> node,Map<Category,Integer> categories,Vocabulary<T> features){
+		if(node.isLeaf()){
+			categories.putIfAbsent(node.getCategory(),categories.size());
+		}else if(node.feature!=null){
+			features.getId(node.feature);
+			collect(node.lower,categories,features);
+			collect(node.higher,categories,features);
+		}
+	}
+	private static <T> void write(DecisionTree<T> node,DataOutput out,Map<Category,Integer> categories,Vocabulary<T> features) throws IOException{
+		if(node.isLeaf()){
+			out.writeByte(LEAF);
+			out.writeInt(categories.get(node.getCategory()));
+		}else if(node.feature!=null){
+			out.writeByte(BRANCH);
+			out.writeInt(features.getIdIfPresent(node.feature));
+			out.writeLong(node.cut);
+			write(node.lower,out,categories,features);
+			write(node.higher,out,categories,features);
+		}else{
+			out.writeByte(EMPTY);
+		}
+	}
+	@Override
+	public Classifier<Frequencies<T>> loadClassifier(File directory,Function<String,T> decoder) throws IOException{
+		ByteBuffer in=ClassifierFiles.open(directory,getName());
+		Category[] categories=ClassifierFiles.readCategories(in);
+		Vocabulary<T> features=ClassifierFiles.readVocabulary(in,decoder);
+		try{
+			return new C45Classifier<>(read(in,categories,features));
+		}catch(BufferUnderflowException|IndexOutOfBoundsException ex){
+			throw new IOException("Corrupted classifier file",ex);
+		}
+	}
+	private static <T> DecisionTree<T> read(ByteBuffer in,Category[] categories,Vocabulary<T> features) throws IOException{
+		switch(in.get()){
+			case LEAF:
+				return new DecisionTree<>(categories[in.getInt()]);
+			case BRANCH:
+				T feature=features.getToken(in.getInt());
+				long cut=in.getLong();
+				DecisionTree<T> lower=read(in,categories,features);
+				DecisionTree<T> higher=read(in,categories,features);
+				return new DecisionTree<>(lower,higher,cut,feature);
+			case EMPTY:
+				return new DecisionTree<>(null);
+			default:
+				throw new IOException("Corrupted classifier file");
+		}
+	}
 	private static class C45Classifier<T> implements Classifier<Frequencies<T>>{
 		private final DecisionTree<T> tree;
 		public C45Classifier(DecisionTree<T> tree){
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import java.util.stream.*;
+/**
+ * A post-tokenize preprocessor that remember the results of a stemmer.
+ * Since word frequencies are roughly Zipfian, most tokens are found in a
+ * cache of moderate size. The cache is divided into segments, each evicting
+ * the least recently used entries independently, so the preprocessor can be
+ * used concurrently and shared by classifiers for the same language.
+ *
+ * @author Chan Chung Kwong
+ */
+public class CachedStemmer implements Function<Stream<String>,Stream<String>>{
+	private static final int SEGMENT_COUNT=16;
+	private final Function<Stream<String>,Stream<String>> stemmer;
+	private final Segment[] segments;
+	private final LongAdder hitCount=new LongAdder();
+	private final LongAdder missCount=new LongAdder();
+	private final LongAdder evictionCount=new LongAdder();
+	/**
+	 * Create a cached stemmer
+	 *
+	 * @param stemmer the underlying stemmer, which should map each token to
+	 * exactly one token and be thread-safe
+	 * @param capacity the maximum number of tokens being remembered
+	 */
+	public CachedStemmer(Function<Stream<String>,Stream<String>> stemmer,int capacity){
+		if(capacity<SEGMENT_COUNT){
+			throw new IllegalArgumentException();
+		}
+		this.stemmer=stemmer;
+		this.segments=new Segment[SEGMENT_COUNT];
+		for(int i=0;i<SEGMENT_COUNT;i++){
+			segments[i]=new Segment((capacity+SEGMENT_COUNT-1)/SEGMENT_COUNT);
+		}
+	}
+	@Override
+	public Stream<String> apply(Stream<String> tokens){
+		return tokens.map(this::stem);
+	}
+	/**
+	 * Stem a token
+	 *
+	 * @param token the token
+	 * @return the stem
+	 */
+	public String stem(String token){
+		int hash=token.hashCode();
+		Segment segment=segments[(hash^(hash>>>16))&(SEGMENT_COUNT-1)];
+		String stem;
+		synchronized(segment){
+			stem=segment.get(token);
+		}
+		if(stem!=null){
+			hitCount.increment();
+			return stem;
+		}
+		missCount.increment();
+		stem=stemmer.apply(Stream.of(token)).findFirst().orElse(token);
+		synchronized(segment){
+			segment.put(token,stem);
+		}
+		return stem;
+	}
+	/**
+	 * @return the number of tokens found in the cache
+	 */
+	public long getHitCount(){
+		return hitCount.sum();
+	}
+	/**
+	 * @return the number of tokens not found in the cache
+	 */
+	public long getMissCount(){
+		return missCount.sum();
+	}
+	/**
+	 * @return the number of tokens removed from the cache to make room
+	 */
+	public long getEvictionCount(){
+		return evictionCount.sum();
+	}
+	/**
+	 * @return the ratio of tokens found in the cache, or NaN if no token
+	 * was stemmed
+	 */
+	public double getHitRate(){
+		long hit=getHitCount();
+		return ((double)hit)/(hit+getMissCount());
+	}
+	/**
+	 * @return the number of tokens being remembered
+	 */
+	public int size(){
+		int size=0;
+		for(Segment segment:segments){
+			synchronized(segment){
+				size+=segment.size();
+			}
+		}
+		return size;
+	}
+	/**
+	 * Forget all tokens being remembered, the counters are not reset
+	 */
+	public void clear(){
+		for(Segment segment:segments){
+			synchronized(segment){
+				segment.clear();
+			}
+		}
+	}
+	@Override
+	public String toString(){
+		return "hit:"+getHitCount()+" miss:"+getMissCount()+" evicted:"+getEvictionCount();
+	}
+	private class Segment extends LinkedHashMap<String,String>{
+		private static final long serialVersionUID=1L;
+		private final int capacity;
+		Segment(int capacity){
+			super(16,0.75f,true);
+			this.capacity=capacity;
+		}
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String,String> eldest){
+			if(size()>capacity){
+				evictionCount.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+}
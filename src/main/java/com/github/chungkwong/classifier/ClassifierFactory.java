@@ -34,4 +34,13 @@ public interface ClassifierFactory<C extends Classifier<T>,M extends Trainable<T
 	 * @return the new model
 	 */
 	M createModel();
+	/**
+	 * Get a key identifying the kind of model used by this factory. Factories
+	 * with equal keys create equivalent models and do not modify the model
+	 * when building classifier, so a model trained once can be shared by them.
+	 * @return the key, or null if the model should not be shared
+	 */
+	default Object getModelKey(){
+		return null;
+	}
 }
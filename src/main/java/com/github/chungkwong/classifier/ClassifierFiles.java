@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier;
+import com.github.chungkwong.classifier.util.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.function.*;
+/**
+ * Helpers to save a classifier into a binary file and to map it back. A file
+ * starts with a magic number, the version of the format and the kind of the
+ * classifier, so that stale or unrelated files are rejected. Arrays are
+ * stored as their length followed by the elements, so that they can be copied
+ * out of the mapped file in bulk.
+ *
+ * @author Chan Chung Kwong
+ */
+class ClassifierFiles{
+	private static final String FILE_NAME="classifier.bin";
+	private static final int MAGIC=0x434C5346;
+	private static final int VERSION=2;
+	private ClassifierFiles(){
+	}
+	static DataOutputStream create(File directory,String kind) throws IOException{
+		directory.mkdirs();
+		DataOutputStream out=new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(directory,FILE_NAME)),65536));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		writeString(out,kind);
+		return out;
+	}
+	static ByteBuffer open(File directory,String kind) throws IOException{
+		ByteBuffer buffer;
+		try(FileChannel channel=FileChannel.open(new File(directory,FILE_NAME).toPath(),StandardOpenOption.READ)){
+			buffer=channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+		}
+		try{
+			if(buffer.getInt()!=MAGIC||buffer.getInt()!=VERSION||!readString(buffer).equals(kind)){
+				throw new IOException("Incompatible classifier file");
+			}
+		}catch(BufferUnderflowException|IllegalArgumentException ex){
+			throw new IOException("Incompatible classifier file",ex);
+		}
+		return buffer;
+	}
+	static void writeFormula(DataOutput out,TfIdfFormula formula) throws IOException{
+		writeString(out,formula.getName());
+	}
+	static void checkFormula(ByteBuffer buffer,TfIdfFormula formula) throws IOException{
+		String name=readString(buffer);
+		if(!name.equals(formula.getName())){
+			throw new IOException("Classifier saved with TF-IDF formula "+name+" instead of "+formula.getName());
+		}
+	}
+	static void writeString(DataOutput out,String value) throws IOException{
+		byte[] bytes=value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	static String readString(ByteBuffer buffer){
+		byte[] bytes=new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes,StandardCharsets.UTF_8);
+	}
+	static void writeInts(DataOutput out,int[] array) throws IOException{
+		out.writeInt(array.length);
+		for(int value:array){
+			out.writeInt(value);
+		}
+	}
+	static int[] readInts(ByteBuffer buffer){
+		int[] array=new int[buffer.getInt()];
+		buffer.asIntBuffer().get(array);
+		buffer.position(buffer.position()+4*array.length);
+		return array;
+	}
+	static void writeLongs(DataOutput out,long[] array) throws IOException{
+		out.writeInt(array.length);
+		for(long value:array){
+			out.writeLong(value);
+		}
+	}
+	static long[] readLongs(ByteBuffer buffer){
+		long[] array=new long[buffer.getInt()];
+		buffer.asLongBuffer().get(array);
+		buffer.position(buffer.position()+8*array.length);
+		return array;
+	}
+	static void writeDoubles(DataOutput out,double[] array) throws IOException{
+		out.writeInt(array.length);
+		for(double value:array){
+			out.writeDouble(value);
+		}
+	}
+	static double[] readDoubles(ByteBuffer buffer){
+		double[] array=new double[buffer.getInt()];
+		buffer.asDoubleBuffer().get(array);
+		buffer.position(buffer.position()+8*array.length);
+		return array;
+	}
+	static void writeCategories(DataOutput out,Category[] categories) throws IOException{
+		out.writeInt(categories.length);
+		for(Category category:categories){
+			writeString(out,category.getName());
+		}
+	}
+	static Category[] readCategories(ByteBuffer buffer){
+		Category[] categories=new Category[buffer.getInt()];
+		for(int i=0;i<categories.length;i++){
+			categories[i]=new Category(readString(buffer));
+		}
+		return categories;
+	}
+	static <T> void writeVocabulary(DataOutput out,Vocabulary<T> vocabulary,Function<T,String> encoder) throws IOException{
+		out.writeInt(vocabulary.size());
+		for(int i=0;i<vocabulary.size();i++){
+			writeString(out,encoder.apply(vocabulary.getToken(i)));
+		}
+	}
+	static <T> Vocabulary<T> readVocabulary(ByteBuffer buffer,Function<String,T> decoder){
+		Vocabulary<T> vocabulary=new Vocabulary<>();
+		int size=buffer.getInt();
+		for(int i=0;i<size;i++){
+			vocabulary.getId(decoder.apply(readString(buffer)));
+		}
+		return vocabulary;
+	}
+}
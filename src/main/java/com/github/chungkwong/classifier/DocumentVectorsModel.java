@@ -16,6 +16,7 @@
  */
 package com.github.chungkwong.classifier;
 import com.github.chungkwong.classifier.util.*;
+import com.github.chungkwong.classifier.validator.*;
 import java.io.*;
 import java.util.*;
 import java.util.function.*;
@@ -29,94 +30,536 @@ import java.util.stream.*;
  * @param <T> the type of tokens in the streams
  */
 public class DocumentVectorsModel<T> extends SimpleTrainableModel<Frequencies<T>,DocumentVectorsModel.VectorsProfile<T>> implements TokenFrequenciesModel<T>,Persistable<T>{
+	private static final String FILE_NAME="vectors.bin";
+	private static final String LEGACY_FILE_NAME="MODEL";
+	private static final int MAGIC=0x44564543;
+	private static final int VERSION=1;
+	private final Vocabulary<T> vocabulary;
+	private final IntFrequencies totalTokenFrequencies=new IntFrequencies();
+	private final IntFrequencies totalDocumentFrequencies=new IntFrequencies();
+	private final Object totalsLock=new Object();
+	private boolean totalsValid=true;
 	/**
 	 * Create a model
 	 */
 	public DocumentVectorsModel(){
-		super(()->new DocumentVectorsModel.VectorsProfile<>(),(data,profile)->profile.update(data));
+		this(new Vocabulary<>());
+	}
+	/**
+	 * Create a model
+	 *
+	 * @param vocabulary the vocabulary that token ID in the profiles come from
+	 */
+	public DocumentVectorsModel(Vocabulary<T> vocabulary){
+		super(()->new DocumentVectorsModel.VectorsProfile<>(vocabulary),(data,profile)->profile.update(data),(profile,other)->profile.merge(other));
+		this.vocabulary=vocabulary;
+	}
+	/**
+	 * @return the vocabulary that token ID in the profiles come from
+	 */
+	public Vocabulary<T> getVocabulary(){
+		return vocabulary;
+	}
+	/**
+	 * Partial profiles have their own vocabularies, so that the vocabulary of
+	 * this model is not modified by multiple threads
+	 *
+	 * @return the profile
+	 */
+	@Override
+	protected VectorsProfile<T> createPartialProfile(){
+		return new VectorsProfile<>();
+	}
+	/**
+	 * Set the profile of a category, a profile with another vocabulary is
+	 * converted to use the vocabulary of this model. Profiles put into the map
+	 * returned by getProfiles directly must use the vocabulary of this model.
+	 *
+	 * @param category the category
+	 * @param profile the profile
+	 */
+	public void putProfile(Category category,VectorsProfile<T> profile){
+		if(profile.getVocabulary()!=vocabulary){
+			VectorsProfile<T> converted=new VectorsProfile<>(vocabulary);
+			converted.merge(profile);
+			profile=converted;
+		}
+		getProfiles().put(category,profile);
+		profilesChanged();
+	}
+	@Override
+	protected void sampleTrained(Frequencies<T> data,VectorsProfile<T> profile){
+		synchronized(totalsLock){
+			if(totalsValid){
+				int document=profile.getDocumentCount()-1;
+				for(int i=profile.getStart(document);i<profile.getEnd(document);i++){
+					totalTokenFrequencies.advanceFrequency(profile.getId(i),profile.getCount(i));
+					totalDocumentFrequencies.advanceFrequency(profile.getId(i),1);
+				}
+			}
+		}
+	}
+	@Override
+	protected void profilesChanged(){
+		synchronized(totalsLock){
+			totalsValid=false;
+		}
+	}
+	/**
+	 * Rebuild the totals if they are invalidated, guarded so that classifiers
+	 * can be built from the model by multiple threads
+	 */
+	private void ensureTotals(){
+		synchronized(totalsLock){
+			if(!totalsValid){
+				totalTokenFrequencies.clear();
+				totalDocumentFrequencies.clear();
+				getProfiles().values().forEach((profile)->{
+					totalTokenFrequencies.merge(profile.getTokenFrequencies());
+					totalDocumentFrequencies.merge(profile.getDocumentFrequencies());
+				});
+				totalsValid=true;
+			}
+		}
 	}
 	@Override
 	public long getSampleCount(){
-		return getProfiles().values().stream().mapToLong((profile)->profile.getDocumentVectors().size()).sum();
+		return getProfiles().values().stream().mapToLong((profile)->profile.getDocumentCount()).sum();
 	}
+	/**
+	 * @return read-only views of the frequencies table for each category
+	 */
 	@Override
 	public Map<Category,Frequencies<T>> getTokenFrequencies(){
 		return getProfiles().entrySet().stream().collect(Collectors.toMap((e)->e.getKey(),
-				(e)->{
-					Frequencies<T> tokenFrequenciesRaw=new Frequencies<>(true);
-					e.getValue().getDocumentVectors().forEach((vector)->tokenFrequenciesRaw.merge(vector));
-					return tokenFrequenciesRaw;
-				}));
+				(e)->new Frequencies<>(new VocabularyCountMap<>(vocabulary,e.getValue().getTokenFrequencies()))));
 	}
+	/**
+	 * @return read-only view of the number of samples that contains each
+	 * token, which is kept up to date during training
+	 */
 	@Override
 	public Frequencies<T> getTotalDocumentFrequencies(){
-		Frequencies<T> documentFrequenciesRaw=new Frequencies<>(true);
-		getProfiles().values().stream().flatMap((vectors)->vectors.getDocumentVectors().stream()).
-				flatMap((v)->v.toMap().keySet().stream()).forEach((t)->documentFrequenciesRaw.advanceFrequency(t));
-		return documentFrequenciesRaw;
+		return new Frequencies<>(new VocabularyCountMap<>(vocabulary,getDocumentFrequencyTable()));
 	}
+	/**
+	 * @return the number of samples that contains each token, indexed by token
+	 * ID, which is kept up to date during training and should not be modified
+	 */
+	public IntFrequencies getDocumentFrequencyTable(){
+		ensureTotals();
+		return totalDocumentFrequencies;
+	}
+	/**
+	 * @return read-only view of the frequency of each token in all samples,
+	 * which is kept up to date during training
+	 */
 	@Override
 	public Frequencies<T> getTotalTokenFrequencies(){
-		Frequencies<T> tokenFrequenciesRaw=new Frequencies<>(true);
-		getProfiles().values().stream().flatMap((vectors)->vectors.getDocumentVectors().stream()).
-				forEach((v)->tokenFrequenciesRaw.merge(v));
-		return tokenFrequenciesRaw;
+		ensureTotals();
+		return new Frequencies<>(new VocabularyCountMap<>(vocabulary,totalTokenFrequencies));
 	}
 	@Override
 	public Frequencies<Category> getSampleCounts(){
-		return new Frequencies<>(getProfiles().entrySet().stream().collect(Collectors.toMap((e)->e.getKey(),(e)->new Counter(e.getValue().getDocumentVectors().size()))));
+		return new Frequencies<>(getProfiles().entrySet().stream().collect(Collectors.toMap((e)->e.getKey(),(e)->new Counter(e.getValue().getDocumentCount()))));
 	}
 	@Override
 	public Frequencies<Category> getTokenCounts(){
 		return new Frequencies<>(getProfiles().entrySet().stream().collect(Collectors.toMap((e)->e.getKey(),
-				(e)->new Counter(e.getValue().getDocumentVectors().stream().flatMap((v)->v.toMap().keySet().stream()).distinct().count()))));
+				(e)->new Counter(e.getValue().getDocumentFrequencies().getTokenCount()))));
 	}
+	/**
+	 * @return read-only views of the number of samples that contains each
+	 * token for each category
+	 */
 	public Map<Category,Frequencies<T>> getDocumentFrequencies(){
-		return getProfiles().entrySet().stream().collect(Collectors.toMap((e)->e.getKey(),(e)
-				->e.getValue().getDocumentVectors().stream().collect(()->new Frequencies<>(true),(f,v)->f.merge(v),(f1,f2)->f1.merge(f2))));
+		return getProfiles().entrySet().stream().collect(Collectors.toMap((e)->e.getKey(),
+				(e)->new Frequencies<>(new VocabularyCountMap<>(vocabulary,e.getValue().getDocumentFrequencies()))));
+	}
+	/**
+	 * Create a read-only view of the model that only contains the tokens in a
+	 * given set, which shares the vocabulary and the document arrays with this
+	 * model. The view reflects the documents at the time it is created.
+	 *
+	 * @param toKeep the tokens to be kept
+	 * @return the view
+	 */
+	@Override
+	public DocumentVectorsModel<T> filter(Set<T> toKeep){
+		Map<Category,VectorsProfile<T>> profiles=getProfiles();
+		BitSet selected=new BitSet(vocabulary.size());
+		for(int i=0;i<vocabulary.size();i++){
+			if(toKeep.contains(vocabulary.getToken(i))){
+				selected.set(i);
+			}
+		}
+		DocumentVectorsModel<T> view=new DocumentVectorsModel<>(vocabulary);
+		profiles.forEach((category,profile)->view.putProfile(category,profile.filter(selected)));
+		return view;
 	}
 	@Override
 	public void retainAll(Set<T> toKeep){
-		getProfiles().forEach((k,v)->{
-			v.getDocumentVectors().forEach((vector)->vector.toMap().keySet().retainAll(toKeep));
-		});
+		boolean[] keep=new boolean[vocabulary.size()];
+		for(int i=0;i<keep.length;i++){
+			keep[i]=toKeep.contains(vocabulary.getToken(i));
+		}
+		getProfiles().forEach((k,v)->v.retainAll((id)->id<keep.length&&keep[id]));
+		profilesChanged();
 	}
+	/*
+	 * Binary format: magic and version (int), then variable length integers
+	 * (see VarInt): number of tokens followed by the tokens, number of
+	 * categories followed by their names, number of samples followed by the
+	 * samples. Each sample is the index of its category, the number of
+	 * distinct tokens and for each token, in ascending order of ID, the
+	 * difference of its ID from the previous one and its count.
+	 */
 	@Override
 	public void save(File directory,Function<T,String> encoder){
-		try(ObjectOutputStream out=new ObjectOutputStream(new FileOutputStream(new File(directory,"MODEL")))){
-			out.writeObject(getProfiles());
+		directory.mkdirs();
+		Map<Category,VectorsProfile<T>> profiles=getProfiles();
+		try(DataOutputStream out=new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(directory,FILE_NAME)),65536))){
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			VarInt.write(out,vocabulary.size());
+			for(int i=0;i<vocabulary.size();i++){
+				VarInt.writeString(out,encoder.apply(vocabulary.getToken(i)));
+			}
+			VarInt.write(out,profiles.size());
+			for(Category category:profiles.keySet()){
+				VarInt.writeString(out,category.getName());
+			}
+			VarInt.write(out,getSampleCount());
+			int index=0;
+			for(VectorsProfile<T> profile:profiles.values()){
+				for(int document=0;document<profile.getDocumentCount();document++){
+					int start=profile.getStart(document),end=profile.getEnd(document);
+					int size=0;
+					for(int i=start;i<end;i++){
+						if(profile.isSelected(profile.getId(i))){
+							++size;
+						}
+					}
+					VarInt.write(out,index);
+					VarInt.write(out,size);
+					int last=0;
+					for(int i=start;i<end;i++){
+						if(profile.isSelected(profile.getId(i))){
+							VarInt.write(out,profile.getId(i)-last);
+							VarInt.write(out,profile.getCount(i));
+							last=profile.getId(i);
+						}
+					}
+				}
+				++index;
+			}
 		}catch(IOException ex){
-			Logger.getLogger(SimpleTrainableModel.class.getName()).log(Level.SEVERE,null,ex);
+			Logger.getLogger(DocumentVectorsModel.class.getName()).log(Level.SEVERE,null,ex);
 		}
 	}
 	@Override
 	public void load(File directory,Function<String,T> decoder){
-		try(ObjectInputStream out=new ObjectInputStream(new FileInputStream(new File(directory,"MODEL")))){
-			getProfiles().putAll((Map<? extends Category,? extends VectorsProfile<T>>)out.readObject());
+		profilesChanged();
+		File file=new File(directory,FILE_NAME);
+		if(!file.exists()&&new File(directory,LEGACY_FILE_NAME).exists()){
+			loadLegacy(directory);
+			return;
+		}
+		try(VectorsReader reader=new VectorsReader(file)){
+			int[] map=new int[reader.getTokens().length];
+			boolean monotonic=true;
+			for(int i=0;i<map.length;i++){
+				map[i]=vocabulary.getId(decoder.apply(reader.getTokens()[i]));
+				monotonic&=i==0||map[i]>map[i-1];
+			}
+			Map<Category,VectorsProfile<T>> profiles=getProfiles();
+			List<VectorsProfile<T>> targets=new ArrayList<>(reader.getCategories().length);
+			for(Category category:reader.getCategories()){
+				targets.add(profiles.computeIfAbsent(category,(key)->new VectorsProfile<>(vocabulary)));
+			}
+			long[] entries=new long[0];
+			while(reader.next()){
+				int[] ids=reader.getIds();
+				int[] counts=reader.getCounts();
+				int size=reader.getSize();
+				if(monotonic){
+					for(int i=0;i<size;i++){
+						ids[i]=map[ids[i]];
+					}
+				}else{
+					if(entries.length<size){
+						entries=new long[ids.length];
+					}
+					for(int i=0;i<size;i++){
+						entries[i]=((long)map[ids[i]]<<32)|counts[i];
+					}
+					Arrays.sort(entries,0,size);
+					for(int i=0;i<size;i++){
+						ids[i]=(int)(entries[i]>>>32);
+						counts[i]=(int)entries[i];
+					}
+				}
+				targets.get(reader.getCategory()).append(ids,counts,size);
+			}
+		}catch(IOException ex){
+			Logger.getLogger(DocumentVectorsModel.class.getName()).log(Level.SEVERE,null,ex);
+		}
+	}
+	private void loadLegacy(File directory){
+		try(ObjectInputStream in=new LegacyInputStream(new FileInputStream(new File(directory,LEGACY_FILE_NAME)))){
+			//a wrong type is only detected while the profiles are used, hence the ClassCastException below
+			@SuppressWarnings("unchecked")
+			Map<Category,LegacyProfile<T>> loadedProfiles=(Map<Category,LegacyProfile<T>>)in.readObject();
+			loadedProfiles.forEach((category,loaded)->{
+				VectorsProfile<T> profile=new VectorsProfile<>(vocabulary);
+				loaded.vectors.forEach(profile::update);
+				putProfile(category,profile);
+			});
 		}catch(IOException|ClassCastException|ClassNotFoundException ex){
 			Logger.getLogger(DocumentVectorsModel.class.getName()).log(Level.SEVERE,null,ex);
 		}
 	}
 	/**
-	 * Profile that records document vector
+	 * Layout of VectorsProfile in the MODEL files written by earlier versions
+	 */
+	private static final class LegacyProfile<T> implements Serializable{
+		private static final long serialVersionUID=515103728915678276L;
+		private List<Frequencies<T>> vectors;
+	}
+	/**
+	 * Stream that reads the profiles in MODEL files as LegacyProfile
+	 */
+	private static final class LegacyInputStream extends ObjectInputStream{
+		LegacyInputStream(InputStream in) throws IOException{
+			super(in);
+		}
+		@Override
+		protected ObjectStreamClass readClassDescriptor() throws IOException,ClassNotFoundException{
+			ObjectStreamClass descriptor=super.readClassDescriptor();
+			if(descriptor.getName().equals(VectorsProfile.class.getName())){
+				ObjectStreamClass legacy=ObjectStreamClass.lookup(LegacyProfile.class);
+				if(descriptor.getSerialVersionUID()!=legacy.getSerialVersionUID()){
+					throw new InvalidClassException(descriptor.getName(),"Unknown version of legacy model");
+				}
+				return legacy;
+			}
+			return descriptor;
+		}
+	}
+	/**
+	 * Read the samples saved in a directory one by one, so that they can be
+	 * used before the whole file is read. For example, a model can be trained
+	 * from the stream directly.
+	 *
+	 * @param <T> the type of tokens
+	 * @param directory where the model is saved to
+	 * @param decoder decode String to token
+	 * @return the samples in the order they were saved, the stream should be
+	 * closed after use
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static <T> Stream<Sample<Frequencies<T>>> read(File directory,Function<String,T> decoder) throws IOException{
+		VectorsReader reader=new VectorsReader(new File(directory,FILE_NAME));
+		List<T> tokens=Arrays.stream(reader.getTokens()).map(decoder).collect(Collectors.toList());
+		Iterator<Sample<Frequencies<T>>> iterator=new Iterator<Sample<Frequencies<T>>>(){
+			private boolean ready=false;
+			private boolean end=false;
+			@Override
+			public boolean hasNext(){
+				if(!ready&&!end){
+					try{
+						end=!reader.next();
+					}catch(IOException ex){
+						throw new UncheckedIOException(ex);
+					}
+					ready=!end;
+				}
+				return ready;
+			}
+			@Override
+			public Sample<Frequencies<T>> next(){
+				if(!hasNext()){
+					throw new NoSuchElementException();
+				}
+				ready=false;
+				Frequencies<T> frequencies=new Frequencies<>(true);
+				for(int i=0;i<reader.getSize();i++){
+					frequencies.advanceFrequency(tokens.get(reader.getIds()[i]),reader.getCounts()[i]);
+				}
+				return new Sample<>(frequencies,reader.getCategories()[reader.getCategory()]);
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,Spliterator.ORDERED|Spliterator.NONNULL),false).onClose(()->{
+			try{
+				reader.close();
+			}catch(IOException ex){
+				throw new UncheckedIOException(ex);
+			}
+		});
+	}
+	/**
+	 * Reader of the binary format, which reads one sample at a time into
+	 * reused buffers
+	 */
+	private static class VectorsReader implements Closeable{
+		private final DataInputStream in;
+		private final String[] tokens;
+		private final Category[] categories;
+		private long remaining;
+		private int category;
+		private int size;
+		private int[] ids=new int[16];
+		private int[] counts=new int[16];
+		VectorsReader(File file) throws IOException{
+			in=new DataInputStream(new BufferedInputStream(new FileInputStream(file),65536));
+			try{
+				if(in.readInt()!=MAGIC||in.readInt()!=VERSION){
+					throw new IOException("Unsupported format");
+				}
+				tokens=new String[VarInt.readInt(in)];
+				for(int i=0;i<tokens.length;i++){
+					tokens[i]=VarInt.readString(in);
+				}
+				categories=new Category[VarInt.readInt(in)];
+				for(int i=0;i<categories.length;i++){
+					categories[i]=new Category(VarInt.readString(in));
+				}
+				remaining=VarInt.read(in);
+			}catch(IOException ex){
+				in.close();
+				throw ex;
+			}
+		}
+		boolean next() throws IOException{
+			if(remaining==0){
+				return false;
+			}
+			--remaining;
+			category=VarInt.readInt(in);
+			size=VarInt.readInt(in);
+			if(category>=categories.length){
+				throw new IOException("Unknown category");
+			}
+			if(size>ids.length){
+				ids=new int[Math.max(size,ids.length*2)];
+				counts=new int[ids.length];
+			}
+			int last=0;
+			for(int i=0;i<size;i++){
+				last+=VarInt.readInt(in);
+				if(last>=tokens.length){
+					throw new IOException("Unknown token");
+				}
+				ids[i]=last;
+				counts[i]=VarInt.readInt(in);
+			}
+			return true;
+		}
+		String[] getTokens(){
+			return tokens;
+		}
+		Category[] getCategories(){
+			return categories;
+		}
+		int getCategory(){
+			return category;
+		}
+		int getSize(){
+			return size;
+		}
+		int[] getIds(){
+			return ids;
+		}
+		int[] getCounts(){
+			return counts;
+		}
+		@Override
+		public void close() throws IOException{
+			in.close();
+		}
+	}
+	/**
+	 * Profile that records document vectors as a sparse matrix in compressed
+	 * sparse row format: the token ID and count of all documents are stored in
+	 * two arrays, with the documents one after another.
 	 *
 	 * @param <T> the type of tokens
 	 */
 	public static class VectorsProfile<T> implements Serializable{
-		private final List<Frequencies<T>> vectors;
+		private static final long serialVersionUID=1L;
+		private static final int CHUNK_SIZE=1024;
+		private final Vocabulary<T> vocabulary;
+		private final BitSet selected;
+		private int documentCount;
+		private int[] offsets;
+		private int[] ids;
+		private int[] counts;
+		private transient IntFrequencies tokenFrequencies;
+		private transient IntFrequencies documentFrequencies;
 		/**
-		 * Create a empty profile
+		 * Create a empty profile with its own vocabulary
 		 */
 		public VectorsProfile(){
-			vectors=new LinkedList<>();
+			this(new Vocabulary<>());
+		}
+		/**
+		 * Create a empty profile
+		 *
+		 * @param vocabulary the vocabulary that token ID come from
+		 */
+		public VectorsProfile(Vocabulary<T> vocabulary){
+			this.vocabulary=vocabulary;
+			this.selected=null;
+			this.offsets=new int[CHUNK_SIZE+1];
+			this.ids=new int[CHUNK_SIZE];
+			this.counts=new int[CHUNK_SIZE];
+		}
+		private VectorsProfile(VectorsProfile<T> base,BitSet selected){
+			this.vocabulary=base.vocabulary;
+			this.selected=selected;
+			this.documentCount=base.documentCount;
+			this.offsets=base.offsets;
+			this.ids=base.ids;
+			this.counts=base.counts;
+		}
+		/**
+		 * Create a read-only view of the profile that only contains some of the
+		 * tokens. The view shares the arrays with this profile, so it reflects
+		 * the documents at the time it is created and becomes invalid if this
+		 * profile is filtered in place by retainAll.
+		 *
+		 * @param toKeep the ID of the tokens to be kept
+		 * @return the view
+		 */
+		public VectorsProfile<T> filter(BitSet toKeep){
+			if(selected!=null){
+				BitSet both=(BitSet)selected.clone();
+				both.and(toKeep);
+				toKeep=both;
+			}
+			return new VectorsProfile<>(this,toKeep);
 		}
 		/**
-		 * Create a profile
+		 * @param id the ID of a token
+		 * @return if the token is kept in the profile, false only if the
+		 * profile is a filtered view which does not contain the token
+		 */
+		public boolean isSelected(int id){
+			return selected==null||selected.get(id);
+		}
+		private void checkModifiable(){
+			if(selected!=null){
+				throw new UnsupportedOperationException();
+			}
+		}
+		/**
+		 * Create a profile with its own vocabulary
 		 *
 		 * @param vectors initial vector
 		 */
 		public VectorsProfile(List<Frequencies<T>> vectors){
-			this.vectors=vectors;
+			this();
+			vectors.forEach(this::update);
 		}
 		/**
 		 * Update the profile based on sample data
@@ -124,13 +567,255 @@ public class DocumentVectorsModel<T> extends SimpleTrainableModel<Frequencies<T>
 		 * @param object sample data
 		 */
 		public void update(Frequencies<T> object){
-			vectors.add((Frequencies<T>)object);
+			update(vocabulary.toVector(object,true));
+		}
+		/**
+		 * Update the profile based on sample data
+		 *
+		 * @param object sample data, with token ID from the vocabulary of this
+		 * profile
+		 */
+		public void update(SparseVector object){
+			checkModifiable();
+			int start=offsets[documentCount];
+			int end=start+object.getTokenCount();
+			ensureCapacity(documentCount+1,end);
+			for(int i=0;i<object.getTokenCount();i++){
+				ids[start+i]=object.getId(i);
+				counts[start+i]=Math.toIntExact(object.getCount(i));
+			}
+			offsets[++documentCount]=end;
+			count(start,end);
 		}
 		/**
-		 * @return the number of sample in the category
+		 * Add all documents in another profile to this profile
+		 *
+		 * @param other the other profile
+		 */
+		public void merge(VectorsProfile<T> other){
+			checkModifiable();
+			int[] map=null;
+			boolean monotonic=true;
+			if(other.vocabulary!=vocabulary){
+				map=new int[other.vocabulary.size()];
+				for(int i=0;i<map.length;i++){
+					map[i]=vocabulary.getId(other.vocabulary.getToken(i));
+					monotonic&=i==0||map[i]>map[i-1];
+				}
+			}
+			int documents=other.documentCount;
+			int start=offsets[documentCount];
+			ensureCapacity(documentCount+documents,start+other.offsets[documents]);
+			int position=start;
+			for(int i=0;i<documents;i++){
+				int from=other.offsets[i],to=other.offsets[i+1];
+				if(map==null&&other.selected==null){
+					System.arraycopy(other.ids,from,ids,position,to-from);
+					System.arraycopy(other.counts,from,counts,position,to-from);
+					position+=to-from;
+				}else{
+					long[] entries=new long[to-from];
+					int size=0;
+					for(int j=from;j<to;j++){
+						if(other.isSelected(other.ids[j])){
+							entries[size++]=((long)(map==null?other.ids[j]:map[other.ids[j]])<<32)|other.counts[j];
+						}
+					}
+					if(!monotonic){
+						Arrays.sort(entries,0,size);
+					}
+					for(int j=0;j<size;j++){
+						ids[position]=(int)(entries[j]>>>32);
+						counts[position++]=(int)entries[j];
+					}
+				}
+				offsets[documentCount+i+1]=position;
+			}
+			documentCount+=documents;
+			count(start,offsets[documentCount]);
+		}
+		void append(int[] documentIds,int[] documentCounts,int size){
+			checkModifiable();
+			int start=offsets[documentCount];
+			ensureCapacity(documentCount+1,start+size);
+			System.arraycopy(documentIds,0,ids,start,size);
+			System.arraycopy(documentCounts,0,counts,start,size);
+			offsets[++documentCount]=start+size;
+			count(start,start+size);
+		}
+		private void ensureCapacity(int documents,int entries){
+			if(documents+1>offsets.length){
+				offsets=Arrays.copyOf(offsets,Math.max(documents+1,offsets.length+Math.max(offsets.length>>1,CHUNK_SIZE)));
+			}
+			if(entries>ids.length){
+				int capacity=Math.max(entries,ids.length+Math.max(ids.length>>1,CHUNK_SIZE));
+				ids=Arrays.copyOf(ids,capacity);
+				counts=Arrays.copyOf(counts,capacity);
+			}
+		}
+		/**
+		 * Remove tokens from all documents
+		 *
+		 * @param toKeep test if a token ID should be kept
+		 */
+		public void retainAll(IntPredicate toKeep){
+			checkModifiable();
+			int next=0;
+			for(int i=0;i<documentCount;i++){
+				int start=offsets[i],end=offsets[i+1];
+				offsets[i]=next;
+				for(int j=start;j<end;j++){
+					if(toKeep.test(ids[j])){
+						ids[next]=ids[j];
+						counts[next++]=counts[j];
+					}
+				}
+			}
+			offsets[documentCount]=next;
+			tokenFrequencies=null;
+			documentFrequencies=null;
+		}
+		private void count(int from,int to){
+			if(tokenFrequencies!=null){
+				for(int i=from;i<to;i++){
+					tokenFrequencies.advanceFrequency(ids[i],counts[i]);
+					documentFrequencies.advanceFrequency(ids[i],1);
+				}
+			}
+		}
+		/**
+		 * @return the vocabulary that token ID come from
+		 */
+		public Vocabulary<T> getVocabulary(){
+			return vocabulary;
+		}
+		/**
+		 * @return the number of samples in the category
+		 */
+		public int getDocumentCount(){
+			return documentCount;
+		}
+		/**
+		 * @param document the index of a document
+		 * @return the position of the first token of the document, tokens
+		 * that are not selected should be skipped if the profile is a filtered
+		 * view
+		 */
+		public int getStart(int document){
+			return offsets[document];
+		}
+		/**
+		 * @param document the index of a document
+		 * @return the position after the last token of the document
+		 */
+		public int getEnd(int document){
+			return offsets[document+1];
+		}
+		/**
+		 * @param position the position of a token in the profile
+		 * @return the ID of the token, tokens of each document are in
+		 * ascending order of ID
+		 */
+		public int getId(int position){
+			return ids[position];
+		}
+		/**
+		 * @param position the position of a token in the profile
+		 * @return the number of occurrences of the token in its document
+		 */
+		public int getCount(int position){
+			return counts[position];
+		}
+		/**
+		 * @param document the index of a document
+		 * @return the vector of the document
+		 */
+		public SparseVector getVector(int document){
+			int start=offsets[document];
+			int end=offsets[document+1];
+			int[] documentIds=new int[end-start];
+			long[] documentCounts=new long[end-start];
+			int size=0;
+			for(int i=start;i<end;i++){
+				if(isSelected(ids[i])){
+					documentIds[size]=ids[i];
+					documentCounts[size++]=counts[i];
+				}
+			}
+			return SparseVector.of(Arrays.copyOf(documentIds,size),Arrays.copyOf(documentCounts,size));
+		}
+		/**
+		 * @return the number of occurrences of each token in the category,
+		 * indexed by token ID, which is kept up to date and should not be
+		 * modified
+		 */
+		public IntFrequencies getTokenFrequencies(){
+			ensureFrequencies();
+			return tokenFrequencies;
+		}
+		/**
+		 * @return the number of samples in the category containing each token,
+		 * indexed by token ID, which is kept up to date and should not be
+		 * modified
+		 */
+		public IntFrequencies getDocumentFrequencies(){
+			ensureFrequencies();
+			return documentFrequencies;
+		}
+		private synchronized void ensureFrequencies(){
+			if(tokenFrequencies==null){
+				tokenFrequencies=new IntFrequencies(vocabulary.size());
+				documentFrequencies=new IntFrequencies(vocabulary.size());
+				int end=offsets[documentCount];
+				for(int i=0;i<end;i++){
+					if(isSelected(ids[i])){
+						tokenFrequencies.advanceFrequency(ids[i],counts[i]);
+						documentFrequencies.advanceFrequency(ids[i],1);
+					}
+				}
+			}
+		}
+		/**
+		 * Get the vectors of the samples in the category. The documents are
+		 * converted back to frequencies tables on each access, so it is much
+		 * slower than reading the arrays directly. Only adding to the end of
+		 * the list is supported.
+		 *
+		 * @return the vectors
 		 */
 		public List<Frequencies<T>> getDocumentVectors(){
-			return vectors;
+			return new AbstractList<Frequencies<T>>(){
+				@Override
+				public Frequencies<T> get(int index){
+					if(index<0||index>=documentCount){
+						throw new IndexOutOfBoundsException();
+					}
+					Frequencies<T> frequencies=new Frequencies<>(true);
+					for(int i=offsets[index];i<offsets[index+1];i++){
+						if(isSelected(ids[i])){
+							frequencies.advanceFrequency(vocabulary.getToken(ids[i]),counts[i]);
+						}
+					}
+					return frequencies;
+				}
+				@Override
+				public void add(int index,Frequencies<T> element){
+					if(index!=documentCount){
+						throw new UnsupportedOperationException();
+					}
+					update(element);
+				}
+				@Override
+				public int size(){
+					return documentCount;
+				}
+			};
+		}
+		private void writeObject(ObjectOutputStream out) throws IOException{
+			offsets=Arrays.copyOf(offsets,documentCount+1);
+			ids=Arrays.copyOf(ids,offsets[documentCount]);
+			counts=Arrays.copyOf(counts,offsets[documentCount]);
+			out.defaultWriteObject();
 		}
 	}
 }
@@ -16,7 +16,10 @@
  */
 package com.github.chungkwong.classifier;
 import com.github.chungkwong.classifier.util.*;
+import com.github.chungkwong.classifier.validator.*;
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
 import java.nio.charset.*;
 import java.nio.file.*;
 import java.util.*;
@@ -32,35 +35,142 @@ import java.util.stream.*;
  */
 public class FrequenciesModel<T> extends SimpleTrainableModel<Frequencies<T>,FrequenciesModel.FrequencyProfile<T>>
 		implements TokenFrequenciesModel<T>,Persistable<T>{
+	private final Frequencies.Backend backend;
+	private Format format=Format.TEXT;
+	private Frequencies<T> totalTokenFrequencies=new Frequencies<>(Frequencies.Backend.OPEN_ADDRESSING);
+	private Frequencies<T> totalDocumentFrequencies=new Frequencies<>(Frequencies.Backend.OPEN_ADDRESSING);
+	private final Object totalsLock=new Object();
+	private boolean totalsValid=true;
+	private boolean totalsMapped=false;
+	private boolean readOnly=false;
 	/**
 	 * Create a model
 	 */
 	public FrequenciesModel(){
-		super(()->new FrequenciesModel.FrequencyProfile<>(),(data,profile)->profile.update(data));
+		this(Frequencies.Backend.TREE_MAP);
+	}
+	/**
+	 * Create a model
+	 *
+	 * @param backend the kind of tables being used to store frequencies
+	 */
+	public FrequenciesModel(Frequencies.Backend backend){
+		super(()->new FrequenciesModel.FrequencyProfile<>(backend),(data,profile)->profile.update(data),(profile,other)->profile.merge(other));
+		this.backend=backend;
+	}
+	/**
+	 * @return the kind of tables being used to store frequencies
+	 */
+	public Frequencies.Backend getBackend(){
+		return backend;
+	}
+	/**
+	 * Set the format being used to save the model, loading detects the format
+	 * automatically
+	 *
+	 * @param format the format
+	 * @return this
+	 */
+	public FrequenciesModel<T> setFormat(Format format){
+		this.format=format;
+		return this;
+	}
+	/**
+	 * @return the format being used to save the model
+	 */
+	public Format getFormat(){
+		return format;
+	}
+	/**
+	 * @return true if the model is mapped from a file and cannot be modified
+	 */
+	public boolean isReadOnly(){
+		return readOnly;
+	}
+	private void checkModifiable(){
+		if(readOnly){
+			throw new UnsupportedOperationException();
+		}
+	}
+	@Override
+	public void train(Frequencies<T> data,Category category){
+		checkModifiable();
+		super.train(data,category);
+	}
+	@Override
+	public void train(Stream<Sample<Frequencies<T>>> samples){
+		checkModifiable();
+		super.train(samples);
+	}
+	@Override
+	public void merge(SimpleTrainableModel<Frequencies<T>,FrequencyProfile<T>> other){
+		checkModifiable();
+		super.merge(other);
 	}
 	@Override
 	public long getSampleCount(){
 		return getProfiles().values().stream().mapToLong((profile)->profile.getDocumentCount()).sum();
 	}
+	/**
+	 * @return read-only views of the frequencies table for each category
+	 */
 	@Override
 	public Map<Category,Frequencies<T>> getTokenFrequencies(){
-		return getProfiles().entrySet().stream().collect(Collectors.toMap((e)->e.getKey(),(e)->e.getValue().getTokenFrequencies()));
+		return getProfiles().entrySet().stream().collect(Collectors.toMap((e)->e.getKey(),(e)->e.getValue().getTokenFrequencies().toUnmodifiable()));
 	}
+	/**
+	 * @return read-only view of the number of samples that contains each
+	 * token, which is kept up to date during training
+	 */
 	@Override
 	public Frequencies<T> getTotalDocumentFrequencies(){
-		Frequencies<T> documentFrequenciesRaw=new Frequencies<>(true);
-		getProfiles().forEach((k,v)->{
-			documentFrequenciesRaw.merge(v.getDocumentFrequencies());
-		});
-		return documentFrequenciesRaw;
+		ensureTotals();
+		return totalDocumentFrequencies.toUnmodifiable();
 	}
+	/**
+	 * @return read-only view of the frequency of each token in all samples,
+	 * which is kept up to date during training
+	 */
 	@Override
 	public Frequencies<T> getTotalTokenFrequencies(){
-		Frequencies<T> tokenFrequenciesRaw=new Frequencies<>(true);
-		getProfiles().forEach((k,v)->{
-			tokenFrequenciesRaw.merge(v.getTokenFrequencies());
-		});
-		return tokenFrequenciesRaw;
+		ensureTotals();
+		return totalTokenFrequencies.toUnmodifiable();
+	}
+	@Override
+	protected void sampleTrained(Frequencies<T> data,FrequencyProfile<T> profile){
+		synchronized(totalsLock){
+			if(totalsValid){
+				data.forEachFrequency((token,count)->{
+					totalTokenFrequencies.advanceFrequency(token,count);
+					totalDocumentFrequencies.advanceFrequency(token);
+				});
+			}
+		}
+	}
+	@Override
+	protected void profilesChanged(){
+		synchronized(totalsLock){
+			totalsValid=false;
+		}
+	}
+	private void ensureTotals(){
+		synchronized(totalsLock){
+			if(!totalsValid){
+				if(totalsMapped){
+					totalTokenFrequencies=new Frequencies<>(Frequencies.Backend.OPEN_ADDRESSING);
+					totalDocumentFrequencies=new Frequencies<>(Frequencies.Backend.OPEN_ADDRESSING);
+					totalsMapped=false;
+				}else{
+					totalTokenFrequencies.toMap().clear();
+					totalDocumentFrequencies.toMap().clear();
+				}
+				getProfiles().forEach((k,v)->{
+					totalTokenFrequencies.merge(v.getTokenFrequencies());
+					totalDocumentFrequencies.merge(v.getDocumentFrequencies());
+				});
+				totalsValid=true;
+			}
+		}
 	}
 	@Override
 	public Frequencies<Category> getSampleCounts(){
@@ -70,16 +180,44 @@ public class FrequenciesModel<T> extends SimpleTrainableModel<Frequencies<T>,Fre
 	public Frequencies<Category> getTokenCounts(){
 		return new Frequencies<>(getProfiles().entrySet().stream().collect(Collectors.toMap((e)->e.getKey(),(e)->new Counter(e.getValue().getTokenFrequencies().getTokenCount()))));
 	}
+	/**
+	 * Create a read-only view of the model that only contains the tokens in a
+	 * given set, the frequencies tables of the view are filtered views of the
+	 * tables in this model
+	 *
+	 * @param toKeep the tokens to be kept
+	 * @return the view
+	 */
+	@Override
+	public FrequenciesModel<T> filter(Set<T> toKeep){
+		FrequenciesModel<T> view=new FrequenciesModel<>(backend);
+		getProfiles().forEach((category,profile)->view.getProfiles().put(category,new FrequencyProfile<>(
+				new Frequencies<>(new FilteredCountMap<>(profile.getTokenFrequencies(),toKeep)),
+				new Frequencies<>(new FilteredCountMap<>(profile.getDocumentFrequencies(),toKeep)),
+				profile.getDocumentCount())));
+		view.profilesChanged();
+		return view;
+	}
 	@Override
 	public void retainAll(Set<T> toKeep){
+		checkModifiable();
 		getProfiles().forEach((k,v)->{
 			v.getDocumentFrequencies().toMap().keySet().retainAll(toKeep);
 			v.getTokenFrequencies().toMap().keySet().retainAll(toKeep);
 		});
+		profilesChanged();
 	}
 	@Override
 	public void save(File directory,Function<T,String> encoder){
 		directory.mkdirs();
+		if(format==Format.BINARY){
+			try{
+				saveBinary(directory,encoder);
+			}catch(IOException ex){
+				Logger.getLogger(FrequenciesModel.class.getName()).log(Level.SEVERE,null,ex);
+			}
+			return;
+		}
 		getProfiles().forEach((category,profile)->{
 			try{
 				Files.write(new File(directory,category+DOC_COUNT).toPath(),Long.toString(profile.getDocumentCount()).getBytes(StandardCharsets.UTF_8));
@@ -92,13 +230,33 @@ public class FrequenciesModel<T> extends SimpleTrainableModel<Frequencies<T>,Fre
 	}
 	@Override
 	public void load(File directory,Function<String,T> decoder){
+		checkModifiable();
+		profilesChanged();
+		if(new File(directory,BINARY).exists()){
+			try{
+				BinaryFile file=new BinaryFile(directory);
+				List<T> tokens=new ArrayList<>(Collections.nCopies(file.vocabulary.size(),null));
+				for(int i=0;i<file.categories.length;i++){
+					if(!getProfiles().containsKey(file.categories[i])){
+						getProfiles().put(file.categories[i],new FrequencyProfile<>(backend));
+					}
+					FrequencyProfile<T> profile=getProfiles().get(file.categories[i]);
+					profile.setDocumentCount(profile.getDocumentCount()+file.documentCounts[i]);
+					copyCounts(file.tokenFrequencies[i],profile.getTokenFrequencies(),file.vocabulary,tokens,decoder);
+					copyCounts(file.documentFrequencies[i],profile.getDocumentFrequencies(),file.vocabulary,tokens,decoder);
+				}
+			}catch(IOException ex){
+				Logger.getLogger(FrequenciesModel.class.getName()).log(Level.SEVERE,null,ex);
+			}
+			return;
+		}
 		try{
 			Files.list(directory.toPath()).filter((path)->path.getFileName().toString().endsWith(DOC_COUNT)).forEach((path)->{
 				String categoryName=path.getFileName().toString();
 				categoryName=categoryName.substring(0,categoryName.length()-DOC_COUNT.length());
 				Category category=new Category(categoryName);
 				if(!getProfiles().containsKey(category)){
-					getProfiles().put(category,new FrequencyProfile<>());
+					getProfiles().put(category,new FrequencyProfile<>(backend));
 				}
 				FrequencyProfile<T> profile=getProfiles().get(category);
 				try{
@@ -115,6 +273,145 @@ public class FrequenciesModel<T> extends SimpleTrainableModel<Frequencies<T>,Fre
 			Logger.getLogger(FrequenciesModel.class.getName()).log(Level.SEVERE,null,ex);
 		}
 	}
+	private static <T> void copyCounts(LongBuffer counts,Frequencies<T> frequencies,MappedVocabulary vocabulary,List<T> tokens,Function<String,T> decoder){
+		for(int i=0;i<tokens.size();i++){
+			long count=counts.get(i);
+			if(count!=0){
+				if(tokens.get(i)==null){
+					tokens.set(i,decoder.apply(vocabulary.getToken(i)));
+				}
+				frequencies.advanceFrequency(tokens.get(i),count);
+			}
+		}
+	}
+	/**
+	 * Map a model saved in binary format into memory. The model returned is
+	 * read-only, so training, merging or loading into it throws
+	 * UnsupportedOperationException, and lookups, including those to the total frequencies, go to
+	 * the mapped file directly, so it is ready almost immediately and takes
+	 * little heap.
+	 *
+	 * @param <T> the type of tokens
+	 * @param directory where the model is saved to
+	 * @param encoder encode token to String, consistent with the encoder used
+	 * to save the model
+	 * @param decoder decode String to token
+	 * @return the model
+	 * @throws IOException if the model cannot be read
+	 */
+	public static <T> FrequenciesModel<T> map(File directory,Function<T,String> encoder,Function<String,T> decoder) throws IOException{
+		BinaryFile file=new BinaryFile(directory);
+		FrequenciesModel<T> model=new FrequenciesModel<>();
+		for(int i=0;i<file.categories.length;i++){
+			model.getProfiles().put(file.categories[i],new FrequencyProfile<>(
+					new Frequencies<>(new MappedCountMap<>(file.vocabulary,file.tokenFrequencies[i],file.tokenSizes[i],encoder,decoder)),
+					new Frequencies<>(new MappedCountMap<>(file.vocabulary,file.documentFrequencies[i],file.documentSizes[i],encoder,decoder)),
+					file.documentCounts[i]));
+		}
+		model.totalTokenFrequencies=new Frequencies<>(new MappedCountMap<>(file.vocabulary,file.totalTokenFrequencies,file.totalTokenSize,encoder,decoder));
+		model.totalDocumentFrequencies=new Frequencies<>(new MappedCountMap<>(file.vocabulary,file.totalDocumentFrequencies,file.totalDocumentSize,encoder,decoder));
+		model.totalsMapped=true;
+		model.readOnly=true;
+		return model;
+	}
+	/*
+	 * Binary format, all numbers are big endian:
+	 * magic, version, number of tokens, number of categories (int each),
+	 * length of vocabulary (long), number of tokens with nonzero total
+	 * frequency and total document frequency (int each), then for each
+	 * category: length of name (int), name in UTF-8, number of samples (long),
+	 * number of tokens with nonzero frequency and document frequency (int
+	 * each). Following the header are sections aligned to 8 bytes: the offset
+	 * of each token in the vocabulary and the length of the vocabulary (int),
+	 * tokens in UTF-8 sorted by bytes, the total frequency and the total
+	 * document frequency of each token in the vocabulary (long), then for each
+	 * category the frequency and the document frequency of each token in the
+	 * vocabulary (long).
+	 *
+	 * Each section is mapped on its own, so the whole file may exceed 2 GB,
+	 * but the vocabulary and each array of counts must fit in 2 GB, that is
+	 * the UTF-8 tokens take at most Integer.MAX_VALUE bytes and there are at
+	 * most MAX_TOKENS tokens.
+	 */
+	private void saveBinary(File directory,Function<T,String> encoder) throws IOException{
+		Map<T,byte[]> encoded=new HashMap<>();
+		ObjLongConsumer<T> collector=(token,count)->encoded.computeIfAbsent(token,(t)->encoder.apply(t).getBytes(StandardCharsets.UTF_8));
+		getProfiles().values().forEach((profile)->{
+			profile.getTokenFrequencies().forEachFrequency(collector);
+			profile.getDocumentFrequencies().forEachFrequency(collector);
+		});
+		List<Map.Entry<T,byte[]>> tokens=new ArrayList<>(encoded.entrySet());
+		tokens.sort((e1,e2)->MappedVocabulary.ORDER.compare(e1.getValue(),e2.getValue()));
+		ObjectLongHashMap<T> indices=new ObjectLongHashMap<>(tokens.size());
+		long vocabularyLength=0;
+		for(int i=0;i<tokens.size();i++){
+			indices.putLong(tokens.get(i).getKey(),i);
+			vocabularyLength+=tokens.get(i).getValue().length;
+		}
+		if(tokens.size()>MAX_TOKENS||vocabularyLength>Integer.MAX_VALUE){
+			throw new IOException("Vocabulary too large for the binary format");
+		}
+		Frequencies<T> totalTokens=getTotalTokenFrequencies();
+		Frequencies<T> totalDocuments=getTotalDocumentFrequencies();
+		List<Category> categories=new ArrayList<>(getProfiles().keySet());
+		try(DataOutputStream out=new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(directory,BINARY)),65536))){
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(tokens.size());
+			out.writeInt(categories.size());
+			out.writeLong(vocabularyLength);
+			out.writeInt(totalTokens.getTokenCount());
+			out.writeInt(totalDocuments.getTokenCount());
+			long position=32;
+			for(Category category:categories){
+				FrequencyProfile<T> profile=getProfiles().get(category);
+				byte[] name=category.getName().getBytes(StandardCharsets.UTF_8);
+				out.writeInt(name.length);
+				out.write(name);
+				out.writeLong(profile.getDocumentCount());
+				out.writeInt(profile.getTokenFrequencies().getTokenCount());
+				out.writeInt(profile.getDocumentFrequencies().getTokenCount());
+				position+=20+name.length;
+			}
+			position=pad(out,position);
+			int offset=0;
+			for(Map.Entry<T,byte[]> token:tokens){
+				out.writeInt(offset);
+				offset+=token.getValue().length;
+			}
+			out.writeInt(offset);
+			position=pad(out,position+4*(tokens.size()+1));
+			for(Map.Entry<T,byte[]> token:tokens){
+				out.write(token.getValue());
+			}
+			pad(out,position+vocabularyLength);
+			long[] counts=new long[tokens.size()];
+			writeCounts(out,totalTokens,indices,counts);
+			writeCounts(out,totalDocuments,indices,counts);
+			for(Category category:categories){
+				FrequencyProfile<T> profile=getProfiles().get(category);
+				writeCounts(out,profile.getTokenFrequencies(),indices,counts);
+				writeCounts(out,profile.getDocumentFrequencies(),indices,counts);
+			}
+		}
+	}
+	private static <T> void writeCounts(DataOutputStream out,Frequencies<T> frequencies,ObjectLongHashMap<T> indices,long[] counts) throws IOException{
+		Arrays.fill(counts,0);
+		frequencies.forEachFrequency((token,count)->counts[(int)indices.getLong(token)]=count);
+		for(long count:counts){
+			out.writeLong(count);
+		}
+	}
+	private static long pad(DataOutputStream out,long position) throws IOException{
+		while(position%8!=0){
+			out.writeByte(0);
+			++position;
+		}
+		return position;
+	}
+	private static long align(long position){
+		return (position+7)&~7L;
+	}
 	private void loadLine(String line,Frequencies<T> frequencies,Function<String,T> decoder){
 		int cut=line.indexOf('\t');
 		if(cut!=-1){
@@ -124,6 +421,84 @@ public class FrequenciesModel<T> extends SimpleTrainableModel<Frequencies<T>,Fre
 	private static final String DOC_FREQ="_docFreq";
 	private static final String TOKEN_FREQ="_tokenFreq";
 	private static final String DOC_COUNT="_docCount";
+	private static final String BINARY="frequencies.bin";
+	private static final int MAGIC=0x46524551;
+	private static final int VERSION=2;
+	private static final int MAX_TOKENS=Integer.MAX_VALUE/8-1;
+	/**
+	 * Sections of a model saved in binary format, mapped into memory
+	 */
+	private static final class BinaryFile{
+		final Category[] categories;
+		final long[] documentCounts;
+		final int[] tokenSizes;
+		final int[] documentSizes;
+		final MappedVocabulary vocabulary;
+		final int totalTokenSize;
+		final int totalDocumentSize;
+		final LongBuffer totalTokenFrequencies;
+		final LongBuffer totalDocumentFrequencies;
+		final LongBuffer[] tokenFrequencies;
+		final LongBuffer[] documentFrequencies;
+		BinaryFile(File directory) throws IOException{
+			try(FileChannel channel=FileChannel.open(new File(directory,BINARY).toPath(),StandardOpenOption.READ)){
+				DataInputStream in=new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+				if(in.readInt()!=MAGIC||in.readInt()!=VERSION){
+					throw new IOException("Unsupported format");
+				}
+				int tokenCount=in.readInt();
+				int categoryCount=in.readInt();
+				long vocabularyLength=in.readLong();
+				totalTokenSize=in.readInt();
+				totalDocumentSize=in.readInt();
+				long position=32;
+				categories=new Category[categoryCount];
+				documentCounts=new long[categoryCount];
+				tokenSizes=new int[categoryCount];
+				documentSizes=new int[categoryCount];
+				for(int i=0;i<categoryCount;i++){
+					byte[] name=new byte[in.readInt()];
+					in.readFully(name);
+					categories[i]=new Category(new String(name,StandardCharsets.UTF_8));
+					documentCounts[i]=in.readLong();
+					tokenSizes[i]=in.readInt();
+					documentSizes[i]=in.readInt();
+					position+=20+name.length;
+				}
+				position=align(position);
+				IntBuffer offsets=channel.map(FileChannel.MapMode.READ_ONLY,position,4L*(tokenCount+1)).asIntBuffer();
+				position=align(position+4L*(tokenCount+1));
+				ByteBuffer bytes=channel.map(FileChannel.MapMode.READ_ONLY,position,vocabularyLength);
+				position=align(position+vocabularyLength);
+				vocabulary=new MappedVocabulary(offsets,bytes);
+				totalTokenFrequencies=channel.map(FileChannel.MapMode.READ_ONLY,position,8L*tokenCount).asLongBuffer();
+				position+=8L*tokenCount;
+				totalDocumentFrequencies=channel.map(FileChannel.MapMode.READ_ONLY,position,8L*tokenCount).asLongBuffer();
+				position+=8L*tokenCount;
+				tokenFrequencies=new LongBuffer[categoryCount];
+				documentFrequencies=new LongBuffer[categoryCount];
+				for(int i=0;i<categoryCount;i++){
+					tokenFrequencies[i]=channel.map(FileChannel.MapMode.READ_ONLY,position,8L*tokenCount).asLongBuffer();
+					position+=8L*tokenCount;
+					documentFrequencies[i]=channel.map(FileChannel.MapMode.READ_ONLY,position,8L*tokenCount).asLongBuffer();
+					position+=8L*tokenCount;
+				}
+			}
+		}
+	}
+	/**
+	 * Formats being used to save the model
+	 */
+	public enum Format{
+		/**
+		 * Three tab separated text files for each category
+		 */
+		TEXT,
+		/**
+		 * A binary file that can be mapped into memory
+		 */
+		BINARY;
+	}
 	/**
 	 * Profile that records frequencies of each token
 	 *
@@ -131,12 +506,35 @@ public class FrequenciesModel<T> extends SimpleTrainableModel<Frequencies<T>,Fre
 	 */
 	public static class FrequencyProfile<T>{
 		private long documentCount=0;
-		private final Frequencies<T> tokenFrequencies=new Frequencies<>();
-		private final Frequencies<T> documentFrequencies=new Frequencies<>();
+		private final Frequencies<T> tokenFrequencies;
+		private final Frequencies<T> documentFrequencies;
 		/**
 		 * Create a empty profile
 		 */
 		public FrequencyProfile(){
+			this(Frequencies.Backend.TREE_MAP);
+		}
+		/**
+		 * Create a empty profile
+		 *
+		 * @param backend the kind of tables being used to store frequencies
+		 */
+		public FrequencyProfile(Frequencies.Backend backend){
+			tokenFrequencies=new Frequencies<>(backend);
+			documentFrequencies=new Frequencies<>(backend);
+		}
+		/**
+		 * Create a profile
+		 *
+		 * @param tokenFrequencies the frequency of each token
+		 * @param documentFrequencies the number of samples that contains each
+		 * token
+		 * @param documentCount the number of samples
+		 */
+		public FrequencyProfile(Frequencies<T> tokenFrequencies,Frequencies<T> documentFrequencies,long documentCount){
+			this.tokenFrequencies=tokenFrequencies;
+			this.documentFrequencies=documentFrequencies;
+			this.documentCount=documentCount;
 		}
 		/**
 		 * Update the profile based on sample data
@@ -144,10 +542,22 @@ public class FrequenciesModel<T> extends SimpleTrainableModel<Frequencies<T>,Fre
 		 * @param object sample data
 		 */
 		public void update(Frequencies<T> object){
-			tokenFrequencies.merge(object);
-			object.toMap().keySet().forEach((token)->documentFrequencies.advanceFrequency(token));
+			object.forEachFrequency((token,count)->{
+				tokenFrequencies.advanceFrequency(token,count);
+				documentFrequencies.advanceFrequency(token);
+			});
 			++documentCount;
 		}
+		/**
+		 * Add the samples recorded in another profile to this profile
+		 *
+		 * @param other the other profile
+		 */
+		public void merge(FrequencyProfile<T> other){
+			tokenFrequencies.merge(other.tokenFrequencies);
+			documentFrequencies.merge(other.documentFrequencies);
+			documentCount+=other.documentCount;
+		}
 		/**
 		 * @return the number of samples that contains each token in the
 		 * category
@@ -167,7 +577,7 @@ public class FrequenciesModel<T> extends SimpleTrainableModel<Frequencies<T>,Fre
 		public long getDocumentCount(){
 			return documentCount;
 		}
-		private void setDocumentCount(long documentCount){
+		void setDocumentCount(long documentCount){
 			this.documentCount=documentCount;
 		}
 	}
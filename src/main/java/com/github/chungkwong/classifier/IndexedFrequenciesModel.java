@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier;
+import com.github.chungkwong.classifier.util.*;
+/**
+ * Trainable model that record frequencies of tokens identified by integer ID,
+ * so that training is done by array indexing instead of hashing tokens
+ *
+ * @author Chan Chung Kwong
+ * @param <T> the type of tokens
+ */
+public class IndexedFrequenciesModel<T> extends SimpleTrainableModel<SparseVector,IndexedFrequenciesModel.IndexedFrequencyProfile>{
+	private final Vocabulary<T> vocabulary;
+	/**
+	 * Create a model with a new vocabulary
+	 */
+	public IndexedFrequenciesModel(){
+		this(new Vocabulary<>());
+	}
+	/**
+	 * Create a model
+	 *
+	 * @param vocabulary the vocabulary that the ID come from
+	 */
+	public IndexedFrequenciesModel(Vocabulary<T> vocabulary){
+		super(()->new IndexedFrequencyProfile(),(data,profile)->profile.update(data),(profile,other)->profile.merge(other));
+		this.vocabulary=vocabulary;
+	}
+	/**
+	 * Train the model with a frequencies table, the tokens are added to the
+	 * vocabulary if needed
+	 *
+	 * @param data the data
+	 * @param category the category of the data
+	 */
+	public void train(Frequencies<T> data,Category category){
+		train(vocabulary.toVector(data,true),category);
+	}
+	/**
+	 * @return the vocabulary that the ID come from
+	 */
+	public Vocabulary<T> getVocabulary(){
+		return vocabulary;
+	}
+	/**
+	 * @return a upper bound of the ID with nonzero frequency (exclusive)
+	 */
+	public int getIdBound(){
+		return getProfiles().values().stream().mapToInt((profile)->profile.getTokenFrequencies().getIdBound())
+				.reduce(vocabulary.size(),Math::max);
+	}
+	/**
+	 * @return the number of samples trained
+	 */
+	public long getSampleCount(){
+		return getProfiles().values().stream().mapToLong((profile)->profile.getDocumentCount()).sum();
+	}
+	/**
+	 * @return the number of samples that contains each token
+	 */
+	public IntFrequencies getTotalDocumentFrequencies(){
+		IntFrequencies documentFrequencies=new IntFrequencies(vocabulary.size());
+		getProfiles().forEach((k,v)->documentFrequencies.merge(v.getDocumentFrequencies()));
+		return documentFrequencies;
+	}
+	/**
+	 * @return the frequency of each token in all samples
+	 */
+	public IntFrequencies getTotalTokenFrequencies(){
+		IntFrequencies tokenFrequencies=new IntFrequencies(vocabulary.size());
+		getProfiles().forEach((k,v)->tokenFrequencies.merge(v.getTokenFrequencies()));
+		return tokenFrequencies;
+	}
+	/**
+	 * Convert to a model keyed by tokens, so that classifier factories working
+	 * on FrequenciesModel can be used
+	 *
+	 * @return the converted model
+	 */
+	public FrequenciesModel<T> toFrequenciesModel(){
+		FrequenciesModel<T> model=new FrequenciesModel<>(Frequencies.Backend.HASH_MAP);
+		getProfiles().forEach((category,profile)->{
+			FrequenciesModel.FrequencyProfile<T> converted=new FrequenciesModel.FrequencyProfile<>(Frequencies.Backend.HASH_MAP);
+			profile.getTokenFrequencies().forEachFrequency((id,count)->converted.getTokenFrequencies().advanceFrequency(vocabulary.getToken(id),count));
+			profile.getDocumentFrequencies().forEachFrequency((id,count)->converted.getDocumentFrequencies().advanceFrequency(vocabulary.getToken(id),count));
+			converted.setDocumentCount(profile.getDocumentCount());
+			model.getProfiles().put(category,converted);
+		});
+		return model;
+	}
+	/**
+	 * Profile that records frequencies of each token
+	 */
+	public static class IndexedFrequencyProfile{
+		private long documentCount=0;
+		private final IntFrequencies tokenFrequencies=new IntFrequencies();
+		private final IntFrequencies documentFrequencies=new IntFrequencies();
+		/**
+		 * Create a empty profile
+		 */
+		public IndexedFrequencyProfile(){
+		}
+		/**
+		 * Update the profile based on sample data
+		 *
+		 * @param object sample data
+		 */
+		public void update(SparseVector object){
+			for(int i=0;i<object.getTokenCount();i++){
+				tokenFrequencies.advanceFrequency(object.getId(i),object.getCount(i));
+				documentFrequencies.advanceFrequency(object.getId(i),1);
+			}
+			++documentCount;
+		}
+		/**
+		 * Add the samples recorded in another profile to this profile
+		 *
+		 * @param other the other profile
+		 */
+		public void merge(IndexedFrequencyProfile other){
+			tokenFrequencies.merge(other.tokenFrequencies);
+			documentFrequencies.merge(other.documentFrequencies);
+			documentCount+=other.documentCount;
+		}
+		/**
+		 * @return the number of samples that contains each token in the
+		 * category
+		 */
+		public IntFrequencies getDocumentFrequencies(){
+			return documentFrequencies;
+		}
+		/**
+		 * @return the frequency of each token in the category
+		 */
+		public IntFrequencies getTokenFrequencies(){
+			return tokenFrequencies;
+		}
+		/**
+		 * @return the number of sample in the category
+		 */
+		public long getDocumentCount(){
+			return documentCount;
+		}
+	}
+}
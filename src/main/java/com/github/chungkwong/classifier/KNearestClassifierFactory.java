@@ -16,17 +16,30 @@
  */
 package com.github.chungkwong.classifier;
 import com.github.chungkwong.classifier.util.*;
+import java.io.*;
+import java.nio.*;
 import java.util.*;
+import java.util.function.*;
 import java.util.stream.*;
 /**
- * Factory for kNN classifier. Since such classifiers need to iterate 
- * all samples in order to classify a object, they are very slow on large dataset.
+ * Factory for kNN classifier. By default, neighbors are ranked by Euclidean
+ * distance between TF-IDF vectors, which iterates all samples in order to
+ * classify a object, so it is very slow on large dataset. The cosine metric
+ * ranks neighbors by cosine similarity of TF-IDF vectors through a inverted
+ * index, so only samples sharing tokens with the object are visited. The HNSW
+ * metric finds approximate nearest neighbors by cosine similarity through a
+ * graph, which is much faster than exact search on large dataset.
  * @author Chan Chung Kwong
  * @param <T> the type of the objects to be classified
  */
-public class KNearestClassifierFactory<T> extends BagClassifierFactory<Classifier<Frequencies<T>>,DocumentVectorsModel<T>,T>{
+public class KNearestClassifierFactory<T> extends BagClassifierFactory<Classifier<Frequencies<T>>,DocumentVectorsModel<T>,T>
+		implements PersistableClassifierFactory<Classifier<Frequencies<T>>,T>{
 	private TfIdfFormula tfIdfFormula=TfIdfFormula.STANDARD;
 	private int k=1;
+	private Metric metric=Metric.EUCLIDEAN;
+	private int m=16;
+	private int efConstruction=100;
+	private int efSearch=50;
 	/**
 	 * Create a kNN classifier factory
 	 */
@@ -62,15 +75,150 @@ public class KNearestClassifierFactory<T> extends BagClassifierFactory<Classifie
 	public int getK(){
 		return k;
 	}
+	/**
+	 * Set the way to rank neighbors
+	 * @param metric the metric
+	 * @return this
+	 */
+	public KNearestClassifierFactory<T> setMetric(Metric metric){
+		this.metric=metric;
+		return this;
+	}
+	/**
+	 * @return the way to rank neighbors
+	 */
+	public Metric getMetric(){
+		return metric;
+	}
+	/**
+	 * Set the number of neighbors kept for each sample in the graph used by
+	 * the HNSW metric
+	 * @param m the number of neighbors
+	 * @return this
+	 */
+	public KNearestClassifierFactory<T> setM(int m){
+		this.m=m;
+		return this;
+	}
+	/**
+	 * @return the number of neighbors kept for each sample in the graph used
+	 * by the HNSW metric
+	 */
+	public int getM(){
+		return m;
+	}
+	/**
+	 * Set the number of candidates considered while adding samples to the
+	 * graph used by the HNSW metric
+	 * @param efConstruction the number of candidates
+	 * @return this
+	 */
+	public KNearestClassifierFactory<T> setEfConstruction(int efConstruction){
+		this.efConstruction=efConstruction;
+		return this;
+	}
+	/**
+	 * @return the number of candidates considered while adding samples to
+	 * the graph used by the HNSW metric
+	 */
+	public int getEfConstruction(){
+		return efConstruction;
+	}
+	/**
+	 * Set the number of candidates considered while searching neighbors in
+	 * the graph used by the HNSW metric, larger value give better recall but
+	 * slower
+	 * @param efSearch the number of candidates
+	 * @return this
+	 */
+	public KNearestClassifierFactory<T> setEfSearch(int efSearch){
+		this.efSearch=efSearch;
+		return this;
+	}
+	/**
+	 * @return the number of candidates considered while searching neighbors
+	 * in the graph used by the HNSW metric
+	 */
+	public int getEfSearch(){
+		return efSearch;
+	}
 	@Override
 	public Classifier<Frequencies<T>> createClassifier(DocumentVectorsModel<T> model){
-		return new KNearestClassifier<>(model.getProfiles(),model.getTotalDocumentFrequencies(),
-				model.getSampleCount(),tfIdfFormula,k);
+		switch(metric){
+			case COSINE:
+				return new IndexedKNearestClassifier<>(model,tfIdfFormula,k);
+			case HNSW:
+				return new ApproximateKNearestClassifier<>(model,tfIdfFormula,k,m,efConstruction,efSearch);
+			case EUCLIDEAN:
+			default:
+				return new KNearestClassifier<>(model.getProfiles(),model.getTotalDocumentFrequencies(),
+						model.getSampleCount(),tfIdfFormula,k);
+		}
 	}
 	@Override
 	public DocumentVectorsModel<T> createModel(){
 		return new DocumentVectorsModel<>();
 	}
+	@Override
+	public Object getModelKey(){
+		return getModelKey(KNearestClassifierFactory.class,DocumentVectorsModel.class);
+	}
+	/**
+	 * Save a classifier, only classifiers using the HNSW metric can be saved.
+	 * The name of the TF-IDF formula is saved and checked on load, while k and
+	 * the number of candidates considered during search are taken from the
+	 * factory loading the classifier.
+	 *
+	 * @param classifier the classifier
+	 * @param directory where the classifier will be saved to
+	 * @param encoder encode token to String
+	 * @throws IOException if failed to write
+	 */
+	@Override
+	public void saveClassifier(Classifier<Frequencies<T>> classifier,File directory,Function<T,String> encoder) throws IOException{
+		if(!(classifier instanceof ApproximateKNearestClassifier)){
+			throw new IllegalArgumentException();
+		}
+		ApproximateKNearestClassifier<T> approximate=(ApproximateKNearestClassifier<T>)classifier;
+		try(DataOutputStream out=ClassifierFiles.create(directory,getName())){
+			ClassifierFiles.writeFormula(out,approximate.tfIdfFormula);
+			ClassifierFiles.writeCategories(out,approximate.categories.toArray(new Category[0]));
+			ClassifierFiles.writeVocabulary(out,approximate.vocabulary,encoder);
+			out.writeLong(approximate.documentCount);
+			long[] documentFrequencies=new long[approximate.vocabulary.size()];
+			approximate.documentFrequencies.forEachFrequency((id,count)->documentFrequencies[id]=count);
+			ClassifierFiles.writeLongs(out,documentFrequencies);
+			ClassifierFiles.writeInts(out,Arrays.copyOf(approximate.documentCategories,approximate.index.size()));
+			approximate.index.write(out);
+		}
+	}
+	@Override
+	public Classifier<Frequencies<T>> loadClassifier(File directory,Function<String,T> decoder) throws IOException{
+		ByteBuffer in=ClassifierFiles.open(directory,getName());
+		ClassifierFiles.checkFormula(in,tfIdfFormula);
+		List<Category> categories=new ArrayList<>(Arrays.asList(ClassifierFiles.readCategories(in)));
+		Vocabulary<T> vocabulary=ClassifierFiles.readVocabulary(in,decoder);
+		long documentCount=in.getLong();
+		long[] frequencies=ClassifierFiles.readLongs(in);
+		IntFrequencies documentFrequencies=new IntFrequencies(frequencies.length);
+		for(int i=0;i<frequencies.length;i++){
+			if(frequencies[i]!=0){
+				documentFrequencies.advanceFrequency(i,frequencies[i]);
+			}
+		}
+		int[] documentCategories=ClassifierFiles.readInts(in);
+		HnswIndex index=HnswIndex.read(in);
+		if(documentCategories.length!=index.size()){
+			throw new IOException("Incompatible classifier file");
+		}
+		for(int category:documentCategories){
+			if(category<0||category>=categories.size()){
+				throw new IOException("Incompatible classifier file");
+			}
+		}
+		return new ApproximateKNearestClassifier<>(tfIdfFormula,k,efSearch,categories,vocabulary,
+				documentFrequencies,documentCount,documentCategories,index);
+	}
 	private static class KNearestClassifier<T> implements Classifier<Frequencies<T>>{
 		private final TfIdfFormula tfIdfFormula;
 		private final Frequencies<T> documentFrequencies;
@@ -114,6 +262,296 @@ public class KNearestClassifierFactory<T> extends BagClassifierFactory<Classifie
 			return tfIdfFormula.calculate(freq,documentFrequencies.getFrequency(token),documentCount);
 		}
 	}
+	private static class IndexedKNearestClassifier<T> implements Classifier<Frequencies<T>>{
+		private final TfIdfFormula tfIdfFormula;
+		private final long documentCount;
+		private final int k;
+		private final Category[] categories;
+		private final int[] documentCategories;
+		private final Vocabulary<T> vocabulary;
+		private final long[] documentFrequencies;
+		private final int[] postingOffsets;
+		private final int[] postingDocuments;
+		private final double[] postingWeights;
+		private final int[] fillDocuments;
+		private final ThreadLocal<SearchBuffer> buffers;
+		public IndexedKNearestClassifier(DocumentVectorsModel<T> model,TfIdfFormula tfIdfFormula,int k){
+			IntFrequencies documentFrequencyTable=model.getDocumentFrequencyTable();
+			this.documentCount=model.getSampleCount();
+			this.tfIdfFormula=tfIdfFormula;
+			this.k=k;
+			this.categories=model.getProfiles().keySet().toArray(new Category[0]);
+			this.documentCategories=new int[(int)documentCount];
+			this.vocabulary=model.getVocabulary().copy();
+			int tokenCount=vocabulary.size();
+			this.documentFrequencies=new long[tokenCount];
+			documentFrequencyTable.forEachFrequency((id,count)->this.documentFrequencies[id]=count);
+			postingOffsets=new int[tokenCount+1];
+			double[] norms=new double[documentCategories.length];
+			int document=0;
+			for(int i=0;i<categories.length;i++){
+				DocumentVectorsModel.VectorsProfile<T> profile=model.getProfiles().get(categories[i]);
+				for(int j=0;j<profile.getDocumentCount();j++){
+					documentCategories[document]=i;
+					for(int l=profile.getStart(j);l<profile.getEnd(j);l++){
+						int id=profile.getId(l);
+						if(!profile.isSelected(id)){
+							continue;
+						}
+						double tfidf=tfIdfFormula.calculate(profile.getCount(l),documentFrequencies[id],documentCount);
+						norms[document]+=tfidf*tfidf;
+						++postingOffsets[id+1];
+					}
+					norms[document]=norms[document]>0?1/Math.sqrt(norms[document]):0;
+					++document;
+				}
+			}
+			for(int i=0;i<tokenCount;i++){
+				postingOffsets[i+1]+=postingOffsets[i];
+			}
+			postingDocuments=new int[postingOffsets[tokenCount]];
+			postingWeights=new double[postingOffsets[tokenCount]];
+			int[] next=Arrays.copyOf(postingOffsets,tokenCount);
+			document=0;
+			for(Category category:categories){
+				DocumentVectorsModel.VectorsProfile<T> profile=model.getProfiles().get(category);
+				for(int j=0;j<profile.getDocumentCount();j++){
+					for(int l=profile.getStart(j);l<profile.getEnd(j);l++){
+						int id=profile.getId(l);
+						if(!profile.isSelected(id)){
+							continue;
+						}
+						double tfidf=tfIdfFormula.calculate(profile.getCount(l),documentFrequencies[id],documentCount);
+						postingDocuments[next[id]]=document;
+						postingWeights[next[id]++]=tfidf*norms[document];
+					}
+					++document;
+				}
+			}
+			//Fill is needed only if less than k samples are visited, so at most k
+			//of the first 2k samples are visited
+			fillDocuments=IntStream.range(0,Math.min(documentCategories.length,2*k)).toArray();
+			buffers=ThreadLocal.withInitial(()->new SearchBuffer(documentCategories.length));
+		}
+		@Override
+		public List<ClassificationResult> getCandidates(Frequencies<T> unknown,int max){
+			SearchBuffer buffer=buffers.get();
+			try{
+				unknown.forEachFrequency((token,count)->{
+					int id=vocabulary.getIdIfPresent(token);
+					if(id==-1||id>=documentFrequencies.length||documentFrequencies[id]==0){
+						return;
+					}
+					double tfidf=tfIdfFormula.calculate(count,documentFrequencies[id],documentCount);
+					for(int i=postingOffsets[id];i<postingOffsets[id+1];i++){
+						buffer.add(postingDocuments[i],tfidf*postingWeights[i]);
+					}
+				});
+				double[] similarities=buffer.similarities;
+				PriorityQueue<Integer> nearest=new PriorityQueue<>(k+1,(d1,d2)->{
+					int c=Double.compare(similarities[d1],similarities[d2]);
+					return c!=0?c:Integer.compare(d2,d1);
+				});
+				for(int i=0;i<buffer.touchedCount;i++){
+					nearest.add(buffer.touched[i]);
+					if(nearest.size()>k){
+						nearest.poll();
+					}
+				}
+				for(int i=0;nearest.size()<k&&i<fillDocuments.length;i++){
+					if(!buffer.visited[fillDocuments[i]]){
+						nearest.add(fillDocuments[i]);
+					}
+				}
+				long[] counts=new long[categories.length];
+				nearest.forEach((document)->++counts[documentCategories[document]]);
+				List<ClassificationResult> results=new ArrayList<>();
+				for(int i=0;i<categories.length;i++){
+					if(counts[i]>0){
+						results.add(new ClassificationResult((counts[i]+0.0)/k,categories[i]));
+					}
+				}
+				Collections.sort(results);
+				return results;
+			}finally{
+				buffer.clear();
+			}
+		}
+	}
+	/**
+	 * Similarities accumulated for a query, reused by queries from the same
+	 * thread, only the entries of visited samples are reset after a query
+	 */
+	private static class SearchBuffer{
+		private final double[] similarities;
+		private final boolean[] visited;
+		private int[] touched=new int[16];
+		private int touchedCount=0;
+		SearchBuffer(int documentCount){
+			similarities=new double[documentCount];
+			visited=new boolean[documentCount];
+		}
+		void add(int document,double similarity){
+			similarities[document]+=similarity;
+			if(!visited[document]){
+				visited[document]=true;
+				if(touchedCount==touched.length){
+					touched=Arrays.copyOf(touched,touchedCount*2);
+				}
+				touched[touchedCount++]=document;
+			}
+		}
+		void clear(){
+			for(int i=0;i<touchedCount;i++){
+				similarities[touched[i]]=0;
+				visited[touched[i]]=false;
+			}
+			touchedCount=0;
+		}
+	}
+	/**
+	 * kNN classifier that finds approximate neighbors through a hierarchical
+	 * navigable small world graph. Samples can be added to the classifier
+	 * directly without rebuilding it, their TF-IDF vectors are computed from
+	 * the document frequencies at the time they are added. The classifier is
+	 * not thread-safe while samples are being added, it must not be used to
+	 * classify objects at the same time. A classifier can be saved and loaded
+	 * through the factory.
+	 *
+	 * @param <T> the type of tokens
+	 */
+	public static class ApproximateKNearestClassifier<T> implements Classifier<Frequencies<T>>,Trainable<Frequencies<T>>{
+		private final TfIdfFormula tfIdfFormula;
+		private final int k;
+		private final int efSearch;
+		private final List<Category> categories;
+		private final Vocabulary<T> vocabulary;
+		private final IntFrequencies documentFrequencies;
+		private long documentCount;
+		private int[] documentCategories;
+		private final HnswIndex index;
+		ApproximateKNearestClassifier(DocumentVectorsModel<T> model,TfIdfFormula tfIdfFormula,
+				int k,int m,int efConstruction,int efSearch){
+			this.tfIdfFormula=tfIdfFormula;
+			this.k=k;
+			this.efSearch=efSearch;
+			this.documentFrequencies=new IntFrequencies(model.getVocabulary().size());
+			documentFrequencies.merge(model.getDocumentFrequencyTable());
+			this.documentCount=model.getSampleCount();
+			this.categories=new ArrayList<>(model.getProfiles().keySet());
+			this.vocabulary=new Vocabulary<>();
+			for(int i=0;i<model.getVocabulary().size();i++){
+				vocabulary.getId(model.getVocabulary().getToken(i));
+			}
+			this.documentCategories=new int[(int)documentCount];
+			this.index=new HnswIndex(m,efConstruction,0);
+			for(int i=0;i<categories.size();i++){
+				DocumentVectorsModel.VectorsProfile<T> profile=model.getProfiles().get(categories.get(i));
+				for(int j=0;j<profile.getDocumentCount();j++){
+					add(profile.getVector(j),i);
+				}
+			}
+		}
+		ApproximateKNearestClassifier(TfIdfFormula tfIdfFormula,int k,int efSearch,List<Category> categories,
+				Vocabulary<T> vocabulary,IntFrequencies documentFrequencies,long documentCount,
+				int[] documentCategories,HnswIndex index){
+			this.tfIdfFormula=tfIdfFormula;
+			this.k=k;
+			this.efSearch=efSearch;
+			this.categories=categories;
+			this.vocabulary=vocabulary;
+			this.documentFrequencies=documentFrequencies;
+			this.documentCount=documentCount;
+			this.documentCategories=documentCategories;
+			this.index=index;
+		}
+		/**
+		 * Add a sample to the graph
+		 *
+		 * @param data the sample
+		 * @param category the category of the sample
+		 */
+		@Override
+		public void train(Frequencies<T> data,Category category){
+			int categoryIndex=categories.indexOf(category);
+			if(categoryIndex==-1){
+				categoryIndex=categories.size();
+				categories.add(category);
+			}
+			SparseVector vector=vocabulary.toVector(data,true);
+			for(int i=0;i<vector.getTokenCount();i++){
+				documentFrequencies.advanceFrequency(vector.getId(i),1);
+			}
+			++documentCount;
+			add(vector,categoryIndex);
+		}
+		private void add(SparseVector vector,int category){
+			int document=index.add(getIds(vector),getWeights(vector));
+			if(document==documentCategories.length){
+				documentCategories=Arrays.copyOf(documentCategories,Math.max(document*2,16));
+			}
+			documentCategories[document]=category;
+		}
+		@Override
+		public List<ClassificationResult> getCandidates(Frequencies<T> unknown,int max){
+			SparseVector vector=vocabulary.toVector(unknown,false);
+			int[] nearest=index.search(getIds(vector),getWeights(vector),k,efSearch);
+			long[] counts=new long[categories.size()];
+			for(int document:nearest){
+				++counts[documentCategories[document]];
+			}
+			List<ClassificationResult> results=new ArrayList<>();
+			for(int i=0;i<counts.length;i++){
+				if(counts[i]>0){
+					results.add(new ClassificationResult((counts[i]+0.0)/k,categories.get(i)));
+				}
+			}
+			Collections.sort(results);
+			return results;
+		}
+		private static int[] getIds(SparseVector vector){
+			int[] ids=new int[vector.getTokenCount()];
+			for(int i=0;i<ids.length;i++){
+				ids[i]=vector.getId(i);
+			}
+			return ids;
+		}
+		private double[] getWeights(SparseVector vector){
+			double[] weights=new double[vector.getTokenCount()];
+			double norm=0;
+			for(int i=0;i<weights.length;i++){
+				long documentFrequency=documentFrequencies.getFrequency(vector.getId(i));
+				weights[i]=documentFrequency==0?0:tfIdfFormula.calculate(vector.getCount(i),documentFrequency,documentCount);
+				norm+=weights[i]*weights[i];
+			}
+			if(norm>0){
+				norm=Math.sqrt(norm);
+				for(int i=0;i<weights.length;i++){
+					weights[i]/=norm;
+				}
+			}
+			return weights;
+		}
+	}
+	/**
+	 * Ways to rank neighbors
+	 */
+	public enum Metric{
+		/**
+		 * Euclidean distance between TF-IDF vectors
+		 */
+		EUCLIDEAN,
+		/**
+		 * Cosine similarity between TF-IDF vectors, which gives the same
+		 * ranking as Euclidean distance between normalized TF-IDF vectors
+		 */
+		COSINE,
+		/**
+		 * Approximate cosine similarity between TF-IDF vectors, neighbors are
+		 * found through a hierarchical navigable small world graph
+		 */
+		HNSW;
+	}
 	@Override
 	protected String getName(){
 		return "kNN";
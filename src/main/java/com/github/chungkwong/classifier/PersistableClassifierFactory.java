@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier;
+import java.io.*;
+import java.util.function.*;
+/**
+ * Classifier factory whose classifiers can be saved to and loaded from file
+ * system, so that they need not to be built from models again. A classifier
+ * should be loaded by a factory with the same settings as the one created it.
+ *
+ * @author Chan Chung Kwong
+ * @param <C> the type of classifier that the factory build
+ * @param <T> the type that is needed to convert to string while saving the
+ * classifier
+ */
+public interface PersistableClassifierFactory<C,T>{
+	/**
+	 * Save a classifier created by this factory to filesystem
+	 *
+	 * @param classifier the classifier
+	 * @param directory where the classifier will be saved to
+	 * @param encoder encode token to String
+	 * @throws IOException if failed to write
+	 */
+	void saveClassifier(C classifier,File directory,Function<T,String> encoder) throws IOException;
+	/**
+	 * Load a classifier from filesystem
+	 *
+	 * @param directory where the classifier is saved to
+	 * @param decoder decode String to token
+	 * @return the classifier
+	 * @throws IOException if failed to read or the file is not saved by this
+	 * kind of factory with the current version
+	 */
+	C loadClassifier(File directory,Function<String,T> decoder) throws IOException;
+}
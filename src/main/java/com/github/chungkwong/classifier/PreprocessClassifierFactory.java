@@ -15,6 +15,7 @@
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 package com.github.chungkwong.classifier;
+import com.github.chungkwong.classifier.util.*;
 import java.util.*;
 import java.util.function.*;
 /**
@@ -36,6 +37,18 @@ public class PreprocessClassifierFactory<M extends Trainable<S>,T,S> implements
 		this.preprocessor=preprocessor;
 		this.baseFactory=baseFactory;
 	}
+	/**
+	 * @return the preprocessor
+	 */
+	public Function<T,S> getPreprocessor(){
+		return preprocessor;
+	}
+	/**
+	 * @return the based factory
+	 */
+	public ClassifierFactory<? extends Classifier<S>,M,S> getBaseFactory(){
+		return baseFactory;
+	}
 	@Override
 	public Classifier<T> getClassifier(PreprocessModel<M,T,S> model){
 		return new PreprocessClassifier(preprocessor,baseFactory.getClassifier(model.getUnderlying()));
@@ -44,6 +57,16 @@ public class PreprocessClassifierFactory<M extends Trainable<S>,T,S> implements
 	public PreprocessModel<M,T,S> createModel(){
 		return new PreprocessModel<>(baseFactory.createModel(),preprocessor);
 	}
+	/**
+	 * Models are shared only if the preprocessor is the same instance and the
+	 * underlying models can be shared
+	 * @return the key
+	 */
+	@Override
+	public Object getModelKey(){
+		Object baseKey=baseFactory.getModelKey();
+		return baseKey!=null?new Pair<>(preprocessor,baseKey):null;
+	}
 	@Override
 	public String toString(){
 		return "preprocessed "+baseFactory.toString();
@@ -15,7 +15,9 @@
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 package com.github.chungkwong.classifier;
+import com.github.chungkwong.classifier.validator.*;
 import java.util.function.*;
+import java.util.stream.*;
 /**
  * Model based on another model
  * @author Chan Chung Kwong
@@ -51,4 +53,15 @@ public class PreprocessModel<M extends Trainable<S>,T,S> implements Trainable<T>
 	public void train(T data,Category category){
 		underlying.train(preprocessor.apply(data),category);
 	}
+	/**
+	 * Train the model, samples are preprocessed in the same thread as they
+	 * are trained by the backed model, so the preprocessor should be
+	 * thread-safe if the backed model is trained concurrently
+	 *
+	 * @param samples a stream of samples
+	 */
+	@Override
+	public void train(Stream<Sample<T>> samples){
+		underlying.train(samples.map((sample)->new Sample<>(preprocessor.apply(sample.getData()),sample.getCategory())));
+	}
 }
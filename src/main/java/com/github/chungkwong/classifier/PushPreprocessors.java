@@ -0,0 +1,537 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier;
+import com.github.chungkwong.classifier.util.*;
+import com.ibm.icu.text.*;
+import java.text.BreakIterator;
+import java.util.*;
+import java.util.function.*;
+import java.util.regex.*;
+import java.util.stream.*;
+import org.tartarus.snowball.*;
+/**
+ * Provides push-based counterparts of the preprocessors in TextPreprocessors.
+ * A tokenizer push tokens through a chain of filters straight into a counting
+ * table, so that no intermediate stream is created for a text.
+ *
+ * Tokenizers push tokens as ranges of the text, filters testing or case
+ * mapping tokens work on the ranges, so only tokens that reach a stage
+ * requiring String, e.g. stemmers, or new to the counting table are
+ * materialized.
+ *
+ * @author Chan Chung Kwong
+ * @see TextPreprocessors
+ */
+public class PushPreprocessors{
+	private static final ThreadLocal<IdBuffer> ID_BUFFER=ThreadLocal.withInitial(IdBuffer::new);
+	/**
+	 * Combining a tokenizer and some filters
+	 *
+	 * @param preTokenize the filter being applied before tokenization
+	 * @param tokenizer being used to break text into tokens
+	 * @param postTokenize the filter being applied after tokenization
+	 * @return the combined preprocessor
+	 */
+	public static Function<String,Frequencies<String>> of(Function<String,String> preTokenize,Tokenizer tokenizer,TokenFilter postTokenize){
+		return (text)->{
+			ObjectLongHashMap<String> frequencies=new ObjectLongHashMap<>();
+			TokenSink sink=postTokenize.wrap(new TokenSink(){
+				@Override
+				public void accept(String token){
+					frequencies.addTo(token,1);
+				}
+				@Override
+				public void accept(CharSequence text,int start,int end){
+					frequencies.addTo(text,start,end,1);
+				}
+			});
+			tokenizer.tokenize(preTokenize.apply(text),sink);
+			sink.end();
+			return new Frequencies<>(frequencies);
+		};
+	}
+	/**
+	 * Combining a tokenizer and some filters
+	 *
+	 * @param tokenizer being used to break text into tokens
+	 * @param postTokenize the filter being applied after tokenization
+	 * @return the combined preprocessor
+	 */
+	public static Function<String,Frequencies<String>> of(Tokenizer tokenizer,TokenFilter postTokenize){
+		return of(Function.identity(),tokenizer,postTokenize);
+	}
+	/**
+	 * Combining a tokenizer and some filters into a preprocessor that produce
+	 * vectors of token ID, the IDs are collected into a buffer reused by each
+	 * thread
+	 *
+	 * @param preTokenize the filter being applied before tokenization
+	 * @param tokenizer being used to break text into tokens
+	 * @param postTokenize the filter being applied after tokenization
+	 * @param vocabulary being used to assign ID to tokens
+	 * @param grow if new tokens are added to the vocabulary, otherwise they
+	 * are dropped. Preprocessors that grow the vocabulary are meant for
+	 * training and must not be used concurrently, while those that do not
+	 * only read the vocabulary, so they can be used concurrently as long as
+	 * no thread is adding tokens to it.
+	 * @return the combined preprocessor
+	 */
+	public static Function<String,SparseVector> of(Function<String,String> preTokenize,Tokenizer tokenizer,TokenFilter postTokenize,Vocabulary<String> vocabulary,boolean grow){
+		return (text)->{
+			IdBuffer buffer=ID_BUFFER.get();
+			buffer.size=0;
+			TokenSink sink=postTokenize.wrap(new TokenSink(){
+				@Override
+				public void accept(String token){
+					buffer.add(grow?vocabulary.getId(token):vocabulary.getIdIfPresent(token));
+				}
+				@Override
+				public void accept(CharSequence text,int start,int end){
+					buffer.add(grow?vocabulary.getId(text,start,end):vocabulary.getIdIfPresent(text,start,end));
+				}
+			});
+			tokenizer.tokenize(preTokenize.apply(text),sink);
+			sink.end();
+			return SparseVector.fromIds(Arrays.copyOf(buffer.ids,buffer.size));
+		};
+	}
+	/**
+	 * Combining a tokenizer and some filters into a preprocessor that produce
+	 * vectors of token ID
+	 *
+	 * @param tokenizer being used to break text into tokens
+	 * @param postTokenize the filter being applied after tokenization
+	 * @param vocabulary being used to assign ID to tokens
+	 * @param grow if new tokens are added to the vocabulary, otherwise they
+	 * are dropped. Preprocessors that grow the vocabulary are meant for
+	 * training and must not be used concurrently, while those that do not
+	 * only read the vocabulary, so they can be used concurrently as long as
+	 * no thread is adding tokens to it.
+	 * @return the combined preprocessor
+	 */
+	public static Function<String,SparseVector> of(Tokenizer tokenizer,TokenFilter postTokenize,Vocabulary<String> vocabulary,boolean grow){
+		return of(Function.identity(),tokenizer,postTokenize,vocabulary,grow);
+	}
+	/**
+	 * A tokenizer that break text into tokens
+	 *
+	 * @param breakIterator being used to determine the boundary of the tokens
+	 * @return the tokenizer
+	 */
+	public static Tokenizer getJavaTokenizer(BreakIterator breakIterator){
+		return (text,sink)->{
+			BreakIterator iterator=(BreakIterator)breakIterator.clone();
+			iterator.setText(text);
+			int lower=iterator.first();
+			for(int upper=iterator.next();upper!=BreakIterator.DONE;lower=upper,upper=iterator.next()){
+				sink.accept(text,lower,upper);
+			}
+		};
+	}
+	/**
+	 * A tokenizer that break text into tokens
+	 *
+	 * @param breakIterator being used to determine the boundary of the tokens
+	 * @return the tokenizer
+	 */
+	public static Tokenizer getIcuTokenizer(com.ibm.icu.text.BreakIterator breakIterator){
+		return (text,sink)->{
+			com.ibm.icu.text.BreakIterator iterator=(com.ibm.icu.text.BreakIterator)breakIterator.clone();
+			iterator.setText(text);
+			int lower=iterator.first();
+			for(int upper=iterator.next();upper!=com.ibm.icu.text.BreakIterator.DONE;lower=upper,upper=iterator.next()){
+				sink.accept(text,lower,upper);
+			}
+		};
+	}
+	/**
+	 * A tokenizer that break text into tokens by separators
+	 *
+	 * @param pattern the pattern of separators
+	 * @param keepSeparator if separators are also considered as tokens
+	 * @return the tokenizer
+	 */
+	public static Tokenizer getSeparatorTokenizer(Pattern pattern,boolean keepSeparator){
+		return (text,sink)->{
+			Matcher matcher=pattern.matcher(text);
+			int lower=0;
+			while(matcher.find()){
+				if(matcher.start()>lower){
+					sink.accept(text,lower,matcher.start());
+				}
+				if(keepSeparator&&matcher.end()>matcher.start()){
+					sink.accept(text,matcher.start(),matcher.end());
+				}
+				lower=matcher.end();
+			}
+			if(lower<text.length()){
+				sink.accept(text,lower,text.length());
+			}
+		};
+	}
+	/**
+	 * A tokenizer that extract words from text
+	 *
+	 * @param pattern the pattern of words
+	 * @param keepOther if text between words are also considered as tokens
+	 * @return the tokenizer
+	 */
+	public static Tokenizer getWordTokenizer(Pattern pattern,boolean keepOther){
+		return (text,sink)->{
+			Matcher matcher=pattern.matcher(text);
+			int lower=0;
+			while(matcher.find()){
+				if(keepOther&&matcher.start()>lower){
+					sink.accept(text,lower,matcher.start());
+				}
+				if(matcher.end()>matcher.start()){
+					sink.accept(text,matcher.start(),matcher.end());
+				}
+				lower=matcher.end();
+			}
+			if(keepOther&&lower<text.length()){
+				sink.accept(text,lower,text.length());
+			}
+		};
+	}
+	/**
+	 * A filter that drop tokens that are whitespace only
+	 *
+	 * @return the filter
+	 */
+	public static TokenFilter getWhitespaceFilter(){
+		return getSliceFilter(()->(text,start,end)->!isWhitespace(text,start,end));
+	}
+	private static boolean isWhitespace(CharSequence text,int start,int end){
+		for(int i=start;i<end;){
+			int c=Character.codePointAt(text,i);
+			if(!Character.isWhitespace(c)){
+				return false;
+			}
+			i+=Character.charCount(c);
+		}
+		return true;
+	}
+	/**
+	 * A filter that keep only tokens matching a pattern
+	 *
+	 * @param pattern the pattern
+	 * @return the filter
+	 */
+	public static TokenFilter getKeepPatternFilter(Pattern pattern){
+		return getSliceFilter(()->{
+			Matcher matcher=pattern.matcher("");
+			return (text,start,end)->matcher.reset(text).region(start,end).matches();
+		});
+	}
+	/**
+	 * A filter that drop tokens matching a pattern
+	 *
+	 * @param pattern the pattern
+	 * @return the filter
+	 */
+	public static TokenFilter getDropPatternFilter(Pattern pattern){
+		return getSliceFilter(()->{
+			Matcher matcher=pattern.matcher("");
+			return (text,start,end)->!matcher.reset(text).region(start,end).matches();
+		});
+	}
+	/**
+	 * A filter that drop tokens that are stop words
+	 *
+	 * @param stopwords the words to be dropped, they are copied when the
+	 * filter is created
+	 * @return the filter
+	 */
+	public static TokenFilter getStopWordsFilter(Collection<String> stopwords){
+		ObjectLongHashMap<String> words=toSet(stopwords);
+		return getSliceFilter(()->(text,start,end)->words.getLong(text,start,end)==0);
+	}
+	/**
+	 * A filter that keep only tokens that are specified words
+	 *
+	 * @param protectedWords the words to be kept, they are copied when the
+	 * filter is created
+	 * @return the filter
+	 */
+	public static TokenFilter getProtectedWordsFilter(Collection<String> protectedWords){
+		ObjectLongHashMap<String> words=toSet(protectedWords);
+		return getSliceFilter(()->(text,start,end)->words.getLong(text,start,end)!=0);
+	}
+	private static ObjectLongHashMap<String> toSet(Collection<String> words){
+		ObjectLongHashMap<String> set=new ObjectLongHashMap<>(words.size());
+		words.forEach((word)->set.putLong(word,1));
+		return set;
+	}
+	/**
+	 * A filter that keep only tokens satisfying a condition
+	 *
+	 * @param predicate the condition
+	 * @return the filter
+	 */
+	public static TokenFilter getFilter(Predicate<String> predicate){
+		return (downstream)->TokenSink.of(downstream,(token)->{
+			if(predicate.test(token)){
+				downstream.accept(token);
+			}
+		});
+	}
+	private static TokenFilter getSliceFilter(Supplier<SlicePredicate> predicateBuilder){
+		return (downstream)->{
+			SlicePredicate predicate=predicateBuilder.get();
+			return new TokenSink(){
+				@Override
+				public void accept(String token){
+					if(predicate.test(token,0,token.length())){
+						downstream.accept(token);
+					}
+				}
+				@Override
+				public void accept(CharSequence text,int start,int end){
+					if(predicate.test(text,start,end)){
+						downstream.accept(text,start,end);
+					}
+				}
+				@Override
+				public void end(){
+					downstream.end();
+				}
+			};
+		};
+	}
+	/**
+	 * A filter that transform tokens into upper case
+	 *
+	 * @return the filter
+	 */
+	public static TokenFilter getUpcaser(){
+		return getUpcaser(Locale.getDefault());
+	}
+	/**
+	 * A filter that transform tokens into upper case
+	 *
+	 * @param locale the Locale
+	 * @return the filter
+	 */
+	public static TokenFilter getUpcaser(Locale locale){
+		return getCaseMapper(hasAsciiCaseMapping(locale)?'a':-1,(token)->token.toUpperCase(locale));
+	}
+	/**
+	 * A filter that transform tokens into lower case
+	 *
+	 * @return the filter
+	 */
+	public static TokenFilter getDowncaser(){
+		return getDowncaser(Locale.getDefault());
+	}
+	/**
+	 * A filter that transform tokens into lower case
+	 *
+	 * @param locale the Locale
+	 * @return the filter
+	 */
+	public static TokenFilter getDowncaser(Locale locale){
+		return getCaseMapper(hasAsciiCaseMapping(locale)?'A':-1,(token)->token.toLowerCase(locale));
+	}
+	/**
+	 * A filter that fold case, icu4j is required
+	 *
+	 * @return the filter
+	 */
+	public static TokenFilter getFoldcaser(){
+		CaseMap.Fold fold=CaseMap.fold();
+		return getCaseMapper('A',(token)->fold.apply(token));
+	}
+	/**
+	 * Languages with special case mapping for ASCII letters
+	 */
+	private static boolean hasAsciiCaseMapping(Locale locale){
+		switch(locale.getLanguage()){
+			case "tr":
+			case "az":
+			case "lt":
+				return false;
+			default:
+				return true;
+		}
+	}
+	/**
+	 * Create a filter that map ASCII only tokens into a reused buffer without
+	 * materializing them
+	 *
+	 * @param from the first letter of the ASCII letters to be mapped, 'A' for
+	 * lower case, 'a' for upper case, or -1 if ASCII letters should not be
+	 * mapped directly
+	 * @param mapping being applied to other tokens
+	 */
+	private static TokenFilter getCaseMapper(int from,Function<String,String> mapping){
+		return (downstream)->new TokenSink(){
+			private final StringBuilder buffer=new StringBuilder();
+			@Override
+			public void accept(String token){
+				accept(token,0,token.length());
+			}
+			@Override
+			public void accept(CharSequence text,int start,int end){
+				if(from==-1){
+					downstream.accept(mapping.apply(text.subSequence(start,end).toString()));
+					return;
+				}
+				buffer.setLength(0);
+				for(int i=start;i<end;i++){
+					char c=text.charAt(i);
+					if(c>=0x80){
+						downstream.accept(mapping.apply(text.subSequence(start,end).toString()));
+						return;
+					}
+					buffer.append(c>=from&&c<from+26?(char)(c^0x20):c);
+				}
+				downstream.accept(buffer,0,buffer.length());
+			}
+			@Override
+			public void end(){
+				downstream.end();
+			}
+		};
+	}
+	/**
+	 * A filter that replace pattern occurred in tokens
+	 *
+	 * @param pattern to be replaced
+	 * @param replacement replacement, $ and \ have special meaning as specified
+	 * in java.util.Matcher
+	 * @param firstOnly only replace the first occurence in each token
+	 * @return the filter
+	 */
+	public static TokenFilter getReplacer(Pattern pattern,String replacement,boolean firstOnly){
+		if(firstOnly){
+			return getTransformer((token)->pattern.matcher(token).replaceFirst(replacement));
+		}else{
+			return getTransformer((token)->pattern.matcher(token).replaceAll(replacement));
+		}
+	}
+	/**
+	 * A filter that map tokens
+	 *
+	 * @param mapping the mapping
+	 * @return the filter
+	 */
+	public static TokenFilter getMapper(Map<String,String> mapping){
+		return getTransformer((token)->mapping.getOrDefault(token,token));
+	}
+	/**
+	 * A filter that convert each token into another token, e.g.
+	 * {@code getTransformer(cachedStemmer::stem)}
+	 *
+	 * @param transformer the conversion
+	 * @return the filter
+	 */
+	public static TokenFilter getTransformer(Function<String,String> transformer){
+		return (downstream)->TokenSink.of(downstream,(token)->downstream.accept(transformer.apply(token)));
+	}
+	/**
+	 * A filter that apply stemming to the tokens
+	 *
+	 * @param locale identify the language
+	 * @return the stemmer
+	 */
+	public static TokenFilter getStemmer(Locale locale){
+		return getSnowballStemmer(TextPreprocessors.getStemmerBuilder(locale));
+	}
+	/**
+	 * A filter that apply stemmer to the tokens, each thread using the filter
+	 * get its own stemmer, so the filter is thread-safe
+	 *
+	 * @param stemmerBuilder being used to create Snowball stemmer
+	 * @return the stemmer
+	 */
+	public static TokenFilter getSnowballStemmer(Supplier<? extends SnowballStemmer> stemmerBuilder){
+		ThreadLocal<SnowballStemmer> stemmer=ThreadLocal.withInitial(stemmerBuilder);
+		return (downstream)->{
+			SnowballStemmer local=stemmer.get();
+			return TokenSink.of(downstream,(token)->downstream.accept(TextPreprocessors.stem(local,token)));
+		};
+	}
+	/**
+	 * A filter that generate n-gram tokens
+	 *
+	 * @param n the number of tokens being combined into a token
+	 * @return the n-gram generator
+	 */
+	public static TokenFilter getNgramGenerator(int... n){
+		int bufferSize=Arrays.stream(n).max().getAsInt();
+		return (downstream)->{
+			String[] buffer=new String[bufferSize];
+			StringBuilder str=new StringBuilder();
+			long[] count=new long[1];
+			return TokenSink.of(downstream,(token)->{
+				buffer[(int)(count[0]%bufferSize)]=token;
+				++count[0];
+				for(int k:n){
+					if(count[0]>=k){
+						for(long j=count[0]-k;j<count[0];j++){
+							str.append(buffer[(int)(j%bufferSize)]).append(' ');
+						}
+						downstream.accept(str,0,str.length());
+						str.setLength(0);
+					}
+				}
+			});
+		};
+	}
+	/**
+	 * A filter that convert each token into its synonyms
+	 *
+	 * @param synonyms the synonyms for each token
+	 * @return the filter
+	 */
+	public static TokenFilter getSynonymGenerator(Map<String,Collection<String>> synonyms){
+		return (downstream)->TokenSink.of(downstream,(token)->{
+			Collection<String> words=synonyms.get(token);
+			if(words!=null){
+				words.forEach(downstream::accept);
+			}else{
+				downstream.accept(token);
+			}
+		});
+	}
+	/**
+	 * A filter that convert each token into zero or more tokens
+	 *
+	 * @param transformer
+	 * @return the filter
+	 */
+	public static TokenFilter getFlatFilter(Function<String,Stream<String>> transformer){
+		return (downstream)->TokenSink.of(downstream,(token)->transformer.apply(token).forEach(downstream::accept));
+	}
+	private interface SlicePredicate{
+		boolean test(CharSequence text,int start,int end);
+	}
+	private static class IdBuffer{
+		private int[] ids=new int[64];
+		private int size;
+		void add(int id){
+			if(id==-1){
+				return;
+			}
+			if(size==ids.length){
+				ids=Arrays.copyOf(ids,size*2);
+			}
+			ids[size++]=id;
+		}
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier;
+import com.github.chungkwong.classifier.util.*;
+import com.github.chungkwong.classifier.validator.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.logging.*;
+import java.util.stream.*;
+/**
+ * Train a model from shards of data in parallel, each shard is trained into
+ * a separate model and then the models are merged pairwise in a tree.
+ *
+ * @author Chan Chung Kwong
+ */
+public class ShardedTrainer{
+	/**
+	 * Train shards in threads
+	 *
+	 * @param <M> the type of the model
+	 * @param <T> the type of the objects to be classified
+	 * @param <P> the type of the profiles
+	 * @param shards the sources of samples in each shard
+	 * @param modelBuilder being used to create a empty model
+	 * @param threads the number of threads to be used
+	 * @return the merged model
+	 * @throws InterruptedException if interrupted while waiting
+	 * @throws ExecutionException if failed to train a shard
+	 */
+	public static <M extends SimpleTrainableModel<T,P>,T,P> M train(List<? extends Supplier<Stream<Sample<T>>>> shards,
+			Supplier<M> modelBuilder,int threads) throws InterruptedException,ExecutionException{
+		ExecutorService executor=Executors.newFixedThreadPool(threads);
+		try{
+			List<Future<M>> partials=new ArrayList<>(shards.size());
+			for(Supplier<Stream<Sample<T>>> shard:shards){
+				partials.add(executor.submit(()->{
+					M model=modelBuilder.get();
+					try(Stream<Sample<T>> samples=shard.get()){
+						model.train(samples);
+					}
+					return model;
+				}));
+			}
+			List<M> models=new ArrayList<>(partials.size());
+			for(Future<M> partial:partials){
+				models.add(partial.get());
+			}
+			return reduce(models,modelBuilder,executor);
+		}finally{
+			executor.shutdown();
+		}
+	}
+	/**
+	 * Merge models pairwise in a tree, in the order given
+	 *
+	 * @param <M> the type of the model
+	 * @param <T> the type of the objects to be classified
+	 * @param <P> the type of the profiles
+	 * @param models the models to be merged, which may be modified
+	 * @param modelBuilder being used to create a empty model if there is no
+	 * model to be merged
+	 * @param executor being used to merge pairs of models concurrently
+	 * @return the merged model
+	 * @throws InterruptedException if interrupted while waiting
+	 * @throws ExecutionException if failed to merge models
+	 */
+	public static <M extends SimpleTrainableModel<T,P>,T,P> M reduce(List<M> models,Supplier<M> modelBuilder,
+			ExecutorService executor) throws InterruptedException,ExecutionException{
+		if(models.isEmpty()){
+			return modelBuilder.get();
+		}
+		while(models.size()>1){
+			List<Future<M>> merged=new ArrayList<>((models.size()+1)/2);
+			for(int i=0;i<models.size();i+=2){
+				M left=models.get(i);
+				if(i+1<models.size()){
+					M right=models.get(i+1);
+					merged.add(executor.submit(()->{
+						left.merge(right);
+						return left;
+					}));
+				}else{
+					merged.add(CompletableFuture.completedFuture(left));
+				}
+			}
+			models=new ArrayList<>(merged.size());
+			for(Future<M> model:merged){
+				models.add(model.get());
+			}
+		}
+		return models.get(0);
+	}
+	/**
+	 * Train shards of labeled text in separate JVMs, each of them saves its
+	 * partial model into a directory, which is then loaded and merged
+	 *
+	 * @param <M> the type of the model, which must have a public constructor
+	 * without argument
+	 * @param <P> the type of the profiles
+	 * @param shards files with one sample per line, in the format accepted by
+	 * TextDatasetHelper.labeledLines
+	 * @param locale the locale of the text
+	 * @param stemming apply stemmer or not
+	 * @param modelBuilder being used to create a empty model
+	 * @param workDirectory where the partial models are saved to
+	 * @param processes the maximum number of JVM running at the same time
+	 * @return the merged model
+	 * @throws IOException if failed to start a JVM or a JVM failed, the JVMs
+	 * still running are destroyed
+	 * @throws InterruptedException if interrupted while waiting
+	 * @throws ExecutionException if failed to merge models
+	 * @see Starter#getDefaultPreprocessor(java.util.Locale, boolean)
+	 */
+	public static <M extends SimpleTrainableModel<Frequencies<String>,P>&Persistable<String>,P> M trainInProcesses(List<Path> shards,
+			Locale locale,boolean stemming,Supplier<M> modelBuilder,File workDirectory,int processes)
+			throws IOException,InterruptedException,ExecutionException{
+		String java=Paths.get(System.getProperty("java.home"),"bin","java").toString();
+		String modelClass=modelBuilder.get().getClass().getName();
+		List<File> directories=new ArrayList<>(shards.size());
+		Deque<Process> running=new ArrayDeque<>();
+		try{
+			for(int i=0;i<shards.size();i++){
+				File directory=new File(workDirectory,"shard"+i);
+				directories.add(directory);
+				if(running.size()>=processes){
+					waitFor(running.removeFirst());
+				}
+				running.addLast(new ProcessBuilder(java,"-cp",System.getProperty("java.class.path"),
+						ShardedTrainer.class.getName(),modelClass,locale.toLanguageTag(),Boolean.toString(stemming),
+						shards.get(i).toString(),directory.toString()).inheritIO().start());
+			}
+			while(!running.isEmpty()){
+				waitFor(running.removeFirst());
+			}
+		}finally{
+			for(Process process:running){
+				process.destroy();
+			}
+		}
+		List<M> models=new ArrayList<>(directories.size());
+		for(File directory:directories){
+			M model=modelBuilder.get();
+			model.load(directory,(token)->token);
+			models.add(model);
+		}
+		ExecutorService executor=Executors.newFixedThreadPool(processes);
+		try{
+			return reduce(models,modelBuilder,executor);
+		}finally{
+			executor.shutdown();
+		}
+	}
+	private static void waitFor(Process process) throws IOException,InterruptedException{
+		int status=process.waitFor();
+		if(status!=0){
+			throw new IOException("Shard training exited with status "+status);
+		}
+	}
+	/**
+	 * Train a shard of labeled text and save the model, being used by
+	 * trainInProcesses
+	 *
+	 * @param args the class name of the model, the language tag of the
+	 * locale, if stemming is applied, the file containing the shard and the
+	 * directory where the model is saved to
+	 */
+	public static void main(String[] args){
+		try{
+			//the class is given by trainInProcesses, so it is a persistable model of text
+			@SuppressWarnings("unchecked")
+			SimpleTrainableModel<Frequencies<String>,?> model=(SimpleTrainableModel<Frequencies<String>,?>)Class.forName(args[0]).getConstructor().newInstance();
+			Function<String,Frequencies<String>> preprocessor=Starter.getDefaultPreprocessor(Locale.forLanguageTag(args[1]),Boolean.parseBoolean(args[2]));
+			try(Stream<Sample<String>> samples=TextDatasetHelper.labeledLines(Paths.get(args[3]))){
+				model.train(samples.map((sample)->new Sample<>(preprocessor.apply(sample.getData()),sample.getCategory())));
+			}
+			File directory=new File(args[4]);
+			directory.mkdirs();
+			@SuppressWarnings("unchecked")
+			Persistable<String> persistable=(Persistable<String>)model;
+			persistable.save(directory,(token)->token);
+		}catch(ReflectiveOperationException|ClassCastException ex){
+			Logger.getLogger(ShardedTrainer.class.getName()).log(Level.SEVERE,null,ex);
+			System.exit(1);
+		}
+	}
+}
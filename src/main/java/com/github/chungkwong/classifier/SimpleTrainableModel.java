@@ -15,8 +15,10 @@
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 package com.github.chungkwong.classifier;
+import com.github.chungkwong.classifier.validator.*;
 import java.util.*;
 import java.util.function.*;
+import java.util.stream.*;
 /**
  * Trainable model that only rely on profile about each category
  *
@@ -28,6 +30,8 @@ public class SimpleTrainableModel<T,P> implements Trainable<T>{
 	private final Map<Category,P> profiles=new HashMap<>();
 	private final Supplier<P> profileBuilder;
 	private final BiConsumer<T,P> profileUpdater;
+	private final BiConsumer<P,P> profileMerger;
+	private boolean concurrent=false;
 	/**
 	 * Create a simple trainable model
 	 *
@@ -36,17 +40,134 @@ public class SimpleTrainableModel<T,P> implements Trainable<T>{
 	 * training data
 	 */
 	public SimpleTrainableModel(Supplier<P> profileBuilder,BiConsumer<T,P> profileUpdater){
+		this(profileBuilder,profileUpdater,null);
+	}
+	/**
+	 * Create a simple trainable model that can be trained concurrently
+	 *
+	 * @param profileBuilder being used to create a profile for a category
+	 * @param profileUpdater being called to update profile according to
+	 * training data
+	 * @param profileMerger being called to add the second profile to the
+	 * first profile, null if profiles cannot be merged
+	 */
+	public SimpleTrainableModel(Supplier<P> profileBuilder,BiConsumer<T,P> profileUpdater,BiConsumer<P,P> profileMerger){
 		this.profileBuilder=profileBuilder;
 		this.profileUpdater=profileUpdater;
+		this.profileMerger=profileMerger;
+	}
+	/**
+	 * Enable or disable concurrent training. When enabled, a stream of samples
+	 * is trained in parallel: each thread updates its own partial profiles,
+	 * which are merged into this model at the end in encounter order, so the
+	 * result is the same as sequential training. Training single samples is
+	 * synchronized.
+	 *
+	 * @param concurrent if concurrent training is enabled
+	 * @return this
+	 * @throws UnsupportedOperationException if profiles cannot be merged
+	 */
+	public SimpleTrainableModel<T,P> setConcurrent(boolean concurrent){
+		if(concurrent&&profileMerger==null){
+			throw new UnsupportedOperationException();
+		}
+		this.concurrent=concurrent;
+		return this;
+	}
+	/**
+	 * @return if concurrent training is enabled
+	 */
+	public boolean isConcurrent(){
+		return concurrent;
 	}
 	@Override
 	public void train(T data,Category category){
+		if(concurrent){
+			synchronized(profiles){
+				update(data,category);
+			}
+		}else{
+			update(data,category);
+		}
+	}
+	private void update(T data,Category category){
+		P profile=getProfile(profiles,category,profileBuilder);
+		profileUpdater.accept(data,profile);
+		sampleTrained(data,profile);
+	}
+	@Override
+	public void train(Stream<Sample<T>> samples){
+		if(concurrent){
+			Map<Category,P> partial=samples.parallel().collect(HashMap::new,
+					(map,sample)->profileUpdater.accept(sample.getData(),getProfile(map,sample.getCategory(),this::createPartialProfile)),
+					(map1,map2)->merge(map1,map2,this::createPartialProfile));
+			synchronized(profiles){
+				merge(profiles,partial,profileBuilder);
+				profilesChanged();
+			}
+		}else{
+			Trainable.super.train(samples);
+		}
+	}
+	/**
+	 * Add the samples trained by another model to this model, as if they are
+	 * trained by this model after the samples already trained. The other model
+	 * is not modified and shares no profile with this model afterward. Merging
+	 * is associative, so partial models can be merged in any tree shape.
+	 *
+	 * @param other the other model
+	 * @throws UnsupportedOperationException if profiles cannot be merged
+	 */
+	public void merge(SimpleTrainableModel<T,P> other){
+		if(profileMerger==null){
+			throw new UnsupportedOperationException();
+		}
+		synchronized(profiles){
+			merge(profiles,other.profiles,profileBuilder);
+			profilesChanged();
+		}
+	}
+	/**
+	 * @return if models of this kind can be merged
+	 */
+	public boolean isMergeable(){
+		return profileMerger!=null;
+	}
+	/**
+	 * Create a profile being used to collect training data in a single thread
+	 * during concurrent training, which will be merged into a profile created
+	 * by the profile builder later
+	 *
+	 * @return the profile
+	 */
+	protected P createPartialProfile(){
+		return profileBuilder.get();
+	}
+	/**
+	 * Called after a sample is added to a profile, so that subclasses can
+	 * update aggregates of the profiles incrementally
+	 *
+	 * @param data the sample
+	 * @param profile the profile that the sample is added to
+	 */
+	protected void sampleTrained(T data,P profile){
+	}
+	/**
+	 * Called after the profiles are changed in other ways, like merging, so
+	 * that subclasses can invalidate aggregates of the profiles
+	 */
+	protected void profilesChanged(){
+	}
+	private static <P> P getProfile(Map<Category,P> profiles,Category category,Supplier<P> builder){
 		P profile=profiles.get(category);
 		if(profile==null){
-			profile=profileBuilder.get();
+			profile=builder.get();
 			profiles.put(category,profile);
 		}
-		profileUpdater.accept(data,profile);
+		return profile;
+	}
+	private void merge(Map<Category,P> target,Map<Category,P> source,Supplier<P> builder){
+		source.forEach((category,profile)->profileMerger.accept(getProfile(target,category,builder),profile));
 	}
 	/**
 	 * @return the profiles about each category
@@ -62,20 +62,20 @@ public class Starter{
 	 */
 	public static Function<String,Frequencies<String>> getDefaultPreprocessor(Locale locale,boolean stemming){
 		Function<String,String> preTokenize=TextPreprocessors.getJavaNormalizier(Normalizer.Form.NFKC);
-		Function<String,Stream<String>> tokenizer;
-		Function<Stream<String>,Stream<String>> postTokenize=TextPreprocessors.getWhitespaceFilter().andThen(TextPreprocessors.getFoldcaser());
+		Tokenizer tokenizer;
+		TokenFilter postTokenize=PushPreprocessors.getWhitespaceFilter().andThen(PushPreprocessors.getFoldcaser());
 		if(stemming)
-			postTokenize=postTokenize.andThen(TextPreprocessors.getStemmer(locale));
+			postTokenize=postTokenize.andThen(PushPreprocessors.getStemmer(locale));
 		if(Locale.CHINESE.getISO3Language().equals(locale.getISO3Language())
 				||Locale.JAPANESE.getISO3Language().equals(locale.getISO3Language())){
-			tokenizer=TextPreprocessors.getJavaTokenizer(BreakIterator.getCharacterInstance(locale));
-			postTokenize=postTokenize.andThen(TextPreprocessors.getNgramGenerator(2));
+			tokenizer=PushPreprocessors.getJavaTokenizer(BreakIterator.getCharacterInstance(locale));
+			postTokenize=postTokenize.andThen(PushPreprocessors.getNgramGenerator(2));
 			if(Locale.CHINESE.getISO3Language().equals(locale.getISO3Language()))
 				preTokenize=preTokenize.andThen(TextPreprocessors.getIcuTransformer("Traditional-Simplified"));
 		}else{
-			tokenizer=TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(locale));
+			tokenizer=PushPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(locale));
 		}
-		return TextPreprocessors.of(preTokenize,tokenizer,postTokenize);
+		return PushPreprocessors.of(preTokenize,tokenizer,postTokenize);
 	}
 	/**
 	 * Get a ClassifierFactory based on a dataset
@@ -90,11 +90,13 @@ public class Starter{
 		return validator.selectMostAccurate();
 	}
 	private static ClassifierFactory[] getStandardClassifierFactories(Locale locale){
-		ClassifierFactory factory1=Starter.getDefaultClassifierFactory(locale,false,new TfIdfClassifierFactory());
-		ClassifierFactory factory2=Starter.getDefaultClassifierFactory(locale,false,new BayesianClassifierFactory());
-		//ClassifierFactory factory3=Starter.getDefaultClassifierFactory(locale,false,new KNearestClassifierFactory().setK(3));
-		ClassifierFactory factory3=Starter.getDefaultClassifierFactory(locale,false,new C45ClassifierFactory());
-		ClassifierFactory factory4=Starter.getDefaultClassifierFactory(locale,false,new SvmClassifierFactory());
+		//The factories share a preprocessor so that Validator train a model for those sharing a model type
+		Function<String,Frequencies<String>> preprocessor=getDefaultPreprocessor(locale,false);
+		ClassifierFactory factory1=new PreprocessClassifierFactory<>(preprocessor,new TfIdfClassifierFactory());
+		ClassifierFactory factory2=new PreprocessClassifierFactory<>(preprocessor,new BayesianClassifierFactory());
+		//ClassifierFactory factory3=new PreprocessClassifierFactory<>(preprocessor,new KNearestClassifierFactory().setK(3));
+		ClassifierFactory factory3=new PreprocessClassifierFactory<>(preprocessor,new C45ClassifierFactory());
+		ClassifierFactory factory4=new PreprocessClassifierFactory<>(preprocessor,new SvmClassifierFactory());
 		//ClassifierFactory factory5=Starter.getDefaultClassifierFactory(locale,true,new TfIdfClassifierFactory());
 		//ClassifierFactory factory6=Starter.getDefaultClassifierFactory(locale,true,new BayesianClassifierFactory());
 		//ClassifierFactory factory7=Starter.getDefaultClassifierFactory(locale,true,new KNearestClassifierFactory().setK(3));
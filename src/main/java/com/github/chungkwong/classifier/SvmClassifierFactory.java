@@ -17,14 +17,18 @@
 package com.github.chungkwong.classifier;
 import com.github.chungkwong.classifier.util.*;
 import de.bwaldvogel.liblinear.*;
+import java.io.*;
+import java.nio.*;
 import java.util.*;
+import java.util.function.*;
 /**
  *
  * Factory for SVM classifier
  * @author Chan Chung Kwong
  * @param <T> the type of the objects to be classified
  */
-public class SvmClassifierFactory<T> extends BagClassifierFactory<Classifier<Frequencies<T>>,DocumentVectorsModel<T>,T>{
+public class SvmClassifierFactory<T> extends BagClassifierFactory<Classifier<Frequencies<T>>,DocumentVectorsModel<T>,T>
+		implements PersistableClassifierFactory<Classifier<Frequencies<T>>,T>{
 	private TfIdfFormula tfIdfFormula=TfIdfFormula.STANDARD;
 	private Parameter parameter=new Parameter(SolverType.L2R_L2LOSS_SVC_DUAL,1,0.1);
 	/**
@@ -65,66 +69,118 @@ public class SvmClassifierFactory<T> extends BagClassifierFactory<Classifier<Fre
 	
 	@Override
 	public Classifier<Frequencies<T>> createClassifier(DocumentVectorsModel<T> model){
-		Frequencies<T> totalDocumentFrequencies=model.getTotalDocumentFrequencies();
+		Vocabulary<T> modelVocabulary=model.getVocabulary();
+		long[] modelDocumentFrequencies=new long[modelVocabulary.size()];
+		model.getDocumentFrequencyTable().forEachFrequency((id,count)->modelDocumentFrequencies[id]=count);
+		//Only selected tokens have nonzero document frequency, they are copied in
+		//the order of their ID so that features stay sorted
+		Vocabulary<T> vocabulary=new Vocabulary<>();
+		int[] ids=new int[modelVocabulary.size()];
+		for(int id=0;id<ids.length;id++){
+			ids[id]=modelDocumentFrequencies[id]!=0?vocabulary.getId(modelVocabulary.getToken(id)):-1;
+		}
+		long[] documentFrequencies=new long[vocabulary.size()];
+		for(int id=0;id<ids.length;id++){
+			if(ids[id]!=-1){
+				documentFrequencies[ids[id]]=modelDocumentFrequencies[id];
+			}
+		}
 		Linear.disableDebugOutput();
 		Problem problem=new Problem();
-		problem.l=(int)model.getSampleCount();
-		problem.n=totalDocumentFrequencies.getTokenCount();
-		
-		Map<T,Integer> tokenIndex=new HashMap<>();
 		int sampleCount=(int)model.getSampleCount();
+		problem.l=sampleCount;
+		problem.n=vocabulary.size();
 		problem.y=new double[sampleCount];
 		problem.x=new Feature[sampleCount][];
 		int i=0,j=0;
 		Iterator<Map.Entry<Category,DocumentVectorsModel.VectorsProfile<T>>> iterator=model.getProfiles().entrySet().iterator();
 		while(iterator.hasNext()){
-			Map.Entry<Category,DocumentVectorsModel.VectorsProfile<T>> next=iterator.next();
-			for(Frequencies<T> sample:next.getValue().getDocumentVectors()){
+			DocumentVectorsModel.VectorsProfile<T> profile=iterator.next().getValue();
+			for(int document=0;document<profile.getDocumentCount();document++){
 				problem.y[i]=j;
-				problem.x[i]=toFeatureArray(sample,tokenIndex,totalDocumentFrequencies,sampleCount,tfIdfFormula);
+				Feature[] features=new Feature[profile.getEnd(document)-profile.getStart(document)];
+				int size=0;
+				for(int position=profile.getStart(document);position<profile.getEnd(document);position++){
+					int id=profile.getId(position);
+					if(profile.isSelected(id)){
+						features[size++]=new FeatureNode(ids[id]+1,tfIdfFormula.calculate(profile.getCount(position),modelDocumentFrequencies[id],sampleCount));
+					}
+				}
+				problem.x[i]=normalize(size==features.length?features:Arrays.copyOf(features,size));
 				++i;
 			}
 			++j;
 		}
 		return new SvmClassifier<>(Linear.train(problem,parameter),
-				tokenIndex,totalDocumentFrequencies,sampleCount,tfIdfFormula,
+				vocabulary,documentFrequencies,sampleCount,tfIdfFormula,
 				model.getProfiles().keySet().toArray(new Category[0]));
 	}
 	@Override
 	public DocumentVectorsModel<T> createModel(){
 		return new DocumentVectorsModel<>();
 	}
-	private static <T> Feature[] toFeatureArray(Frequencies<T> object,Map<T,Integer> tokenIndex,
-			Frequencies<T> documentFrequencies,long documentCount,TfIdfFormula formula){
-		Feature[] features=new Feature[object.getTokenCount()];
-		int i=0;
-		for(Map.Entry<T,Counter> e:object.toMap().entrySet()){
-			T token=e.getKey();
-			Integer index=tokenIndex.get(token);
-			if(index==null){
-				index=tokenIndex.size()+1;
-				tokenIndex.put(token,index);
-			}
-			features[i++]=new FeatureNode(index,formula.calculate(e.getValue().getCount(),documentFrequencies.getFrequency(token),documentCount));
+	@Override
+	public Object getModelKey(){
+		return getModelKey(SvmClassifierFactory.class,DocumentVectorsModel.class);
+	}
+	/**
+	 * Save a classifier, the name of the TF-IDF formula is saved and checked
+	 * on load, so the classifier can only be loaded by a factory using the
+	 * same formula. The weights are
+	 * saved in the format of liblinear, so that they remain readable across
+	 * versions of liblinear.
+	 *
+	 * @param classifier the classifier
+	 * @param directory where the classifier will be saved to
+	 * @param encoder encode token to String
+	 * @throws IOException if failed to write
+	 */
+	@Override
+	public void saveClassifier(Classifier<Frequencies<T>> classifier,File directory,Function<T,String> encoder) throws IOException{
+		if(!(classifier instanceof SvmClassifier)){
+			throw new IllegalArgumentException();
+		}
+		SvmClassifier<T> svm=(SvmClassifier<T>)classifier;
+		StringWriter weights=new StringWriter();
+		svm.model.save(weights);
+		try(DataOutputStream out=ClassifierFiles.create(directory,getName())){
+			ClassifierFiles.writeFormula(out,svm.tfIdfFormula);
+			ClassifierFiles.writeCategories(out,svm.categories);
+			ClassifierFiles.writeVocabulary(out,svm.tokenIndex,encoder);
+			out.writeLong(svm.documentCount);
+			ClassifierFiles.writeLongs(out,svm.documentFrequencies);
+			ClassifierFiles.writeString(out,weights.toString());
 		}
+	}
+	@Override
+	public Classifier<Frequencies<T>> loadClassifier(File directory,Function<String,T> decoder) throws IOException{
+		ByteBuffer in=ClassifierFiles.open(directory,getName());
+		ClassifierFiles.checkFormula(in,tfIdfFormula);
+		Category[] categories=ClassifierFiles.readCategories(in);
+		Vocabulary<T> tokenIndex=ClassifierFiles.readVocabulary(in,decoder);
+		long documentCount=in.getLong();
+		long[] documentFrequencies=ClassifierFiles.readLongs(in);
+		Model model=Model.load(new StringReader(ClassifierFiles.readString(in)));
+		return new SvmClassifier<>(model,tokenIndex,documentFrequencies,documentCount,tfIdfFormula,categories);
+	}
+	private static Feature[] normalize(Feature[] features){
 		double factor=0;
 		for(Feature feature:features)
 			factor+=feature.getValue()*feature.getValue();
 		factor=Math.sqrt(factor);
 		for(Feature feature:features)
 			feature.setValue(feature.getValue()/factor);
-		Arrays.sort(features,(f,g)->Integer.compare(f.getIndex(),g.getIndex()));
-		return features;	
+		return features;
 	}
 	private static class SvmClassifier<T> implements Classifier<Frequencies<T>>{
 		private final Model model;
-		private final Frequencies<T> documentFrequencies;
+		private final long[] documentFrequencies;
 		private final long documentCount;
 		private final TfIdfFormula tfIdfFormula;
-		private final Map<T,Integer> tokenIndex;
+		private final Vocabulary<T> tokenIndex;
 		private final Category[] categories;
-		public SvmClassifier(Model model,Map<T,Integer> tokenIndex,
-				Frequencies<T> documentFrequencies,long documentCount,
+		public SvmClassifier(Model model,Vocabulary<T> tokenIndex,
+				long[] documentFrequencies,long documentCount,
 				TfIdfFormula tfIdfFormula,Category[] categories){
 			this.model=model;
 			this.tokenIndex=tokenIndex;
@@ -135,23 +191,22 @@ public class SvmClassifierFactory<T> extends BagClassifierFactory<Classifier<Fre
 		}
 		@Override
 		public List<ClassificationResult> getCandidates(Frequencies<T> unknown,int max){
-			Feature[] features=toFeatureArray(unknown,tokenIndex,documentFrequencies,documentCount,tfIdfFormula);
+			Feature[] features=toFeatureArray(unknown);
 			int categoryIndex=(int)(Linear.predict(model,features)+0.5);
 			if(categoryIndex>=0&&categoryIndex<categories.length)
 				return Collections.singletonList(new ClassificationResult(1.0,categories[categoryIndex]));
 			else
 				return Collections.emptyList();
 		}
-		private static <T> Feature[] toFeatureArray(Frequencies<T> object,Map<T,Integer> tokenIndex,
-				Frequencies<T> documentFrequencies,long documentCount,TfIdfFormula formula){
-			Feature[] features=object.toMap().entrySet().stream().filter((e)->tokenIndex.containsKey(e.getKey())).
-					map((e)->new FeatureNode(tokenIndex.get(e.getKey()),formula.calculate(e.getValue().getCount(),documentFrequencies.getFrequency(e.getKey()),documentCount))).toArray(Feature[]::new);
-			double factor=0;
-			for(Feature feature:features)
-				factor+=feature.getValue()*feature.getValue();
-			factor=Math.sqrt(factor);
-			for(Feature feature:features)
-				feature.setValue(feature.getValue()/factor);
+		private Feature[] toFeatureArray(Frequencies<T> object){
+			List<Feature> list=new ArrayList<>(object.getTokenCount());
+			object.forEachFrequency((token,count)->{
+				int index=tokenIndex.getIdIfPresent(token);
+				if(index!=-1&&index<documentFrequencies.length&&documentFrequencies[index]!=0){
+					list.add(new FeatureNode(index+1,tfIdfFormula.calculate(count,documentFrequencies[index],documentCount)));
+				}
+			});
+			Feature[] features=normalize(list.toArray(new Feature[0]));
 			Arrays.sort(features,(f,g)->Integer.compare(f.getIndex(),g.getIndex()));
 			return features;	
 		}
@@ -52,6 +52,41 @@ public class TextPreprocessors{
 	public static Function<String,Frequencies<String>> of(Function<String,Stream<String>> tokenizer,Function<Stream<String>,Stream<String>> postTokenize){
 		return tokenizer.andThen(postTokenize).andThen((s)->new Frequencies<>(s));
 	}
+	/**
+	 * Combining a tokenizer and some filters into a preprocessor that produce
+	 * vectors of token ID
+	 *
+	 * @param preTokenize the filter being applied before tokenization
+	 * @param tokenizer being used to break text into tokens
+	 * @param postTokenize the filter being applied after tokenization
+	 * @param vocabulary being used to assign ID to tokens
+	 * @param grow if new tokens are added to the vocabulary, otherwise they
+	 * are dropped. Preprocessors that grow the vocabulary are meant for
+	 * training and must not be used concurrently, while those that do not
+	 * only read the vocabulary, so they can be used concurrently as long as
+	 * no thread is adding tokens to it.
+	 * @return the combined preprocessor
+	 */
+	public static Function<String,SparseVector> of(Function<String,String> preTokenize,Function<String,Stream<String>> tokenizer,Function<Stream<String>,Stream<String>> postTokenize,Vocabulary<String> vocabulary,boolean grow){
+		return preTokenize.andThen(tokenizer).andThen(postTokenize).andThen((tokens)->vocabulary.toVector(tokens,grow));
+	}
+	/**
+	 * Combining a tokenizer and some filters into a preprocessor that produce
+	 * vectors of token ID
+	 *
+	 * @param tokenizer being used to break text into tokens
+	 * @param postTokenize the filter being applied after tokenization
+	 * @param vocabulary being used to assign ID to tokens
+	 * @param grow if new tokens are added to the vocabulary, otherwise they
+	 * are dropped. Preprocessors that grow the vocabulary are meant for
+	 * training and must not be used concurrently, while those that do not
+	 * only read the vocabulary, so they can be used concurrently as long as
+	 * no thread is adding tokens to it.
+	 * @return the combined preprocessor
+	 */
+	public static Function<String,SparseVector> of(Function<String,Stream<String>> tokenizer,Function<Stream<String>,Stream<String>> postTokenize,Vocabulary<String> vocabulary,boolean grow){
+		return tokenizer.andThen(postTokenize).andThen((tokens)->vocabulary.toVector(tokens,grow));
+	}
 	/**
 	 * A preprocessor that break text into tokens
 	 *
@@ -391,73 +426,88 @@ public class TextPreprocessors{
 	 * @return the stemmer
 	 */
 	public static Function<Stream<String>,Stream<String>> getStemmer(Locale locale){
-		SnowballStemmer stemmer;
+		return getSnowballStemmer(getStemmerBuilder(locale));
+	}
+	static Supplier<SnowballStemmer> getStemmerBuilder(Locale locale){
+		Supplier<SnowballStemmer> stemmer;
 		switch(locale.getISO3Language()){
 			case "ara":
-				stemmer=new ArabicStemmer();
+				stemmer=ArabicStemmer::new;
 				break;
 			case "dan":
-				stemmer=new DanishStemmer();
+				stemmer=DanishStemmer::new;
 				break;
 			case "nld":
-				stemmer=new DutchStemmer();
+				stemmer=DutchStemmer::new;
 				break;
 			case "eng":
-				stemmer=new EnglishStemmer();
+				stemmer=EnglishStemmer::new;
 				break;
 			case "fin":
-				stemmer=new FinnishStemmer();
+				stemmer=FinnishStemmer::new;
 				break;
 			case "fra":
-				stemmer=new FrenchStemmer();
+				stemmer=FrenchStemmer::new;
 				break;
 			case "deu":
-				stemmer=new GermanStemmer();
+				stemmer=GermanStemmer::new;
 				break;
 			case "hun":
-				stemmer=new HungarianStemmer();
+				stemmer=HungarianStemmer::new;
 				break;
 			case "ind":
-				stemmer=new IndonesianStemmer();
+				stemmer=IndonesianStemmer::new;
 				break;
 			case "gle":
-				stemmer=new IrishStemmer();
+				stemmer=IrishStemmer::new;
 				break;
 			case "ita":
-				stemmer=new ItalianStemmer();
+				stemmer=ItalianStemmer::new;
 				break;
 			case "nep":
-				stemmer=new NepaliStemmer();
+				stemmer=NepaliStemmer::new;
 				break;
 			case "nor":
-				stemmer=new NorwegianStemmer();
+				stemmer=NorwegianStemmer::new;
 				break;
 			case "por":
-				stemmer=new PortugueseStemmer();
+				stemmer=PortugueseStemmer::new;
 				break;
 			case "ron":
-				stemmer=new RomanianStemmer();
+				stemmer=RomanianStemmer::new;
 				break;
 			case "spa":
-				stemmer=new SpanishStemmer();
+				stemmer=SpanishStemmer::new;
 				break;
 			case "rus":
-				stemmer=new RussianStemmer();
+				stemmer=RussianStemmer::new;
 				break;
 			case "swe":
-				stemmer=new SwedishStemmer();
+				stemmer=SwedishStemmer::new;
 				break;
 			case "tam":
-				stemmer=new TamilStemmer();
+				stemmer=TamilStemmer::new;
 				break;
 			case "tur":
-				stemmer=new TurkishStemmer();
+				stemmer=TurkishStemmer::new;
 				break;
 			default:
-				stemmer=new NaiveStemmer();
+				stemmer=NaiveStemmer::new;
 				break;
 		}
-		return getSnowballStemmer(stemmer);
+		return stemmer;
+	}
+	/**
+	 * A post-tokenize preprocessor that apply stemming to the tokens and
+	 * remember the results of frequent tokens, the returned object can be
+	 * shared by preprocessors for the same language
+	 *
+	 * @param locale identify the language
+	 * @param capacity the maximum number of tokens being remembered
+	 * @return the stemmer
+	 */
+	public static CachedStemmer getCachedStemmer(Locale locale,int capacity){
+		return new CachedStemmer(getStemmer(locale),capacity);
 	}
 	/**
 	 * A post-tokenize preprocessor that apply stemming to the tokens based on
@@ -466,7 +516,7 @@ public class TextPreprocessors{
 	 * @return the stemmer
 	 */
 	public static Function<Stream<String>,Stream<String>> getPorterStemmer(){
-		return getSnowballStemmer(new PorterStemmer());
+		return getSnowballStemmer(PorterStemmer::new);
 	}
 	/**
 	 * A post-tokenize preprocessor that apply stemming to the tokens based on
@@ -475,7 +525,7 @@ public class TextPreprocessors{
 	 * @return the stemmer
 	 */
 	public static Function<Stream<String>,Stream<String>> getLovinsStemmer(){
-		return getSnowballStemmer(new LovinsStemmer());
+		return getSnowballStemmer(LovinsStemmer::new);
 	}
 	/**
 	 * A post-tokenize preprocessor that apply Dutch stemming to the tokens
@@ -483,7 +533,7 @@ public class TextPreprocessors{
 	 * @return the stemmer
 	 */
 	public static Function<Stream<String>,Stream<String>> getKraaijPohlmannStemmer(){
-		return getSnowballStemmer(new KraaijPohlmannStemmer());
+		return getSnowballStemmer(KraaijPohlmannStemmer::new);
 	}
 	/**
 	 * A post-tokenize preprocessor that apply German stemming to the tokens
@@ -492,21 +542,41 @@ public class TextPreprocessors{
 	 * @return the stemmer
 	 */
 	public static Function<Stream<String>,Stream<String>> getAlternativeGermanStemmer(){
-		return getSnowballStemmer(new German2Stemmer());
+		return getSnowballStemmer(German2Stemmer::new);
 	}
 	/**
-	 * A post-tokenize preprocessor that apply stemmer to the tokens
+	 * A post-tokenize preprocessor that apply stemmer to the tokens, calls
+	 * from different threads are serialized since a stemmer holds state, so
+	 * getSnowballStemmer(Supplier) should be preferred if the preprocessor
+	 * may be used concurrently
 	 *
 	 * @param stemmer Snowball stemmer
 	 * @return the stemmer
 	 */
 	public static Function<Stream<String>,Stream<String>> getSnowballStemmer(SnowballStemmer stemmer){
 		return (tokens)->tokens.map((token)->{
-			stemmer.setCurrent(token);
-			stemmer.stem();
-			return stemmer.getCurrent();
+			synchronized(stemmer){
+				return stem(stemmer,token);
+			}
 		});
 	}
+	/**
+	 * A post-tokenize preprocessor that apply stemmer to the tokens, each
+	 * thread using the preprocessor get its own stemmer, so the preprocessor
+	 * is thread-safe
+	 *
+	 * @param stemmerBuilder being used to create Snowball stemmer
+	 * @return the stemmer
+	 */
+	public static Function<Stream<String>,Stream<String>> getSnowballStemmer(Supplier<? extends SnowballStemmer> stemmerBuilder){
+		ThreadLocal<SnowballStemmer> stemmer=ThreadLocal.withInitial(stemmerBuilder);
+		return (tokens)->tokens.map((token)->stem(stemmer.get(),token));
+	}
+	static String stem(SnowballStemmer stemmer,String token){
+		stemmer.setCurrent(token);
+		stemmer.stem();
+		return stemmer.getCurrent();
+	}
 	/**
 	 * A post-tokenize preprocessor that generate n-gram tokens
 	 *
@@ -16,15 +16,18 @@
  */
 package com.github.chungkwong.classifier;
 import com.github.chungkwong.classifier.util.*;
+import java.io.*;
+import java.nio.*;
 import java.util.*;
-import java.util.stream.*;
+import java.util.function.*;
 /**
  * 
  * Factory for TF-IDF classifier
  * @param <T> the type of data to be classified
  * @author Chan Chung Kwong
  */
-public class TfIdfClassifierFactory<T> extends BagClassifierFactory<Classifier<Frequencies<T>>,FrequenciesModel<T>,T>{
+public class TfIdfClassifierFactory<T> extends BagClassifierFactory<Classifier<Frequencies<T>>,FrequenciesModel<T>,T>
+		implements PersistableClassifierFactory<Classifier<Frequencies<T>>,T>{
 	private TfIdfFormula tfIdfFormula;
 	/**
 	 * Create a factory with standard TF-IDF formula
@@ -52,63 +55,202 @@ public class TfIdfClassifierFactory<T> extends BagClassifierFactory<Classifier<F
 		return new TfIdfClassifier<>(model.getTokenFrequencies(),
 				model.getTotalDocumentFrequencies(),model.getSampleCount(),tfIdfFormula);
 	}
+	/**
+	 * Create a classifier that work on vectors of token ID directly, so that
+	 * scoring is done by array indexing
+	 *
+	 * @param model the model, the vectors to be classified should use ID from
+	 * its vocabulary
+	 * @return the classifier
+	 */
+	public Classifier<SparseVector> createClassifier(IndexedFrequenciesModel<T> model){
+		Map<Category,IndexedFrequenciesModel.IndexedFrequencyProfile> profiles=model.getProfiles();
+		Category[] categories=profiles.keySet().toArray(new Category[0]);
+		IntFrequencies[] tokenFrequencies=new IntFrequencies[categories.length];
+		for(int i=0;i<categories.length;i++){
+			tokenFrequencies[i]=profiles.get(categories[i]).getTokenFrequencies();
+		}
+		return new IndexedTfIdfClassifier(categories,tokenFrequencies,model.getTotalDocumentFrequencies(),
+				model.getIdBound(),model.getSampleCount(),tfIdfFormula);
+	}
 	@Override
 	public FrequenciesModel<T> createModel(){
 		return new FrequenciesModel<>();
 	}
-	
-	private static class TfIdfClassifier<T> implements Classifier<Frequencies<T>>{
-		private final Map<Category,Frequencies<T>> profiles;
-		private final DoubleCounters<Category> norms;
-		private final Frequencies<T> documentFrequencies;
+	@Override
+	public Object getModelKey(){
+		return getModelKey(TfIdfClassifierFactory.class,Arrays.asList(FrequenciesModel.class,Frequencies.Backend.TREE_MAP));
+	}
+	/**
+	 * Save a classifier, the name of the TF-IDF formula is saved and checked
+	 * on load, so the classifier can only be loaded by a factory using the
+	 * same formula
+	 *
+	 * @param classifier the classifier
+	 * @param directory where the classifier will be saved to
+	 * @param encoder encode token to String
+	 * @throws IOException if failed to write
+	 */
+	@Override
+	public void saveClassifier(Classifier<Frequencies<T>> classifier,File directory,Function<T,String> encoder) throws IOException{
+		if(!(classifier instanceof TfIdfClassifier)){
+			throw new IllegalArgumentException();
+		}
+		TfIdfClassifier<T> tfIdf=(TfIdfClassifier<T>)classifier;
+		IndexedTfIdfClassifier index=tfIdf.index;
+		try(DataOutputStream out=ClassifierFiles.create(directory,getName())){
+			ClassifierFiles.writeFormula(out,index.tfIdfFormula);
+			ClassifierFiles.writeCategories(out,index.categories);
+			ClassifierFiles.writeVocabulary(out,tfIdf.vocabulary,encoder);
+			out.writeLong(index.documentCount);
+			ClassifierFiles.writeLongs(out,index.documentFrequencies);
+			ClassifierFiles.writeInts(out,index.postingOffsets);
+			ClassifierFiles.writeInts(out,index.postingCategories);
+			ClassifierFiles.writeDoubles(out,index.postingWeights);
+		}
+	}
+	@Override
+	public Classifier<Frequencies<T>> loadClassifier(File directory,Function<String,T> decoder) throws IOException{
+		ByteBuffer in=ClassifierFiles.open(directory,getName());
+		ClassifierFiles.checkFormula(in,tfIdfFormula);
+		Category[] categories=ClassifierFiles.readCategories(in);
+		Vocabulary<T> vocabulary=ClassifierFiles.readVocabulary(in,decoder);
+		return new TfIdfClassifier<>(vocabulary,new IndexedTfIdfClassifier(categories,
+				in.getLong(),ClassifierFiles.readLongs(in),ClassifierFiles.readInts(in),
+				ClassifierFiles.readInts(in),ClassifierFiles.readDoubles(in),tfIdfFormula));
+	}
+	/**
+	 * TF-IDF classifier backed by a inverted index from each token ID to the
+	 * normalized TF-IDF of the token in each category containing it
+	 */
+	private static class IndexedTfIdfClassifier implements Classifier<SparseVector>{
+		private final Category[] categories;
+		private final long[] documentFrequencies;
+		private final int[] postingOffsets;
+		private final int[] postingCategories;
+		private final double[] postingWeights;
 		private final long documentCount;
 		private final TfIdfFormula tfIdfFormula;
-		public TfIdfClassifier(Map<Category,Frequencies<T>> profiles,
-				Frequencies<T> documentFrequencies,long documentCount,
-				TfIdfFormula tfIdfFormula){
-			this.profiles=profiles;
-			this.documentFrequencies=documentFrequencies;
+		IndexedTfIdfClassifier(Category[] categories,IntFrequencies[] tokenFrequencies,
+				IntFrequencies documentFrequencies,int idBound,long documentCount,TfIdfFormula tfIdfFormula){
+			this.categories=categories;
 			this.documentCount=documentCount;
 			this.tfIdfFormula=tfIdfFormula;
-			norms=new DoubleCounters<>(true);
-			profiles.forEach((c,f)->f.toMap().forEach((t,v)->{
-				double tfidf=tfIdfFormula.calculate(v.getCount(),documentFrequencies.getFrequency(t),documentCount);
-				norms.advanceCounter(c,tfidf*tfidf);
-			}));
+			this.documentFrequencies=new long[idBound];
+			documentFrequencies.forEachFrequency((id,count)->this.documentFrequencies[id]=count);
+			postingOffsets=new int[idBound+1];
+			double[] norms=new double[categories.length];
+			for(int i=0;i<categories.length;i++){
+				int categoryIndex=i;
+				tokenFrequencies[i].forEachFrequency((id,count)->{
+					if(this.documentFrequencies[id]!=0){
+						double tfidf=tfIdfFormula.calculate(count,this.documentFrequencies[id],documentCount);
+						norms[categoryIndex]+=tfidf*tfidf;
+						++postingOffsets[id+1];
+					}
+				});
+				norms[i]=norms[i]>0?1/Math.sqrt(norms[i]):0;
+			}
+			for(int i=0;i<idBound;i++){
+				postingOffsets[i+1]+=postingOffsets[i];
+			}
+			postingCategories=new int[postingOffsets[idBound]];
+			postingWeights=new double[postingOffsets[idBound]];
+			int[] next=Arrays.copyOf(postingOffsets,idBound);
+			for(int i=0;i<categories.length;i++){
+				int categoryIndex=i;
+				tokenFrequencies[i].forEachFrequency((id,count)->{
+					if(this.documentFrequencies[id]!=0){
+						double tfidf=tfIdfFormula.calculate(count,this.documentFrequencies[id],documentCount);
+						postingCategories[next[id]]=categoryIndex;
+						postingWeights[next[id]++]=tfidf*norms[categoryIndex];
+					}
+				});
+			}
+		}
+		IndexedTfIdfClassifier(Category[] categories,long documentCount,
+				long[] documentFrequencies,int[] postingOffsets,int[] postingCategories,
+				double[] postingWeights,TfIdfFormula tfIdfFormula){
+			this.categories=categories;
+			this.documentCount=documentCount;
+			this.documentFrequencies=documentFrequencies;
+			this.postingOffsets=postingOffsets;
+			this.postingCategories=postingCategories;
+			this.postingWeights=postingWeights;
+			this.tfIdfFormula=tfIdfFormula;
 		}
 		@Override
-		public List<ClassificationResult> getCandidates(Frequencies<T> document,int max){
-			return profiles.entrySet().stream().map((e)->new ClassificationResult(cosSquare(document,e.getValue(),norms.getFrequency(e.getKey())),e.getKey())).
-					collect(Collectors.toList());
+		public List<ClassificationResult> getCandidates(SparseVector document,int max){
+			double[] products=new double[categories.length];
+			double documentNorm=0;
+			for(int i=0;i<document.getTokenCount();i++){
+				documentNorm+=addToken(products,document.getId(i),document.getCount(i));
+			}
+			return getResults(products,documentNorm);
 		}
-		private double cosSquare(Frequencies<T> document,Frequencies<T> category,double categoryNorm){
-			double documentNorm=norm(document);
-			Frequencies<T> shorter,longer;
-			if(document.getTokenCount()>category.getTokenCount()){
-				shorter=category;
-				longer=document;
-			}else{
-				shorter=document;
-				longer=category;
+		/**
+		 * Add the contribution of a token to the dot products with each
+		 * category
+		 *
+		 * @return the square of the TF-IDF of the token
+		 */
+		double addToken(double[] products,int id,long count){
+			if(id<0||id>=documentFrequencies.length||documentFrequencies[id]==0){
+				double tfidf=tfIdfFormula.calculate(count,0,documentCount);
+				return Double.isFinite(tfidf)?tfidf*tfidf:0;
 			}
-			double product=0;
-			Iterator<Map.Entry<T,Counter>> iterator=shorter.toMap().entrySet().iterator();
-			while(iterator.hasNext()){
-				Map.Entry<T,Counter> next=iterator.next();
-				T token=next.getKey();
-				double shortTfIdf=tfIdfFormula.calculate(next.getValue().getCount(),documentFrequencies.getFrequency(token),documentCount);
-				double longTfIdf=tfIdfFormula.calculate(longer.getFrequency(token),documentFrequencies.getFrequency(token),documentCount);
-				product+=shortTfIdf*longTfIdf;
+			double tfidf=tfIdfFormula.calculate(count,documentFrequencies[id],documentCount);
+			for(int i=postingOffsets[id];i<postingOffsets[id+1];i++){
+				products[postingCategories[i]]+=tfidf*postingWeights[i];
 			}
-			return product*product/(documentNorm*categoryNorm);
+			return tfidf*tfidf;
 		}
-		private double norm(Frequencies<T> document){
-			double documentNorm=0;
-			for(Map.Entry<T,Counter> entry:document.toMap().entrySet()){
-				double tfidf=tfIdfFormula.calculate(entry.getValue().getCount(),documentFrequencies.getFrequency(entry.getKey()),documentCount);
-				documentNorm+=tfidf*tfidf;
+		List<ClassificationResult> getResults(double[] products,double documentNorm){
+			List<ClassificationResult> results=new ArrayList<>(categories.length);
+			for(int i=0;i<categories.length;i++){
+				double cosSquare=documentNorm>0?products[i]*products[i]/documentNorm:0;
+				results.add(new ClassificationResult(cosSquare,categories[i]));
+			}
+			return results;
+		}
+	}
+	/**
+	 * TF-IDF classifier that map tokens to the ID used by a
+	 * IndexedTfIdfClassifier
+	 */
+	private static class TfIdfClassifier<T> implements Classifier<Frequencies<T>>{
+		private final Vocabulary<T> vocabulary;
+		private final IndexedTfIdfClassifier index;
+		public TfIdfClassifier(Map<Category,Frequencies<T>> profiles,
+				Frequencies<T> documentFrequencies,long documentCount,
+				TfIdfFormula tfIdfFormula){
+			Category[] categories=profiles.keySet().toArray(new Category[0]);
+			vocabulary=new Vocabulary<>();
+			IntFrequencies documentFrequencyTable=new IntFrequencies();
+			documentFrequencies.forEachFrequency((token,count)->documentFrequencyTable.advanceFrequency(vocabulary.getId(token),count));
+			IntFrequencies[] tokenFrequencies=new IntFrequencies[categories.length];
+			for(int i=0;i<categories.length;i++){
+				IntFrequencies frequencies=new IntFrequencies(vocabulary.size());
+				profiles.get(categories[i]).forEachFrequency((token,count)->{
+					int id=vocabulary.getIdIfPresent(token);
+					if(id!=-1){
+						frequencies.advanceFrequency(id,count);
+					}
+				});
+				tokenFrequencies[i]=frequencies;
 			}
-			return documentNorm;
+			index=new IndexedTfIdfClassifier(categories,tokenFrequencies,documentFrequencyTable,vocabulary.size(),documentCount,tfIdfFormula);
+		}
+		TfIdfClassifier(Vocabulary<T> vocabulary,IndexedTfIdfClassifier index){
+			this.vocabulary=vocabulary;
+			this.index=index;
+		}
+		@Override
+		public List<ClassificationResult> getCandidates(Frequencies<T> document,int max){
+			double[] products=new double[index.categories.length];
+			double[] documentNorm=new double[]{0};
+			document.forEachFrequency((token,count)->documentNorm[0]+=index.addToken(products,vocabulary.getIdIfPresent(token),count));
+			return index.getResults(products,documentNorm[0]);
 		}
 	}
 	@Override
@@ -29,22 +29,56 @@ public interface TfIdfFormula{
 	 * @return TF-IDF
 	 */
 	double calculate(long freq,long docFreq,long docCount);
+	/**
+	 * Get the identifier of the formula, which is written into saved
+	 * classifiers so that they are only loaded with the same formula. The
+	 * default is the name of the class, which is not stable across runs for
+	 * lambda expressions, so use the method of to name them.
+	 *
+	 * @return the identifier
+	 */
+	default String getName(){
+		return getClass().getName();
+	}
+	/**
+	 * Give a formula an identifier
+	 *
+	 * @param name the identifier
+	 * @param formula the formula
+	 * @return the named formula
+	 */
+	public static TfIdfFormula of(String name,TfIdfFormula formula){
+		return new TfIdfFormula(){
+			@Override
+			public double calculate(long freq,long docFreq,long docCount){
+				return formula.calculate(freq,docFreq,docCount);
+			}
+			@Override
+			public String getName(){
+				return name;
+			}
+			@Override
+			public String toString(){
+				return name;
+			}
+		};
+	}
 	/**
 	 * Standard TF-IDF formula
 	 */
-	public static final TfIdfFormula STANDARD=((freq,docFreq,docCount)->{
+	public static final TfIdfFormula STANDARD=of("STANDARD",(freq,docFreq,docCount)->{
 		return freq==0?0:(1+Math.log(freq))*Math.log(1+((double)docCount)/docFreq);
 	});
 	/**
 	 * Use token frequency as TF-IDF
 	 */
-	public static final TfIdfFormula FREQUENCY=((freq,docFreq,docCount)->{
+	public static final TfIdfFormula FREQUENCY=of("FREQUENCY",(freq,docFreq,docCount)->{
 		return freq;
 	});
 	/**
 	 * Use token occurence as TF-IDF
 	 */
-	public static final TfIdfFormula THREHOLD=((freq,docFreq,docCount)->{
+	public static final TfIdfFormula THREHOLD=of("THREHOLD",(freq,docFreq,docCount)->{
 		return freq==0?0:1;
 	});
 }
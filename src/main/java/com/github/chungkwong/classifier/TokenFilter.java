@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier;
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+/**
+ * A post-tokenize preprocessor in a push-based pipeline, which transform the
+ * tokens pushed to it and push the results to the next stage
+ *
+ * @author Chan Chung Kwong
+ */
+@FunctionalInterface
+public interface TokenFilter{
+	/**
+	 * Connect the filter to the next stage, called once for each text, so
+	 * the returned sink may keep state about the text
+	 *
+	 * @param downstream the next stage
+	 * @return the sink receiving tokens for this filter
+	 */
+	TokenSink wrap(TokenSink downstream);
+	/**
+	 * Apply another filter after this filter
+	 *
+	 * @param next the other filter
+	 * @return the combined filter
+	 */
+	default TokenFilter andThen(TokenFilter next){
+		return (downstream)->wrap(next.wrap(downstream));
+	}
+	/**
+	 * @return a filter that keep all tokens
+	 */
+	static TokenFilter identity(){
+		return (downstream)->downstream;
+	}
+	/**
+	 * Adapt a stream based filter, the tokens of a text are buffered until
+	 * the end of the text, so native filters should be preferred
+	 *
+	 * @param filter the stream based filter
+	 * @return the filter
+	 * @see TextPreprocessors
+	 */
+	static TokenFilter of(Function<Stream<String>,Stream<String>> filter){
+		return (downstream)->{
+			List<String> buffer=new ArrayList<>();
+			return new TokenSink(){
+				@Override
+				public void accept(String token){
+					buffer.add(token);
+				}
+				@Override
+				public void end(){
+					filter.apply(buffer.stream()).forEach(downstream::accept);
+					downstream.end();
+				}
+			};
+		};
+	}
+}
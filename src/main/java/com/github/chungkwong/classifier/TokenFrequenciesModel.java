@@ -52,6 +52,19 @@ public interface TokenFrequenciesModel<T> extends Trainable<Frequencies<T>>{
 	 * @param toKeep the tokens to be kept
 	 */
 	void retainAll(Set<T> toKeep);
+	/**
+	 * Create a read-only view of the model that only contains the tokens in a
+	 * given set, this model is not modified. The default implementation is
+	 * for models that cannot create views: it calls retainAll on this model and
+	 * returns it, as feature selection did before views were introduced, so
+	 * such models should not be shared by factories.
+	 * @param toKeep the tokens to be kept
+	 * @return the view, which should be a model of the same class
+	 */
+	default TokenFrequenciesModel<T> filter(Set<T> toKeep){
+		retainAll(toKeep);
+		return this;
+	}
 	/**
 	 * @return the histogram of tokens
 	 */
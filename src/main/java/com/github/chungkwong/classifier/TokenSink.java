@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier;
+import java.util.function.*;
+/**
+ * Receiver of tokens pushed by a tokenizer or a token filter
+ *
+ * @author Chan Chung Kwong
+ */
+@FunctionalInterface
+public interface TokenSink{
+	/**
+	 * Receive a token
+	 *
+	 * @param token the token
+	 */
+	void accept(String token);
+	/**
+	 * Receive a token given as a range of characters, the characters may be
+	 * changed after the call returns, so they should be copied if they are
+	 * needed later. By default, the token is materialized as a String.
+	 *
+	 * @param text the characters
+	 * @param start the index of the first character of the token
+	 * @param end the index after the last character of the token
+	 */
+	default void accept(CharSequence text,int start,int end){
+		accept(text.subSequence(start,end).toString());
+	}
+	/**
+	 * Called after all tokens of a text are pushed
+	 */
+	default void end(){
+	}
+	/**
+	 * Create a sink that pass the end of text to another sink
+	 *
+	 * @param downstream the sink receiving the end of text
+	 * @param action being applied to each token
+	 * @return the sink
+	 */
+	static TokenSink of(TokenSink downstream,Consumer<String> action){
+		return new TokenSink(){
+			@Override
+			public void accept(String token){
+				action.accept(token);
+			}
+			@Override
+			public void end(){
+				downstream.end();
+			}
+		};
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier;
+import java.util.function.*;
+import java.util.stream.*;
+/**
+ * A tokenizer in a push-based pipeline
+ *
+ * @author Chan Chung Kwong
+ */
+@FunctionalInterface
+public interface Tokenizer{
+	/**
+	 * Break text into tokens
+	 *
+	 * @param text the text
+	 * @param sink receiving the tokens in order
+	 */
+	void tokenize(String text,TokenSink sink);
+	/**
+	 * Adapt a stream based tokenizer
+	 *
+	 * @param tokenizer the stream based tokenizer
+	 * @return the tokenizer
+	 * @see TextPreprocessors
+	 */
+	static Tokenizer of(Function<String,Stream<String>> tokenizer){
+		return (text,sink)->tokenizer.apply(text).forEach(sink::accept);
+	}
+}
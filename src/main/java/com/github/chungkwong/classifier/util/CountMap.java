@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+import java.util.*;
+import java.util.function.*;
+/**
+ * Map from objects to counts that can be read without creating Counter.
+ * Frequencies use these methods directly when backed by such a map.
+ *
+ * @author Chan Chung Kwong
+ * @param <T> the type of the keys
+ */
+public interface CountMap<T> extends Map<T,Counter>{
+	/**
+	 * Get the count of a key without creating Counter
+	 *
+	 * @param key the key
+	 * @return the count or 0 if absent
+	 */
+	long getLong(Object key);
+	/**
+	 * Perform a action on each key and its count without creating Counter
+	 *
+	 * @param action the action
+	 */
+	void forEachLong(ObjLongConsumer<? super T> action);
+	/**
+	 * Check if counts can be changed through the map. Read-only views return
+	 * copies of their counters, so Frequencies backed by them reject updates
+	 * instead of changing the copies.
+	 *
+	 * @return true if the map can be modified
+	 */
+	default boolean isModifiable(){
+		return false;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+import java.util.*;
+import java.util.function.*;
+/**
+ * Read-only view of a frequencies table that only contains the objects in a
+ * given set. Changes to the table are reflected in the view.
+ *
+ * @author Chan Chung Kwong
+ * @param <T> the type of the objects
+ */
+public final class FilteredCountMap<T> extends AbstractMap<T,Counter> implements CountMap<T>{
+	private final Frequencies<T> frequencies;
+	private final Set<T> toKeep;
+	/**
+	 * Create a view
+	 *
+	 * @param frequencies the table
+	 * @param toKeep the objects to be kept
+	 */
+	public FilteredCountMap(Frequencies<T> frequencies,Set<T> toKeep){
+		this.frequencies=frequencies;
+		this.toKeep=toKeep;
+	}
+	@Override
+	public long getLong(Object key){
+		return toKeep.contains(key)?frequencies.getFrequencyOf(key):0;
+	}
+	@Override
+	public void forEachLong(ObjLongConsumer<? super T> action){
+		if(toKeep.size()<frequencies.getTokenCount()){
+			for(T key:toKeep){
+				long count=frequencies.getFrequency(key);
+				if(count!=0){
+					action.accept(key,count);
+				}
+			}
+		}else{
+			frequencies.forEachFrequency((key,count)->{
+				if(toKeep.contains(key)){
+					action.accept(key,count);
+				}
+			});
+		}
+	}
+	@Override
+	public Counter get(Object key){
+		long count=getLong(key);
+		return count==0?null:new Counter(count);
+	}
+	@Override
+	public boolean containsKey(Object key){
+		return getLong(key)!=0;
+	}
+	@Override
+	public int size(){
+		int[] size=new int[]{0};
+		forEachLong((key,count)->++size[0]);
+		return size[0];
+	}
+	@Override
+	public Set<Entry<T,Counter>> entrySet(){
+		return new AbstractSet<Entry<T,Counter>>(){
+			@Override
+			public Iterator<Entry<T,Counter>> iterator(){
+				List<Entry<T,Counter>> entries=new ArrayList<>();
+				forEachLong((key,count)->entries.add(new SimpleImmutableEntry<>(key,new Counter(count))));
+				return Collections.unmodifiableList(entries).iterator();
+			}
+			@Override
+			public int size(){
+				return FilteredCountMap.this.size();
+			}
+		};
+	}
+}
@@ -17,6 +17,7 @@
 package com.github.chungkwong.classifier.util;
 import java.io.*;
 import java.util.*;
+import java.util.function.*;
 import java.util.stream.*;
 /**
  * Records of frequency of different objects
@@ -25,6 +26,7 @@ import java.util.stream.*;
  * @param <T> the type of the objects to be recorded
  */
 public class Frequencies<T> implements Serializable{
+	private static final long serialVersionUID=-8186628564140577924L;
 	private final Map<T,Counter> frequency;
 	/**
 	 * Create a frequencies table backed by TreeMap
@@ -40,6 +42,24 @@ public class Frequencies<T> implements Serializable{
 	public Frequencies(boolean useHashMap){
 		frequency=useHashMap?new HashMap<>():new TreeMap<>();
 	}
+	/**
+	 * Create a frequencies table
+	 *
+	 * @param backend the kind of table backing the frequencies
+	 */
+	public Frequencies(Backend backend){
+		switch(backend){
+			case HASH_MAP:
+				frequency=new HashMap<>();
+				break;
+			case OPEN_ADDRESSING:
+				frequency=new ObjectLongHashMap<>();
+				break;
+			default:
+				frequency=new TreeMap<>();
+				break;
+		}
+	}
 	/**
 	 * Create a frequencies table
 	 *
@@ -63,6 +83,11 @@ public class Frequencies<T> implements Serializable{
 	 * @param token the given object
 	 */
 	public void advanceFrequency(T token){
+		if(frequency instanceof ObjectLongHashMap){
+			((ObjectLongHashMap<T>)frequency).addTo(token,1);
+			return;
+		}
+		checkModifiable();
 		Counter counter=frequency.get(token);
 		if(counter==null){
 			counter=new Counter(1);
@@ -78,6 +103,11 @@ public class Frequencies<T> implements Serializable{
 	 * @param times the given value
 	 */
 	public void advanceFrequency(T token,long times){
+		if(frequency instanceof ObjectLongHashMap){
+			((ObjectLongHashMap<T>)frequency).addTo(token,times);
+			return;
+		}
+		checkModifiable();
 		Counter counter=frequency.get(token);
 		if(counter==null){
 			counter=new Counter(times);
@@ -92,7 +122,20 @@ public class Frequencies<T> implements Serializable{
 	 * @param toMerge the source
 	 */
 	public void merge(Frequencies<T> toMerge){
-		toMerge.frequency.forEach((k,v)->advanceFrequency(k,v.getCount()));
+		checkModifiable();
+		toMerge.forEachFrequency(this::advanceFrequency);
+	}
+	/**
+	 * Perform a action on each object and its frequency
+	 *
+	 * @param action the action
+	 */
+	public void forEachFrequency(ObjLongConsumer<? super T> action){
+		if(frequency instanceof CountMap){
+			((CountMap<T>)frequency).forEachLong(action);
+		}else{
+			frequency.forEach((k,v)->action.accept(k,v.getCount()));
+		}
 	}
 	/**
 	 * Set the frequency of a object to zero
@@ -100,8 +143,20 @@ public class Frequencies<T> implements Serializable{
 	 * @param token the object
 	 */
 	public void reset(T token){
+		checkModifiable();
 		frequency.remove(token);
 	}
+	/**
+	 * @return true if the table can be modified, false for read-only views
+	 */
+	public boolean isModifiable(){
+		return !(frequency instanceof CountMap)||((CountMap<T>)frequency).isModifiable();
+	}
+	private void checkModifiable(){
+		if(!isModifiable()){
+			throw new UnsupportedOperationException();
+		}
+	}
 	/**
 	 * Get the frequency of a object
 	 *
@@ -109,6 +164,12 @@ public class Frequencies<T> implements Serializable{
 	 * @return the frequency
 	 */
 	public long getFrequency(T token){
+		return getFrequencyOf(token);
+	}
+	long getFrequencyOf(Object token){
+		if(frequency instanceof CountMap){
+			return ((CountMap<T>)frequency).getLong(token);
+		}
 		Counter counter=frequency.get(token);
 		return counter==null?0:counter.getCount();
 	}
@@ -119,13 +180,38 @@ public class Frequencies<T> implements Serializable{
 		return frequency.size();
 	}
 	/**
-	 * Map representation of the table
+	 * Map representation of the table. Changes to the map are reflected in
+	 * the table, but for the table backed by open addressing, the counters
+	 * returned are copies.
 	 *
 	 * @return the map
 	 */
 	public Map<T,Counter> toMap(){
 		return frequency;
 	}
+	/**
+	 * Sorted map representation of the table, the objects should be
+	 * comparable. Only the table backed by TreeMap can avoid copying.
+	 *
+	 * @return the sorted map
+	 */
+	public SortedMap<T,Counter> toSortedMap(){
+		if(frequency instanceof SortedMap){
+			return (SortedMap<T,Counter>)frequency;
+		}
+		SortedMap<T,Counter> sorted=new TreeMap<>();
+		forEachFrequency((k,v)->sorted.put(k,new Counter(v)));
+		return sorted;
+	}
+	/**
+	 * Read-only view of the table, changes to the table are reflected in the
+	 * view but the view cannot be modified
+	 *
+	 * @return the view
+	 */
+	public Frequencies<T> toUnmodifiable(){
+		return frequency instanceof UnmodifiableCountMap?this:new Frequencies<>(new UnmodifiableCountMap<>(this));
+	}
 	@Override
 	public boolean equals(Object obj){
 		return obj instanceof Frequencies&&Objects.equals(frequency,((Frequencies)obj).frequency);
@@ -140,4 +226,72 @@ public class Frequencies<T> implements Serializable{
 	public String toString(){
 		return frequency.toString();
 	}
+	private static final class UnmodifiableCountMap<T> extends AbstractMap<T,Counter> implements CountMap<T>{
+		private final Frequencies<T> frequencies;
+		UnmodifiableCountMap(Frequencies<T> frequencies){
+			this.frequencies=frequencies;
+		}
+		@Override
+		public long getLong(Object key){
+			return frequencies.getFrequencyOf(key);
+		}
+		@Override
+		public void forEachLong(ObjLongConsumer<? super T> action){
+			frequencies.forEachFrequency(action);
+		}
+		@Override
+		public Counter get(Object key){
+			long count=getLong(key);
+			return count==0?null:new Counter(count);
+		}
+		@Override
+		public boolean containsKey(Object key){
+			return frequencies.frequency.containsKey(key);
+		}
+		@Override
+		public int size(){
+			return frequencies.frequency.size();
+		}
+		@Override
+		public Set<Entry<T,Counter>> entrySet(){
+			return new AbstractSet<Entry<T,Counter>>(){
+				@Override
+				public Iterator<Entry<T,Counter>> iterator(){
+					Iterator<Entry<T,Counter>> iterator=frequencies.frequency.entrySet().iterator();
+					return new Iterator<Entry<T,Counter>>(){
+						@Override
+						public boolean hasNext(){
+							return iterator.hasNext();
+						}
+						@Override
+						public Entry<T,Counter> next(){
+							Entry<T,Counter> entry=iterator.next();
+							return new SimpleImmutableEntry<>(entry.getKey(),new Counter(entry.getValue().getCount()));
+						}
+					};
+				}
+				@Override
+				public int size(){
+					return frequencies.frequency.size();
+				}
+			};
+		}
+	}
+	/**
+	 * The kind of tables backing frequencies
+	 */
+	public enum Backend{
+		/**
+		 * Sorted and Counter based
+		 */
+		TREE_MAP,
+		/**
+		 * Unsorted and Counter based
+		 */
+		HASH_MAP,
+		/**
+		 * Unsorted and stored in primitive arrays, using much less memory
+		 */
+		OPEN_ADDRESSING
+	}
 }
@@ -0,0 +1,386 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+/**
+ * Approximate nearest neighbor index over sparse normalized vectors, based on
+ * hierarchical navigable small world graph. The distance between two vectors
+ * is one minus their dot product, so the neighbors found are those with the
+ * highest cosine similarity.
+ *
+ * Vectors are identified by the order they are added, starting from 0. The
+ * index is not thread-safe while it is being built: it must not be searched
+ * while vectors are being added, but it can be searched concurrently once no
+ * more vector is added.
+ *
+ * @author Chan Chung Kwong
+ */
+public class HnswIndex implements Serializable{
+	private static final long serialVersionUID=1L;
+	private final int m;
+	private final int efConstruction;
+	private final double levelMultiplier;
+	private final long seed;
+	private final Random random;
+	private final ArrayList<Node> nodes=new ArrayList<>();
+	private int entryPoint=-1;
+	/**
+	 * Create a empty index
+	 *
+	 * @param m the number of neighbors kept for each vector on upper layers,
+	 * twice as many are kept on the bottom layer
+	 * @param efConstruction the number of candidates considered while adding
+	 * vectors
+	 * @param seed the seed being used to choose layers
+	 */
+	public HnswIndex(int m,int efConstruction,long seed){
+		if(m<2||efConstruction<1){
+			throw new IllegalArgumentException();
+		}
+		this.m=m;
+		this.efConstruction=efConstruction;
+		this.levelMultiplier=1/Math.log(m);
+		this.seed=seed;
+		this.random=new Random(seed);
+	}
+	/**
+	 * Write the index, so that it can be read back by
+	 * {@link #read(java.nio.ByteBuffer)}
+	 *
+	 * @param out where the index will be written to
+	 * @throws IOException if failed to write
+	 */
+	public void write(DataOutput out) throws IOException{
+		out.writeInt(m);
+		out.writeInt(efConstruction);
+		out.writeLong(seed);
+		out.writeInt(entryPoint);
+		out.writeInt(nodes.size());
+		for(Node node:nodes){
+			out.writeInt(node.ids.length);
+			for(int i=0;i<node.ids.length;i++){
+				out.writeInt(node.ids[i]);
+				out.writeDouble(node.weights[i]);
+			}
+			out.writeInt(node.getLevel());
+			for(int l=0;l<=node.getLevel();l++){
+				out.writeInt(node.getNeighborCount(l));
+				for(int i=0;i<node.getNeighborCount(l);i++){
+					out.writeInt(node.getNeighbor(l,i));
+				}
+			}
+		}
+	}
+	/**
+	 * Read a index written by {@link #write(java.io.DataOutput)}, more vectors
+	 * can be added to it as if it had never been written
+	 *
+	 * @param in the buffer positioned at the start of the index, its position
+	 * will be moved to the end of the index
+	 * @return the index
+	 * @throws IOException if the data is not a valid index
+	 */
+	public static HnswIndex read(ByteBuffer in) throws IOException{
+		try{
+			HnswIndex index=new HnswIndex(in.getInt(),in.getInt(),in.getLong());
+			int entryPoint=in.getInt();
+			int size=in.getInt();
+			for(int n=0;n<size;n++){
+				int[] ids=new int[in.getInt()];
+				double[] weights=new double[ids.length];
+				for(int i=0;i<ids.length;i++){
+					ids[i]=in.getInt();
+					weights[i]=in.getDouble();
+				}
+				int level=in.getInt();
+				if(level<0){
+					throw new IOException("Invalid level "+level);
+				}
+				Node node=new Node(ids,weights,level);
+				for(int l=0;l<=node.getLevel();l++){
+					int count=in.getInt();
+					for(int i=0;i<count;i++){
+						int neighbor=in.getInt();
+						if(neighbor<0||neighbor>=size){
+							throw new IOException("Invalid neighbor "+neighbor);
+						}
+						node.addNeighbor(l,neighbor);
+					}
+				}
+				index.nodes.add(node);
+				index.random.nextDouble();
+			}
+			if(entryPoint<-1||entryPoint>=size||(entryPoint==-1)!=(size==0)){
+				throw new IOException("Invalid entry point "+entryPoint);
+			}
+			index.entryPoint=entryPoint;
+			return index;
+		}catch(BufferUnderflowException|IllegalArgumentException|NegativeArraySizeException ex){
+			throw new IOException("Invalid index",ex);
+		}
+	}
+	/**
+	 * @return the number of neighbors kept for each vector on upper layers
+	 */
+	public int getM(){
+		return m;
+	}
+	/**
+	 * @return the number of candidates considered while adding vectors
+	 */
+	public int getEfConstruction(){
+		return efConstruction;
+	}
+	/**
+	 * @return the number of vectors in the index
+	 */
+	public int size(){
+		return nodes.size();
+	}
+	/**
+	 * Add a vector to the index
+	 *
+	 * @param ids the dimensions with nonzero weight, in ascending order
+	 * @param weights the weights of the dimensions
+	 * @return the index of the vector
+	 */
+	public int add(int[] ids,double[] weights){
+		int level=(int)(-Math.log(1-random.nextDouble())*levelMultiplier);
+		Node node=new Node(ids,weights,level);
+		int index=nodes.size();
+		nodes.add(node);
+		if(entryPoint==-1){
+			entryPoint=index;
+			return index;
+		}
+		int current=entryPoint;
+		int topLevel=nodes.get(entryPoint).getLevel();
+		for(int l=topLevel;l>level;l--){
+			current=searchGreedy(ids,weights,current,l);
+		}
+		for(int l=Math.min(level,topLevel);l>=0;l--){
+			List<Candidate> candidates=searchLayer(ids,weights,current,efConstruction,l);
+			List<Candidate> selected=selectNeighbors(candidates,m);
+			for(Candidate neighbor:selected){
+				node.addNeighbor(l,neighbor.node);
+				connect(neighbor.node,index,l);
+			}
+			current=candidates.get(0).node;
+		}
+		if(level>topLevel){
+			entryPoint=index;
+		}
+		return index;
+	}
+	/**
+	 * Find vectors close to a query vector
+	 *
+	 * @param ids the dimensions with nonzero weight, in ascending order
+	 * @param weights the weights of the dimensions
+	 * @param k the maximum number of vectors to be returned
+	 * @param ef the number of candidates considered, larger value give better
+	 * recall but slower
+	 * @return the indices of the vectors found, the closest first
+	 */
+	public int[] search(int[] ids,double[] weights,int k,int ef){
+		if(entryPoint==-1){
+			return new int[0];
+		}
+		int current=entryPoint;
+		for(int l=nodes.get(entryPoint).getLevel();l>0;l--){
+			current=searchGreedy(ids,weights,current,l);
+		}
+		List<Candidate> candidates=searchLayer(ids,weights,current,Math.max(ef,k),0);
+		int[] found=new int[Math.min(k,candidates.size())];
+		for(int i=0;i<found.length;i++){
+			found[i]=candidates.get(i).node;
+		}
+		return found;
+	}
+	private int searchGreedy(int[] ids,double[] weights,int start,int level){
+		int current=start;
+		double distance=distance(ids,weights,nodes.get(current));
+		boolean changed=true;
+		while(changed){
+			changed=false;
+			Node node=nodes.get(current);
+			for(int i=0;i<node.getNeighborCount(level);i++){
+				int neighbor=node.getNeighbor(level,i);
+				double d=distance(ids,weights,nodes.get(neighbor));
+				if(d<distance){
+					distance=d;
+					current=neighbor;
+					changed=true;
+				}
+			}
+		}
+		return current;
+	}
+	private List<Candidate> searchLayer(int[] ids,double[] weights,int start,int ef,int level){
+		BitSet visited=new BitSet(nodes.size());
+		PriorityQueue<Candidate> candidates=new PriorityQueue<>();
+		PriorityQueue<Candidate> found=new PriorityQueue<>(Collections.reverseOrder());
+		Candidate first=new Candidate(start,distance(ids,weights,nodes.get(start)));
+		visited.set(start);
+		candidates.add(first);
+		found.add(first);
+		while(!candidates.isEmpty()){
+			Candidate candidate=candidates.poll();
+			if(candidate.distance>found.peek().distance&&found.size()>=ef){
+				break;
+			}
+			Node node=nodes.get(candidate.node);
+			for(int i=0;i<node.getNeighborCount(level);i++){
+				int neighbor=node.getNeighbor(level,i);
+				if(!visited.get(neighbor)){
+					visited.set(neighbor);
+					double d=distance(ids,weights,nodes.get(neighbor));
+					if(found.size()<ef||d<found.peek().distance){
+						Candidate next=new Candidate(neighbor,d);
+						candidates.add(next);
+						found.add(next);
+						if(found.size()>ef){
+							found.poll();
+						}
+					}
+				}
+			}
+		}
+		List<Candidate> result=new ArrayList<>(found);
+		Collections.sort(result);
+		return result;
+	}
+	/**
+	 * Select neighbors by the heuristic that keeps a candidate only if it is
+	 * closer to the base vector than to any neighbor selected, so that the
+	 * neighbors spread in different directions
+	 */
+	private List<Candidate> selectNeighbors(List<Candidate> candidates,int max){
+		List<Candidate> selected=new ArrayList<>(max);
+		List<Candidate> discarded=new ArrayList<>();
+		for(Candidate candidate:candidates){
+			if(selected.size()>=max){
+				break;
+			}
+			Node node=nodes.get(candidate.node);
+			boolean good=true;
+			for(Candidate neighbor:selected){
+				if(distance(node,nodes.get(neighbor.node))<candidate.distance){
+					good=false;
+					break;
+				}
+			}
+			if(good){
+				selected.add(candidate);
+			}else{
+				discarded.add(candidate);
+			}
+		}
+		for(int i=0;i<discarded.size()&&selected.size()<max;i++){
+			selected.add(discarded.get(i));
+		}
+		return selected;
+	}
+	private void connect(int from,int to,int level){
+		Node node=nodes.get(from);
+		int max=level==0?2*m:m;
+		if(node.getNeighborCount(level)<max){
+			node.addNeighbor(level,to);
+			return;
+		}
+		List<Candidate> candidates=new ArrayList<>(max+1);
+		candidates.add(new Candidate(to,distance(node,nodes.get(to))));
+		for(int i=0;i<node.getNeighborCount(level);i++){
+			int neighbor=node.getNeighbor(level,i);
+			candidates.add(new Candidate(neighbor,distance(node,nodes.get(neighbor))));
+		}
+		Collections.sort(candidates);
+		node.clearNeighbors(level);
+		for(Candidate candidate:selectNeighbors(candidates,max)){
+			node.addNeighbor(level,candidate.node);
+		}
+	}
+	private static double distance(int[] ids,double[] weights,Node node){
+		return 1-dot(ids,weights,node.ids,node.weights);
+	}
+	private static double distance(Node n1,Node n2){
+		return 1-dot(n1.ids,n1.weights,n2.ids,n2.weights);
+	}
+	private static double dot(int[] ids1,double[] weights1,int[] ids2,double[] weights2){
+		double product=0;
+		int i=0,j=0;
+		while(i<ids1.length&&j<ids2.length){
+			if(ids1[i]<ids2[j]){
+				++i;
+			}else if(ids1[i]>ids2[j]){
+				++j;
+			}else{
+				product+=weights1[i++]*weights2[j++];
+			}
+		}
+		return product;
+	}
+	private static class Candidate implements Comparable<Candidate>{
+		private final int node;
+		private final double distance;
+		Candidate(int node,double distance){
+			this.node=node;
+			this.distance=distance;
+		}
+		@Override
+		public int compareTo(Candidate o){
+			int c=Double.compare(distance,o.distance);
+			return c!=0?c:Integer.compare(node,o.node);
+		}
+	}
+	private static class Node implements Serializable{
+		private static final long serialVersionUID=1L;
+		private final int[] ids;
+		private final double[] weights;
+		private final int[][] neighbors;
+		private final int[] neighborCounts;
+		Node(int[] ids,double[] weights,int level){
+			this.ids=ids;
+			this.weights=weights;
+			this.neighbors=new int[level+1][];
+			this.neighborCounts=new int[level+1];
+			for(int i=0;i<=level;i++){
+				neighbors[i]=new int[4];
+			}
+		}
+		int getLevel(){
+			return neighbors.length-1;
+		}
+		int getNeighborCount(int level){
+			return neighborCounts[level];
+		}
+		int getNeighbor(int level,int i){
+			return neighbors[level][i];
+		}
+		void addNeighbor(int level,int neighbor){
+			if(neighborCounts[level]==neighbors[level].length){
+				neighbors[level]=Arrays.copyOf(neighbors[level],neighborCounts[level]*2);
+			}
+			neighbors[level][neighborCounts[level]++]=neighbor;
+		}
+		void clearNeighbors(int level){
+			neighborCounts[level]=0;
+		}
+	}
+}
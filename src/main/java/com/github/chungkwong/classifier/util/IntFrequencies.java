@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+import java.io.*;
+import java.util.*;
+/**
+ * Records of frequency of tokens identified by dense integer ID, backed by a
+ * array indexed by ID
+ *
+ * @author Chan Chung Kwong
+ */
+public class IntFrequencies implements Serializable{
+	private static final long serialVersionUID=1L;
+	private long[] frequency;
+	private int tokenCount;
+	/**
+	 * Create a empty table
+	 */
+	public IntFrequencies(){
+		this(16);
+	}
+	/**
+	 * Create a empty table
+	 *
+	 * @param expectedIdBound the expected upper bound of ID (exclusive)
+	 */
+	public IntFrequencies(int expectedIdBound){
+		frequency=new long[Math.max(expectedIdBound,1)];
+	}
+	private void ensureCapacity(int id){
+		if(id>=frequency.length){
+			frequency=Arrays.copyOf(frequency,Math.max(id+1,frequency.length+(frequency.length>>1)));
+		}
+	}
+	/**
+	 * Increase the frequency of a given token by a given value
+	 *
+	 * @param id the ID of the token
+	 * @param times the given value
+	 */
+	public void advanceFrequency(int id,long times){
+		ensureCapacity(id);
+		long old=frequency[id];
+		frequency[id]=old+times;
+		if(old==0&&times!=0){
+			++tokenCount;
+		}else if(old!=0&&old+times==0){
+			--tokenCount;
+		}
+	}
+	/**
+	 * Add the frequencies in a vector to this table
+	 *
+	 * @param vector the vector
+	 */
+	public void merge(SparseVector vector){
+		int size=vector.getTokenCount();
+		if(size>0){
+			ensureCapacity(vector.getId(size-1));
+		}
+		for(int i=0;i<size;i++){
+			advanceFrequency(vector.getId(i),vector.getCount(i));
+		}
+	}
+	/**
+	 * Add the frequencies in another table to this table
+	 *
+	 * @param table the table
+	 */
+	public void merge(IntFrequencies table){
+		ensureCapacity(table.frequency.length-1);
+		table.forEachFrequency(this::advanceFrequency);
+	}
+	/**
+	 * Set the frequency of a token to zero
+	 *
+	 * @param id the ID of the token
+	 */
+	public void reset(int id){
+		if(id<frequency.length&&frequency[id]!=0){
+			frequency[id]=0;
+			--tokenCount;
+		}
+	}
+	/**
+	 * Set the frequencies of all tokens to zero
+	 */
+	public void clear(){
+		Arrays.fill(frequency,0);
+		tokenCount=0;
+	}
+	/**
+	 * Get the frequency of a token
+	 *
+	 * @param id the ID of the token
+	 * @return the frequency
+	 */
+	public long getFrequency(int id){
+		return id>=0&&id<frequency.length?frequency[id]:0;
+	}
+	/**
+	 * @return the number of tokens with nonzero frequency
+	 */
+	public int getTokenCount(){
+		return tokenCount;
+	}
+	/**
+	 * @return a upper bound of the ID with nonzero frequency (exclusive)
+	 */
+	public int getIdBound(){
+		return frequency.length;
+	}
+	/**
+	 * Perform a action on each token with nonzero frequency, in ascending
+	 * order of ID
+	 *
+	 * @param action the action
+	 */
+	public void forEachFrequency(IntLongConsumer action){
+		long[] f=frequency;
+		for(int i=0;i<f.length;i++){
+			if(f[i]!=0){
+				action.accept(i,f[i]);
+			}
+		}
+	}
+	@Override
+	public boolean equals(Object obj){
+		if(!(obj instanceof IntFrequencies)||((IntFrequencies)obj).tokenCount!=tokenCount){
+			return false;
+		}
+		IntFrequencies other=(IntFrequencies)obj;
+		int bound=Math.max(frequency.length,other.frequency.length);
+		for(int i=0;i<bound;i++){
+			if(getFrequency(i)!=other.getFrequency(i)){
+				return false;
+			}
+		}
+		return true;
+	}
+	@Override
+	public int hashCode(){
+		int[] hash=new int[]{7};
+		forEachFrequency((id,count)->hash[0]+=id^Long.hashCode(count));
+		return hash[0];
+	}
+	@Override
+	public String toString(){
+		StringBuilder buf=new StringBuilder("{");
+		forEachFrequency((id,count)->buf.append(buf.length()>1?", ":"").append(id).append('=').append(count));
+		return buf.append('}').toString();
+	}
+}
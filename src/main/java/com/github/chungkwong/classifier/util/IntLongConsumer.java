@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+/**
+ * Operation that accepts a int and a long
+ * @author Chan Chung Kwong
+ */
+@FunctionalInterface
+public interface IntLongConsumer{
+	/**
+	 * Perform the operation
+	 * @param id the int argument, usually a token ID
+	 * @param value the long argument, usually a frequency
+	 */
+	void accept(int id,long value);
+}
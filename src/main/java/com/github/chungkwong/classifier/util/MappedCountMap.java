@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+import java.nio.*;
+import java.util.*;
+import java.util.function.*;
+/**
+ * Read-only map from tokens to counts stored in a buffer, typically mapped
+ * from a file. The buffer contains the count of each token in a
+ * MappedVocabulary, tokens with zero count are considered to be absent.
+ *
+ * @author Chan Chung Kwong
+ * @param <T> the type of the tokens
+ */
+public final class MappedCountMap<T> extends AbstractMap<T,Counter> implements CountMap<T>{
+	private final MappedVocabulary vocabulary;
+	private final LongBuffer counts;
+	private final int size;
+	private final Function<T,String> encoder;
+	private final Function<String,T> decoder;
+	/**
+	 * Create a map
+	 *
+	 * @param vocabulary the tokens
+	 * @param counts the count of each token in the vocabulary
+	 * @param size the number of tokens with nonzero count
+	 * @param encoder being used to convert tokens to strings in the vocabulary
+	 * @param decoder being used to convert strings in the vocabulary to tokens
+	 */
+	public MappedCountMap(MappedVocabulary vocabulary,LongBuffer counts,int size,
+			Function<T,String> encoder,Function<String,T> decoder){
+		this.vocabulary=vocabulary;
+		this.counts=counts;
+		this.size=size;
+		this.encoder=encoder;
+		this.decoder=decoder;
+	}
+	@Override
+	public long getLong(Object key){
+		//keys of other types are rejected by the encoder with ClassCastException
+		@SuppressWarnings("unchecked")
+		T token=(T)key;
+		int index=vocabulary.indexOf(encoder.apply(token));
+		return index==-1?0:counts.get(index);
+	}
+	@Override
+	public void forEachLong(ObjLongConsumer<? super T> action){
+		for(int i=0;i<vocabulary.size();i++){
+			long count=counts.get(i);
+			if(count!=0){
+				action.accept(decoder.apply(vocabulary.getToken(i)),count);
+			}
+		}
+	}
+	@Override
+	public Counter get(Object key){
+		long count=getLong(key);
+		return count==0?null:new Counter(count);
+	}
+	@Override
+	public boolean containsKey(Object key){
+		return getLong(key)!=0;
+	}
+	@Override
+	public int size(){
+		return size;
+	}
+	@Override
+	public Set<Entry<T,Counter>> entrySet(){
+		return new AbstractSet<Entry<T,Counter>>(){
+			@Override
+			public Iterator<Entry<T,Counter>> iterator(){
+				return new Iterator<Entry<T,Counter>>(){
+					private int next=advance(0);
+					private int advance(int from){
+						while(from<vocabulary.size()&&counts.get(from)==0){
+							++from;
+						}
+						return from;
+					}
+					@Override
+					public boolean hasNext(){
+						return next<vocabulary.size();
+					}
+					@Override
+					public Entry<T,Counter> next(){
+						if(next>=vocabulary.size()){
+							throw new NoSuchElementException();
+						}
+						Entry<T,Counter> entry=new SimpleImmutableEntry<>(decoder.apply(vocabulary.getToken(next)),new Counter(counts.get(next)));
+						next=advance(next+1);
+						return entry;
+					}
+				};
+			}
+			@Override
+			public int size(){
+				return size;
+			}
+		};
+	}
+}
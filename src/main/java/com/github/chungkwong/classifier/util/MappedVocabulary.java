@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.*;
+/**
+ * Read-only sorted list of strings stored in buffers, typically mapped from a
+ * file. The strings are stored as UTF-8 one after another in ascending order
+ * of their bytes (compared as unsigned), and the position of each of them is
+ * stored in another buffer, so a string can be found by binary search without
+ * decoding.
+ *
+ * @author Chan Chung Kwong
+ */
+public final class MappedVocabulary{
+	private final IntBuffer offsets;
+	private final ByteBuffer bytes;
+	private final int size;
+	/**
+	 * Create a vocabulary
+	 *
+	 * @param offsets the position of each string in the bytes, followed by
+	 * the length of the bytes
+	 * @param bytes the UTF-8 encoded strings
+	 */
+	public MappedVocabulary(IntBuffer offsets,ByteBuffer bytes){
+		this.offsets=offsets;
+		this.bytes=bytes;
+		this.size=offsets.limit()-1;
+	}
+	/**
+	 * @return the number of strings
+	 */
+	public int size(){
+		return size;
+	}
+	/**
+	 * @param index the index of a string
+	 * @return the string
+	 */
+	public String getToken(int index){
+		int start=offsets.get(index);
+		byte[] token=new byte[offsets.get(index+1)-start];
+		for(int i=0;i<token.length;i++){
+			token[i]=bytes.get(start+i);
+		}
+		return new String(token,StandardCharsets.UTF_8);
+	}
+	/**
+	 * Find a string
+	 *
+	 * @param token the string
+	 * @return the index of the string or -1 if absent
+	 */
+	public int indexOf(String token){
+		byte[] key=token.getBytes(StandardCharsets.UTF_8);
+		int low=0,high=size-1;
+		while(low<=high){
+			int mid=(low+high)>>>1;
+			int c=compare(mid,key);
+			if(c<0){
+				low=mid+1;
+			}else if(c>0){
+				high=mid-1;
+			}else{
+				return mid;
+			}
+		}
+		return -1;
+	}
+	private int compare(int index,byte[] key){
+		int start=offsets.get(index);
+		int length=offsets.get(index+1)-start;
+		int common=Math.min(length,key.length);
+		for(int i=0;i<common;i++){
+			int c=Integer.compare(bytes.get(start+i)&0xFF,key[i]&0xFF);
+			if(c!=0){
+				return c;
+			}
+		}
+		return Integer.compare(length,key.length);
+	}
+	/**
+	 * Comparator consistent with the order of strings in the vocabulary
+	 */
+	public static final Comparator<byte[]> ORDER=(b1,b2)->{
+		int common=Math.min(b1.length,b2.length);
+		for(int i=0;i<common;i++){
+			int c=Integer.compare(b1[i]&0xFF,b2[i]&0xFF);
+			if(c!=0){
+				return c;
+			}
+		}
+		return Integer.compare(b1.length,b2.length);
+	};
+}
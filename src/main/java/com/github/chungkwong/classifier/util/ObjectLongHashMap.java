@@ -0,0 +1,444 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+import java.io.*;
+import java.util.*;
+import java.util.function.*;
+/**
+ * Open addressing hash table from objects to primitive long integers.
+ *
+ * Keys and counts are stored in two parallel arrays, so no entry object or
+ * Counter is allocated per key. The Map view creates a Counter for each value
+ * being read, changing that Counter does not change the table.
+ *
+ * @author Chan Chung Kwong
+ * @param <T> the type of the keys, null is not allowed
+ */
+public class ObjectLongHashMap<T> extends AbstractMap<T,Counter> implements CountMap<T>,Serializable{
+	private static final long serialVersionUID=1L;
+	private static final Object REMOVED=new Object();
+	private static final int MIN_CAPACITY=16;
+	private transient Object[] keys;
+	private transient long[] values;
+	private transient int size;
+	private transient int used;
+	private transient int modCount;
+	/**
+	 * Create a empty table
+	 */
+	public ObjectLongHashMap(){
+		this(MIN_CAPACITY);
+	}
+	/**
+	 * Create a empty table
+	 *
+	 * @param expectedSize the number of keys expected
+	 */
+	public ObjectLongHashMap(int expectedSize){
+		allocate(getCapacity(expectedSize));
+	}
+	private static int getCapacity(int expectedSize){
+		int capacity=MIN_CAPACITY;
+		while(capacity<expectedSize*2&&capacity<(1<<30)){
+			capacity<<=1;
+		}
+		return capacity;
+	}
+	private void allocate(int capacity){
+		keys=new Object[capacity];
+		values=new long[capacity];
+		size=0;
+		used=0;
+	}
+	private static int mix(int hash){
+		hash*=0x9E3779B9;
+		return hash^(hash>>>16);
+	}
+	private int indexOf(Object key){
+		int mask=keys.length-1;
+		int i=mix(key.hashCode())&mask;
+		Object k;
+		while((k=keys[i])!=null){
+			if(k!=REMOVED&&k.equals(key)){
+				return i;
+			}
+			i=(i+1)&mask;
+		}
+		return -1;
+	}
+	private int insertionPoint(T key){
+		if(key==null){
+			throw new NullPointerException();
+		}
+		int mask=keys.length-1;
+		int i=mix(key.hashCode())&mask;
+		int firstRemoved=-1;
+		Object k;
+		while((k=keys[i])!=null){
+			if(k==REMOVED){
+				if(firstRemoved==-1){
+					firstRemoved=i;
+				}
+			}else if(k.equals(key)){
+				return i;
+			}
+			i=(i+1)&mask;
+		}
+		if(firstRemoved!=-1){
+			keys[firstRemoved]=key;
+			values[firstRemoved]=0;
+			++size;
+			++modCount;
+			return firstRemoved;
+		}
+		if((used+1)*2>keys.length){
+			rehash(size+1);
+			return insertionPoint(key);
+		}
+		keys[i]=key;
+		values[i]=0;
+		++size;
+		++used;
+		++modCount;
+		return i;
+	}
+	private void rehash(int expectedSize){
+		Object[] oldKeys=keys;
+		long[] oldValues=values;
+		allocate(getCapacity(expectedSize));
+		int mask=keys.length-1;
+		for(int j=0;j<oldKeys.length;j++){
+			Object k=oldKeys[j];
+			if(k!=null&&k!=REMOVED){
+				int i=mix(k.hashCode())&mask;
+				while(keys[i]!=null){
+					i=(i+1)&mask;
+				}
+				keys[i]=k;
+				values[i]=oldValues[j];
+				++size;
+				++used;
+			}
+		}
+		++modCount;
+	}
+	@Override
+	public boolean isModifiable(){
+		return true;
+	}
+	@Override
+	public long getLong(Object key){
+		if(key==null){
+			return 0;
+		}
+		int i=indexOf(key);
+		return i==-1?0:values[i];
+	}
+	/**
+	 * Get the value associated with a string given as a range of characters,
+	 * without creating the string, only meaningful if the keys are String
+	 *
+	 * @param text the characters
+	 * @param start the index of the first character of the string
+	 * @param end the index after the last character of the string
+	 * @return the value or 0 if the string is absent
+	 */
+	public long getLong(CharSequence text,int start,int end){
+		int i=indexOf(text,start,end);
+		return i==-1?0:values[i];
+	}
+	/**
+	 * Add a value to the value associated with a string given as a range of
+	 * characters, the string is created only if it is absent, only meaningful
+	 * if the keys are String
+	 *
+	 * @param text the characters
+	 * @param start the index of the first character of the string
+	 * @param end the index after the last character of the string
+	 * @param delta to be added
+	 * @return the new value
+	 */
+	public long addTo(CharSequence text,int start,int end,long delta){
+		int i=indexOf(text,start,end);
+		if(i==-1){
+			//the keys are String as documented
+			@SuppressWarnings("unchecked")
+			T key=(T)text.subSequence(start,end).toString();
+			i=insertionPoint(key);
+		}
+		return values[i]+=delta;
+	}
+	private int indexOf(CharSequence text,int start,int end){
+		//Same as String.hashCode
+		int hash=0;
+		for(int j=start;j<end;j++){
+			hash=31*hash+text.charAt(j);
+		}
+		int mask=keys.length-1;
+		int i=mix(hash)&mask;
+		Object k;
+		while((k=keys[i])!=null){
+			if(k instanceof String&&contentEquals((String)k,text,start,end)){
+				return i;
+			}
+			i=(i+1)&mask;
+		}
+		return -1;
+	}
+	private static boolean contentEquals(String key,CharSequence text,int start,int end){
+		if(key.length()!=end-start){
+			return false;
+		}
+		if(text instanceof String){
+			return key.regionMatches(0,(String)text,start,end-start);
+		}
+		for(int j=start;j<end;j++){
+			if(key.charAt(j-start)!=text.charAt(j)){
+				return false;
+			}
+		}
+		return true;
+	}
+	/**
+	 * Add a value to the value associated with a key, a absent key is
+	 * considered to be associated with 0
+	 *
+	 * @param key the key
+	 * @param delta to be added
+	 * @return the new value
+	 */
+	public long addTo(T key,long delta){
+		int i=insertionPoint(key);
+		return values[i]+=delta;
+	}
+	/**
+	 * Associate a value with a key
+	 *
+	 * @param key the key
+	 * @param value the value
+	 */
+	public void putLong(T key,long value){
+		int i=insertionPoint(key);
+		values[i]=value;
+	}
+	/**
+	 * Remove a key
+	 *
+	 * @param key the key
+	 * @return the value associated with the key before or 0 if absent
+	 */
+	public long removeKey(Object key){
+		if(key==null){
+			return 0;
+		}
+		int i=indexOf(key);
+		if(i==-1){
+			return 0;
+		}
+		long value=values[i];
+		removeAt(i);
+		return value;
+	}
+	private void removeAt(int i){
+		keys[i]=REMOVED;
+		values[i]=0;
+		--size;
+		++modCount;
+	}
+	@Override
+	public void forEachLong(ObjLongConsumer<? super T> action){
+		Object[] k=keys;
+		long[] v=values;
+		for(int i=0;i<k.length;i++){
+			if(k[i]!=null&&k[i]!=REMOVED){
+				action.accept(asKey(k[i]),v[i]);
+			}
+		}
+	}
+	/**
+	 * Shrink the table to fit the current number of keys
+	 */
+	public void trim(){
+		if(getCapacity(size)<keys.length||used>size){
+			rehash(size);
+		}
+	}
+	@Override
+	public int size(){
+		return size;
+	}
+	@Override
+	public boolean isEmpty(){
+		return size==0;
+	}
+	@Override
+	public boolean containsKey(Object key){
+		return key!=null&&indexOf(key)!=-1;
+	}
+	@Override
+	public Counter get(Object key){
+		if(key==null){
+			return null;
+		}
+		int i=indexOf(key);
+		return i==-1?null:new Counter(values[i]);
+	}
+	@Override
+	public Counter put(T key,Counter value){
+		int before=size;
+		int i=insertionPoint(key);
+		Counter old=before==size?new Counter(values[i]):null;
+		values[i]=value.getCount();
+		return old;
+	}
+	@Override
+	public Counter remove(Object key){
+		if(key==null){
+			return null;
+		}
+		int i=indexOf(key);
+		if(i==-1){
+			return null;
+		}
+		Counter old=new Counter(values[i]);
+		removeAt(i);
+		return old;
+	}
+	@Override
+	public void clear(){
+		allocate(MIN_CAPACITY);
+		++modCount;
+	}
+	@Override
+	public Set<Entry<T,Counter>> entrySet(){
+		return new AbstractSet<Entry<T,Counter>>(){
+			@Override
+			public Iterator<Entry<T,Counter>> iterator(){
+				return new EntryIterator();
+			}
+			@Override
+			public int size(){
+				return size;
+			}
+			@Override
+			public void clear(){
+				ObjectLongHashMap.this.clear();
+			}
+		};
+	}
+	private class EntryIterator implements Iterator<Entry<T,Counter>>{
+		private final Object[] table=keys;
+		private int next=-1;
+		private int last=-1;
+		private int expectedModCount=modCount;
+		EntryIterator(){
+			advance();
+		}
+		private void advance(){
+			do{
+				++next;
+			}while(next<table.length&&(table[next]==null||table[next]==REMOVED));
+		}
+		@Override
+		public boolean hasNext(){
+			return next<table.length;
+		}
+		@Override
+		public Entry<T,Counter> next(){
+			if(expectedModCount!=modCount){
+				throw new ConcurrentModificationException();
+			}
+			if(next>=table.length){
+				throw new NoSuchElementException();
+			}
+			last=next;
+			advance();
+			return new TableEntry(last);
+		}
+		@Override
+		public void remove(){
+			if(last==-1){
+				throw new IllegalStateException();
+			}
+			if(expectedModCount!=modCount){
+				throw new ConcurrentModificationException();
+			}
+			removeAt(last);
+			expectedModCount=modCount;
+			last=-1;
+		}
+	}
+	//keys are only stored by the methods taking T
+	@SuppressWarnings("unchecked")
+	private static <K> K asKey(Object key){
+		return (K)key;
+	}
+	private class TableEntry implements Entry<T,Counter>{
+		private final int index;
+		TableEntry(int index){
+			this.index=index;
+		}
+		@Override
+		public T getKey(){
+			return asKey(keys[index]);
+		}
+		@Override
+		public Counter getValue(){
+			return new Counter(values[index]);
+		}
+		@Override
+		public Counter setValue(Counter value){
+			Counter old=new Counter(values[index]);
+			values[index]=value.getCount();
+			return old;
+		}
+		@Override
+		public boolean equals(Object obj){
+			return obj instanceof Entry&&Objects.equals(getKey(),((Entry)obj).getKey())
+					&&Objects.equals(getValue(),((Entry)obj).getValue());
+		}
+		@Override
+		public int hashCode(){
+			return Objects.hashCode(getKey())^Objects.hashCode(getValue());
+		}
+		@Override
+		public String toString(){
+			return getKey()+"="+values[index];
+		}
+	}
+	private void writeObject(ObjectOutputStream out) throws IOException{
+		out.defaultWriteObject();
+		out.writeInt(size);
+		for(int i=0;i<keys.length;i++){
+			if(keys[i]!=null&&keys[i]!=REMOVED){
+				out.writeObject(keys[i]);
+				out.writeLong(values[i]);
+			}
+		}
+	}
+	private void readObject(ObjectInputStream in) throws IOException,ClassNotFoundException{
+		in.defaultReadObject();
+		int count=in.readInt();
+		allocate(getCapacity(count));
+		for(int i=0;i<count;i++){
+			//written by writeObject from the keys of a map of the same type
+			@SuppressWarnings("unchecked")
+			T key=(T)in.readObject();
+			putLong(key,in.readLong());
+		}
+	}
+}
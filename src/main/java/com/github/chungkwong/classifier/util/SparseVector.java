@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+import java.io.*;
+import java.util.*;
+/**
+ * Immutable frequencies of tokens identified by integer ID, stored as ID
+ * sorted in ascending order and their frequencies
+ *
+ * @author Chan Chung Kwong
+ */
+public final class SparseVector implements Serializable{
+	private static final long serialVersionUID=1L;
+	private static final SparseVector EMPTY=new SparseVector(new int[0],new long[0]);
+	private final int[] ids;
+	private final long[] counts;
+	private SparseVector(int[] ids,long[] counts){
+		this.ids=ids;
+		this.counts=counts;
+	}
+	/**
+	 * Create a vector
+	 *
+	 * @param ids the ID of the tokens, in ascending order without duplicate
+	 * @param counts the frequencies of the tokens, all positive
+	 * @return the vector
+	 */
+	public static SparseVector of(int[] ids,long[] counts){
+		if(ids.length!=counts.length){
+			throw new IllegalArgumentException();
+		}
+		for(int i=1;i<ids.length;i++){
+			if(ids[i-1]>=ids[i]){
+				throw new IllegalArgumentException("ID not in ascending order");
+			}
+		}
+		return new SparseVector(ids.clone(),counts.clone());
+	}
+	/**
+	 * Create a vector from ID of each occurrence of tokens
+	 *
+	 * @param occurrences the ID of each occurrence, modified by this method
+	 * @return the vector
+	 */
+	public static SparseVector fromIds(int[] occurrences){
+		if(occurrences.length==0){
+			return EMPTY;
+		}
+		Arrays.sort(occurrences);
+		int unique=1;
+		for(int i=1;i<occurrences.length;i++){
+			if(occurrences[i]!=occurrences[i-1]){
+				++unique;
+			}
+		}
+		int[] ids=new int[unique];
+		long[] counts=new long[unique];
+		int j=0;
+		ids[0]=occurrences[0];
+		for(int occurrence:occurrences){
+			if(occurrence!=ids[j]){
+				ids[++j]=occurrence;
+			}
+			++counts[j];
+		}
+		return new SparseVector(ids,counts);
+	}
+	/**
+	 * Create a vector from unsorted ID
+	 *
+	 * @param ids the ID of the tokens without duplicate
+	 * @param counts the frequencies of the tokens
+	 * @param size the number of elements in the arrays to be used
+	 * @return the vector
+	 */
+	static SparseVector fromUnsorted(int[] ids,long[] counts,int size){
+		long[] order=new long[size];
+		for(int i=0;i<size;i++){
+			order[i]=((long)ids[i]<<32)|i;
+		}
+		Arrays.sort(order);
+		int[] sortedIds=new int[size];
+		long[] sortedCounts=new long[size];
+		for(int i=0;i<size;i++){
+			sortedIds[i]=(int)(order[i]>>>32);
+			sortedCounts[i]=counts[(int)order[i]];
+		}
+		return new SparseVector(sortedIds,sortedCounts);
+	}
+	/**
+	 * @return the number of unique tokens
+	 */
+	public int getTokenCount(){
+		return ids.length;
+	}
+	/**
+	 * @param index the index of a token in this vector
+	 * @return the ID of the token
+	 */
+	public int getId(int index){
+		return ids[index];
+	}
+	/**
+	 * @param index the index of a token in this vector
+	 * @return the frequency of the token
+	 */
+	public long getCount(int index){
+		return counts[index];
+	}
+	/**
+	 * Get the frequency of a token
+	 *
+	 * @param id the ID of the token
+	 * @return the frequency
+	 */
+	public long getFrequency(int id){
+		int index=Arrays.binarySearch(ids,id);
+		return index>=0?counts[index]:0;
+	}
+	/**
+	 * @return the sum of frequencies of all tokens
+	 */
+	public long getTotalCount(){
+		long sum=0;
+		for(long count:counts){
+			sum+=count;
+		}
+		return sum;
+	}
+	@Override
+	public boolean equals(Object obj){
+		return obj instanceof SparseVector&&Arrays.equals(ids,((SparseVector)obj).ids)
+				&&Arrays.equals(counts,((SparseVector)obj).counts);
+	}
+	@Override
+	public int hashCode(){
+		int hash=7;
+		hash=59*hash+Arrays.hashCode(this.ids);
+		hash=59*hash+Arrays.hashCode(this.counts);
+		return hash;
+	}
+	@Override
+	public String toString(){
+		StringBuilder buf=new StringBuilder("{");
+		for(int i=0;i<ids.length;i++){
+			if(i>0){
+				buf.append(", ");
+			}
+			buf.append(ids[i]).append('=').append(counts[i]);
+		}
+		return buf.append('}').toString();
+	}
+}
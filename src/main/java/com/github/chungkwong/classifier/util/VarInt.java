@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+import java.io.*;
+import java.nio.charset.*;
+/**
+ * Variable length encoding of nonnegative integers: seven bits are stored in
+ * each byte, lowest bits first, and the highest bit of a byte is set if more
+ * bytes follow. Small numbers, like the difference between consecutive
+ * sorted ID, take only one byte.
+ *
+ * @author Chan Chung Kwong
+ */
+public class VarInt{
+	private VarInt(){
+	}
+	/**
+	 * Write a integer
+	 *
+	 * @param out the output
+	 * @param value a nonnegative integer
+	 * @throws IOException if failed to write
+	 */
+	public static void write(DataOutput out,long value) throws IOException{
+		if(value<0){
+			throw new IllegalArgumentException();
+		}
+		while(value>=0x80){
+			out.writeByte((int)(value&0x7F)|0x80);
+			value>>>=7;
+		}
+		out.writeByte((int)value);
+	}
+	/**
+	 * Read a integer
+	 *
+	 * @param in the input
+	 * @return the integer
+	 * @throws IOException if failed to read or the input is malformed
+	 */
+	public static long read(DataInput in) throws IOException{
+		long value=0;
+		for(int shift=0;shift<64;shift+=7){
+			int b=in.readUnsignedByte();
+			value|=((long)(b&0x7F))<<shift;
+			if((b&0x80)==0){
+				return value;
+			}
+		}
+		throw new IOException("Malformed integer");
+	}
+	/**
+	 * Read a integer that should fit into int
+	 *
+	 * @param in the input
+	 * @return the integer
+	 * @throws IOException if failed to read or the input is malformed
+	 */
+	public static int readInt(DataInput in) throws IOException{
+		long value=read(in);
+		if(value>Integer.MAX_VALUE){
+			throw new IOException("Integer too large");
+		}
+		return (int)value;
+	}
+	/**
+	 * Write a string as its length in bytes followed by its UTF-8 encoding
+	 *
+	 * @param out the output
+	 * @param value the string
+	 * @throws IOException if failed to write
+	 */
+	public static void writeString(DataOutput out,String value) throws IOException{
+		byte[] bytes=value.getBytes(StandardCharsets.UTF_8);
+		write(out,bytes.length);
+		out.write(bytes);
+	}
+	/**
+	 * Read a string written by writeString
+	 *
+	 * @param in the input
+	 * @return the string
+	 * @throws IOException if failed to read or the input is malformed
+	 */
+	public static String readString(DataInput in) throws IOException{
+		byte[] bytes=new byte[readInt(in)];
+		in.readFully(bytes);
+		return new String(bytes,StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+import java.io.*;
+import java.util.*;
+import java.util.stream.*;
+/**
+ * Mapping between tokens and dense integer ID, the first token added get ID
+ * 0, the next get 1 and so on. A vocabulary is not thread-safe, methods that
+ * do not add tokens may be called concurrently only if no thread is adding
+ * tokens.
+ *
+ * @author Chan Chung Kwong
+ * @param <T> the type of the tokens
+ */
+public class Vocabulary<T> implements Serializable{
+	private static final long serialVersionUID=1L;
+	private final ObjectLongHashMap<T> ids=new ObjectLongHashMap<>();
+	private final ArrayList<T> tokens=new ArrayList<>();
+	/**
+	 * Create a empty vocabulary
+	 */
+	public Vocabulary(){
+	}
+	/**
+	 * Get the ID of a token, the token is added to the vocabulary if it is
+	 * not already there
+	 *
+	 * @param token the token
+	 * @return the ID
+	 */
+	public int getId(T token){
+		long id=ids.getLong(token);
+		if(id==0){
+			tokens.add(token);
+			id=tokens.size();
+			ids.putLong(token,id);
+		}
+		return (int)id-1;
+	}
+	/**
+	 * Get the ID of a token without adding it to the vocabulary
+	 *
+	 * @param token the token
+	 * @return the ID or -1 if the token is not in the vocabulary
+	 */
+	public int getIdIfPresent(T token){
+		return (int)ids.getLong(token)-1;
+	}
+	/**
+	 * Get the ID of a token given as a range of characters, the token is
+	 * created and added to the vocabulary only if it is not already there,
+	 * only meaningful for vocabulary of String
+	 *
+	 * @param text the characters
+	 * @param start the index of the first character of the token
+	 * @param end the index after the last character of the token
+	 * @return the ID
+	 */
+	public int getId(CharSequence text,int start,int end){
+		long id=ids.getLong(text,start,end);
+		if(id!=0){
+			return (int)id-1;
+		}
+		//the tokens are String as documented
+		@SuppressWarnings("unchecked")
+		T token=(T)text.subSequence(start,end).toString();
+		return getId(token);
+	}
+	/**
+	 * Get the ID of a token given as a range of characters without adding it
+	 * to the vocabulary, only meaningful for vocabulary of String
+	 *
+	 * @param text the characters
+	 * @param start the index of the first character of the token
+	 * @param end the index after the last character of the token
+	 * @return the ID or -1 if the token is not in the vocabulary
+	 */
+	public int getIdIfPresent(CharSequence text,int start,int end){
+		return (int)ids.getLong(text,start,end)-1;
+	}
+	/**
+	 * @param id the ID of a token
+	 * @return the token
+	 */
+	public T getToken(int id){
+		return tokens.get(id);
+	}
+	/**
+	 * Create a copy of the vocabulary, which is not affected by tokens added
+	 * to this vocabulary later
+	 *
+	 * @return the copy
+	 */
+	public Vocabulary<T> copy(){
+		Vocabulary<T> copy=new Vocabulary<>();
+		tokens.forEach(copy::getId);
+		return copy;
+	}
+	/**
+	 * @return the number of tokens in the vocabulary, which is also the
+	 * smallest ID not in use
+	 */
+	public int size(){
+		return tokens.size();
+	}
+	/**
+	 * Convert a token stream to a vector, new tokens are added to the
+	 * vocabulary
+	 *
+	 * @param tokens the tokens
+	 * @return the vector
+	 */
+	public SparseVector toVector(Stream<T> tokens){
+		return toVector(tokens,true);
+	}
+	/**
+	 * Convert a stream of tokens to a vector
+	 *
+	 * @param tokens the tokens
+	 * @param grow if new tokens are added to the vocabulary, otherwise they
+	 * are dropped
+	 * @return the vector
+	 */
+	public SparseVector toVector(Stream<T> tokens,boolean grow){
+		if(grow){
+			return SparseVector.fromIds(tokens.mapToInt(this::getId).toArray());
+		}else{
+			return SparseVector.fromIds(tokens.mapToInt(this::getIdIfPresent).filter((id)->id!=-1).toArray());
+		}
+	}
+	/**
+	 * Convert a frequencies table to a vector
+	 *
+	 * @param frequencies the table
+	 * @param grow if new tokens are added to the vocabulary, otherwise they
+	 * are dropped
+	 * @return the vector
+	 */
+	public SparseVector toVector(Frequencies<T> frequencies,boolean grow){
+		int[] keys=new int[frequencies.getTokenCount()];
+		long[] counts=new long[keys.length];
+		int[] size=new int[]{0};
+		frequencies.forEachFrequency((token,count)->{
+			int id=grow?getId(token):getIdIfPresent(token);
+			if(id!=-1){
+				keys[size[0]]=id;
+				counts[size[0]++]=count;
+			}
+		});
+		return SparseVector.fromUnsorted(keys,counts,size[0]);
+	}
+	/**
+	 * Convert a vector back to a frequencies table
+	 *
+	 * @param vector the vector
+	 * @return the table
+	 */
+	public Frequencies<T> toFrequencies(SparseVector vector){
+		Frequencies<T> frequencies=new Frequencies<>(true);
+		for(int i=0;i<vector.getTokenCount();i++){
+			frequencies.advanceFrequency(getToken(vector.getId(i)),vector.getCount(i));
+		}
+		return frequencies;
+	}
+	/**
+	 * Convert a table indexed by ID back to a frequencies table
+	 *
+	 * @param table the table
+	 * @return the frequencies table
+	 */
+	public Frequencies<T> toFrequencies(IntFrequencies table){
+		Frequencies<T> frequencies=new Frequencies<>(true);
+		table.forEachFrequency((id,count)->frequencies.advanceFrequency(getToken(id),count));
+		return frequencies;
+	}
+	@Override
+	public String toString(){
+		return tokens.toString();
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+import java.util.*;
+import java.util.function.*;
+/**
+ * Read-only view of a table indexed by token ID as a map from tokens to
+ * counts, so that the table need not to be copied into a frequencies table.
+ * Changes to the table are reflected in the view.
+ *
+ * @author Chan Chung Kwong
+ * @param <T> the type of the tokens
+ */
+public final class VocabularyCountMap<T> extends AbstractMap<T,Counter> implements CountMap<T>{
+	private final Vocabulary<T> vocabulary;
+	private final IntFrequencies table;
+	/**
+	 * Create a view
+	 *
+	 * @param vocabulary the vocabulary that token ID come from
+	 * @param table the table
+	 */
+	public VocabularyCountMap(Vocabulary<T> vocabulary,IntFrequencies table){
+		this.vocabulary=vocabulary;
+		this.table=table;
+	}
+	@Override
+	public long getLong(Object key){
+		//the vocabulary only looks the key up, so a key of other type is just absent
+		@SuppressWarnings("unchecked")
+		T token=(T)key;
+		return key==null?0:table.getFrequency(vocabulary.getIdIfPresent(token));
+	}
+	@Override
+	public void forEachLong(ObjLongConsumer<? super T> action){
+		table.forEachFrequency((id,count)->action.accept(vocabulary.getToken(id),count));
+	}
+	@Override
+	public Counter get(Object key){
+		long count=getLong(key);
+		return count==0?null:new Counter(count);
+	}
+	@Override
+	public boolean containsKey(Object key){
+		return getLong(key)!=0;
+	}
+	@Override
+	public int size(){
+		return table.getTokenCount();
+	}
+	@Override
+	public Set<Entry<T,Counter>> entrySet(){
+		return new AbstractSet<Entry<T,Counter>>(){
+			@Override
+			public Iterator<Entry<T,Counter>> iterator(){
+				return new Iterator<Entry<T,Counter>>(){
+					private int next=advance(0);
+					private int advance(int from){
+						while(from<table.getIdBound()&&table.getFrequency(from)==0){
+							++from;
+						}
+						return from;
+					}
+					@Override
+					public boolean hasNext(){
+						return next<table.getIdBound();
+					}
+					@Override
+					public Entry<T,Counter> next(){
+						if(next>=table.getIdBound()){
+							throw new NoSuchElementException();
+						}
+						Entry<T,Counter> entry=new SimpleImmutableEntry<>(vocabulary.getToken(next),new Counter(table.getFrequency(next)));
+						next=advance(next+1);
+						return entry;
+					}
+				};
+			}
+			@Override
+			public int size(){
+				return table.getTokenCount();
+			}
+		};
+	}
+}
@@ -61,7 +61,18 @@ public class ConfusionMatrix{
 	 * @param testTime to be added
 	 */
 	public void advanceTestTime(long testTime){
-		this.testTime=testTime;
+		this.testTime+=testTime;
+	}
+	/**
+	 * Add the frequencies and test time of another confusion matrix to this
+	 * one, so that matrices of parts of a test set can be combined
+	 * @param toMerge the matrix to be added
+	 * @return this
+	 */
+	public ConfusionMatrix merge(ConfusionMatrix toMerge){
+		matrix.merge(toMerge.matrix);
+		testTime+=toMerge.testTime;
+		return this;
 	}
 	/**
 	 * @return total time being used for test
@@ -15,7 +15,9 @@
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 package com.github.chungkwong.classifier.validator;
+import com.github.chungkwong.classifier.*;
 import java.util.*;
+import java.util.function.*;
 import java.util.stream.*;
 /**
  * Utility being used to divide dataset
@@ -32,10 +34,23 @@ public class DataDivider{
 	 * @return split data set
 	 */
 	public static <T> SplitDataSet<T> randomSplitInRam(DataSet<T> dataset,double trainRatio){
+		return randomSplitInRam(dataset,trainRatio,new Random().nextLong());
+	}
+	/**
+	 * Partition dataset into train set and test set randomly with a seed.
+	 * All sample are cached in RAM, so randomSplit should be used instead for
+	 * large dataset.
+	 * @param <T> the type of the data
+	 * @param dataset to be divided
+	 * @param trainRatio the ratio of data used for train
+	 * @param seed the seed
+	 * @return split data set
+	 */
+	public static <T> SplitDataSet<T> randomSplitInRam(DataSet<T> dataset,double trainRatio,long seed){
 		List<Sample<T>> list=dataset.getSamples().collect(Collectors.toList());
-		Collections.shuffle(list);//FIXME: all data are loaded to RAM
+		Collections.shuffle(list,new Random(seed));
 		int cut=(int)(list.size()*trainRatio);
-		String name=dataset.getName()+"(train=random"+trainRatio+')';
+		String name=dataset.getName()+"(train=random"+trainRatio+",seed="+seed+')';
 		return new SplitDataSet<>(()->list.subList(0,cut).stream(),()->list.subList(cut,list.size()).stream(),name);
 	}
 	/**
@@ -54,27 +69,141 @@ public class DataDivider{
 		return new SplitDataSet<>(()->list.subList(0,cut).stream(),()->list.subList(cut,list.size()).stream(),name);
 	}
 	/**
-	 * Partition dataset into train set and test set randomly
+	 * Partition dataset into train set and test set randomly with a seed
+	 * being chosen randomly
 	 * @param <T> the type of the data
 	 * @param dataset to be divided
 	 * @param trainRatio the ratio of data used for train
 	 * @return split data set
+	 * @see #randomSplit(DataSet, double, long)
 	 */
 	public static <T> SplitDataSet<T> randomSplit(DataSet<T> dataset,double trainRatio){
-		int count=(int)dataset.getSamples().count();
-		BitSet bitSet=new BitSet(count);
-		for(int i=0;i<count;i++)
-			bitSet.set(i,Math.random()<trainRatio);
-		String name=dataset.getName()+"(train=random"+trainRatio+')';
-		return new SplitDataSet<>(()->getTrainStream(bitSet,dataset),()->getTestStream(bitSet,dataset),name);
+		return randomSplit(dataset,trainRatio,new Random().nextLong());
 	}
-	private static <T> Stream<Sample<T>> getTrainStream(BitSet bitSet,DataSet<T> dataset){
-		int[] index=new int[]{0};
-		return dataset.getSamples().filter((sample)->bitSet.get(index[0]++));
+	/**
+	 * Partition dataset into train set and test set randomly. Whether a
+	 * sample is used for train is decided by hashing its position in the
+	 * dataset with a seed, so the dataset is read once for each stream and
+	 * the split is reproducible.
+	 * @param <T> the type of the data
+	 * @param dataset to be divided
+	 * @param trainRatio the ratio of data used for train
+	 * @param seed the seed
+	 * @return split data set
+	 */
+	public static <T> SplitDataSet<T> randomSplit(DataSet<T> dataset,double trainRatio,long seed){
+		Supplier<SampleSelector<T>> selector=()->(index,sample)->toUnit(hash(index,seed))<trainRatio;
+		String name=dataset.getName()+"(train=random"+trainRatio+",seed="+seed+')';
+		return new SplitDataSet<>(()->filter(dataset.getSamples(),selector.get(),true),()->filter(dataset.getSamples(),selector.get(),false),name);
 	}
-	private static <T> Stream<Sample<T>> getTestStream(BitSet bitSet,DataSet<T> dataset){
-		int[] index=new int[]{0};
-		return dataset.getSamples().filter((sample)->!bitSet.get(index[0]++));
+	/**
+	 * Partition dataset into train set and test set randomly, so that the
+	 * ratio of samples used for train in each category is close to the
+	 * given one. The number of train samples in a category never differ
+	 * from the expected number by one or more. The dataset is read once for
+	 * each stream and need not be counted in advance.
+	 * @param <T> the type of the data
+	 * @param dataset to be divided
+	 * @param trainRatio the ratio of data used for train
+	 * @param seed the seed
+	 * @return split data set
+	 */
+	public static <T> SplitDataSet<T> stratifiedSplit(DataSet<T> dataset,double trainRatio,long seed){
+		Supplier<SampleSelector<T>> selector=()->{
+			Map<Category,long[]> counts=new HashMap<>();
+			return (index,sample)->{
+				long[] count=counts.computeIfAbsent(sample.getCategory(),(category)->new long[2]);
+				//Adjust the probability by the deficit, so that the deviation stay below one
+				double probability=trainRatio+(count[0]*trainRatio-count[1]);
+				++count[0];
+				if(toUnit(hash(index,seed))<probability){
+					++count[1];
+					return true;
+				}else{
+					return false;
+				}
+			};
+		};
+		String name=dataset.getName()+"(train=stratified"+trainRatio+",seed="+seed+')';
+		return new SplitDataSet<>(()->filter(dataset.getSamples(),selector.get(),true),()->filter(dataset.getSamples(),selector.get(),false),name);
+	}
+	/**
+	 * Partition dataset into k folds, each sample is assigned to a fold by
+	 * hashing its position in the dataset with a seed, so the folds are
+	 * reproducible and the dataset need not be counted or cached
+	 * @param <T> the type of the data
+	 * @param dataset to be divided
+	 * @param k the number of folds
+	 * @param seed the seed
+	 * @return k split data sets, the i-th of which use the i-th fold for
+	 * test and the others for train
+	 * @see #getFold(long, long, int)
+	 */
+	public static <T> SplitDataSet<T>[] kFoldSplit(DataSet<T> dataset,int k,long seed){
+		if(k<2){
+			throw new IllegalArgumentException();
+		}
+		//generic array cannot be created directly, it is not exposed before filled
+		@SuppressWarnings("unchecked")
+		SplitDataSet<T>[] folds=(SplitDataSet<T>[])new SplitDataSet<?>[k];
+		for(int i=0;i<k;i++){
+			int fold=i;
+			String name=dataset.getName()+"(fold="+(i+1)+'/'+k+')';
+			SampleSelector<T> selector=(index,sample)->getFold(index,seed,k)!=fold;
+			folds[i]=new SplitDataSet<>(()->filter(dataset.getSamples(),selector,true),()->filter(dataset.getSamples(),selector,false),name);
+		}
+		return folds;
+	}
+	/**
+	 * Get the fold that a sample belongs to
+	 * @param index the position of the sample in the dataset
+	 * @param seed the seed
+	 * @param k the number of folds
+	 * @return the fold, between 0 and k-1
+	 */
+	public static int getFold(long index,long seed,int k){
+		return (int)Math.floorMod(hash(index,seed),(long)k);
+	}
+	/**
+	 * Mix the position of a sample with a seed as SplitMix64 does, so that
+	 * consecutive samples get unrelated hash values
+	 */
+	static long hash(long index,long seed){
+		long z=seed+(index+1)*0x9E3779B97F4A7C15L;
+		z=(z^(z>>>30))*0xBF58476D1CE4E5B9L;
+		z=(z^(z>>>27))*0x94D049BB133111EBL;
+		return z^(z>>>31);
+	}
+	/**
+	 * Map a hash value to a number uniformly distributed in [0,1)
+	 */
+	private static double toUnit(long hash){
+		return (hash>>>11)*0x1.0p-53;
+	}
+	/**
+	 * Select samples in order. The samples are read sequentially, so the
+	 * selection remain correct even if the returned stream is made parallel.
+	 * @param selector decide if a sample is selected, called in the order of
+	 * the samples
+	 * @param value the value returned by the selector for the samples to be
+	 * kept
+	 */
+	private static <T> Stream<Sample<T>> filter(Stream<Sample<T>> samples,SampleSelector<T> selector,boolean value){
+		Iterator<Sample<T>> iterator=samples.iterator();
+		return StreamSupport.stream(new Spliterators.AbstractSpliterator<Sample<T>>(Long.MAX_VALUE,Spliterator.ORDERED){
+			private long index=0;
+			@Override
+			public boolean tryAdvance(Consumer<? super Sample<T>> action){
+				while(iterator.hasNext()){
+					Sample<T> sample=iterator.next();
+					if(selector.select(index++,sample)==value){
+						action.accept(sample);
+						return true;
+					}
+				}
+				return false;
+			}
+		},false).onClose(samples::close);
 	}
 	/**
 	 * Partition dataset into train set and test set sequentially
@@ -97,4 +226,7 @@ public class DataDivider{
 	public static <T> SplitDataSet<T> noSplit(DataSet<T> dataset){
 		return new SplitDataSet<>(()->dataset.getSamples(),()->dataset.getSamples(),dataset.getName());
 	}
+	private interface SampleSelector<T>{
+		boolean select(long index,Sample<T> sample);
+	}
 }
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.validator;
+import com.github.chungkwong.classifier.*;
+import com.github.chungkwong.classifier.util.*;
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+/**
+ * Cache of preprocessed dataset in a compact binary file, so that repeated
+ * experiments need not preprocess the same data again. Tokens and categories
+ * are given ID in the order they first appear and are written at that point,
+ * so the file is written and read in a single pass. A cache file is
+ * identified by the configuration of the preprocessor and the name of the
+ * dataset.
+ *
+ * @author Chan Chung Kwong
+ */
+public class DataSetCache{
+	private static final int MAGIC=0x44534554;
+	private static final int VERSION=1;
+	/**
+	 * Get a dataset that read preprocessed samples from the cache, the cache
+	 * is built first if it does not exist
+	 *
+	 * @param <S> the type of the original data
+	 * @param dataset the original dataset, its name should identify the source
+	 * @param preprocessor the preprocessor
+	 * @param configuration identify the preprocessor, cache built with a
+	 * different configuration will not be used
+	 * @param directory the directory containing the cache files
+	 * @return the preprocessed dataset
+	 * @throws IOException if failed to build the cache
+	 */
+	public static <S> DataSet<Frequencies<String>> cache(DataSet<S> dataset,Function<S,Frequencies<String>> preprocessor,
+			String configuration,File directory) throws IOException{
+		return cache(dataset,preprocessor,configuration,directory,Function.identity(),Function.identity());
+	}
+	/**
+	 * Get a dataset that read preprocessed samples from the cache, the cache
+	 * is built first if it does not exist
+	 *
+	 * @param <S> the type of the original data
+	 * @param <T> the type of the tokens
+	 * @param dataset the original dataset, its name should identify the source
+	 * @param preprocessor the preprocessor
+	 * @param configuration identify the preprocessor, cache built with a
+	 * different configuration will not be used
+	 * @param directory the directory containing the cache files
+	 * @param encoder encode token to String
+	 * @param decoder decode token from String
+	 * @return the preprocessed dataset
+	 * @throws IOException if failed to build the cache
+	 */
+	public static <S,T> DataSet<Frequencies<T>> cache(DataSet<S> dataset,Function<S,Frequencies<T>> preprocessor,
+			String configuration,File directory,Function<T,String> encoder,Function<String,T> decoder) throws IOException{
+		String name=dataset.getName();
+		File file=new File(directory,UUID.nameUUIDFromBytes((configuration+'\u0000'+name).getBytes(StandardCharsets.UTF_8))+".bin");
+		if(!isValid(file,configuration,name)){
+			write(dataset,preprocessor,configuration,file,encoder);
+		}
+		return new DataSet<>(()->read(file,decoder),name);
+	}
+	private static boolean isValid(File file,String configuration,String name){
+		if(!file.exists()){
+			return false;
+		}
+		try(DataInputStream in=new DataInputStream(new BufferedInputStream(new FileInputStream(file)))){
+			return in.readInt()==MAGIC&&in.readInt()==VERSION
+					&&VarInt.readString(in).equals(configuration)&&VarInt.readString(in).equals(name);
+		}catch(IOException ex){
+			return false;
+		}
+	}
+	private static <S,T> void write(DataSet<S> dataset,Function<S,Frequencies<T>> preprocessor,
+			String configuration,File file,Function<T,String> encoder) throws IOException{
+		file.getParentFile().mkdirs();
+		File tmp=new File(file.getParentFile(),file.getName()+".tmp");
+		try{
+			try(DataOutputStream out=new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp),65536));
+					Stream<Sample<S>> samples=dataset.getSamples()){
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				VarInt.writeString(out,configuration);
+				VarInt.writeString(out,dataset.getName());
+				Vocabulary<T> vocabulary=new Vocabulary<>();
+				Map<Category,Integer> categories=new HashMap<>();
+				Iterator<Sample<S>> iterator=samples.iterator();
+				while(iterator.hasNext()){
+					Sample<S> sample=iterator.next();
+					Frequencies<T> frequencies=preprocessor.apply(sample.getData());
+					Integer category=categories.get(sample.getCategory());
+					if(category==null){
+						category=categories.size();
+						categories.put(sample.getCategory(),category);
+						VarInt.write(out,category+1);
+						VarInt.writeString(out,sample.getCategory().getName());
+					}else{
+						VarInt.write(out,category+1);
+					}
+					VarInt.write(out,frequencies.getTokenCount());
+					IOException[] error=new IOException[1];
+					frequencies.forEachFrequency((token,count)->{
+						if(error[0]!=null){
+							return;
+						}
+						try{
+							int size=vocabulary.size();
+							int id=vocabulary.getId(token);
+							VarInt.write(out,id);
+							if(id==size){
+								VarInt.writeString(out,encoder.apply(token));
+							}
+							VarInt.write(out,count);
+						}catch(IOException ex){
+							error[0]=ex;
+						}
+					});
+					if(error[0]!=null){
+						throw error[0];
+					}
+				}
+				VarInt.write(out,0);
+			}
+			Files.move(tmp.toPath(),file.toPath(),StandardCopyOption.REPLACE_EXISTING);
+		}finally{
+			tmp.delete();
+		}
+	}
+	private static <T> Stream<Sample<Frequencies<T>>> read(File file,Function<String,T> decoder){
+		DataInputStream in;
+		try{
+			in=new DataInputStream(new BufferedInputStream(new FileInputStream(file),65536));
+		}catch(IOException ex){
+			throw new UncheckedIOException(ex);
+		}
+		try{
+			in.readInt();
+			in.readInt();
+			VarInt.readString(in);
+			VarInt.readString(in);
+		}catch(IOException ex){
+			close(in);
+			throw new UncheckedIOException(ex);
+		}
+		List<T> tokens=new ArrayList<>();
+		List<Category> categories=new ArrayList<>();
+		Iterator<Sample<Frequencies<T>>> iterator=new Iterator<Sample<Frequencies<T>>>(){
+			private int category=-1;
+			private boolean end=false;
+			@Override
+			public boolean hasNext(){
+				if(category==-1&&!end){
+					try{
+						category=VarInt.readInt(in)-1;
+						if(category==-1){
+							end=true;
+							in.close();
+						}else if(category==categories.size()){
+							categories.add(new Category(VarInt.readString(in)));
+						}else if(category>categories.size()){
+							throw new IOException("Invalid category "+category+" in "+file);
+						}
+					}catch(IOException ex){
+						end=true;
+						close(in);
+						throw new UncheckedIOException(ex);
+					}
+				}
+				return !end;
+			}
+			@Override
+			public Sample<Frequencies<T>> next(){
+				if(!hasNext()){
+					throw new NoSuchElementException();
+				}
+				try{
+					Frequencies<T> frequencies=new Frequencies<>(true);
+					for(int i=VarInt.readInt(in);i>0;i--){
+						int id=VarInt.readInt(in);
+						if(id==tokens.size()){
+							tokens.add(decoder.apply(VarInt.readString(in)));
+						}else if(id>tokens.size()){
+							throw new IOException("Invalid token ID "+id+" in "+file);
+						}
+						frequencies.advanceFrequency(tokens.get(id),VarInt.read(in));
+					}
+					Sample<Frequencies<T>> sample=new Sample<>(frequencies,categories.get(category));
+					category=-1;
+					return sample;
+				}catch(IOException ex){
+					throw new UncheckedIOException(ex);
+				}
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,Spliterator.ORDERED|Spliterator.NONNULL),false).onClose(()->close(in));
+	}
+	private static void close(InputStream in){
+		try{
+			in.close();
+		}catch(IOException ex){
+			throw new UncheckedIOException(ex);
+		}
+	}
+}
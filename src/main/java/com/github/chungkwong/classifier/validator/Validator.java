@@ -18,6 +18,7 @@ package com.github.chungkwong.classifier.validator;
 import com.github.chungkwong.classifier.*;
 import com.github.chungkwong.classifier.util.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.*;
 /**
  * Validator being used to evaluate classifier
@@ -25,24 +26,180 @@ import java.util.stream.*;
  * @param <T> the type of object to be classified
  */
 public class Validator<T>{
-	private final Map<Pair<ClassifierFactory,SplitDataSet<T>>,ConfusionMatrix> matrices=new HashMap<>();
+	private final Map<Pair<ClassifierFactory,SplitDataSet<T>>,ConfusionMatrix> matrices=new ConcurrentHashMap<>();
+	private Executor executor;
 	/**
 	 * Create a validator
 	 */
 	public Validator(){
 	}
+	/**
+	 * @return the executor being used to run validations, or null if
+	 * validations are run sequentially
+	 */
+	public Executor getExecutor(){
+		return executor;
+	}
+	/**
+	 * Set the executor being used to run validations. If a executor is set,
+	 * independent validations are run concurrently and test samples are
+	 * classified in parallel, so the classifiers and preprocessors should be
+	 * thread-safe. Test samples are classified in the executor if it is a
+	 * ForkJoinPool, or in the common pool otherwise. The confusion matrices
+	 * are the same as those of sequential validation.
+	 * @param executor the executor, or null to run validations sequentially
+	 * @return this
+	 */
+	public Validator<T> setExecutor(Executor executor){
+		this.executor=executor;
+		return this;
+	}
 	/**
 	 * Generate confusion matrix for specified datasets and classifier 
-	 * factories
+	 * factories, factories with the same model key share a model, which
+	 * is trained only once for each dataset
 	 * @param datasets
 	 * @param factories
+	 * @see ClassifierFactory#getModelKey()
 	 */
 	public void validate(SplitDataSet<T>[] datasets,ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T>[] factories){
+		Collection<List<ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T>>> groups=groupByModel(factories);
+		List<Runnable> jobs=new ArrayList<>();
 		for(SplitDataSet<T> dataset:datasets){
-			for(ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T> factory:factories){
-				validate(dataset,factory);
+			for(List<ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T>> group:groups){
+				jobs.add(()->validate(dataset,group));
 			}
 		}
+		run(jobs);
+	}
+	/**
+	 * Cross validate classifier factories and record the confusion matrices
+	 * for each fold. Models that can be merged are trained in a single pass
+	 * over the dataset: each sample is preprocessed and trained only once into
+	 * a partial model of its fold, and the models for the folds are then
+	 * merged from the partial models by divide and conquer, so that each
+	 * partial model is merged O(log k) times instead of k-1 times. Other
+	 * models are trained from the folds separately.
+	 * @param dataset the dataset
+	 * @param k the number of folds
+	 * @param seed the seed being used to assign samples to folds
+	 * @param factories the classifier factories
+	 * @return the folds, which are used as the datasets in the recorded
+	 * confusion matrices
+	 * @see DataDivider#kFoldSplit(DataSet, int, long)
+	 */
+	public SplitDataSet<T>[] crossValidate(DataSet<T> dataset,int k,long seed,ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T>[] factories){
+		SplitDataSet<T>[] folds=DataDivider.kFoldSplit(dataset,k,seed);
+		Map<List<ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T>>,List<Trainable<T>>> partials=new LinkedHashMap<>();
+		List<Runnable> jobs=new ArrayList<>();
+		for(List<ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T>> group:groupByModel(factories)){
+			List<Trainable<T>> models=new ArrayList<>(k);
+			for(int i=0;i<k;i++){
+				models.add(group.get(0).createModel());
+			}
+			if(isMergeable(models.get(0))){
+				partials.put(group,models);
+			}else{
+				for(SplitDataSet<T> fold:folds){
+					jobs.add(()->validate(fold,group));
+				}
+			}
+		}
+		if(!partials.isEmpty()){
+			long[] index=new long[]{0};
+			try(Stream<Sample<T>> samples=dataset.getSamples()){
+				samples.forEachOrdered((sample)->{
+					int fold=DataDivider.getFold(index[0]++,seed,k);
+					for(List<Trainable<T>> models:partials.values()){
+						models.get(fold).train(sample.getData(),sample.getCategory());
+					}
+				});
+			}
+			partials.forEach((group,models)->jobs.add(()->test(folds,group,models,0,k,group.get(0).createModel())));
+		}
+		run(jobs);
+		return folds;
+	}
+	/**
+	 * Test the folds in a range, the left half is tested with a copy of the
+	 * model merged with the partial models of the right half, and then the
+	 * right half is tested with the model itself merged with the partial
+	 * models of the left half
+	 * @param folds the folds
+	 * @param group the factories sharing the model
+	 * @param partials the partial model of each fold
+	 * @param from the first fold in the range
+	 * @param to the fold after the range
+	 * @param model a model containing the partial models outside the range,
+	 * which will be modified
+	 */
+	private void test(SplitDataSet<T>[] folds,List<ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T>> group,List<Trainable<T>> partials,int from,int to,Trainable<T> model){
+		if(to-from==1){
+			test(folds[from],group,model);
+			return;
+		}
+		int mid=(from+to)>>>1;
+		Trainable<T> left=group.get(0).createModel();
+		merge(left,model);
+		for(int i=mid;i<to;i++){
+			merge(left,partials.get(i));
+		}
+		test(folds,group,partials,from,mid,left);
+		for(int i=from;i<mid;i++){
+			merge(model,partials.get(i));
+		}
+		test(folds,group,partials,mid,to,model);
+	}
+	private static <T> Collection<List<ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T>>> groupByModel(ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T>[] factories){
+		Map<Object,List<ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T>>> groups=new LinkedHashMap<>();
+		for(ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T> factory:factories){
+			Object key=factory.getModelKey();
+			groups.computeIfAbsent(key!=null?key:new Object(),(k)->new ArrayList<>()).add(factory);
+		}
+		return groups.values();
+	}
+	private static boolean isMergeable(Trainable<?> model){
+		while(model instanceof PreprocessModel){
+			model=((PreprocessModel<?,?,?>)model).getUnderlying();
+		}
+		return model instanceof SimpleTrainableModel&&((SimpleTrainableModel<?,?>)model).isMergeable();
+	}
+	//models created by factories with the same model key have the same type
+	@SuppressWarnings("unchecked")
+	private static void merge(Trainable<?> target,Trainable<?> source){
+		while(target instanceof PreprocessModel){
+			target=((PreprocessModel<?,?,?>)target).getUnderlying();
+			source=((PreprocessModel<?,?,?>)source).getUnderlying();
+		}
+		((SimpleTrainableModel<Object,Object>)target).merge((SimpleTrainableModel<Object,Object>)source);
+	}
+	private void run(List<Runnable> jobs){
+		if(executor==null){
+			jobs.forEach(Runnable::run);
+		}else{
+			CompletableFuture.allOf(jobs.stream().map((job)->CompletableFuture.runAsync(job,executor)).toArray(CompletableFuture<?>[]::new)).join();
+		}
+	}
+	/**
+	 * Generate and record confusion matrices for factories sharing a model
+	 * @param dataset
+	 * @param group the factories, which should have the same model key
+	 */
+	private void validate(SplitDataSet<T> dataset,List<ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T>> group){
+		Trainable<T> model=group.get(0).createModel();
+		model.train(dataset.getTrainSamples());
+		test(dataset,group,model);
+	}
+	private void test(SplitDataSet<T> dataset,List<ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T>> group,Trainable<T> model){
+		for(ClassifierFactory<? extends Classifier<T>,? extends Trainable<T>,T> classifierFactory:group){
+			ConfusionMatrix matrix=validate(getTestSamples(dataset),getClassifier(classifierFactory,model));
+			matrices.put(new Pair<>(classifierFactory,dataset),matrix);
+		}
+	}
+	//factories with the same model key accept the models created by each other
+	@SuppressWarnings("unchecked")
+	private static <T,M extends Trainable<T>> Classifier<T> getClassifier(ClassifierFactory<? extends Classifier<T>,M,T> factory,Trainable<T> model){
+		return factory.getClassifier((M)model);
 	}
 	/**
 	 * @return Set of ClassifierFactory appeared in the matrix
@@ -71,10 +228,13 @@ public class Validator<T>{
 	 * @return confusion matrix
 	 */
 	public ConfusionMatrix validate(SplitDataSet<T> dataset,ClassifierFactory classifierFactory){
-		ConfusionMatrix matrix=validate(dataset.getTrainSamples(),dataset.getTestSamples(),classifierFactory);
+		ConfusionMatrix matrix=validate(dataset.getTrainSamples(),getTestSamples(dataset),classifierFactory);
 		matrices.put(new Pair<>(classifierFactory,dataset),matrix);
 		return matrix;
 	}
+	private Stream<Sample<T>> getTestSamples(SplitDataSet<T> dataset){
+		return executor!=null?dataset.getTestSamples().parallel():dataset.getTestSamples();
+	}
 	/**
 	 * @return the ClassifierFactory that produce the most accurate results
 	 */
@@ -141,18 +301,18 @@ public class Validator<T>{
 		return model;
 	}
 	/**
-	 * Generate confusion matrix
+	 * Generate confusion matrix, if the stream is parallel, the samples are
+	 * classified concurrently into partial matrices which are then merged
 	 * @param <T> the type of object to be classified
 	 * @param testSampleStream the test data source
 	 * @param classifier the classifier being tested
 	 * @return confusion matrix
 	 */
 	public static <T> ConfusionMatrix validate(Stream<Sample<T>> testSampleStream,Classifier<T> classifier){
-		ConfusionMatrix table=new ConfusionMatrix();
 		Long time=System.currentTimeMillis();
-		testSampleStream.forEach((sample)->{
-			table.advanceFrequency(sample.getCategory(),classifier.classify(sample.getData()).getCategory());
-		});
+		ConfusionMatrix table=testSampleStream.collect(ConfusionMatrix::new,(partial,sample)->{
+			partial.advanceFrequency(sample.getCategory(),classifier.classify(sample.getData()).getCategory());
+		},ConfusionMatrix::merge);
 		table.advanceTestTime(System.currentTimeMillis()-time);
 		return table;
 	}
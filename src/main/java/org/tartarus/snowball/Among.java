@@ -28,24 +28,28 @@ ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
 SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package org.tartarus.snowball;
-import java.lang.reflect.Method;
 public class Among{
+	/* routine being called when the search string matches, dispatched
+	 * through an interface instead of reflection since it is on the hot path */
+	@FunctionalInterface
+	public interface Routine<P extends SnowballProgram>{
+		boolean call(P program);
+	}
 	public Among(String s,int substring_i,int result){
 		this.s=s.toCharArray();
 		this.substring_i=substring_i;
 		this.result=result;
 		this.method=null;
 	}
-	public Among(String s,int substring_i,int result,String methodname,
-			Class<? extends SnowballProgram> programclass){
+	public <P extends SnowballProgram> Among(String s,int substring_i,int result,Routine<P> method){
 		this.s=s.toCharArray();
 		this.substring_i=substring_i;
 		this.result=result;
-		try{
-			this.method=programclass.getDeclaredMethod(methodname);
-		}catch(NoSuchMethodException e){
-			throw new RuntimeException(e);
-		}
+		/* the routine is only called with the program owning the among table,
+		 * which is a P */
+		@SuppressWarnings("unchecked")
+		Routine<SnowballProgram> routine=(Routine<SnowballProgram>)method;
+		this.method=routine;
 	}
 	public final char[] s;
 	/* search string */
@@ -53,6 +57,6 @@ public class Among{
 	/* index to longest matching substring */
 	public final int result;
 	/* result of the lookup */
-	public final Method method;
+	public final Routine<SnowballProgram> method;
 	/* method to use if substring matches */
 };
@@ -28,7 +28,6 @@ ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
 SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package org.tartarus.snowball;
-import java.lang.reflect.InvocationTargetException;
 import java.io.Serializable;
 public class SnowballProgram implements Serializable{
 	protected SnowballProgram(){
@@ -230,17 +229,7 @@ public class SnowballProgram implements Serializable{
 				if(w.method==null){
 					return w.result;
 				}
-				boolean res;
-				try{
-					Object resobj=w.method.invoke(this);
-					res=resobj.toString().equals("true");
-				}catch(InvocationTargetException e){
-					res=false;
-					// FIXME - debug message
-				}catch(IllegalAccessException e){
-					res=false;
-					// FIXME - debug message
-				}
+				boolean res=w.method.call(this);
 				cursor=c+w.s.length;
 				if(res){
 					return w.result;
@@ -305,17 +294,7 @@ public class SnowballProgram implements Serializable{
 				if(w.method==null){
 					return w.result;
 				}
-				boolean res;
-				try{
-					Object resobj=w.method.invoke(this);
-					res=resobj.toString().equals("true");
-				}catch(InvocationTargetException e){
-					res=false;
-					// FIXME - debug message
-				}catch(IllegalAccessException e){
-					res=false;
-					// FIXME - debug message
-				}
+				boolean res=w.method.call(this);
 				cursor=c-w.s.length;
 				if(res){
 					return w.result;
@@ -74,12 +74,12 @@ public class FinnishStemmer extends SnowballStemmer{
 		new Among("ksi",-1,-1),
 		new Among("n",-1,7),
 		new Among("han",11,1),
-		new Among("den",11,-1,"r_VI",FinnishStemmer.class),
-		new Among("seen",11,-1,"r_LONG",FinnishStemmer.class),
+		new Among("den",11,-1,FinnishStemmer::r_VI),
+		new Among("seen",11,-1,FinnishStemmer::r_LONG),
 		new Among("hen",11,2),
-		new Among("tten",11,-1,"r_VI",FinnishStemmer.class),
+		new Among("tten",11,-1,FinnishStemmer::r_VI),
 		new Among("hin",11,3),
-		new Among("siin",11,-1,"r_VI",FinnishStemmer.class),
+		new Among("siin",11,-1,FinnishStemmer::r_VI),
 		new Among("hon",11,4),
 		new Among("h\u00C3\u00A4n",11,5),
 		new Among("h\u00C3\u00B6n",11,6),
@@ -19,9 +19,9 @@ public class IndonesianStemmer extends SnowballStemmer{
 		new Among("mu",-1,1)
 	};
 	private final static Among a_2[]={
-		new Among("i",-1,1,"r_SUFFIX_I_OK",IndonesianStemmer.class),
-		new Among("an",-1,1,"r_SUFFIX_AN_OK",IndonesianStemmer.class),
-		new Among("kan",1,1,"r_SUFFIX_KAN_OK",IndonesianStemmer.class)
+		new Among("i",-1,1,IndonesianStemmer::r_SUFFIX_I_OK),
+		new Among("an",-1,1,IndonesianStemmer::r_SUFFIX_AN_OK),
+		new Among("kan",1,1,IndonesianStemmer::r_SUFFIX_KAN_OK)
 	};
 	private final static Among a_3[]={
 		new Among("di",-1,1),
@@ -30,15 +30,15 @@ public class IndonesianStemmer extends SnowballStemmer{
 		new Among("mem",2,5),
 		new Among("men",2,1),
 		new Among("meng",4,1),
-		new Among("meny",4,3,"r_VOWEL",IndonesianStemmer.class),
+		new Among("meny",4,3,IndonesianStemmer::r_VOWEL),
 		new Among("pem",-1,6),
 		new Among("pen",-1,2),
 		new Among("peng",8,2),
-		new Among("peny",8,4,"r_VOWEL",IndonesianStemmer.class),
+		new Among("peny",8,4,IndonesianStemmer::r_VOWEL),
 		new Among("ter",-1,1)
 	};
 	private final static Among a_4[]={
-		new Among("be",-1,3,"r_KER",IndonesianStemmer.class),
+		new Among("be",-1,3,IndonesianStemmer::r_KER),
 		new Among("belajar",0,4),
 		new Among("ber",0,3),
 		new Among("pe",-1,1),
@@ -20,300 +20,300 @@ public class LovinsStemmer extends SnowballStemmer{
 		new Among("t",-1,-1)
 	};
 	private final static Among a_1[]={
-		new Among("s'",-1,1,"r_A",LovinsStemmer.class),
-		new Among("a",-1,1,"r_A",LovinsStemmer.class),
-		new Among("ia",1,1,"r_A",LovinsStemmer.class),
-		new Among("ata",1,1,"r_A",LovinsStemmer.class),
-		new Among("ic",-1,1,"r_A",LovinsStemmer.class),
-		new Among("aic",4,1,"r_A",LovinsStemmer.class),
-		new Among("allic",4,1,"r_BB",LovinsStemmer.class),
-		new Among("aric",4,1,"r_A",LovinsStemmer.class),
-		new Among("atic",4,1,"r_B",LovinsStemmer.class),
-		new Among("itic",4,1,"r_H",LovinsStemmer.class),
-		new Among("antic",4,1,"r_C",LovinsStemmer.class),
-		new Among("istic",4,1,"r_A",LovinsStemmer.class),
-		new Among("alistic",11,1,"r_B",LovinsStemmer.class),
-		new Among("aristic",11,1,"r_A",LovinsStemmer.class),
-		new Among("ivistic",11,1,"r_A",LovinsStemmer.class),
-		new Among("ed",-1,1,"r_E",LovinsStemmer.class),
-		new Among("anced",15,1,"r_B",LovinsStemmer.class),
-		new Among("enced",15,1,"r_A",LovinsStemmer.class),
-		new Among("ished",15,1,"r_A",LovinsStemmer.class),
-		new Among("ied",15,1,"r_A",LovinsStemmer.class),
-		new Among("ened",15,1,"r_E",LovinsStemmer.class),
-		new Among("ioned",15,1,"r_A",LovinsStemmer.class),
-		new Among("ated",15,1,"r_I",LovinsStemmer.class),
-		new Among("ented",15,1,"r_C",LovinsStemmer.class),
-		new Among("ized",15,1,"r_F",LovinsStemmer.class),
-		new Among("arized",24,1,"r_A",LovinsStemmer.class),
-		new Among("oid",-1,1,"r_A",LovinsStemmer.class),
-		new Among("aroid",26,1,"r_A",LovinsStemmer.class),
-		new Among("hood",-1,1,"r_A",LovinsStemmer.class),
-		new Among("ehood",28,1,"r_A",LovinsStemmer.class),
-		new Among("ihood",28,1,"r_A",LovinsStemmer.class),
-		new Among("elihood",30,1,"r_E",LovinsStemmer.class),
-		new Among("ward",-1,1,"r_A",LovinsStemmer.class),
-		new Among("e",-1,1,"r_A",LovinsStemmer.class),
-		new Among("ae",33,1,"r_A",LovinsStemmer.class),
-		new Among("ance",33,1,"r_B",LovinsStemmer.class),
-		new Among("icance",35,1,"r_A",LovinsStemmer.class),
-		new Among("ence",33,1,"r_A",LovinsStemmer.class),
-		new Among("ide",33,1,"r_L",LovinsStemmer.class),
-		new Among("icide",38,1,"r_A",LovinsStemmer.class),
-		new Among("otide",38,1,"r_A",LovinsStemmer.class),
-		new Among("age",33,1,"r_B",LovinsStemmer.class),
-		new Among("able",33,1,"r_A",LovinsStemmer.class),
-		new Among("atable",42,1,"r_A",LovinsStemmer.class),
-		new Among("izable",42,1,"r_E",LovinsStemmer.class),
-		new Among("arizable",44,1,"r_A",LovinsStemmer.class),
-		new Among("ible",33,1,"r_A",LovinsStemmer.class),
-		new Among("encible",46,1,"r_A",LovinsStemmer.class),
-		new Among("ene",33,1,"r_E",LovinsStemmer.class),
-		new Among("ine",33,1,"r_M",LovinsStemmer.class),
-		new Among("idine",49,1,"r_I",LovinsStemmer.class),
-		new Among("one",33,1,"r_R",LovinsStemmer.class),
-		new Among("ature",33,1,"r_E",LovinsStemmer.class),
-		new Among("eature",52,1,"r_Z",LovinsStemmer.class),
-		new Among("ese",33,1,"r_A",LovinsStemmer.class),
-		new Among("wise",33,1,"r_A",LovinsStemmer.class),
-		new Among("ate",33,1,"r_A",LovinsStemmer.class),
-		new Among("entiate",56,1,"r_A",LovinsStemmer.class),
-		new Among("inate",56,1,"r_A",LovinsStemmer.class),
-		new Among("ionate",56,1,"r_D",LovinsStemmer.class),
-		new Among("ite",33,1,"r_AA",LovinsStemmer.class),
-		new Among("ive",33,1,"r_A",LovinsStemmer.class),
-		new Among("ative",61,1,"r_A",LovinsStemmer.class),
-		new Among("ize",33,1,"r_F",LovinsStemmer.class),
-		new Among("alize",63,1,"r_A",LovinsStemmer.class),
-		new Among("icalize",64,1,"r_A",LovinsStemmer.class),
-		new Among("ialize",64,1,"r_A",LovinsStemmer.class),
-		new Among("entialize",66,1,"r_A",LovinsStemmer.class),
-		new Among("ionalize",64,1,"r_A",LovinsStemmer.class),
-		new Among("arize",63,1,"r_A",LovinsStemmer.class),
-		new Among("ing",-1,1,"r_N",LovinsStemmer.class),
-		new Among("ancing",70,1,"r_B",LovinsStemmer.class),
-		new Among("encing",70,1,"r_A",LovinsStemmer.class),
-		new Among("aging",70,1,"r_B",LovinsStemmer.class),
-		new Among("ening",70,1,"r_E",LovinsStemmer.class),
-		new Among("ioning",70,1,"r_A",LovinsStemmer.class),
-		new Among("ating",70,1,"r_I",LovinsStemmer.class),
-		new Among("enting",70,1,"r_C",LovinsStemmer.class),
-		new Among("ying",70,1,"r_B",LovinsStemmer.class),
-		new Among("izing",70,1,"r_F",LovinsStemmer.class),
-		new Among("arizing",79,1,"r_A",LovinsStemmer.class),
-		new Among("ish",-1,1,"r_C",LovinsStemmer.class),
-		new Among("yish",81,1,"r_A",LovinsStemmer.class),
-		new Among("i",-1,1,"r_A",LovinsStemmer.class),
-		new Among("al",-1,1,"r_BB",LovinsStemmer.class),
-		new Among("ical",84,1,"r_A",LovinsStemmer.class),
-		new Among("aical",85,1,"r_A",LovinsStemmer.class),
-		new Among("istical",85,1,"r_A",LovinsStemmer.class),
-		new Among("oidal",84,1,"r_A",LovinsStemmer.class),
-		new Among("eal",84,1,"r_Y",LovinsStemmer.class),
-		new Among("ial",84,1,"r_A",LovinsStemmer.class),
-		new Among("ancial",90,1,"r_A",LovinsStemmer.class),
-		new Among("arial",90,1,"r_A",LovinsStemmer.class),
-		new Among("ential",90,1,"r_A",LovinsStemmer.class),
-		new Among("ional",84,1,"r_A",LovinsStemmer.class),
-		new Among("ational",94,1,"r_B",LovinsStemmer.class),
-		new Among("izational",95,1,"r_A",LovinsStemmer.class),
-		new Among("ental",84,1,"r_A",LovinsStemmer.class),
-		new Among("ful",-1,1,"r_A",LovinsStemmer.class),
-		new Among("eful",98,1,"r_A",LovinsStemmer.class),
-		new Among("iful",98,1,"r_A",LovinsStemmer.class),
-		new Among("yl",-1,1,"r_R",LovinsStemmer.class),
-		new Among("ism",-1,1,"r_B",LovinsStemmer.class),
-		new Among("icism",102,1,"r_A",LovinsStemmer.class),
-		new Among("oidism",102,1,"r_A",LovinsStemmer.class),
-		new Among("alism",102,1,"r_B",LovinsStemmer.class),
-		new Among("icalism",105,1,"r_A",LovinsStemmer.class),
-		new Among("ionalism",105,1,"r_A",LovinsStemmer.class),
-		new Among("inism",102,1,"r_J",LovinsStemmer.class),
-		new Among("ativism",102,1,"r_A",LovinsStemmer.class),
-		new Among("um",-1,1,"r_U",LovinsStemmer.class),
-		new Among("ium",110,1,"r_A",LovinsStemmer.class),
-		new Among("ian",-1,1,"r_A",LovinsStemmer.class),
-		new Among("ician",112,1,"r_A",LovinsStemmer.class),
-		new Among("en",-1,1,"r_F",LovinsStemmer.class),
-		new Among("ogen",114,1,"r_A",LovinsStemmer.class),
-		new Among("on",-1,1,"r_S",LovinsStemmer.class),
-		new Among("ion",116,1,"r_Q",LovinsStemmer.class),
-		new Among("ation",117,1,"r_B",LovinsStemmer.class),
-		new Among("ication",118,1,"r_G",LovinsStemmer.class),
-		new Among("entiation",118,1,"r_A",LovinsStemmer.class),
-		new Among("ination",118,1,"r_A",LovinsStemmer.class),
-		new Among("isation",118,1,"r_A",LovinsStemmer.class),
-		new Among("arisation",122,1,"r_A",LovinsStemmer.class),
-		new Among("entation",118,1,"r_A",LovinsStemmer.class),
-		new Among("ization",118,1,"r_F",LovinsStemmer.class),
-		new Among("arization",125,1,"r_A",LovinsStemmer.class),
-		new Among("action",117,1,"r_G",LovinsStemmer.class),
-		new Among("o",-1,1,"r_A",LovinsStemmer.class),
-		new Among("ar",-1,1,"r_X",LovinsStemmer.class),
-		new Among("ear",129,1,"r_Y",LovinsStemmer.class),
-		new Among("ier",-1,1,"r_A",LovinsStemmer.class),
-		new Among("ariser",-1,1,"r_A",LovinsStemmer.class),
-		new Among("izer",-1,1,"r_F",LovinsStemmer.class),
-		new Among("arizer",133,1,"r_A",LovinsStemmer.class),
-		new Among("or",-1,1,"r_T",LovinsStemmer.class),
-		new Among("ator",135,1,"r_A",LovinsStemmer.class),
-		new Among("s",-1,1,"r_W",LovinsStemmer.class),
-		new Among("'s",137,1,"r_A",LovinsStemmer.class),
-		new Among("as",137,1,"r_B",LovinsStemmer.class),
-		new Among("ics",137,1,"r_A",LovinsStemmer.class),
-		new Among("istics",140,1,"r_A",LovinsStemmer.class),
-		new Among("es",137,1,"r_E",LovinsStemmer.class),
-		new Among("ances",142,1,"r_B",LovinsStemmer.class),
-		new Among("ences",142,1,"r_A",LovinsStemmer.class),
-		new Among("ides",142,1,"r_L",LovinsStemmer.class),
-		new Among("oides",145,1,"r_A",LovinsStemmer.class),
-		new Among("ages",142,1,"r_B",LovinsStemmer.class),
-		new Among("ies",142,1,"r_P",LovinsStemmer.class),
-		new Among("acies",148,1,"r_A",LovinsStemmer.class),
-		new Among("ancies",148,1,"r_A",LovinsStemmer.class),
-		new Among("encies",148,1,"r_A",LovinsStemmer.class),
-		new Among("aries",148,1,"r_A",LovinsStemmer.class),
-		new Among("ities",148,1,"r_A",LovinsStemmer.class),
-		new Among("alities",153,1,"r_A",LovinsStemmer.class),
-		new Among("ivities",153,1,"r_A",LovinsStemmer.class),
-		new Among("ines",142,1,"r_M",LovinsStemmer.class),
-		new Among("nesses",142,1,"r_A",LovinsStemmer.class),
-		new Among("ates",142,1,"r_A",LovinsStemmer.class),
-		new Among("atives",142,1,"r_A",LovinsStemmer.class),
-		new Among("ings",137,1,"r_N",LovinsStemmer.class),
-		new Among("is",137,1,"r_A",LovinsStemmer.class),
-		new Among("als",137,1,"r_BB",LovinsStemmer.class),
-		new Among("ials",162,1,"r_A",LovinsStemmer.class),
-		new Among("entials",163,1,"r_A",LovinsStemmer.class),
-		new Among("ionals",162,1,"r_A",LovinsStemmer.class),
-		new Among("isms",137,1,"r_B",LovinsStemmer.class),
-		new Among("ians",137,1,"r_A",LovinsStemmer.class),
-		new Among("icians",167,1,"r_A",LovinsStemmer.class),
-		new Among("ions",137,1,"r_B",LovinsStemmer.class),
-		new Among("ations",169,1,"r_B",LovinsStemmer.class),
-		new Among("arisations",170,1,"r_A",LovinsStemmer.class),
-		new Among("entations",170,1,"r_A",LovinsStemmer.class),
-		new Among("izations",170,1,"r_A",LovinsStemmer.class),
-		new Among("arizations",173,1,"r_A",LovinsStemmer.class),
-		new Among("ars",137,1,"r_O",LovinsStemmer.class),
-		new Among("iers",137,1,"r_A",LovinsStemmer.class),
-		new Among("izers",137,1,"r_F",LovinsStemmer.class),
-		new Among("ators",137,1,"r_A",LovinsStemmer.class),
-		new Among("less",137,1,"r_A",LovinsStemmer.class),
-		new Among("eless",179,1,"r_A",LovinsStemmer.class),
-		new Among("ness",137,1,"r_A",LovinsStemmer.class),
-		new Among("eness",181,1,"r_E",LovinsStemmer.class),
-		new Among("ableness",182,1,"r_A",LovinsStemmer.class),
-		new Among("eableness",183,1,"r_E",LovinsStemmer.class),
-		new Among("ibleness",182,1,"r_A",LovinsStemmer.class),
-		new Among("ateness",182,1,"r_A",LovinsStemmer.class),
-		new Among("iteness",182,1,"r_A",LovinsStemmer.class),
-		new Among("iveness",182,1,"r_A",LovinsStemmer.class),
-		new Among("ativeness",188,1,"r_A",LovinsStemmer.class),
-		new Among("ingness",181,1,"r_A",LovinsStemmer.class),
-		new Among("ishness",181,1,"r_A",LovinsStemmer.class),
-		new Among("iness",181,1,"r_A",LovinsStemmer.class),
-		new Among("ariness",192,1,"r_E",LovinsStemmer.class),
-		new Among("alness",181,1,"r_A",LovinsStemmer.class),
-		new Among("icalness",194,1,"r_A",LovinsStemmer.class),
-		new Among("antialness",194,1,"r_A",LovinsStemmer.class),
-		new Among("entialness",194,1,"r_A",LovinsStemmer.class),
-		new Among("ionalness",194,1,"r_A",LovinsStemmer.class),
-		new Among("fulness",181,1,"r_A",LovinsStemmer.class),
-		new Among("lessness",181,1,"r_A",LovinsStemmer.class),
-		new Among("ousness",181,1,"r_A",LovinsStemmer.class),
-		new Among("eousness",201,1,"r_A",LovinsStemmer.class),
-		new Among("iousness",201,1,"r_A",LovinsStemmer.class),
-		new Among("itousness",201,1,"r_A",LovinsStemmer.class),
-		new Among("entness",181,1,"r_A",LovinsStemmer.class),
-		new Among("ants",137,1,"r_B",LovinsStemmer.class),
-		new Among("ists",137,1,"r_A",LovinsStemmer.class),
-		new Among("icists",207,1,"r_A",LovinsStemmer.class),
-		new Among("us",137,1,"r_V",LovinsStemmer.class),
-		new Among("ous",209,1,"r_A",LovinsStemmer.class),
-		new Among("eous",210,1,"r_A",LovinsStemmer.class),
-		new Among("aceous",211,1,"r_A",LovinsStemmer.class),
-		new Among("antaneous",211,1,"r_A",LovinsStemmer.class),
-		new Among("ious",210,1,"r_A",LovinsStemmer.class),
-		new Among("acious",214,1,"r_B",LovinsStemmer.class),
-		new Among("itous",210,1,"r_A",LovinsStemmer.class),
-		new Among("ant",-1,1,"r_B",LovinsStemmer.class),
-		new Among("icant",217,1,"r_A",LovinsStemmer.class),
-		new Among("ent",-1,1,"r_C",LovinsStemmer.class),
-		new Among("ement",219,1,"r_A",LovinsStemmer.class),
-		new Among("izement",220,1,"r_A",LovinsStemmer.class),
-		new Among("ist",-1,1,"r_A",LovinsStemmer.class),
-		new Among("icist",222,1,"r_A",LovinsStemmer.class),
-		new Among("alist",222,1,"r_A",LovinsStemmer.class),
-		new Among("icalist",224,1,"r_A",LovinsStemmer.class),
-		new Among("ialist",224,1,"r_A",LovinsStemmer.class),
-		new Among("ionist",222,1,"r_A",LovinsStemmer.class),
-		new Among("entist",222,1,"r_A",LovinsStemmer.class),
-		new Among("y",-1,1,"r_B",LovinsStemmer.class),
-		new Among("acy",229,1,"r_A",LovinsStemmer.class),
-		new Among("ancy",229,1,"r_B",LovinsStemmer.class),
-		new Among("ency",229,1,"r_A",LovinsStemmer.class),
-		new Among("ly",229,1,"r_B",LovinsStemmer.class),
-		new Among("ealy",233,1,"r_Y",LovinsStemmer.class),
-		new Among("ably",233,1,"r_A",LovinsStemmer.class),
-		new Among("ibly",233,1,"r_A",LovinsStemmer.class),
-		new Among("edly",233,1,"r_E",LovinsStemmer.class),
-		new Among("iedly",237,1,"r_A",LovinsStemmer.class),
-		new Among("ely",233,1,"r_E",LovinsStemmer.class),
-		new Among("ately",239,1,"r_A",LovinsStemmer.class),
-		new Among("ively",239,1,"r_A",LovinsStemmer.class),
-		new Among("atively",241,1,"r_A",LovinsStemmer.class),
-		new Among("ingly",233,1,"r_B",LovinsStemmer.class),
-		new Among("atingly",243,1,"r_A",LovinsStemmer.class),
-		new Among("ily",233,1,"r_A",LovinsStemmer.class),
-		new Among("lily",245,1,"r_A",LovinsStemmer.class),
-		new Among("arily",245,1,"r_A",LovinsStemmer.class),
-		new Among("ally",233,1,"r_B",LovinsStemmer.class),
-		new Among("ically",248,1,"r_A",LovinsStemmer.class),
-		new Among("aically",249,1,"r_A",LovinsStemmer.class),
-		new Among("allically",249,1,"r_C",LovinsStemmer.class),
-		new Among("istically",249,1,"r_A",LovinsStemmer.class),
-		new Among("alistically",252,1,"r_B",LovinsStemmer.class),
-		new Among("oidally",248,1,"r_A",LovinsStemmer.class),
-		new Among("ially",248,1,"r_A",LovinsStemmer.class),
-		new Among("entially",255,1,"r_A",LovinsStemmer.class),
-		new Among("ionally",248,1,"r_A",LovinsStemmer.class),
-		new Among("ationally",257,1,"r_B",LovinsStemmer.class),
-		new Among("izationally",258,1,"r_B",LovinsStemmer.class),
-		new Among("entally",248,1,"r_A",LovinsStemmer.class),
-		new Among("fully",233,1,"r_A",LovinsStemmer.class),
-		new Among("efully",261,1,"r_A",LovinsStemmer.class),
-		new Among("ifully",261,1,"r_A",LovinsStemmer.class),
-		new Among("enly",233,1,"r_E",LovinsStemmer.class),
-		new Among("arly",233,1,"r_K",LovinsStemmer.class),
-		new Among("early",265,1,"r_Y",LovinsStemmer.class),
-		new Among("lessly",233,1,"r_A",LovinsStemmer.class),
-		new Among("ously",233,1,"r_A",LovinsStemmer.class),
-		new Among("eously",268,1,"r_A",LovinsStemmer.class),
-		new Among("iously",268,1,"r_A",LovinsStemmer.class),
-		new Among("ently",233,1,"r_A",LovinsStemmer.class),
-		new Among("ary",229,1,"r_F",LovinsStemmer.class),
-		new Among("ery",229,1,"r_E",LovinsStemmer.class),
-		new Among("icianry",229,1,"r_A",LovinsStemmer.class),
-		new Among("atory",229,1,"r_A",LovinsStemmer.class),
-		new Among("ity",229,1,"r_A",LovinsStemmer.class),
-		new Among("acity",276,1,"r_A",LovinsStemmer.class),
-		new Among("icity",276,1,"r_A",LovinsStemmer.class),
-		new Among("eity",276,1,"r_A",LovinsStemmer.class),
-		new Among("ality",276,1,"r_A",LovinsStemmer.class),
-		new Among("icality",280,1,"r_A",LovinsStemmer.class),
-		new Among("iality",280,1,"r_A",LovinsStemmer.class),
-		new Among("antiality",282,1,"r_A",LovinsStemmer.class),
-		new Among("entiality",282,1,"r_A",LovinsStemmer.class),
-		new Among("ionality",280,1,"r_A",LovinsStemmer.class),
-		new Among("elity",276,1,"r_A",LovinsStemmer.class),
-		new Among("ability",276,1,"r_A",LovinsStemmer.class),
-		new Among("izability",287,1,"r_A",LovinsStemmer.class),
-		new Among("arizability",288,1,"r_A",LovinsStemmer.class),
-		new Among("ibility",276,1,"r_A",LovinsStemmer.class),
-		new Among("inity",276,1,"r_CC",LovinsStemmer.class),
-		new Among("arity",276,1,"r_B",LovinsStemmer.class),
-		new Among("ivity",276,1,"r_A",LovinsStemmer.class)
+		new Among("s'",-1,1,LovinsStemmer::r_A),
+		new Among("a",-1,1,LovinsStemmer::r_A),
+		new Among("ia",1,1,LovinsStemmer::r_A),
+		new Among("ata",1,1,LovinsStemmer::r_A),
+		new Among("ic",-1,1,LovinsStemmer::r_A),
+		new Among("aic",4,1,LovinsStemmer::r_A),
+		new Among("allic",4,1,LovinsStemmer::r_BB),
+		new Among("aric",4,1,LovinsStemmer::r_A),
+		new Among("atic",4,1,LovinsStemmer::r_B),
+		new Among("itic",4,1,LovinsStemmer::r_H),
+		new Among("antic",4,1,LovinsStemmer::r_C),
+		new Among("istic",4,1,LovinsStemmer::r_A),
+		new Among("alistic",11,1,LovinsStemmer::r_B),
+		new Among("aristic",11,1,LovinsStemmer::r_A),
+		new Among("ivistic",11,1,LovinsStemmer::r_A),
+		new Among("ed",-1,1,LovinsStemmer::r_E),
+		new Among("anced",15,1,LovinsStemmer::r_B),
+		new Among("enced",15,1,LovinsStemmer::r_A),
+		new Among("ished",15,1,LovinsStemmer::r_A),
+		new Among("ied",15,1,LovinsStemmer::r_A),
+		new Among("ened",15,1,LovinsStemmer::r_E),
+		new Among("ioned",15,1,LovinsStemmer::r_A),
+		new Among("ated",15,1,LovinsStemmer::r_I),
+		new Among("ented",15,1,LovinsStemmer::r_C),
+		new Among("ized",15,1,LovinsStemmer::r_F),
+		new Among("arized",24,1,LovinsStemmer::r_A),
+		new Among("oid",-1,1,LovinsStemmer::r_A),
+		new Among("aroid",26,1,LovinsStemmer::r_A),
+		new Among("hood",-1,1,LovinsStemmer::r_A),
+		new Among("ehood",28,1,LovinsStemmer::r_A),
+		new Among("ihood",28,1,LovinsStemmer::r_A),
+		new Among("elihood",30,1,LovinsStemmer::r_E),
+		new Among("ward",-1,1,LovinsStemmer::r_A),
+		new Among("e",-1,1,LovinsStemmer::r_A),
+		new Among("ae",33,1,LovinsStemmer::r_A),
+		new Among("ance",33,1,LovinsStemmer::r_B),
+		new Among("icance",35,1,LovinsStemmer::r_A),
+		new Among("ence",33,1,LovinsStemmer::r_A),
+		new Among("ide",33,1,LovinsStemmer::r_L),
+		new Among("icide",38,1,LovinsStemmer::r_A),
+		new Among("otide",38,1,LovinsStemmer::r_A),
+		new Among("age",33,1,LovinsStemmer::r_B),
+		new Among("able",33,1,LovinsStemmer::r_A),
+		new Among("atable",42,1,LovinsStemmer::r_A),
+		new Among("izable",42,1,LovinsStemmer::r_E),
+		new Among("arizable",44,1,LovinsStemmer::r_A),
+		new Among("ible",33,1,LovinsStemmer::r_A),
+		new Among("encible",46,1,LovinsStemmer::r_A),
+		new Among("ene",33,1,LovinsStemmer::r_E),
+		new Among("ine",33,1,LovinsStemmer::r_M),
+		new Among("idine",49,1,LovinsStemmer::r_I),
+		new Among("one",33,1,LovinsStemmer::r_R),
+		new Among("ature",33,1,LovinsStemmer::r_E),
+		new Among("eature",52,1,LovinsStemmer::r_Z),
+		new Among("ese",33,1,LovinsStemmer::r_A),
+		new Among("wise",33,1,LovinsStemmer::r_A),
+		new Among("ate",33,1,LovinsStemmer::r_A),
+		new Among("entiate",56,1,LovinsStemmer::r_A),
+		new Among("inate",56,1,LovinsStemmer::r_A),
+		new Among("ionate",56,1,LovinsStemmer::r_D),
+		new Among("ite",33,1,LovinsStemmer::r_AA),
+		new Among("ive",33,1,LovinsStemmer::r_A),
+		new Among("ative",61,1,LovinsStemmer::r_A),
+		new Among("ize",33,1,LovinsStemmer::r_F),
+		new Among("alize",63,1,LovinsStemmer::r_A),
+		new Among("icalize",64,1,LovinsStemmer::r_A),
+		new Among("ialize",64,1,LovinsStemmer::r_A),
+		new Among("entialize",66,1,LovinsStemmer::r_A),
+		new Among("ionalize",64,1,LovinsStemmer::r_A),
+		new Among("arize",63,1,LovinsStemmer::r_A),
+		new Among("ing",-1,1,LovinsStemmer::r_N),
+		new Among("ancing",70,1,LovinsStemmer::r_B),
+		new Among("encing",70,1,LovinsStemmer::r_A),
+		new Among("aging",70,1,LovinsStemmer::r_B),
+		new Among("ening",70,1,LovinsStemmer::r_E),
+		new Among("ioning",70,1,LovinsStemmer::r_A),
+		new Among("ating",70,1,LovinsStemmer::r_I),
+		new Among("enting",70,1,LovinsStemmer::r_C),
+		new Among("ying",70,1,LovinsStemmer::r_B),
+		new Among("izing",70,1,LovinsStemmer::r_F),
+		new Among("arizing",79,1,LovinsStemmer::r_A),
+		new Among("ish",-1,1,LovinsStemmer::r_C),
+		new Among("yish",81,1,LovinsStemmer::r_A),
+		new Among("i",-1,1,LovinsStemmer::r_A),
+		new Among("al",-1,1,LovinsStemmer::r_BB),
+		new Among("ical",84,1,LovinsStemmer::r_A),
+		new Among("aical",85,1,LovinsStemmer::r_A),
+		new Among("istical",85,1,LovinsStemmer::r_A),
+		new Among("oidal",84,1,LovinsStemmer::r_A),
+		new Among("eal",84,1,LovinsStemmer::r_Y),
+		new Among("ial",84,1,LovinsStemmer::r_A),
+		new Among("ancial",90,1,LovinsStemmer::r_A),
+		new Among("arial",90,1,LovinsStemmer::r_A),
+		new Among("ential",90,1,LovinsStemmer::r_A),
+		new Among("ional",84,1,LovinsStemmer::r_A),
+		new Among("ational",94,1,LovinsStemmer::r_B),
+		new Among("izational",95,1,LovinsStemmer::r_A),
+		new Among("ental",84,1,LovinsStemmer::r_A),
+		new Among("ful",-1,1,LovinsStemmer::r_A),
+		new Among("eful",98,1,LovinsStemmer::r_A),
+		new Among("iful",98,1,LovinsStemmer::r_A),
+		new Among("yl",-1,1,LovinsStemmer::r_R),
+		new Among("ism",-1,1,LovinsStemmer::r_B),
+		new Among("icism",102,1,LovinsStemmer::r_A),
+		new Among("oidism",102,1,LovinsStemmer::r_A),
+		new Among("alism",102,1,LovinsStemmer::r_B),
+		new Among("icalism",105,1,LovinsStemmer::r_A),
+		new Among("ionalism",105,1,LovinsStemmer::r_A),
+		new Among("inism",102,1,LovinsStemmer::r_J),
+		new Among("ativism",102,1,LovinsStemmer::r_A),
+		new Among("um",-1,1,LovinsStemmer::r_U),
+		new Among("ium",110,1,LovinsStemmer::r_A),
+		new Among("ian",-1,1,LovinsStemmer::r_A),
+		new Among("ician",112,1,LovinsStemmer::r_A),
+		new Among("en",-1,1,LovinsStemmer::r_F),
+		new Among("ogen",114,1,LovinsStemmer::r_A),
+		new Among("on",-1,1,LovinsStemmer::r_S),
+		new Among("ion",116,1,LovinsStemmer::r_Q),
+		new Among("ation",117,1,LovinsStemmer::r_B),
+		new Among("ication",118,1,LovinsStemmer::r_G),
+		new Among("entiation",118,1,LovinsStemmer::r_A),
+		new Among("ination",118,1,LovinsStemmer::r_A),
+		new Among("isation",118,1,LovinsStemmer::r_A),
+		new Among("arisation",122,1,LovinsStemmer::r_A),
+		new Among("entation",118,1,LovinsStemmer::r_A),
+		new Among("ization",118,1,LovinsStemmer::r_F),
+		new Among("arization",125,1,LovinsStemmer::r_A),
+		new Among("action",117,1,LovinsStemmer::r_G),
+		new Among("o",-1,1,LovinsStemmer::r_A),
+		new Among("ar",-1,1,LovinsStemmer::r_X),
+		new Among("ear",129,1,LovinsStemmer::r_Y),
+		new Among("ier",-1,1,LovinsStemmer::r_A),
+		new Among("ariser",-1,1,LovinsStemmer::r_A),
+		new Among("izer",-1,1,LovinsStemmer::r_F),
+		new Among("arizer",133,1,LovinsStemmer::r_A),
+		new Among("or",-1,1,LovinsStemmer::r_T),
+		new Among("ator",135,1,LovinsStemmer::r_A),
+		new Among("s",-1,1,LovinsStemmer::r_W),
+		new Among("'s",137,1,LovinsStemmer::r_A),
+		new Among("as",137,1,LovinsStemmer::r_B),
+		new Among("ics",137,1,LovinsStemmer::r_A),
+		new Among("istics",140,1,LovinsStemmer::r_A),
+		new Among("es",137,1,LovinsStemmer::r_E),
+		new Among("ances",142,1,LovinsStemmer::r_B),
+		new Among("ences",142,1,LovinsStemmer::r_A),
+		new Among("ides",142,1,LovinsStemmer::r_L),
+		new Among("oides",145,1,LovinsStemmer::r_A),
+		new Among("ages",142,1,LovinsStemmer::r_B),
+		new Among("ies",142,1,LovinsStemmer::r_P),
+		new Among("acies",148,1,LovinsStemmer::r_A),
+		new Among("ancies",148,1,LovinsStemmer::r_A),
+		new Among("encies",148,1,LovinsStemmer::r_A),
+		new Among("aries",148,1,LovinsStemmer::r_A),
+		new Among("ities",148,1,LovinsStemmer::r_A),
+		new Among("alities",153,1,LovinsStemmer::r_A),
+		new Among("ivities",153,1,LovinsStemmer::r_A),
+		new Among("ines",142,1,LovinsStemmer::r_M),
+		new Among("nesses",142,1,LovinsStemmer::r_A),
+		new Among("ates",142,1,LovinsStemmer::r_A),
+		new Among("atives",142,1,LovinsStemmer::r_A),
+		new Among("ings",137,1,LovinsStemmer::r_N),
+		new Among("is",137,1,LovinsStemmer::r_A),
+		new Among("als",137,1,LovinsStemmer::r_BB),
+		new Among("ials",162,1,LovinsStemmer::r_A),
+		new Among("entials",163,1,LovinsStemmer::r_A),
+		new Among("ionals",162,1,LovinsStemmer::r_A),
+		new Among("isms",137,1,LovinsStemmer::r_B),
+		new Among("ians",137,1,LovinsStemmer::r_A),
+		new Among("icians",167,1,LovinsStemmer::r_A),
+		new Among("ions",137,1,LovinsStemmer::r_B),
+		new Among("ations",169,1,LovinsStemmer::r_B),
+		new Among("arisations",170,1,LovinsStemmer::r_A),
+		new Among("entations",170,1,LovinsStemmer::r_A),
+		new Among("izations",170,1,LovinsStemmer::r_A),
+		new Among("arizations",173,1,LovinsStemmer::r_A),
+		new Among("ars",137,1,LovinsStemmer::r_O),
+		new Among("iers",137,1,LovinsStemmer::r_A),
+		new Among("izers",137,1,LovinsStemmer::r_F),
+		new Among("ators",137,1,LovinsStemmer::r_A),
+		new Among("less",137,1,LovinsStemmer::r_A),
+		new Among("eless",179,1,LovinsStemmer::r_A),
+		new Among("ness",137,1,LovinsStemmer::r_A),
+		new Among("eness",181,1,LovinsStemmer::r_E),
+		new Among("ableness",182,1,LovinsStemmer::r_A),
+		new Among("eableness",183,1,LovinsStemmer::r_E),
+		new Among("ibleness",182,1,LovinsStemmer::r_A),
+		new Among("ateness",182,1,LovinsStemmer::r_A),
+		new Among("iteness",182,1,LovinsStemmer::r_A),
+		new Among("iveness",182,1,LovinsStemmer::r_A),
+		new Among("ativeness",188,1,LovinsStemmer::r_A),
+		new Among("ingness",181,1,LovinsStemmer::r_A),
+		new Among("ishness",181,1,LovinsStemmer::r_A),
+		new Among("iness",181,1,LovinsStemmer::r_A),
+		new Among("ariness",192,1,LovinsStemmer::r_E),
+		new Among("alness",181,1,LovinsStemmer::r_A),
+		new Among("icalness",194,1,LovinsStemmer::r_A),
+		new Among("antialness",194,1,LovinsStemmer::r_A),
+		new Among("entialness",194,1,LovinsStemmer::r_A),
+		new Among("ionalness",194,1,LovinsStemmer::r_A),
+		new Among("fulness",181,1,LovinsStemmer::r_A),
+		new Among("lessness",181,1,LovinsStemmer::r_A),
+		new Among("ousness",181,1,LovinsStemmer::r_A),
+		new Among("eousness",201,1,LovinsStemmer::r_A),
+		new Among("iousness",201,1,LovinsStemmer::r_A),
+		new Among("itousness",201,1,LovinsStemmer::r_A),
+		new Among("entness",181,1,LovinsStemmer::r_A),
+		new Among("ants",137,1,LovinsStemmer::r_B),
+		new Among("ists",137,1,LovinsStemmer::r_A),
+		new Among("icists",207,1,LovinsStemmer::r_A),
+		new Among("us",137,1,LovinsStemmer::r_V),
+		new Among("ous",209,1,LovinsStemmer::r_A),
+		new Among("eous",210,1,LovinsStemmer::r_A),
+		new Among("aceous",211,1,LovinsStemmer::r_A),
+		new Among("antaneous",211,1,LovinsStemmer::r_A),
+		new Among("ious",210,1,LovinsStemmer::r_A),
+		new Among("acious",214,1,LovinsStemmer::r_B),
+		new Among("itous",210,1,LovinsStemmer::r_A),
+		new Among("ant",-1,1,LovinsStemmer::r_B),
+		new Among("icant",217,1,LovinsStemmer::r_A),
+		new Among("ent",-1,1,LovinsStemmer::r_C),
+		new Among("ement",219,1,LovinsStemmer::r_A),
+		new Among("izement",220,1,LovinsStemmer::r_A),
+		new Among("ist",-1,1,LovinsStemmer::r_A),
+		new Among("icist",222,1,LovinsStemmer::r_A),
+		new Among("alist",222,1,LovinsStemmer::r_A),
+		new Among("icalist",224,1,LovinsStemmer::r_A),
+		new Among("ialist",224,1,LovinsStemmer::r_A),
+		new Among("ionist",222,1,LovinsStemmer::r_A),
+		new Among("entist",222,1,LovinsStemmer::r_A),
+		new Among("y",-1,1,LovinsStemmer::r_B),
+		new Among("acy",229,1,LovinsStemmer::r_A),
+		new Among("ancy",229,1,LovinsStemmer::r_B),
+		new Among("ency",229,1,LovinsStemmer::r_A),
+		new Among("ly",229,1,LovinsStemmer::r_B),
+		new Among("ealy",233,1,LovinsStemmer::r_Y),
+		new Among("ably",233,1,LovinsStemmer::r_A),
+		new Among("ibly",233,1,LovinsStemmer::r_A),
+		new Among("edly",233,1,LovinsStemmer::r_E),
+		new Among("iedly",237,1,LovinsStemmer::r_A),
+		new Among("ely",233,1,LovinsStemmer::r_E),
+		new Among("ately",239,1,LovinsStemmer::r_A),
+		new Among("ively",239,1,LovinsStemmer::r_A),
+		new Among("atively",241,1,LovinsStemmer::r_A),
+		new Among("ingly",233,1,LovinsStemmer::r_B),
+		new Among("atingly",243,1,LovinsStemmer::r_A),
+		new Among("ily",233,1,LovinsStemmer::r_A),
+		new Among("lily",245,1,LovinsStemmer::r_A),
+		new Among("arily",245,1,LovinsStemmer::r_A),
+		new Among("ally",233,1,LovinsStemmer::r_B),
+		new Among("ically",248,1,LovinsStemmer::r_A),
+		new Among("aically",249,1,LovinsStemmer::r_A),
+		new Among("allically",249,1,LovinsStemmer::r_C),
+		new Among("istically",249,1,LovinsStemmer::r_A),
+		new Among("alistically",252,1,LovinsStemmer::r_B),
+		new Among("oidally",248,1,LovinsStemmer::r_A),
+		new Among("ially",248,1,LovinsStemmer::r_A),
+		new Among("entially",255,1,LovinsStemmer::r_A),
+		new Among("ionally",248,1,LovinsStemmer::r_A),
+		new Among("ationally",257,1,LovinsStemmer::r_B),
+		new Among("izationally",258,1,LovinsStemmer::r_B),
+		new Among("entally",248,1,LovinsStemmer::r_A),
+		new Among("fully",233,1,LovinsStemmer::r_A),
+		new Among("efully",261,1,LovinsStemmer::r_A),
+		new Among("ifully",261,1,LovinsStemmer::r_A),
+		new Among("enly",233,1,LovinsStemmer::r_E),
+		new Among("arly",233,1,LovinsStemmer::r_K),
+		new Among("early",265,1,LovinsStemmer::r_Y),
+		new Among("lessly",233,1,LovinsStemmer::r_A),
+		new Among("ously",233,1,LovinsStemmer::r_A),
+		new Among("eously",268,1,LovinsStemmer::r_A),
+		new Among("iously",268,1,LovinsStemmer::r_A),
+		new Among("ently",233,1,LovinsStemmer::r_A),
+		new Among("ary",229,1,LovinsStemmer::r_F),
+		new Among("ery",229,1,LovinsStemmer::r_E),
+		new Among("icianry",229,1,LovinsStemmer::r_A),
+		new Among("atory",229,1,LovinsStemmer::r_A),
+		new Among("ity",229,1,LovinsStemmer::r_A),
+		new Among("acity",276,1,LovinsStemmer::r_A),
+		new Among("icity",276,1,LovinsStemmer::r_A),
+		new Among("eity",276,1,LovinsStemmer::r_A),
+		new Among("ality",276,1,LovinsStemmer::r_A),
+		new Among("icality",280,1,LovinsStemmer::r_A),
+		new Among("iality",280,1,LovinsStemmer::r_A),
+		new Among("antiality",282,1,LovinsStemmer::r_A),
+		new Among("entiality",282,1,LovinsStemmer::r_A),
+		new Among("ionality",280,1,LovinsStemmer::r_A),
+		new Among("elity",276,1,LovinsStemmer::r_A),
+		new Among("ability",276,1,LovinsStemmer::r_A),
+		new Among("izability",287,1,LovinsStemmer::r_A),
+		new Among("arizability",288,1,LovinsStemmer::r_A),
+		new Among("ibility",276,1,LovinsStemmer::r_A),
+		new Among("inity",276,1,LovinsStemmer::r_CC),
+		new Among("arity",276,1,LovinsStemmer::r_B),
+		new Among("ivity",276,1,LovinsStemmer::r_A)
 	};
 	private final static Among a_2[]={
 		new Among("bb",-1,-1),
@@ -0,0 +1,530 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier;
+import com.github.chungkwong.classifier.util.*;
+import com.github.chungkwong.classifier.validator.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
+import org.junit.*;
+/**
+ *
+ * @author Chan Chung Kwong
+ */
+public class ClassifierFactoryTests{
+	private static final String[] WORDS=("apple banana cherry durian grape lemon mango melon orange peach pear plum "
+			+"car bus train plane ship bike truck road wheel engine fuel speed "
+			+"cat dog bird fish horse cow sheep goat mouse lion tiger bear").split(" ");
+	private static final Category[] CATEGORIES=new Category[]{new Category("fruit"),new Category("vehicle"),new Category("animal")};
+	public ClassifierFactoryTests(){
+	}
+	static List<Sample<Frequencies<String>>> getSamples(int count,long seed){
+		Random random=new Random(seed);
+		List<Sample<Frequencies<String>>> samples=new ArrayList<>(count);
+		for(int i=0;i<count;i++){
+			int category=random.nextInt(CATEGORIES.length);
+			int length=random.nextInt(8)+1;
+			List<String> tokens=new ArrayList<>(length);
+			for(int j=0;j<length;j++){
+				int word=random.nextInt(5)==0?random.nextInt(WORDS.length):category*12+random.nextInt(12);
+				tokens.add(WORDS[word]);
+			}
+			if(random.nextInt(10)==0){
+				tokens.add("unknown"+random.nextInt(100));
+			}
+			samples.add(new Sample<>(new Frequencies<>(tokens.stream()),CATEGORIES[category]));
+		}
+		return samples;
+	}
+	@Test
+	public void testBayesian(){
+		BayesianClassifierFactory<String> factory=new BayesianClassifierFactory<>();
+		FrequenciesModel<String> model=factory.createModel();
+		model.train(getSamples(300,0).stream());
+		Classifier<Frequencies<String>> classifier=factory.getClassifier(model);
+		for(Sample<Frequencies<String>> sample:getSamples(100,1)){
+			Map<Category,Double> expected=getBayesianScores(model,sample.getData());
+			double max=expected.values().stream().mapToDouble((d)->d).max().getAsDouble();
+			List<ClassificationResult> candidates=classifier.getCandidates(sample.getData());
+			Assert.assertEquals(expected.size(),candidates.size());
+			for(ClassificationResult candidate:candidates){
+				Assert.assertEquals(expected.get(candidate.getCategory())/max,candidate.getScore(),1e-9);
+			}
+		}
+		assertAccurate(factory,model,0.8);
+	}
+	private static Map<Category,Double> getBayesianScores(FrequenciesModel<String> model,Frequencies<String> document){
+		Map<Category,Double> scores=new HashMap<>();
+		long documentCount=model.getSampleCount();
+		Frequencies<String> total=model.getTotalTokenFrequencies();
+		model.getProfiles().forEach((category,profile)->{
+			Frequencies<String> frequencies=profile.getTokenFrequencies();
+			double score=1;
+			for(String token:document.toMap().keySet()){
+				long frequency=frequencies.getFrequency(token);
+				double tokenProbability=frequency!=0?((double)frequency)/frequencies.getTokenCount():1.0/frequencies.getTokenCount();
+				long totalFrequency=total.getFrequency(token);
+				double probability=totalFrequency!=0?((double)totalFrequency)/total.getTokenCount():1.0/total.getTokenCount();
+				score*=((double)profile.getDocumentCount())/documentCount*tokenProbability/probability;
+			}
+			scores.put(category,score);
+		});
+		return scores;
+	}
+	@Test
+	public void testTfIdf(){
+		for(TfIdfFormula formula:new TfIdfFormula[]{TfIdfFormula.STANDARD,TfIdfFormula.FREQUENCY,TfIdfFormula.THREHOLD}){
+			TfIdfClassifierFactory<String> factory=new TfIdfClassifierFactory<String>().setTfIdfFormula(formula);
+			FrequenciesModel<String> model=factory.createModel();
+			model.train(getSamples(300,0).stream());
+			Classifier<Frequencies<String>> classifier=factory.getClassifier(model);
+			for(Sample<Frequencies<String>> sample:getSamples(100,1)){
+				Map<Category,Double> expected=getTfIdfScores(model,sample.getData(),formula);
+				List<ClassificationResult> candidates=classifier.getCandidates(sample.getData());
+				Assert.assertEquals(expected.size(),candidates.size());
+				for(ClassificationResult candidate:candidates){
+					Assert.assertEquals(expected.get(candidate.getCategory()),candidate.getScore(),1e-9);
+				}
+			}
+		}
+		TfIdfClassifierFactory<String> factory=new TfIdfClassifierFactory<>();
+		FrequenciesModel<String> model=factory.createModel();
+		model.train(getSamples(300,0).stream());
+		assertAccurate(factory,model,0.8);
+	}
+	private static Map<Category,Double> getTfIdfScores(FrequenciesModel<String> model,Frequencies<String> document,TfIdfFormula formula){
+		Map<Category,Double> scores=new HashMap<>();
+		long documentCount=model.getSampleCount();
+		Frequencies<String> documentFrequencies=model.getTotalDocumentFrequencies();
+		model.getProfiles().forEach((category,profile)->{
+			Frequencies<String> frequencies=profile.getTokenFrequencies();
+			double product=0,documentNorm=0,categoryNorm=0;
+			for(Map.Entry<String,Counter> entry:document.toMap().entrySet()){
+				long documentFrequency=documentFrequencies.getFrequency(entry.getKey());
+				double tfidf=formula.calculate(entry.getValue().getCount(),documentFrequency,documentCount);
+				if(Double.isFinite(tfidf)){
+					documentNorm+=tfidf*tfidf;
+				}
+				if(documentFrequency!=0){
+					product+=tfidf*formula.calculate(frequencies.getFrequency(entry.getKey()),documentFrequency,documentCount);
+				}
+			}
+			for(Map.Entry<String,Counter> entry:frequencies.toMap().entrySet()){
+				double tfidf=formula.calculate(entry.getValue().getCount(),documentFrequencies.getFrequency(entry.getKey()),documentCount);
+				categoryNorm+=tfidf*tfidf;
+			}
+			scores.put(category,documentNorm>0?product*product/(documentNorm*categoryNorm):0);
+		});
+		return scores;
+	}
+	@Test
+	public void testIndexedModel(){
+		FrequenciesModel<String> model=new FrequenciesModel<>();
+		model.train(getSamples(300,0).stream());
+		IndexedFrequenciesModel<String> indexedModel=new IndexedFrequenciesModel<>();
+		getSamples(300,0).forEach((sample)->indexedModel.train(sample.getData(),sample.getCategory()));
+		BayesianClassifierFactory<String> bayesian=new BayesianClassifierFactory<>();
+		TfIdfClassifierFactory<String> tfIdf=new TfIdfClassifierFactory<>();
+		assertSameCandidates(bayesian.getClassifier(model),bayesian.createClassifier(indexedModel),indexedModel.getVocabulary());
+		assertSameCandidates(tfIdf.getClassifier(model),tfIdf.createClassifier(indexedModel),indexedModel.getVocabulary());
+	}
+	private static void assertSameCandidates(Classifier<Frequencies<String>> expected,Classifier<SparseVector> actual,Vocabulary<String> vocabulary){
+		for(Sample<Frequencies<String>> sample:getSamples(100,1)){
+			Map<Category,Double> scores=new HashMap<>();
+			expected.getCandidates(sample.getData()).forEach((candidate)->scores.put(candidate.getCategory(),candidate.getScore()));
+			List<ClassificationResult> candidates=actual.getCandidates(vocabulary.toVector(sample.getData(),true));
+			Assert.assertEquals(scores.size(),candidates.size());
+			for(ClassificationResult candidate:candidates){
+				Assert.assertEquals(scores.get(candidate.getCategory()),candidate.getScore(),1e-9);
+			}
+		}
+	}
+	@Test
+	public void testKNearest(){
+		KNearestClassifierFactory<String> factory=new KNearestClassifierFactory<String>().setK(5).setMetric(KNearestClassifierFactory.Metric.COSINE);
+		DocumentVectorsModel<String> model=factory.createModel();
+		model.train(getSamples(300,0).stream());
+		Classifier<Frequencies<String>> classifier=factory.getClassifier(model);
+		for(Sample<Frequencies<String>> sample:getSamples(100,1)){
+			Map<Category,Double> expected=getKNearestScores(model,sample.getData(),5);
+			List<ClassificationResult> candidates=classifier.getCandidates(sample.getData());
+			Assert.assertEquals(expected.size(),candidates.size());
+			for(ClassificationResult candidate:candidates){
+				Assert.assertEquals(expected.get(candidate.getCategory()),candidate.getScore(),1e-9);
+			}
+		}
+		assertAccurate(factory,model,0.8);
+		assertAccurate(new KNearestClassifierFactory<String>().setK(5),model,0.6);
+	}
+	@Test
+	public void testApproximateKNearest() throws IOException{
+		KNearestClassifierFactory<String> factory=new KNearestClassifierFactory<String>().setK(5).setMetric(KNearestClassifierFactory.Metric.HNSW);
+		DocumentVectorsModel<String> model=factory.createModel();
+		model.train(getSamples(300,0).stream());
+		assertAccurate(factory,model,0.8);
+		KNearestClassifierFactory.ApproximateKNearestClassifier<String> classifier=(KNearestClassifierFactory.ApproximateKNearestClassifier<String>)factory.getClassifier(factory.createModel());
+		classifier.train(getSamples(300,0).stream());
+		Assert.assertTrue(Validator.validate(getSamples(200,2).stream(),classifier).getAccuracy()>=0.8);
+		File directory=new File(Files.createTempDirectory("hnsw").toFile(),"classifier");
+		factory.saveClassifier(classifier,directory,(token)->token);
+		KNearestClassifierFactory.ApproximateKNearestClassifier<String> loaded=(KNearestClassifierFactory.ApproximateKNearestClassifier<String>)factory.loadClassifier(directory,(token)->token);
+		for(Sample<Frequencies<String>> sample:getSamples(100,1)){
+			Assert.assertEquals(classifier.getCandidates(sample.getData()),loaded.getCandidates(sample.getData()));
+		}
+		classifier.train(getSamples(100,3).stream());
+		loaded.train(getSamples(100,3).stream());
+		for(Sample<Frequencies<String>> sample:getSamples(100,1)){
+			Assert.assertEquals(classifier.getCandidates(sample.getData()),loaded.getCandidates(sample.getData()));
+		}
+		try{
+			new KNearestClassifierFactory<String>().setMetric(KNearestClassifierFactory.Metric.HNSW).setTfIdfFormula(TfIdfFormula.FREQUENCY).loadClassifier(directory,(token)->token);
+			Assert.fail();
+		}catch(IOException ex){
+		}
+		Files.walk(directory.getParentFile().toPath()).sorted(Comparator.reverseOrder()).forEach((path)->path.toFile().delete());
+	}
+	private static Map<Category,Double> getKNearestScores(DocumentVectorsModel<String> model,Frequencies<String> document,int k){
+		long documentCount=model.getSampleCount();
+		Frequencies<String> documentFrequencies=model.getTotalDocumentFrequencies();
+		Map<String,Double> unknown=getNormalizedTfIdf(document,documentFrequencies,documentCount);
+		List<Category> categories=new ArrayList<>();
+		List<Double> distances=new ArrayList<>();
+		model.getProfiles().forEach((category,profile)->{
+			for(Frequencies<String> vector:profile.getDocumentVectors()){
+				Map<String,Double> known=getNormalizedTfIdf(vector,documentFrequencies,documentCount);
+				Set<String> tokens=new HashSet<>(known.keySet());
+				tokens.addAll(unknown.keySet());
+				categories.add(category);
+				distances.add(tokens.stream().mapToDouble((token)->{
+					double diff=known.getOrDefault(token,0.0)-unknown.getOrDefault(token,0.0);
+					return diff*diff;
+				}).sum());
+			}
+		});
+		return IntStream.range(0,categories.size()).boxed().sorted(Comparator.comparing(distances::get)).limit(k).
+				collect(Collectors.groupingBy(categories::get,Collectors.summingDouble((i)->1.0/k)));
+	}
+	private static Map<String,Double> getNormalizedTfIdf(Frequencies<String> vector,Frequencies<String> documentFrequencies,long documentCount){
+		Map<String,Double> tfidf=new HashMap<>();
+		vector.toMap().forEach((token,count)->{
+			long documentFrequency=documentFrequencies.getFrequency(token);
+			if(documentFrequency!=0){
+				tfidf.put(token,TfIdfFormula.STANDARD.calculate(count.getCount(),documentFrequency,documentCount));
+			}
+		});
+		double norm=Math.sqrt(tfidf.values().stream().mapToDouble((w)->w*w).sum());
+		tfidf.replaceAll((token,w)->w/norm);
+		return tfidf;
+	}
+	@Test
+	public void testC45(){
+		C45ClassifierFactory<String> factory=new C45ClassifierFactory<>();
+		DocumentVectorsModel<String> model=factory.createModel();
+		model.train(getSamples(300,0).stream());
+		assertAccurate(factory,model,0.6);
+	}
+	@Test
+	public void testSvm(){
+		SvmClassifierFactory<String> factory=new SvmClassifierFactory<>();
+		DocumentVectorsModel<String> model=factory.createModel();
+		model.train(getSamples(300,0).stream());
+		assertAccurate(factory,model,0.8);
+	}
+	@Test
+	public void testPersistClassifiers() throws IOException{
+		assertPersistable(new BayesianClassifierFactory<>());
+		assertPersistable(new TfIdfClassifierFactory<>());
+		assertPersistable(new C45ClassifierFactory<>());
+		assertPersistable(new SvmClassifierFactory<>());
+		File directory=Files.createTempDirectory("classifier").toFile();
+		BayesianClassifierFactory<String> factory=new BayesianClassifierFactory<>();
+		FrequenciesModel<String> model=factory.createModel();
+		model.train(getSamples(100,0).stream());
+		factory.saveClassifier(factory.getClassifier(model),directory,(token)->token);
+		try{
+			new TfIdfClassifierFactory<String>().loadClassifier(directory,(token)->token);
+			Assert.fail();
+		}catch(IOException ex){
+		}
+		assertPersistable(new TfIdfClassifierFactory<String>().setTfIdfFormula(TfIdfFormula.FREQUENCY));
+		assertPersistable(new SvmClassifierFactory<String>().setTfIdfFormula(TfIdfFormula.THREHOLD));
+		TfIdfClassifierFactory<String> tfIdf=new TfIdfClassifierFactory<String>().setTfIdfFormula(TfIdfFormula.FREQUENCY);
+		tfIdf.saveClassifier(tfIdf.getClassifier(model),directory,(token)->token);
+		try{
+			new TfIdfClassifierFactory<String>().loadClassifier(directory,(token)->token);
+			Assert.fail();
+		}catch(IOException ex){
+		}
+		SvmClassifierFactory<String> svm=new SvmClassifierFactory<>();
+		DocumentVectorsModel<String> vectors=svm.createModel();
+		vectors.train(getSamples(100,0).stream());
+		svm.saveClassifier(svm.getClassifier(vectors),directory,(token)->token);
+		try{
+			new SvmClassifierFactory<String>().setTfIdfFormula(TfIdfFormula.FREQUENCY).loadClassifier(directory,(token)->token);
+			Assert.fail();
+		}catch(IOException ex){
+		}
+		Files.walk(directory.toPath()).sorted(Comparator.reverseOrder()).forEach((path)->path.toFile().delete());
+	}
+	@Test
+	public void testSvmVocabularySnapshot() throws IOException{
+		SvmClassifierFactory<String> factory=new SvmClassifierFactory<>();
+		DocumentVectorsModel<String> model=factory.createModel();
+		model.train(getSamples(300,0).stream());
+		Set<String> toKeep=new HashSet<>(Arrays.asList("apple","car","cat"));
+		Classifier<Frequencies<String>> classifier=factory.getClassifier(model.filter(toKeep));
+		model.train(new Frequencies<>(Stream.of("unrelated")),new Category("other"));
+		File directory=Files.createTempDirectory("classifier").toFile();
+		factory.saveClassifier(classifier,directory,(token)->token);
+		ByteBuffer in=ClassifierFiles.open(directory,"SVM");
+		ClassifierFiles.checkFormula(in,factory.getTfIdfFormula());
+		ClassifierFiles.readCategories(in);
+		Vocabulary<String> vocabulary=ClassifierFiles.readVocabulary(in,(token)->token);
+		Assert.assertEquals(toKeep,IntStream.range(0,vocabulary.size()).mapToObj(vocabulary::getToken).collect(Collectors.toSet()));
+		Files.walk(directory.toPath()).sorted(Comparator.reverseOrder()).forEach((path)->path.toFile().delete());
+	}
+	private static <F extends BagClassifierFactory<Classifier<Frequencies<String>>,M,String>&PersistableClassifierFactory<Classifier<Frequencies<String>>,String>,M extends TokenFrequenciesModel<String>> void assertPersistable(F factory) throws IOException{
+		M model=factory.createModel();
+		model.train(getSamples(1000,0).stream());
+		Classifier<Frequencies<String>> classifier=factory.getClassifier(model);
+		File directory=Files.createTempDirectory("classifier").toFile();
+		factory.saveClassifier(classifier,directory,(token)->token);
+		Classifier<Frequencies<String>> loaded=factory.loadClassifier(directory,(token)->token);
+		for(Sample<Frequencies<String>> sample:getSamples(200,1)){
+			Assert.assertEquals(classifier.getCandidates(sample.getData()),loaded.getCandidates(sample.getData()));
+		}
+		Files.walk(directory.toPath()).sorted(Comparator.reverseOrder()).forEach((path)->path.toFile().delete());
+	}
+	@Test
+	public void testFeatureSelection(){
+		assertFiltered(new BayesianClassifierFactory<>());
+		assertFiltered(new TfIdfClassifierFactory<>());
+		assertFiltered(new KNearestClassifierFactory<>());
+		assertFiltered(new C45ClassifierFactory<>());
+		assertFiltered(new SvmClassifierFactory<>());
+	}
+	private static <M extends TokenFrequenciesModel<String>> void assertFiltered(BagClassifierFactory<? extends Classifier<Frequencies<String>>,M,String> factory){
+		List<Sample<Frequencies<String>>> samples=getSamples(1000,0);
+		M model=factory.createModel();
+		model.train(samples.stream());
+		M retained=factory.createModel();
+		retained.train(samples.stream());
+		Map<String,Counter> before=new HashMap<>(model.getTotalTokenFrequencies().toMap());
+		factory.setFeatureSelector(new TfIdfFeatureSelector<>(15));
+		Classifier<Frequencies<String>> filtered=factory.getClassifier(model);
+		Assert.assertEquals(before,model.getTotalTokenFrequencies().toMap());
+		Set<String> selected=new TfIdfFeatureSelector<M,String>(15).select(model,null);
+		Assert.assertEquals(selected,model.filter(selected).getTotalTokenFrequencies().toMap().keySet());
+		retained.retainAll(selected);
+		factory.setFeatureSelector(null);
+		Classifier<Frequencies<String>> expected=factory.getClassifier(retained);
+		for(Sample<Frequencies<String>> sample:getSamples(200,1)){
+			Assert.assertEquals(expected.classify(sample.getData()).getCategory(),filtered.classify(sample.getData()).getCategory());
+		}
+	}
+	static <M extends TokenFrequenciesModel<String>> void assertAccurate(BagClassifierFactory<? extends Classifier<Frequencies<String>>,M,String> factory,M model,double accuracy){
+		Classifier<Frequencies<String>> classifier=factory.getClassifier(model);
+		Stream<Sample<Frequencies<String>>> test=getSamples(200,2).stream();
+		Assert.assertTrue(Validator.validate(test,classifier).getAccuracy()>=accuracy);
+	}
+	@Test
+	public void testSharedModel(){
+		List<Sample<Frequencies<String>>> train=getSamples(300,0);
+		List<Sample<Frequencies<String>>> test=getSamples(100,1);
+		Counter preprocessed=new Counter();
+		Function<Frequencies<String>,Frequencies<String>> preprocessor=(data)->{
+			preprocessed.advance();
+			return data;
+		};
+		ClassifierFactory[] factories=new ClassifierFactory[]{
+			new PreprocessClassifierFactory<>(preprocessor,new BayesianClassifierFactory<>()),
+			new PreprocessClassifierFactory<>(preprocessor,new C45ClassifierFactory<>()),
+			new PreprocessClassifierFactory<>(preprocessor,new TfIdfClassifierFactory<>()),
+			new PreprocessClassifierFactory<>(preprocessor,new SvmClassifierFactory<>())};
+		Assert.assertEquals(factories[0].getModelKey(),factories[2].getModelKey());
+		Assert.assertEquals(factories[1].getModelKey(),factories[3].getModelKey());
+		Assert.assertNotEquals(factories[0].getModelKey(),factories[1].getModelKey());
+		BayesianClassifierFactory<String> hashed=new BayesianClassifierFactory<String>(){
+			@Override
+			public FrequenciesModel<String> createModel(){
+				return new FrequenciesModel<>(Frequencies.Backend.HASH_MAP);
+			}
+		};
+		Assert.assertNotEquals(new BayesianClassifierFactory<String>().getModelKey(),hashed.getModelKey());
+		Assert.assertNotEquals(new TfIdfClassifierFactory<String>().getModelKey(),hashed.getModelKey());
+		Assert.assertEquals(hashed.getModelKey(),hashed.getModelKey());
+		SplitDataSet<Frequencies<String>> dataset=new SplitDataSet<>(()->train.stream(),()->test.stream(),"test");
+		Validator<Frequencies<String>> validator=new Validator<>();
+		validator.validate(new SplitDataSet[]{dataset},factories);
+		Assert.assertEquals(2*train.size()+factories.length*test.size(),preprocessed.getCount());
+		for(ClassifierFactory factory:factories){
+			ConfusionMatrix expected=Validator.validate(train.stream(),test.stream(),factory);
+			Assert.assertEquals(expected,validator.getFrequency(factory,dataset));
+		}
+	}
+	@Test
+	public void testParallelValidation(){
+		List<Sample<Frequencies<String>>> train=getSamples(300,0);
+		List<Sample<Frequencies<String>>> test=getSamples(500,1);
+		ClassifierFactory[] factories=new ClassifierFactory[]{new BayesianClassifierFactory<>(),new TfIdfClassifierFactory<>(),
+			new KNearestClassifierFactory<>(),new C45ClassifierFactory<>(),new SvmClassifierFactory<>()};
+		SplitDataSet[] datasets=new SplitDataSet[]{new SplitDataSet<>(()->train.stream(),()->test.stream(),"first"),
+			new SplitDataSet<>(()->test.stream(),()->train.stream(),"second")};
+		Validator<Frequencies<String>> sequential=new Validator<>();
+		sequential.validate(datasets,factories);
+		ForkJoinPool pool=new ForkJoinPool(4);
+		try{
+			Validator<Frequencies<String>> parallel=new Validator<Frequencies<String>>().setExecutor(pool);
+			parallel.validate(datasets,factories);
+			for(ClassifierFactory factory:factories){
+				for(SplitDataSet dataset:datasets){
+					Assert.assertEquals(sequential.getFrequency(factory,dataset),parallel.getFrequency(factory,dataset));
+				}
+			}
+		}finally{
+			pool.shutdown();
+		}
+	}
+	@Test
+	public void testCrossValidation(){
+		List<Sample<Frequencies<String>>> samples=getSamples(600,0);
+		DataSet<Frequencies<String>> dataset=new DataSet<>(()->samples.stream(),"test");
+		SplitDataSet<Frequencies<String>>[] folds=DataDivider.kFoldSplit(dataset,5,7);
+		Set<Sample<Frequencies<String>>> tested=Collections.newSetFromMap(new IdentityHashMap<>());
+		for(SplitDataSet<Frequencies<String>> fold:folds){
+			Assert.assertEquals(samples.size(),fold.getTrainSamples().count()+fold.getTestSamples().count());
+			fold.getTestSamples().forEach(tested::add);
+			Assert.assertEquals(fold.getTestSamples().collect(Collectors.toList()),fold.getTestSamples().parallel().collect(Collectors.toList()));
+		}
+		Assert.assertEquals(samples.size(),tested.size());
+		Counter preprocessed=new Counter();
+		Function<Frequencies<String>,Frequencies<String>> preprocessor=(data)->{
+			preprocessed.advance();
+			return data;
+		};
+		ClassifierFactory[] factories=new ClassifierFactory[]{
+			new PreprocessClassifierFactory<>(preprocessor,new BayesianClassifierFactory<>()),
+			new PreprocessClassifierFactory<>(preprocessor,new TfIdfClassifierFactory<>())};
+		Validator<Frequencies<String>> validator=new Validator<>();
+		SplitDataSet<Frequencies<String>>[] validated=validator.crossValidate(dataset,5,7,factories);
+		Assert.assertEquals(samples.size()*(1+factories.length),preprocessed.getCount());
+		for(int i=0;i<folds.length;i++){
+			for(ClassifierFactory factory:factories){
+				ConfusionMatrix expected=Validator.validate(folds[i].getTrainSamples(),folds[i].getTestSamples(),factory);
+				Assert.assertEquals(expected,validator.getFrequency(factory,validated[i]));
+			}
+		}
+	}
+	@Test
+	public void testSplit(){
+		List<Sample<Frequencies<String>>> samples=getSamples(1000,0);
+		DataSet<Frequencies<String>> dataset=new DataSet<>(()->samples.stream(),"test");
+		SplitDataSet<Frequencies<String>> random=DataDivider.randomSplit(dataset,0.7,3);
+		List<Sample<Frequencies<String>>> train=random.getTrainSamples().collect(Collectors.toList());
+		Assert.assertEquals(train,DataDivider.randomSplit(dataset,0.7,3).getTrainSamples().collect(Collectors.toList()));
+		Assert.assertEquals(train,random.getTrainSamples().parallel().collect(Collectors.toList()));
+		Assert.assertEquals(samples.size(),train.size()+random.getTestSamples().count());
+		Assert.assertEquals(700,train.size(),50);
+		SplitDataSet<Frequencies<String>> stratified=DataDivider.stratifiedSplit(dataset,0.7,3);
+		Map<Category,Long> all=samples.stream().collect(Collectors.groupingBy(Sample::getCategory,Collectors.counting()));
+		Map<Category,Long> trained=stratified.getTrainSamples().collect(Collectors.groupingBy(Sample::getCategory,Collectors.counting()));
+		Map<Category,Long> tested=stratified.getTestSamples().collect(Collectors.groupingBy(Sample::getCategory,Collectors.counting()));
+		for(Category category:CATEGORIES){
+			Assert.assertEquals(all.get(category)*0.7,trained.get(category),1.0);
+			Assert.assertEquals((long)all.get(category),trained.get(category)+tested.get(category));
+		}
+	}
+	@Test
+	public void testDataSetCache() throws IOException{
+		List<Sample<Frequencies<String>>> samples=getSamples(300,0);
+		DataSet<Frequencies<String>> dataset=new DataSet<>(()->samples.stream(),"test");
+		Counter preprocessed=new Counter();
+		Function<Frequencies<String>,Frequencies<String>> preprocessor=(data)->{
+			preprocessed.advance();
+			return data;
+		};
+		File directory=Files.createTempDirectory("cache").toFile();
+		try{
+			DataSet<Frequencies<String>> cached=DataSetCache.cache(dataset,preprocessor,"identity",directory);
+			Assert.assertEquals(samples.size(),preprocessed.getCount());
+			Assert.assertEquals(samples,cached.getSamples().collect(Collectors.toList()));
+			cached=DataSetCache.cache(dataset,preprocessor,"identity",directory);
+			Assert.assertEquals(samples.size(),preprocessed.getCount());
+			Assert.assertEquals(samples,cached.getSamples().collect(Collectors.toList()));
+			DataSetCache.cache(dataset,preprocessor,"other",directory);
+			Assert.assertEquals(2*samples.size(),preprocessed.getCount());
+			Iterator<Sample<Frequencies<String>>> iterator=cached.getSamples().iterator();
+			while(iterator.hasNext()){
+				iterator.next();
+			}
+			Assert.assertFalse(iterator.hasNext());
+			File descriptors=new File("/proc/self/fd");
+			if(descriptors.isDirectory()){
+				int open=descriptors.list().length;
+				for(int i=0;i<100;i++){
+					Assert.assertEquals(samples.size(),cached.getSamples().count());
+				}
+				Assert.assertEquals(open,descriptors.list().length,10);
+			}
+		}finally{
+			Files.walk(directory.toPath()).sorted(Comparator.reverseOrder()).forEach((path)->path.toFile().delete());
+		}
+	}
+	@Test
+	public void testCorruptDataSetCache() throws IOException{
+		Frequencies<String> frequencies=new Frequencies<>();
+		frequencies.advanceFrequency("x",1);
+		Category category=new Category("a");
+		DataSet<Frequencies<String>> dataset=new DataSet<>(()->Stream.of(new Sample<>(frequencies,category),new Sample<>(frequencies,category)),"test");
+		File directory=Files.createTempDirectory("cache").toFile();
+		try{
+			DataSet<Frequencies<String>> cached=DataSetCache.cache(dataset,Function.identity(),"identity",directory);
+			File file=directory.listFiles()[0];
+			byte[] bytes=Files.readAllBytes(file.toPath());
+			Assert.assertArrayEquals(new byte[]{1,1,0,1,0},Arrays.copyOfRange(bytes,bytes.length-5,bytes.length));
+			bytes[bytes.length-3]=2;
+			Files.write(file.toPath(),bytes);
+			assertCorrupt(cached);
+			bytes[bytes.length-3]=0;
+			bytes[bytes.length-5]=3;
+			Files.write(file.toPath(),bytes);
+			assertCorrupt(cached);
+			DataSet<Frequencies<String>> failing=new DataSet<>(()->Stream.of(new Sample<>(frequencies,category)),"failing");
+			try{
+				DataSetCache.cache(failing,(data)->{
+					throw new IllegalStateException();
+				},"identity",directory);
+				Assert.fail();
+			}catch(IllegalStateException ex){
+			}
+			Assert.assertEquals(1,directory.list().length);
+		}finally{
+			Files.walk(directory.toPath()).sorted(Comparator.reverseOrder()).forEach((path)->path.toFile().delete());
+		}
+	}
+	private static void assertCorrupt(DataSet<Frequencies<String>> dataset){
+		try(Stream<Sample<Frequencies<String>>> samples=dataset.getSamples()){
+			samples.count();
+			Assert.fail();
+		}catch(UncheckedIOException ex){
+		}
+	}
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier;
+import com.github.chungkwong.classifier.util.*;
+import com.github.chungkwong.classifier.validator.*;
+import java.io.*;
+import java.net.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
+import org.junit.*;
+/**
+ *
+ * @author Chan Chung Kwong
+ */
+public class ModelTests{
+	public ModelTests(){
+	}
+	@Test
+	public void testDocumentVectors() throws IOException{
+		List<Sample<Frequencies<String>>> samples=ClassifierFactoryTests.getSamples(3000,0);
+		DocumentVectorsModel<String> model=new DocumentVectorsModel<>();
+		model.train(samples.stream());
+		Assert.assertEquals(samples.size(),model.getSampleCount());
+		Map<Category,List<Frequencies<String>>> expected=samples.stream().collect(Collectors.groupingBy(Sample::getCategory,
+				Collectors.mapping(Sample::getData,Collectors.toList())));
+		Assert.assertEquals(expected,getDocumentVectors(model));
+		Frequencies<String> documentFrequencies=new Frequencies<>();
+		samples.forEach((sample)->sample.getData().toMap().keySet().forEach(documentFrequencies::advanceFrequency));
+		Assert.assertEquals(documentFrequencies.toMap(),model.getTotalDocumentFrequencies().toMap());
+		File directory=Files.createTempDirectory("model").toFile();
+		model.save(directory,(token)->token);
+		DocumentVectorsModel<String> loaded=new DocumentVectorsModel<>();
+		loaded.getVocabulary().getId("unrelated");
+		loaded.load(directory,(token)->token);
+		Assert.assertEquals(expected,getDocumentVectors(loaded));
+		try(Stream<Sample<Frequencies<String>>> stream=DocumentVectorsModel.read(directory,(token)->token)){
+			Assert.assertEquals(expected,stream.collect(Collectors.groupingBy(Sample::getCategory,
+					Collectors.mapping(Sample::getData,Collectors.toList()))));
+		}
+		Files.walk(directory.toPath()).sorted(Comparator.reverseOrder()).forEach((path)->path.toFile().delete());
+		Set<String> toKeep=new HashSet<>(Arrays.asList("apple","car","cat"));
+		model.retainAll(toKeep);
+		expected.values().forEach((vectors)->vectors.forEach((vector)->vector.toMap().keySet().retainAll(toKeep)));
+		Assert.assertEquals(expected,getDocumentVectors(model));
+	}
+	@Test
+	public void testLegacyFormat() throws URISyntaxException{
+		File directory=new File(ModelTests.class.getResource("legacy/MODEL").toURI()).getParentFile();
+		DocumentVectorsModel<String> model=new DocumentVectorsModel<>();
+		model.load(directory,(token)->token);
+		Map<Category,List<Frequencies<String>>> expected=new HashMap<>();
+		expected.put(new Category("food"),Arrays.asList(new Frequencies<>(Stream.of("apple","apple","pie","caf\u00e9")),new Frequencies<>(Stream.of("pie","tea"))));
+		expected.put(new Category("vehicle"),Arrays.asList(new Frequencies<>(Stream.of("car","wheel","wheel","wheel"))));
+		Assert.assertEquals(expected,getDocumentVectors(model));
+		Assert.assertEquals(new Frequencies<>(Stream.of("apple","pie","caf\u00e9","pie","tea","car","wheel")).toMap(),model.getTotalDocumentFrequencies().toMap());
+	}
+	@Test
+	public void testConcurrentTraining(){
+		List<Sample<Frequencies<String>>> samples=ClassifierFactoryTests.getSamples(20000,0);
+		for(Frequencies.Backend backend:Frequencies.Backend.values()){
+			FrequenciesModel<String> sequential=new FrequenciesModel<>(backend);
+			sequential.train(samples.stream());
+			FrequenciesModel<String> concurrent=new FrequenciesModel<>(backend);
+			concurrent.setConcurrent(true);
+			concurrent.train(samples.stream());
+			assertEquals(sequential,concurrent);
+			FrequenciesModel<String> synchronous=new FrequenciesModel<>(backend);
+			synchronous.setConcurrent(true);
+			samples.parallelStream().forEach((sample)->synchronous.train(sample.getData(),sample.getCategory()));
+			assertEquals(sequential,synchronous);
+		}
+		DocumentVectorsModel<String> sequential=new DocumentVectorsModel<>();
+		sequential.train(samples.stream());
+		DocumentVectorsModel<String> concurrent=new DocumentVectorsModel<>();
+		concurrent.setConcurrent(true);
+		concurrent.train(samples.stream());
+		Assert.assertEquals(getDocumentVectors(sequential),getDocumentVectors(concurrent));
+	}
+	@Test
+	public void testMerge() throws InterruptedException,ExecutionException{
+		List<Sample<Frequencies<String>>> samples=ClassifierFactoryTests.getSamples(5000,0);
+		List<Supplier<Stream<Sample<Frequencies<String>>>>> shards=new ArrayList<>();
+		for(int i=0;i<samples.size();i+=700){
+			List<Sample<Frequencies<String>>> shard=samples.subList(i,Math.min(i+700,samples.size()));
+			shards.add(()->shard.stream());
+		}
+		FrequenciesModel<String> sequential=new FrequenciesModel<>();
+		sequential.train(samples.stream());
+		assertEquals(sequential,ShardedTrainer.train(shards,FrequenciesModel<String>::new,3));
+		DocumentVectorsModel<String> sequentialVectors=new DocumentVectorsModel<>();
+		sequentialVectors.train(samples.stream());
+		Assert.assertEquals(getDocumentVectors(sequentialVectors),getDocumentVectors(ShardedTrainer.train(shards,DocumentVectorsModel<String>::new,3)));
+		List<DocumentVectorsModel<String>> parts=new ArrayList<>();
+		for(int i=0;i<6;i++){
+			parts.add(new DocumentVectorsModel<>());
+			parts.get(i).train(shards.get(i%3).get());
+		}
+		parts.get(0).merge(parts.get(1));
+		parts.get(0).merge(parts.get(2));
+		parts.get(4).merge(parts.get(5));
+		parts.get(3).merge(parts.get(4));
+		Assert.assertEquals(getDocumentVectors(parts.get(0)),getDocumentVectors(parts.get(3)));
+	}
+	@Test
+	public void testSharedTotals() throws InterruptedException,ExecutionException{
+		List<Sample<Frequencies<String>>> samples=ClassifierFactoryTests.getSamples(3000,0);
+		DocumentVectorsModel<String> expected=new DocumentVectorsModel<>();
+		expected.train(samples.stream());
+		DocumentVectorsModel<String> model=new DocumentVectorsModel<>();
+		model.train(samples.subList(0,1500).stream());
+		DocumentVectorsModel<String> other=new DocumentVectorsModel<>();
+		other.getVocabulary().getId("unrelated");
+		other.train(samples.subList(1500,3000).stream());
+		other.getProfiles().forEach((category,profile)->{
+			DocumentVectorsModel.VectorsProfile<String> mine=model.getProfiles().get(category);
+			if(mine!=null){
+				profile.merge(mine);
+			}
+			model.putProfile(category,profile);
+		});
+		model.getProfiles().values().forEach((profile)->Assert.assertSame(model.getVocabulary(),profile.getVocabulary()));
+		ExecutorService executor=Executors.newFixedThreadPool(4);
+		try{
+			List<Future<Map<String,Counter>>> totals=new ArrayList<>();
+			for(int i=0;i<8;i++){
+				totals.add(executor.submit(()->model.getTotalDocumentFrequencies().toMap()));
+			}
+			for(Future<Map<String,Counter>> total:totals){
+				Assert.assertEquals(expected.getTotalDocumentFrequencies().toMap(),total.get());
+			}
+		}finally{
+			executor.shutdown();
+		}
+		Assert.assertEquals(expected.getTotalTokenFrequencies().toMap(),model.getTotalTokenFrequencies().toMap());
+	}
+	@Test
+	public void testMergeProcesses() throws IOException,InterruptedException,ExecutionException{
+		List<Sample<Frequencies<String>>> samples=ClassifierFactoryTests.getSamples(300,0);
+		File directory=Files.createTempDirectory("shards").toFile();
+		List<Path> shards=new ArrayList<>();
+		for(int i=0;i<3;i++){
+			Path shard=new File(directory,"data"+i).toPath();
+			Files.write(shard,samples.subList(i*100,i*100+100).stream().map((sample)->sample.getCategory()+"\t"+
+					sample.getData().toMap().entrySet().stream().flatMap((e)->Collections.nCopies((int)e.getValue().getCount(),e.getKey()).stream()).
+					collect(Collectors.joining(" "))).collect(Collectors.toList()));
+			shards.add(shard);
+		}
+		FrequenciesModel<String> merged=ShardedTrainer.trainInProcesses(shards,Locale.ENGLISH,false,FrequenciesModel<String>::new,directory,2);
+		Function<String,Frequencies<String>> preprocessor=Starter.getDefaultPreprocessor(Locale.ENGLISH,false);
+		FrequenciesModel<String> expected=new FrequenciesModel<>();
+		shards.forEach((shard)->expected.train(TextDatasetHelper.labeledLines(shard).map((sample)->new Sample<>(preprocessor.apply(sample.getData()),sample.getCategory()))));
+		assertEquals(expected,merged);
+		Files.walk(directory.toPath()).sorted(Comparator.reverseOrder()).forEach((path)->path.toFile().delete());
+	}
+	@Test
+	public void testBinaryFormat() throws IOException{
+		List<Sample<Frequencies<String>>> samples=ClassifierFactoryTests.getSamples(3000,0);
+		FrequenciesModel<String> model=new FrequenciesModel<>();
+		model.train(samples.stream());
+		File directory=Files.createTempDirectory("model").toFile();
+		model.setFormat(FrequenciesModel.Format.BINARY).save(directory,(token)->token);
+		FrequenciesModel<String> loaded=new FrequenciesModel<>();
+		loaded.load(directory,(token)->token);
+		assertEquals(model,loaded);
+		Assert.assertEquals(model.getTotalTokenFrequencies().toMap(),loaded.getTotalTokenFrequencies().toMap());
+		FrequenciesModel<String> mapped=FrequenciesModel.map(directory,(token)->token,(token)->token);
+		assertEquals(model,mapped);
+		Assert.assertEquals(model.getTotalTokenFrequencies().toMap(),mapped.getTotalTokenFrequencies().toMap());
+		Assert.assertEquals(model.getTotalDocumentFrequencies().toMap(),mapped.getTotalDocumentFrequencies().toMap());
+		Assert.assertEquals(model.getTotalDocumentFrequencies().getFrequency("apple"),mapped.getTotalDocumentFrequencies().getFrequency("apple"));
+		Assert.assertEquals(0,mapped.getTotalTokenFrequencies().getFrequency("unrelated"));
+		model.getProfiles().forEach((category,profile)->{
+			Frequencies<String> frequencies=mapped.getProfiles().get(category).getTokenFrequencies();
+			profile.getTokenFrequencies().toMap().keySet().forEach((token)->
+					Assert.assertEquals(profile.getTokenFrequencies().getFrequency(token),frequencies.getFrequency(token)));
+			Assert.assertEquals(0,frequencies.getFrequency("unrelated"));
+		});
+		Classifier<Frequencies<String>> expected=new BayesianClassifierFactory<String>().getClassifier(model);
+		Classifier<Frequencies<String>> actual=new BayesianClassifierFactory<String>().getClassifier(mapped);
+		samples.subList(0,100).forEach((sample)->Assert.assertEquals(expected.classify(sample.getData()),actual.classify(sample.getData())));
+		try{
+			mapped.getProfiles().values().iterator().next().getTokenFrequencies().advanceFrequency("unrelated");
+			Assert.fail();
+		}catch(UnsupportedOperationException ex){
+		}
+		Assert.assertTrue(mapped.isReadOnly());
+		Assert.assertFalse(loaded.isReadOnly());
+		List<Runnable> updates=Arrays.asList(()->mapped.train(samples.get(0).getData(),samples.get(0).getCategory()),
+				()->mapped.train(samples.subList(0,10).stream()),
+				()->mapped.train(samples.get(0).getData(),new Category("unrelated")),
+				()->mapped.merge(model),
+				()->mapped.retainAll(Collections.singleton("apple")));
+		for(Runnable update:updates){
+			try{
+				update.run();
+				Assert.fail();
+			}catch(UnsupportedOperationException ex){
+			}
+		}
+		assertEquals(model,mapped);
+		Assert.assertEquals(model.getSampleCount(),mapped.getSampleCount());
+		Assert.assertEquals(model.getTotalTokenFrequencies().toMap(),mapped.getTotalTokenFrequencies().toMap());
+		Files.walk(directory.toPath()).sorted(Comparator.reverseOrder()).forEach((path)->path.toFile().delete());
+	}
+	@Test
+	public void testAggregates(){
+		List<Sample<Frequencies<String>>> samples=ClassifierFactoryTests.getSamples(3000,0);
+		List<TokenFrequenciesModel<String>> models=Arrays.asList(new FrequenciesModel<>(),new DocumentVectorsModel<>());
+		for(TokenFrequenciesModel<String> model:models){
+			Frequencies<String> documentFrequencies=model.getTotalDocumentFrequencies();
+			Frequencies<String> tokenFrequencies=model.getTotalTokenFrequencies();
+			model.train(samples.subList(0,1000).stream());
+			assertAggregates(samples.subList(0,1000),model);
+			Assert.assertEquals(documentFrequencies.toMap(),model.getTotalDocumentFrequencies().toMap());
+			Assert.assertEquals(tokenFrequencies.toMap(),model.getTotalTokenFrequencies().toMap());
+			samples.subList(1000,2000).forEach((sample)->model.train(sample.getData(),sample.getCategory()));
+			assertAggregates(samples.subList(0,2000),model);
+			((SimpleTrainableModel<Frequencies<String>,?>)model).setConcurrent(true);
+			model.train(samples.subList(2000,3000).stream());
+			assertAggregates(samples,model);
+			try{
+				model.getTotalTokenFrequencies().advanceFrequency("unrelated");
+				Assert.fail();
+			}catch(UnsupportedOperationException ex){
+			}
+			Set<String> toKeep=new HashSet<>(Arrays.asList("apple","car","cat"));
+			model.retainAll(toKeep);
+			Assert.assertEquals(toKeep,model.getTotalDocumentFrequencies().toMap().keySet());
+			Assert.assertEquals(toKeep,model.getTotalTokenFrequencies().toMap().keySet());
+		}
+	}
+	@Test
+	public void testDefaultFilter(){
+		FrequenciesModel<String> delegate=new FrequenciesModel<>();
+		TokenFrequenciesModel<String> model=new TokenFrequenciesModel<String>(){
+			@Override
+			public long getSampleCount(){
+				return delegate.getSampleCount();
+			}
+			@Override
+			public Map<Category,Frequencies<String>> getTokenFrequencies(){
+				return delegate.getTokenFrequencies();
+			}
+			@Override
+			public Frequencies<String> getTotalDocumentFrequencies(){
+				return delegate.getTotalDocumentFrequencies();
+			}
+			@Override
+			public Frequencies<String> getTotalTokenFrequencies(){
+				return delegate.getTotalTokenFrequencies();
+			}
+			@Override
+			public Frequencies<Category> getSampleCounts(){
+				return delegate.getSampleCounts();
+			}
+			@Override
+			public Frequencies<Category> getTokenCounts(){
+				return delegate.getTokenCounts();
+			}
+			@Override
+			public void retainAll(Set<String> toKeep){
+				delegate.retainAll(toKeep);
+			}
+			@Override
+			public void train(Frequencies<String> data,Category category){
+				delegate.train(data,category);
+			}
+		};
+		model.train(ClassifierFactoryTests.getSamples(300,0).stream());
+		Set<String> toKeep=new HashSet<>(Arrays.asList("apple","car","cat"));
+		Assert.assertSame(model,model.filter(toKeep));
+		Assert.assertEquals(toKeep,model.getTotalTokenFrequencies().toMap().keySet());
+	}
+	private static void assertAggregates(List<Sample<Frequencies<String>>> samples,TokenFrequenciesModel<String> model){
+		Frequencies<String> documentFrequencies=new Frequencies<>();
+		Frequencies<String> tokenFrequencies=new Frequencies<>();
+		Map<Category,Frequencies<String>> categoryTokenFrequencies=new HashMap<>();
+		samples.forEach((sample)->{
+			sample.getData().forEachFrequency((token,count)->documentFrequencies.advanceFrequency(token));
+			tokenFrequencies.merge(sample.getData());
+			categoryTokenFrequencies.computeIfAbsent(sample.getCategory(),(category)->new Frequencies<>()).merge(sample.getData());
+		});
+		Assert.assertEquals(documentFrequencies.toMap(),model.getTotalDocumentFrequencies().toMap());
+		Assert.assertEquals(tokenFrequencies.toMap(),model.getTotalTokenFrequencies().toMap());
+		Assert.assertEquals(categoryTokenFrequencies.keySet(),model.getTokenFrequencies().keySet());
+		categoryTokenFrequencies.forEach((category,frequencies)->{
+			Assert.assertEquals(frequencies.toMap(),model.getTokenFrequencies().get(category).toMap());
+			Assert.assertEquals(frequencies.getTokenCount(),model.getTokenCounts().getFrequency(category));
+		});
+	}
+	private static void assertEquals(FrequenciesModel<String> expected,FrequenciesModel<String> actual){
+		Assert.assertEquals(expected.getSampleCounts().toMap(),actual.getSampleCounts().toMap());
+		Assert.assertEquals(expected.getProfiles().keySet(),actual.getProfiles().keySet());
+		expected.getProfiles().forEach((category,profile)->{
+			Assert.assertEquals(profile.getTokenFrequencies().toMap(),actual.getProfiles().get(category).getTokenFrequencies().toMap());
+			Assert.assertEquals(profile.getDocumentFrequencies().toMap(),actual.getProfiles().get(category).getDocumentFrequencies().toMap());
+		});
+	}
+	private static Map<Category,List<Frequencies<String>>> getDocumentVectors(DocumentVectorsModel<String> model){
+		return model.getProfiles().entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
+				(e)->new ArrayList<>(e.getValue().getDocumentVectors())));
+	}
+}
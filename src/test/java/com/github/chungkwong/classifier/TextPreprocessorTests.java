@@ -15,8 +15,10 @@
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 package com.github.chungkwong.classifier;
+import com.github.chungkwong.classifier.util.*;
 import java.text.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
 import java.util.regex.*;
 import java.util.stream.*;
@@ -107,6 +109,68 @@ public class TextPreprocessorTests{
 		assertFilterTo(Stream.of("I","was","eating","balls","happily"),new String[]{"I","was","eating","balls","happily"},TextPreprocessors.getStemmer(Locale.CHINESE));
 	}
 	@Test
+	public void testConcurrentStemmer() throws Exception{
+		String[] stems=new String[]{"eat","happi","nation","walk","connect","général","bewegung","laufen","книг","работ"};
+		String[] suffixes=new String[]{"","s","ing","ed","ly","al","ations","ement","ungen","ами","ает"};
+		List<String> words=new ArrayList<>();
+		for(String stem:stems){
+			for(String suffix:suffixes){
+				words.add(stem+suffix);
+			}
+		}
+		for(Locale locale:new Locale[]{Locale.ENGLISH,Locale.FRENCH,Locale.GERMAN,Locale.forLanguageTag("ru")}){
+			List<String> expected=TextPreprocessors.getStemmer(locale).apply(words.stream()).collect(Collectors.toList());
+			assertStemConcurrently(words,expected,TextPreprocessors.getStemmer(locale));
+		}
+		List<String> expected=TextPreprocessors.getPorterStemmer().apply(words.stream()).collect(Collectors.toList());
+		assertStemConcurrently(words,expected,TextPreprocessors.getSnowballStemmer(new org.tartarus.snowball.ext.PorterStemmer()));
+	}
+	@Test
+	public void testCachedStemmer() throws Exception{
+		List<String> words=new ArrayList<>();
+		for(String stem:new String[]{"eat","happi","nation","walk","connect","general","move","run"}){
+			for(String suffix:new String[]{"","s","ing","ed","ly","al","ations","ement"}){
+				words.add(stem+suffix);
+			}
+		}
+		List<String> expected=TextPreprocessors.getStemmer(Locale.ENGLISH).apply(words.stream()).collect(Collectors.toList());
+		CachedStemmer stemmer=TextPreprocessors.getCachedStemmer(Locale.ENGLISH,1000);
+		Assert.assertEquals(expected,stemmer.apply(words.stream()).collect(Collectors.toList()));
+		Assert.assertEquals(words.size(),stemmer.getMissCount());
+		Assert.assertEquals(0,stemmer.getHitCount());
+		Assert.assertEquals(expected,stemmer.apply(words.stream()).collect(Collectors.toList()));
+		Assert.assertEquals(words.size(),stemmer.getHitCount());
+		Assert.assertEquals(0.5,stemmer.getHitRate(),1e-9);
+		assertStemConcurrently(words,expected,stemmer);
+		CachedStemmer small=TextPreprocessors.getCachedStemmer(Locale.ENGLISH,16);
+		Assert.assertEquals(expected,small.apply(words.stream()).collect(Collectors.toList()));
+		Assert.assertTrue(small.size()<=16);
+		Assert.assertEquals(words.size()-small.size(),small.getEvictionCount());
+		assertStemConcurrently(words,expected,small);
+	}
+	private void assertStemConcurrently(List<String> words,List<String> expected,Function<Stream<String>,Stream<String>> stemmer) throws Exception{
+		ExecutorService executor=Executors.newFixedThreadPool(8);
+		try{
+			List<Future<Boolean>> results=new ArrayList<>();
+			for(int i=0;i<32;i++){
+				results.add(executor.submit(()->{
+					for(int j=0;j<50;j++){
+						if(!expected.equals(stemmer.apply(words.stream()).collect(Collectors.toList()))){
+							return false;
+						}
+					}
+					return true;
+				}));
+			}
+			for(Future<Boolean> result:results){
+				Assert.assertTrue(result.get());
+			}
+			Assert.assertEquals(expected,stemmer.apply(words.parallelStream()).collect(Collectors.toList()));
+		}finally{
+			executor.shutdown();
+		}
+	}
+	@Test
 	public void testNgramGenerator(){
 		assertFilterTo(Stream.of("万","里","长","城","永","不","倒"),new String[]{"万 ","里 ","长 ","城 ","永 ","不 ","倒 "},TextPreprocessors.getNgramGenerator(1));
 		assertFilterTo(Stream.of("万","里","长","城","永","不","倒"),new String[]{"万 里 ","里 长 ","长 城 ","城 永 ","永 不 ","不 倒 "},TextPreprocessors.getNgramGenerator(2));
@@ -115,4 +179,81 @@ public class TextPreprocessorTests{
 	private void assertFilterTo(Stream<String> text,String[] tokens,Function<Stream<String>,Stream<String>> tokenizer){
 		Assert.assertArrayEquals(tokens,tokenizer.apply(text).toArray());
 	}
+	@Test
+	public void testPushPipeline(){
+		String[] texts={""," ","text"," I am a  bad girl. ","I hated you, and he hates me","我是一个大苹果","İstanbul Straße ΣΟΦΙΑ Ⅻ"};
+		Tokenizer wordTokenizer=PushPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(Locale.ENGLISH));
+		for(String text:texts){
+			assertPushTo(text,TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(Locale.ENGLISH)),wordTokenizer);
+			assertPushTo(text,TextPreprocessors.getIcuTokenizer(com.ibm.icu.text.BreakIterator.getWordInstance(Locale.CHINESE)),
+					PushPreprocessors.getIcuTokenizer(com.ibm.icu.text.BreakIterator.getWordInstance(Locale.CHINESE)));
+			for(boolean keep:new boolean[]{false,true}){
+				assertPushTo(text,TextPreprocessors.getSeparatorTokenizer(Pattern.compile("\\s+"),keep),PushPreprocessors.getSeparatorTokenizer(Pattern.compile("\\s+"),keep));
+				assertPushTo(text,TextPreprocessors.getWordTokenizer(Pattern.compile("\\w+"),keep),PushPreprocessors.getWordTokenizer(Pattern.compile("\\w+"),keep));
+			}
+			assertPushTo(text,TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(Locale.ENGLISH)).andThen(TextPreprocessors.getWhitespaceFilter())
+					.andThen(TextPreprocessors.getDowncaser()).andThen(TextPreprocessors.getStopWordsFilter(Arrays.asList("i","you")))
+					.andThen(TextPreprocessors.getStemmer(Locale.ENGLISH)).andThen(TextPreprocessors.getNgramGenerator(1,3)),
+					wordTokenizer,PushPreprocessors.getWhitespaceFilter().andThen(PushPreprocessors.getDowncaser())
+					.andThen(PushPreprocessors.getStopWordsFilter(Arrays.asList("i","you"))).andThen(PushPreprocessors.getStemmer(Locale.ENGLISH))
+					.andThen(PushPreprocessors.getNgramGenerator(1,3)));
+			assertPushTo(text,TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(Locale.ENGLISH)).andThen(TextPreprocessors.getKeepPatternFilter(Pattern.compile("\\w+")))
+					.andThen(TextPreprocessors.getUpcaser()).andThen(TextPreprocessors.getReplacer(Pattern.compile("A"),"@",false))
+					.andThen(TextPreprocessors.getSynonymGenerator(Collections.singletonMap("I",Arrays.asList("ME","MYSELF")))),
+					wordTokenizer,PushPreprocessors.getKeepPatternFilter(Pattern.compile("\\w+")).andThen(PushPreprocessors.getUpcaser())
+					.andThen(PushPreprocessors.getReplacer(Pattern.compile("A"),"@",false))
+					.andThen(PushPreprocessors.getSynonymGenerator(Collections.singletonMap("I",Arrays.asList("ME","MYSELF")))));
+			assertPushTo(text,TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(Locale.ENGLISH)).andThen(TextPreprocessors.getNgramGenerator(2)),
+					wordTokenizer,TokenFilter.of(TextPreprocessors.getNgramGenerator(2)));
+			for(Locale locale:new Locale[]{Locale.ENGLISH,Locale.forLanguageTag("tr")}){
+				assertPushTo(text,TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(locale)).andThen(TextPreprocessors.getDowncaser(locale)),
+						wordTokenizer,PushPreprocessors.getDowncaser(locale));
+				assertPushTo(text,TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(locale)).andThen(TextPreprocessors.getUpcaser(locale)),
+						wordTokenizer,PushPreprocessors.getUpcaser(locale));
+			}
+			assertPushTo(text,TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(Locale.ENGLISH)).andThen(TextPreprocessors.getFoldcaser())
+					.andThen(TextPreprocessors.getDropPatternFilter(Pattern.compile("[a-z]"))).andThen(TextPreprocessors.getProtectedWordsFilter(Arrays.asList("bad","straße","strasse","hate"))),
+					wordTokenizer,PushPreprocessors.getFoldcaser().andThen(PushPreprocessors.getDropPatternFilter(Pattern.compile("[a-z]")))
+					.andThen(PushPreprocessors.getProtectedWordsFilter(Arrays.asList("bad","straße","strasse","hate"))));
+			Assert.assertEquals(TextPreprocessors.of(TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(Locale.ENGLISH)),TextPreprocessors.getFoldcaser()).apply(text),
+					PushPreprocessors.of(wordTokenizer,PushPreprocessors.getFoldcaser()).apply(text));
+			Assert.assertEquals(TextPreprocessors.of(TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(Locale.ENGLISH)),TextPreprocessors.getFoldcaser(),new Vocabulary<>(),true).apply(text),
+					PushPreprocessors.of(wordTokenizer,PushPreprocessors.getFoldcaser(),new Vocabulary<>(),true).apply(text));
+		}
+		Vocabulary<String> vocabulary=new Vocabulary<>();
+		PushPreprocessors.of(wordTokenizer,PushPreprocessors.getWhitespaceFilter(),vocabulary,true).apply("to be or not");
+		Assert.assertEquals(4,vocabulary.size());
+		Function<String,SparseVector> streamVectorizer=TextPreprocessors.of(TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(Locale.ENGLISH)),
+				TextPreprocessors.getWhitespaceFilter(),vocabulary,false);
+		Function<String,SparseVector> pushVectorizer=PushPreprocessors.of(wordTokenizer,PushPreprocessors.getWhitespaceFilter(),vocabulary,false);
+		SparseVector expected=SparseVector.of(new int[]{0,1},new long[]{2,2});
+		Assert.assertEquals(expected,streamVectorizer.apply("to be, that is the question: to be"));
+		Assert.assertEquals(expected,pushVectorizer.apply("to be, that is the question: to be"));
+		Assert.assertEquals(4,vocabulary.size());
+		Function<String,Frequencies<String>> english=TextPreprocessors.of(TextPreprocessors.getJavaNormalizier(Normalizer.Form.NFKC),
+				TextPreprocessors.getJavaTokenizer(BreakIterator.getWordInstance(Locale.ENGLISH)),
+				TextPreprocessors.getWhitespaceFilter().andThen(TextPreprocessors.getFoldcaser()).andThen(TextPreprocessors.getStemmer(Locale.ENGLISH)));
+		Function<String,Frequencies<String>> chinese=TextPreprocessors.of(TextPreprocessors.getJavaNormalizier(Normalizer.Form.NFKC).andThen(TextPreprocessors.getIcuTransformer("Traditional-Simplified")),
+				TextPreprocessors.getJavaTokenizer(BreakIterator.getCharacterInstance(Locale.CHINESE)),
+				TextPreprocessors.getWhitespaceFilter().andThen(TextPreprocessors.getFoldcaser()).andThen(TextPreprocessors.getNgramGenerator(2)));
+		for(String text:texts){
+			Assert.assertEquals(english.apply(text),Starter.getDefaultPreprocessor(Locale.ENGLISH,true).apply(text));
+			Assert.assertEquals(chinese.apply(text),Starter.getDefaultPreprocessor(Locale.CHINESE,false).apply(text));
+		}
+		List<String> tokens=new ArrayList<>();
+		TokenSink sink=PushPreprocessors.getNgramGenerator(2,4).wrap(tokens::add);
+		Tokenizer.of(TextPreprocessors.getJavaTokenizer(BreakIterator.getCharacterInstance(Locale.CHINESE))).tokenize("万里长城永不倒",sink);
+		sink.end();
+		Assert.assertEquals(Arrays.asList("万 里 ","里 长 ","长 城 ","万 里 长 城 ","城 永 ","里 长 城 永 ","永 不 ","长 城 永 不 ","不 倒 ","城 永 不 倒 "),tokens);
+	}
+	private void assertPushTo(String text,Function<String,Stream<String>> expected,Tokenizer tokenizer){
+		assertPushTo(text,expected,tokenizer,TokenFilter.identity());
+	}
+	private void assertPushTo(String text,Function<String,Stream<String>> expected,Tokenizer tokenizer,TokenFilter filter){
+		List<String> tokens=new ArrayList<>();
+		TokenSink sink=filter.wrap(tokens::add);
+		tokenizer.tokenize(text,sink);
+		sink.end();
+		Assert.assertEquals(expected.apply(text).collect(Collectors.toList()),tokens);
+	}
 }
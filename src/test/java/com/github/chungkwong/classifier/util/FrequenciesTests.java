@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import org.junit.*;
+/**
+ *
+ * @author Chan Chung Kwong
+ */
+public class FrequenciesTests{
+	public FrequenciesTests(){
+	}
+	@Test
+	public void testBackends(){
+		Random random=new Random(1);
+		Frequencies<String> reference=new Frequencies<>(Frequencies.Backend.HASH_MAP);
+		Frequencies<String> tree=new Frequencies<>(Frequencies.Backend.TREE_MAP);
+		Frequencies<String> open=new Frequencies<>(Frequencies.Backend.OPEN_ADDRESSING);
+		for(int i=0;i<100000;i++){
+			String token=Integer.toString(random.nextInt(5000));
+			long times=random.nextInt(3)+1;
+			reference.advanceFrequency(token,times);
+			tree.advanceFrequency(token,times);
+			open.advanceFrequency(token,times);
+			if(i%97==0){
+				String removed=Integer.toString(random.nextInt(5000));
+				reference.reset(removed);
+				tree.reset(removed);
+				open.reset(removed);
+			}
+		}
+		assertSame(reference,tree);
+		assertSame(reference,open);
+		Assert.assertEquals(0,open.getFrequency("not a token"));
+		Assert.assertEquals(tree.toSortedMap(),open.toSortedMap());
+	}
+	@Test
+	public void testRetain(){
+		Frequencies<String> reference=new Frequencies<>(Frequencies.Backend.HASH_MAP);
+		Frequencies<String> open=new Frequencies<>(Frequencies.Backend.OPEN_ADDRESSING);
+		for(int i=0;i<1000;i++){
+			reference.advanceFrequency(Integer.toString(i%300),i);
+			open.advanceFrequency(Integer.toString(i%300),i);
+		}
+		Set<String> toKeep=new HashSet<>();
+		for(int i=0;i<300;i+=7){
+			toKeep.add(Integer.toString(i));
+		}
+		reference.toMap().keySet().retainAll(toKeep);
+		open.toMap().keySet().retainAll(toKeep);
+		assertSame(reference,open);
+		for(int i=0;i<1000;i++){
+			reference.advanceFrequency(Integer.toString(i),1);
+			open.advanceFrequency(Integer.toString(i),1);
+		}
+		assertSame(reference,open);
+	}
+	@Test
+	public void testPutPastResize(){
+		ObjectLongHashMap<String> map=new ObjectLongHashMap<>();
+		for(int i=0;i<1000;i++){
+			map.putLong(Integer.toString(i),i+1);
+		}
+		Assert.assertEquals(1000,map.size());
+		for(int i=0;i<1000;i++){
+			Assert.assertEquals(i+1,map.getLong(Integer.toString(i)));
+		}
+	}
+	@Test
+	public void testReadOnlyViews(){
+		Frequencies<String> table=new Frequencies<>(Frequencies.Backend.HASH_MAP);
+		table.advanceFrequency("a",2);
+		Vocabulary<String> vocabulary=new Vocabulary<>();
+		IntFrequencies ids=new IntFrequencies();
+		ids.advanceFrequency(vocabulary.getId("a"),2);
+		List<Frequencies<String>> views=Arrays.asList(table.toUnmodifiable(),
+				new Frequencies<>(new FilteredCountMap<>(table,Collections.singleton("a"))),
+				new Frequencies<>(new VocabularyCountMap<>(vocabulary,ids)),
+				new Frequencies<>(new MappedCountMap<>(new MappedVocabulary(IntBuffer.wrap(new int[]{0,1}),ByteBuffer.wrap(new byte[]{'a'})),
+						LongBuffer.wrap(new long[]{2}),1,(token)->token,(token)->token)));
+		for(Frequencies<String> view:views){
+			Assert.assertFalse(view.isModifiable());
+			assertRejected(()->view.advanceFrequency("a"));
+			assertRejected(()->view.advanceFrequency("a",3));
+			assertRejected(()->view.advanceFrequency("b"));
+			assertRejected(()->view.merge(table));
+			assertRejected(()->view.reset("a"));
+			Assert.assertEquals(2,view.getFrequency("a"));
+			Assert.assertEquals(0,view.getFrequency("b"));
+		}
+		Assert.assertEquals(2,table.getFrequency("a"));
+		Assert.assertTrue(table.isModifiable());
+		Assert.assertTrue(new Frequencies<>(Frequencies.Backend.OPEN_ADDRESSING).isModifiable());
+	}
+	private static void assertRejected(Runnable update){
+		try{
+			update.run();
+			Assert.fail();
+		}catch(UnsupportedOperationException ex){
+		}
+	}
+	@Test
+	public void testSerialization() throws IOException,ClassNotFoundException{
+		Frequencies<String> open=new Frequencies<>(Frequencies.Backend.OPEN_ADDRESSING);
+		open.advanceFrequency("a",3);
+		open.advanceFrequency("b");
+		open.reset("a");
+		open.advanceFrequency("c",5);
+		ByteArrayOutputStream buf=new ByteArrayOutputStream();
+		try(ObjectOutputStream out=new ObjectOutputStream(buf)){
+			out.writeObject(open);
+		}
+		try(ObjectInputStream in=new ObjectInputStream(new ByteArrayInputStream(buf.toByteArray()))){
+			assertSame(open,(Frequencies<String>)in.readObject());
+		}
+	}
+	private static void assertSame(Frequencies<String> expected,Frequencies<String> actual){
+		Assert.assertEquals(expected,actual);
+		Assert.assertEquals(expected.getTokenCount(),actual.getTokenCount());
+		expected.forEachFrequency((k,v)->Assert.assertEquals(v,actual.getFrequency(k)));
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 Chan Chung Kwong
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.chungkwong.classifier.util;
+import java.util.stream.*;
+import org.junit.*;
+/**
+ *
+ * @author Chan Chung Kwong
+ */
+public class VocabularyTests{
+	public VocabularyTests(){
+	}
+	@Test
+	public void testIds(){
+		Vocabulary<String> vocabulary=new Vocabulary<>();
+		Assert.assertEquals(0,vocabulary.getId("to"));
+		Assert.assertEquals(1,vocabulary.getId("be"));
+		Assert.assertEquals(0,vocabulary.getId("to"));
+		Assert.assertEquals(-1,vocabulary.getIdIfPresent("or"));
+		Assert.assertEquals(2,vocabulary.size());
+		Assert.assertEquals("be",vocabulary.getToken(1));
+		for(int i=0;i<1000;i++){
+			Assert.assertEquals(i+2,vocabulary.getId(Integer.toString(i)));
+		}
+		Assert.assertEquals(1,vocabulary.getIdIfPresent("be"));
+	}
+	@Test
+	public void testCopy(){
+		Vocabulary<String> vocabulary=new Vocabulary<>();
+		vocabulary.getId("to");
+		vocabulary.getId("be");
+		Vocabulary<String> copy=vocabulary.copy();
+		vocabulary.getId("or");
+		Assert.assertEquals(2,copy.size());
+		Assert.assertEquals(1,copy.getIdIfPresent("be"));
+		Assert.assertEquals(-1,copy.getIdIfPresent("or"));
+		Assert.assertEquals(3,vocabulary.size());
+	}
+	@Test
+	public void testSliceIds(){
+		Vocabulary<String> vocabulary=new Vocabulary<>();
+		String text="to be or not to be";
+		Assert.assertEquals(-1,vocabulary.getIdIfPresent(text,0,2));
+		Assert.assertEquals(0,vocabulary.getId(text,0,2));
+		Assert.assertEquals(1,vocabulary.getId(new StringBuilder(text),3,5));
+		Assert.assertEquals(0,vocabulary.getId(text,13,15));
+		Assert.assertEquals(1,vocabulary.getIdIfPresent(text,16,18));
+		Assert.assertEquals(-1,vocabulary.getIdIfPresent(text,3,4));
+		Assert.assertEquals(2,vocabulary.getId(text,0,0));
+		Assert.assertEquals("",vocabulary.getToken(2));
+		Assert.assertEquals(1,vocabulary.getId("be"));
+	}
+	@Test
+	public void testVector(){
+		Vocabulary<String> vocabulary=new Vocabulary<>();
+		vocabulary.getId("not");
+		SparseVector vector=vocabulary.toVector(Stream.of("to","be","or","not","to","be"));
+		Assert.assertEquals(SparseVector.of(new int[]{0,1,2,3},new long[]{1,2,2,1}),vector);
+		Assert.assertEquals(6,vector.getTotalCount());
+		Assert.assertEquals(2,vector.getFrequency(vocabulary.getId("be")));
+		Frequencies<String> frequencies=new Frequencies<>(Stream.of("to","be","or","not","to","be"));
+		Assert.assertEquals(vector,vocabulary.toVector(frequencies,false));
+		Assert.assertEquals(frequencies,vocabulary.toFrequencies(vector));
+		frequencies.advanceFrequency("question");
+		Assert.assertEquals(vector,vocabulary.toVector(frequencies,false));
+		Assert.assertEquals(5,vocabulary.toVector(frequencies,true).getTokenCount());
+	}
+	@Test
+	public void testIntFrequencies(){
+		IntFrequencies frequencies=new IntFrequencies(1);
+		frequencies.merge(SparseVector.of(new int[]{1,5,100},new long[]{1,2,3}));
+		frequencies.advanceFrequency(5,-2);
+		frequencies.advanceFrequency(7,4);
+		Assert.assertEquals(3,frequencies.getTokenCount());
+		Assert.assertEquals(0,frequencies.getFrequency(5));
+		Assert.assertEquals(3,frequencies.getFrequency(100));
+		Assert.assertEquals(0,frequencies.getFrequency(1000));
+		Assert.assertEquals("{1=1, 7=4, 100=3}",frequencies.toString());
+	}
+}